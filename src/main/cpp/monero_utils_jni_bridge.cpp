@@ -27,63 +27,6 @@
 
 using namespace std;
 
-JNIEXPORT jbyteArray JNICALL Java_monero_common_MoneroUtils_jsonToBinaryJni(JNIEnv *env, jclass clazz, jstring json) {
-
-  // convert json jstring to string
-  string json_str = jstring2string(env, json);
-  //string json_str = "{\"heights\":[123456,1234567,870987]}";
-
-  // convert json to monero's portable storage binary format
-  string bin_str;
-  monero_utils::json_to_binary(json_str, bin_str);
-
-  // convert binary string to jbyteArray
-  jbyteArray result = env->NewByteArray(bin_str.length());
-  if (result == NULL) {
-     return NULL; // out of memory error thrown
-  }
-
-  // fill a temp structure to use to populate the java byte array
-  jbyte fill[bin_str.length()];
-  for (int i = 0; i < bin_str.length(); i++) {
-     fill[i] = bin_str[i];
-  }
-  env->SetByteArrayRegion(result, 0, bin_str.length(), fill);
-  return result;
-}
-
-JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_binaryToJsonJni(JNIEnv *env, jclass clazz, jbyteArray bin) {
-
-  // convert the jbyteArray to a string
-  int binLength = env->GetArrayLength(bin);
-  jboolean is_copy;
-  jbyte* jbytes = env->GetByteArrayElements(bin, &is_copy);
-  string bin_str = string((char*) jbytes, binLength);
-
-  // convert monero's portable storage binary format to json
-  string json_str;
-  monero_utils::binary_to_json(bin_str, json_str);
-
-  // convert string to jstring
-  return env->NewStringUTF(json_str.c_str());
-}
-
-JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_binaryBlocksToJsonJni(JNIEnv *env, jclass clazz, jbyteArray blocks_bin) {
-
-  // convert the jbyteArray to a string
-  int binLength = env->GetArrayLength(blocks_bin);
-  jboolean is_copy;
-  jbyte* jbytes = env->GetByteArrayElements(blocks_bin, &is_copy);
-  string bin_str = string((char*) jbytes, binLength);
-
-  // convert monero's portable storage binary format to json
-  string json_str;
-  monero_utils::binary_blocks_to_json(bin_str, json_str);
-
-  // convert string to jstring
-  return env->NewStringUTF(json_str.c_str());
-}
-
 // credit: https://stackoverflow.com/questions/41820039/jstringjni-to-stdstringc-with-utf8-characters
 std::string jstring2string(JNIEnv *env, jstring jStr) {
   if (!jStr) return "";
@@ -32,12 +32,6 @@ std::string jstring2string(JNIEnv *env, jstring jStr);
 extern "C" {
 #endif
 
-JNIEXPORT jbyteArray JNICALL Java_monero_common_MoneroUtils_jsonToBinaryJni(JNIEnv *, jclass, jstring);
-
-JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_binaryToJsonJni(JNIEnv *, jclass, jbyteArray);
-
-JNIEXPORT jstring JNICALL Java_monero_common_MoneroUtils_binaryBlocksToJsonJni(JNIEnv *, jclass, jbyteArray);
-
 JNIEXPORT void JNICALL Java_monero_common_MoneroUtils_initLoggingJni(JNIEnv *, jclass, jstring jpath, jboolean);
 
 JNIEXPORT void JNICALL Java_monero_common_MoneroUtils_setLogLevelJni(JNIEnv *, jclass, jint);
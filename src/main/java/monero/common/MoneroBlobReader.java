@@ -0,0 +1,520 @@
+package monero.common;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.jcajce.provider.digest.Keccak;
+
+import monero.daemon.model.MoneroBlock;
+import monero.daemon.model.MoneroKeyImage;
+import monero.daemon.model.MoneroOutput;
+import monero.daemon.model.MoneroTx;
+
+/**
+ * Reads blocks and transactions from Monero's binary blob serialization.
+ *
+ * Transactions are read through their prefix and the base of their RingCT
+ * signatures.  The prunable part of RingCT signatures is not read.
+ *
+ * Fields are initialized the way the daemon's JSON decodes them, e.g. RCT
+ * signatures are a map with "type", "txnFee", "ecdhInfo", and "outPk" entries,
+ * and the input of miner transactions is ignored.
+ *
+ * Block and transaction hashes can be computed from blobs with getBlockHash()
+ * and getTxHash(), e.g. to verify blocks fetched in bulk.
+ */
+public class MoneroBlobReader {
+
+  // input and output tags
+  static final int TXIN_GEN = 0xff;
+  static final int TXIN_TO_KEY = 0x02;
+  static final int TXOUT_TO_KEY = 0x02;
+  static final int TXOUT_TO_TAGGED_KEY = 0x03;
+
+  // RingCT types
+  static final int RCT_TYPE_NULL = 0;
+  static final int RCT_TYPE_FULL = 1;
+  static final int RCT_TYPE_SIMPLE = 2;
+  static final int RCT_TYPE_BULLETPROOF = 3;
+  static final int RCT_TYPE_BULLETPROOF2 = 4;
+  static final int RCT_TYPE_CLSAG = 5;
+  static final int RCT_TYPE_BULLETPROOF_PLUS = 6;
+
+  private static final int HASH_LENGTH = 32;
+  private static final byte[] NULL_HASH = new byte[HASH_LENGTH];
+
+  // block 202612 on mainnet has a hash which differs from its computed hash
+  private static final String BLOCK_202612_BLOB_HASH = "3a8a2b3a29b50fc86ff73dd087ea43c6f0d6b8f936c849194d5c84c737903966";
+  private static final String BLOCK_202612_HASH = "bbd604d2ba11ba27935e006ed39c9bfdd99b76bf4a50654bc1e1e61217962698";
+
+  private byte[] bytes;
+  private int position;
+  private int limit;
+
+  // layout of the last tx read
+  private int txVersion;
+  private int txPrefixEnd;
+  private int txBaseEnd;
+  private int txRctType;
+  private boolean txIsPruned;
+
+  /**
+   * Construct a reader of the given bytes.
+   *
+   * @param bytes are the bytes to read
+   */
+  public MoneroBlobReader(byte[] bytes) {
+    this(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Construct a reader of the given hex.
+   *
+   * @param hex is the hex of the bytes to read
+   */
+  public MoneroBlobReader(String hex) {
+    this(hexToBytes(hex));
+  }
+
+  /**
+   * Construct a reader of a range of the given bytes.
+   *
+   * @param bytes contains the bytes to read
+   * @param offset is the index of the first byte to read
+   * @param length is the number of bytes to read
+   */
+  public MoneroBlobReader(byte[] bytes, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > bytes.length) throw new MoneroError("Invalid blob range: offset=" + offset + ", length=" + length);
+    this.bytes = bytes;
+    this.position = offset;
+    this.limit = offset + length;
+  }
+
+  /**
+   * Read a block from a blob.
+   *
+   * @param blob is the block's blob
+   * @return the block with its header, miner tx, and tx hashes
+   */
+  public static MoneroBlock readBlock(byte[] blob) {
+    MoneroBlobReader reader = new MoneroBlobReader(blob);
+    MoneroBlock block = reader.readBlock();
+    reader.assertFullyRead();
+    return block;
+  }
+
+  /**
+   * Read a block from a hex blob.
+   *
+   * @param blockHex is the block's blob in hex
+   * @return the block with its header, miner tx, and tx hashes
+   */
+  public static MoneroBlock readBlock(String blockHex) {
+    MoneroBlobReader reader = new MoneroBlobReader(blockHex);
+    MoneroBlock block = reader.readBlock();
+    reader.assertFullyRead();
+    return block;
+  }
+
+  /**
+   * Read a transaction from a blob.
+   *
+   * @param blob is the transaction's blob, which may be pruned
+   * @return the transaction
+   */
+  public static MoneroTx readTx(byte[] blob) {
+    return new MoneroBlobReader(blob).readTx();
+  }
+
+  /**
+   * Read a transaction from a hex blob.
+   *
+   * @param txHex is the transaction's blob in hex, which may be pruned
+   * @return the transaction
+   */
+  public static MoneroTx readTx(String txHex) {
+    return new MoneroBlobReader(txHex).readTx();
+  }
+
+  /**
+   * Compute a block's hash (i.e. id) from its blob.
+   *
+   * The hash covers the block's header, the tree hash of its miner tx and tx
+   * hashes, and its number of txs.
+   *
+   * @param blob is the block's blob
+   * @return the block's hash in hex
+   */
+  public static String getBlockHash(byte[] blob) {
+    MoneroBlobReader reader = new MoneroBlobReader(blob);
+    reader.readVarint();  // major version
+    reader.readVarint();  // minor version
+    reader.readVarint();  // timestamp
+    reader.require(HASH_LENGTH + 4);  // prev id and nonce
+    reader.position += HASH_LENGTH + 4;
+    int headerEnd = reader.position;
+    reader.readTx();
+    List<byte[]> hashes = new ArrayList<byte[]>();
+    hashes.add(reader.getTxHash(headerEnd, reader.position));
+    long numTxs = reader.readCount();
+    for (long i = 0; i < numTxs; i++) {
+      reader.require(HASH_LENGTH);
+      hashes.add(Arrays.copyOfRange(blob, reader.position, reader.position + HASH_LENGTH));
+      reader.position += HASH_LENGTH;
+    }
+    reader.assertFullyRead();
+
+    // block 202612 on mainnet is identified by the hash of its full blob
+    if (MoneroUtils.bytesToHex(keccak(blob, 0, blob.length)).equals(BLOCK_202612_BLOB_HASH)) return BLOCK_202612_HASH;
+
+    // hash the hashing blob prefixed with its length
+    ByteArrayOutputStream hashingBlob = new ByteArrayOutputStream();
+    hashingBlob.write(blob, 0, headerEnd);
+    hashingBlob.write(getTreeHash(hashes), 0, HASH_LENGTH);
+    writeVarint(hashingBlob, numTxs + 1);
+    ByteArrayOutputStream prefixedBlob = new ByteArrayOutputStream();
+    writeVarint(prefixedBlob, hashingBlob.size());
+    prefixedBlob.write(hashingBlob.toByteArray(), 0, hashingBlob.size());
+    byte[] bytes = prefixedBlob.toByteArray();
+    return MoneroUtils.bytesToHex(keccak(bytes, 0, bytes.length));
+  }
+
+  /**
+   * Compute a block's hash (i.e. id) from its hex blob.
+   *
+   * @param blockHex is the block's blob in hex
+   * @return the block's hash in hex
+   */
+  public static String getBlockHash(String blockHex) {
+    return getBlockHash(hexToBytes(blockHex));
+  }
+
+  /**
+   * Compute a transaction's hash from its full blob.
+   *
+   * @param blob is the transaction's full blob, which cannot be pruned
+   * @return the transaction's hash in hex
+   */
+  public static String getTxHash(byte[] blob) {
+    MoneroBlobReader reader = new MoneroBlobReader(blob);
+    reader.readTx();
+    return MoneroUtils.bytesToHex(reader.getTxHash(0, blob.length));
+  }
+
+  /**
+   * Compute a transaction's hash from its full hex blob.
+   *
+   * @param txHex is the transaction's full blob in hex, which cannot be pruned
+   * @return the transaction's hash in hex
+   */
+  public static String getTxHash(String txHex) {
+    return getTxHash(hexToBytes(txHex));
+  }
+
+  /**
+   * Compute the Merkle tree hash of transaction hashes as in a block's id.
+   *
+   * @param txHashes are the miner tx hash followed by the block's tx hashes, in hex
+   * @return the tree hash in hex
+   */
+  public static String getTxTreeHash(List<String> txHashes) {
+    List<byte[]> hashes = new ArrayList<byte[]>(txHashes.size());
+    for (String txHash : txHashes) {
+      byte[] hash = hexToBytes(txHash);
+      if (hash.length != HASH_LENGTH) throw new MoneroError("Invalid tx hash: " + txHash);
+      hashes.add(hash);
+    }
+    return MoneroUtils.bytesToHex(getTreeHash(hashes));
+  }
+
+  public int getPosition() {
+    return position;
+  }
+
+  public boolean hasRemaining() {
+    return position < limit;
+  }
+
+  /**
+   * Read a block.
+   *
+   * @return the block with its header, miner tx, and tx hashes
+   */
+  public MoneroBlock readBlock() {
+    MoneroBlock block = new MoneroBlock();
+    block.setMajorVersion((int) readVarint());
+    block.setMinorVersion((int) readVarint());
+    block.setTimestamp(readVarint());
+    block.setPrevHash(readHash());
+    block.setNonce(readInt());
+    block.setMinerTx(readTx().setIsMinerTx(true));
+    long numTxs = readCount();
+    List<String> txHashes = new ArrayList<String>((int) numTxs);
+    for (long i = 0; i < numTxs; i++) txHashes.add(readHash());
+    block.setTxHashes(txHashes);
+    return block;
+  }
+
+  /**
+   * Read a transaction through the base of its RingCT signatures.
+   *
+   * Version 1 transactions are read through their signatures unless pruned.
+   *
+   * @return the transaction
+   */
+  public MoneroTx readTx() {
+    return readTx(new MoneroTx());
+  }
+
+  /**
+   * Read a transaction's fields into a given transaction.
+   *
+   * @param tx is the transaction to initialize with the fields read
+   * @return the given transaction
+   */
+  public MoneroTx readTx(MoneroTx tx) {
+    txVersion = (int) readVarint();
+    tx.setVersion(txVersion);
+    tx.setUnlockHeight(readVarint());
+
+    // read inputs
+    long numInputs = readCount();
+    List<MoneroOutput> inputs = new ArrayList<MoneroOutput>((int) numInputs);
+    boolean hasMinerInput = false;
+    for (long i = 0; i < numInputs; i++) {
+      int tag = readByte();
+      if (tag == TXIN_GEN) {
+        readVarint();  // height
+        hasMinerInput = true;
+      } else if (tag == TXIN_TO_KEY) {
+        MoneroOutput input = new MoneroOutput().setTx(tx);
+        input.setAmount(readAmount());
+        long numOffsets = readCount();
+        List<Integer> ringOutputIndices = new ArrayList<Integer>((int) numOffsets);
+        for (long j = 0; j < numOffsets; j++) ringOutputIndices.add((int) readVarint());
+        input.setRingOutputIndices(ringOutputIndices);
+        input.setKeyImage(new MoneroKeyImage(readHash()));
+        inputs.add(input);
+      } else {
+        throw new MoneroError("Unsupported tx input type: " + tag);
+      }
+    }
+    if (hasMinerInput) {  // ignore miner input like the daemon's json
+      if (!inputs.isEmpty()) throw new MoneroError("Tx has both miner and key inputs");
+    } else {
+      tx.setInputs(inputs);
+    }
+
+    // read outputs
+    long numOutputs = readCount();
+    List<MoneroOutput> outputs = new ArrayList<MoneroOutput>((int) numOutputs);
+    for (long i = 0; i < numOutputs; i++) {
+      MoneroOutput output = new MoneroOutput().setTx(tx);
+      output.setAmount(readAmount());
+      int tag = readByte();
+      if (tag != TXOUT_TO_KEY && tag != TXOUT_TO_TAGGED_KEY) throw new MoneroError("Unsupported tx output type: " + tag);
+      output.setStealthPublicKey(readHash());
+      if (tag == TXOUT_TO_TAGGED_KEY) readByte();  // view tag
+      outputs.add(output);
+    }
+    tx.setOutputs(outputs);
+
+    // read extra
+    long extraLength = readCount();
+    int[] extra = new int[(int) extraLength];
+    for (int i = 0; i < extra.length; i++) extra[i] = readByte();
+    tx.setExtra(extra);
+    txPrefixEnd = position;
+
+    // read signatures
+    txRctType = RCT_TYPE_NULL;
+    txIsPruned = false;
+    if (txVersion == 1) readSignatures(tx);
+    else readRctSignaturesBase(tx, (int) numInputs, (int) numOutputs);
+    txBaseEnd = position;
+    return tx;
+  }
+
+  /**
+   * Read a variable length integer which is encoded 7 bits per byte, least
+   * significant first.
+   *
+   * @return the integer's unsigned 64 bits
+   */
+  public long readVarint() {
+    long val = 0;
+    for (int shift = 0; ; shift += 7) {
+      if (shift > 63) throw new MoneroError("Blob varint exceeds 64 bits");
+      int b = readByte();
+      val |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) return val;
+    }
+  }
+
+  // --------------------------------- PRIVATE --------------------------------
+
+  private void readSignatures(MoneroTx tx) {
+    if (tx.getInputs() == null) return;  // miner input has no signatures
+    if (hasRemaining()) {  // pruned blob ends after prefix
+      List<String> signatures = new ArrayList<String>(tx.getInputs().size());
+      for (MoneroOutput input : tx.getInputs()) signatures.add(readHex(input.getRingOutputIndices().size() * 2 * HASH_LENGTH));
+      tx.setSignatures(signatures);
+    } else {
+      txIsPruned = true;
+    }
+
+    // fee is the difference between input and output amounts
+    BigInteger fee = BigInteger.ZERO;
+    for (MoneroOutput input : tx.getInputs()) fee = fee.add(input.getAmount());
+    for (MoneroOutput output : tx.getOutputs()) fee = fee.subtract(output.getAmount());
+    tx.setFee(fee);
+  }
+
+  private void readRctSignaturesBase(MoneroTx tx, int numInputs, int numOutputs) {
+    Map<String, Object> rctSignatures = new HashMap<String, Object>();
+    int type = readByte();
+    txRctType = type;
+    rctSignatures.put("type", BigInteger.valueOf(type));
+    tx.setRctSignatures(rctSignatures);
+    if (type == RCT_TYPE_NULL) return;
+    if (type > RCT_TYPE_BULLETPROOF_PLUS) throw new MoneroError("Unsupported RCT type: " + type);
+    BigInteger fee = readAmount();
+    rctSignatures.put("txnFee", fee);
+    tx.setFee(fee);
+    if (type == RCT_TYPE_SIMPLE) {
+      List<String> pseudoOuts = new ArrayList<String>(numInputs);
+      for (int i = 0; i < numInputs; i++) pseudoOuts.add(readHash());
+      rctSignatures.put("pseudoOuts", pseudoOuts);
+    }
+    boolean isCompact = type == RCT_TYPE_BULLETPROOF2 || type == RCT_TYPE_CLSAG || type == RCT_TYPE_BULLETPROOF_PLUS;
+    List<Map<String, Object>> ecdhInfo = new ArrayList<Map<String, Object>>(numOutputs);
+    for (int i = 0; i < numOutputs; i++) {
+      Map<String, Object> ecdhTuple = new HashMap<String, Object>();
+      if (isCompact) ecdhTuple.put("amount", readHex(8));
+      else {
+        ecdhTuple.put("mask", readHash());
+        ecdhTuple.put("amount", readHash());
+      }
+      ecdhInfo.add(ecdhTuple);
+    }
+    rctSignatures.put("ecdhInfo", ecdhInfo);
+    List<String> outPk = new ArrayList<String>(numOutputs);
+    for (int i = 0; i < numOutputs; i++) outPk.add(readHash());
+    rctSignatures.put("outPk", outPk);
+  }
+
+  /**
+   * Computes the hash of the last tx read, which spans the given range.
+   *
+   * A version 1 tx is hashed whole.  Later versions hash the hashes of their
+   * prefix, RingCT signatures base, and prunable RingCT signatures.
+   */
+  private byte[] getTxHash(int start, int end) {
+    if (txVersion == 1) {
+      if (txIsPruned) throw new MoneroError("Cannot compute hash of pruned tx");
+      return keccak(bytes, start, end - start);
+    }
+    if (txRctType != RCT_TYPE_NULL && txBaseEnd == end) throw new MoneroError("Cannot compute hash of pruned tx");
+    byte[] hashes = new byte[3 * HASH_LENGTH];
+    System.arraycopy(keccak(bytes, start, txPrefixEnd - start), 0, hashes, 0, HASH_LENGTH);
+    System.arraycopy(keccak(bytes, txPrefixEnd, txBaseEnd - txPrefixEnd), 0, hashes, HASH_LENGTH, HASH_LENGTH);
+    System.arraycopy(txRctType == RCT_TYPE_NULL ? NULL_HASH : keccak(bytes, txBaseEnd, end - txBaseEnd), 0, hashes, 2 * HASH_LENGTH, HASH_LENGTH);
+    return keccak(hashes, 0, hashes.length);
+  }
+
+  /**
+   * Computes the tree hash of the given hashes like Monero's tree_hash().
+   */
+  private static byte[] getTreeHash(List<byte[]> hashes) {
+    int count = hashes.size();
+    if (count == 0) throw new MoneroError("Cannot compute tree hash of no hashes");
+    if (count == 1) return hashes.get(0);
+    if (count == 2) return keccakPair(hashes.get(0), hashes.get(1));
+    int cnt = Integer.highestOneBit(count - 1);  // largest power of 2 less than count
+    byte[][] ints = new byte[cnt][];
+    int numUnpaired = 2 * cnt - count;
+    for (int i = 0; i < numUnpaired; i++) ints[i] = hashes.get(i);
+    for (int i = numUnpaired, j = numUnpaired; j < cnt; i += 2, j++) ints[j] = keccakPair(hashes.get(i), hashes.get(i + 1));
+    while (cnt > 2) {
+      cnt >>= 1;
+      for (int i = 0, j = 0; j < cnt; i += 2, j++) ints[j] = keccakPair(ints[i], ints[i + 1]);
+    }
+    return keccakPair(ints[0], ints[1]);
+  }
+
+  private static byte[] keccakPair(byte[] hash1, byte[] hash2) {
+    byte[] pair = new byte[2 * HASH_LENGTH];
+    System.arraycopy(hash1, 0, pair, 0, HASH_LENGTH);
+    System.arraycopy(hash2, 0, pair, HASH_LENGTH, HASH_LENGTH);
+    return keccak(pair, 0, pair.length);
+  }
+
+  private static byte[] keccak(byte[] bytes, int offset, int length) {
+    Keccak.Digest256 digest = new Keccak.Digest256();
+    digest.update(bytes, offset, length);
+    return digest.digest();
+  }
+
+  private static void writeVarint(ByteArrayOutputStream stream, long val) {
+    while ((val & ~0x7fl) != 0) {
+      stream.write((int) ((val & 0x7f) | 0x80));
+      val >>>= 7;
+    }
+    stream.write((int) val);
+  }
+
+  private void assertFullyRead() {
+    if (hasRemaining()) throw new MoneroError("Blob has " + (limit - position) + " unexpected trailing bytes");
+  }
+
+  private BigInteger readAmount() {
+    long amount = readVarint();
+    return amount >= 0 ? BigInteger.valueOf(amount) : new BigInteger(Long.toUnsignedString(amount));
+  }
+
+  /**
+   * Reads a count which cannot exceed the number of remaining bytes.
+   */
+  private long readCount() {
+    long count = readVarint();
+    if (count < 0 || count > limit - position) throw new MoneroError("Blob is truncated");
+    return count;
+  }
+
+  private int readByte() {
+    if (position >= limit) throw new MoneroError("Blob is truncated");
+    return bytes[position++] & 0xff;
+  }
+
+  private int readInt() {
+    require(4);
+    int val = (bytes[position] & 0xff) | (bytes[position + 1] & 0xff) << 8 | (bytes[position + 2] & 0xff) << 16 | (bytes[position + 3] & 0xff) << 24;
+    position += 4;
+    return val;
+  }
+
+  private String readHash() {
+    return readHex(HASH_LENGTH);
+  }
+
+  private String readHex(int length) {
+    require(length);
+    String hex = MoneroUtils.bytesToHex(bytes, position, length);
+    position += length;
+    return hex;
+  }
+
+  private static byte[] hexToBytes(String hex) {
+    if (hex.length() % 2 != 0) throw new MoneroError("Blob hex has odd length: " + hex.length());
+    return MoneroUtils.hexToBytes(hex);
+  }
+
+  private void require(int numBytes) {
+    if (numBytes > limit - position) throw new MoneroError("Blob is truncated");
+  }
+}
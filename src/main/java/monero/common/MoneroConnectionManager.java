@@ -0,0 +1,734 @@
+package monero.common;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Manages connections to multiple daemons.
+ *
+ * Connections are checked in the background with get_info requests which track
+ * each connection's latency, height, and sync status.  Requests are routed to
+ * the fastest connection which is online and synced with the highest known
+ * height, and fail over to the next best connection if a connection does not
+ * respond.
+ *
+ * Example:
+ *
+ * <pre>
+ * MoneroConnectionManager connectionManager = new MoneroConnectionManager(connection1, connection2, connection3);
+ * connectionManager.startCheckingConnections();
+ * MoneroDaemonRpc daemon = new MoneroDaemonRpc(connectionManager);
+ * </pre>
+ */
+public class MoneroConnectionManager {
+
+  // logger
+  private static final Logger LOGGER = Logger.getLogger(MoneroConnectionManager.class.getName());
+
+  // static variables
+  public static long DEFAULT_CHECK_PERIOD_MS = 10000;
+  public static long DEFAULT_CHECK_TIMEOUT_MS = 5000;
+  private static final double LATENCY_SMOOTHING = 0.3;  // weight of the latest latency sample
+  private static final long MAX_HEIGHT_LAG = 1;         // blocks a synced connection can trail the highest known height
+  public static double DEFAULT_HEDGING_PERCENTILE = 95;
+  public static long DEFAULT_HEDGING_DELAY_MS = 1000;     // hedging delay until enough latencies are recorded
+  public static long DEFAULT_MIN_HEDGING_DELAY_MS = 20;
+  private static final int MIN_LATENCY_SAMPLES = 20;    // latencies to record before the hedging delay uses their percentile
+  private static final ExecutorService HEDGING_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "MoneroConnectionManager-hedge");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  // instance variables
+  private List<ConnectionState> states;
+  private List<MoneroConnectionManagerListener> listeners;
+  private volatile MoneroRpcConnection bestConnection;
+  private long checkTimeoutMs;
+  private ScheduledExecutorService checkExecutor;
+  private boolean isHedgingEnabled;
+  private double hedgingPercentile;
+  private long minHedgingDelayMs;
+  private Map<String, LatencyTracker> latencyTrackers;
+
+  public MoneroConnectionManager(MoneroRpcConnection... connections) {
+    this(Arrays.asList(connections));
+  }
+
+  public MoneroConnectionManager(List<MoneroRpcConnection> connections) {
+    this.states = new CopyOnWriteArrayList<ConnectionState>();
+    this.listeners = new CopyOnWriteArrayList<MoneroConnectionManagerListener>();
+    this.checkTimeoutMs = DEFAULT_CHECK_TIMEOUT_MS;
+    this.hedgingPercentile = DEFAULT_HEDGING_PERCENTILE;
+    this.minHedgingDelayMs = DEFAULT_MIN_HEDGING_DELAY_MS;
+    this.latencyTrackers = new ConcurrentHashMap<String, LatencyTracker>();
+    if (connections != null) for (MoneroRpcConnection connection : connections) addConnection(connection);
+  }
+
+  /**
+   * Add a connection to manage.
+   *
+   * @param connection is the connection to add
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager addConnection(MoneroRpcConnection connection) {
+    if (connection == null) throw new MoneroError("Connection cannot be null");
+    for (ConnectionState state : states) if (state.connection == connection) return this;
+    states.add(new ConnectionState(connection));
+    updateBestConnection();
+    return this;
+  }
+
+  /**
+   * Remove a managed connection.
+   *
+   * @param connection is the connection to remove
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager removeConnection(MoneroRpcConnection connection) {
+    for (ConnectionState state : states) {
+      if (state.connection == connection) states.remove(state);
+    }
+    updateBestConnection();
+    return this;
+  }
+
+  /**
+   * Get the managed connections in the order they were added.
+   *
+   * @return the managed connections
+   */
+  public List<MoneroRpcConnection> getConnections() {
+    List<MoneroRpcConnection> connections = new ArrayList<MoneroRpcConnection>();
+    for (ConnectionState state : states) connections.add(state.connection);
+    return connections;
+  }
+
+  /**
+   * Get the managed connections from most to least preferred.
+   *
+   * Connections which are online and synced are preferred by latency, followed
+   * by connections which are online but not known to be synced, followed by
+   * connections which are offline.
+   *
+   * @return the managed connections from most to least preferred
+   */
+  public List<MoneroRpcConnection> getConnectionsByPreference() {
+    List<MoneroRpcConnection> connections = new ArrayList<MoneroRpcConnection>();
+    for (ConnectionState state : getStatesByPreference()) connections.add(state.connection);
+    return connections;
+  }
+
+  /**
+   * Get the connection requests are currently routed to.
+   *
+   * @return the best connection or null if no connections are managed
+   */
+  public MoneroRpcConnection getBestConnection() {
+    return bestConnection;
+  }
+
+  /**
+   * Indicates if a connection responded to its last request or check.
+   *
+   * @param connection is the connection to check
+   * @return true if the connection is online, false if offline, null if not managed
+   */
+  public Boolean isOnline(MoneroRpcConnection connection) {
+    ConnectionState state = getState(connection);
+    return state == null ? null : state.isOnline;
+  }
+
+  /**
+   * Indicates if a connection's daemon reported that it is synced.
+   *
+   * @param connection is the connection to check
+   * @return true if the daemon is synced, false if not, null if unknown
+   */
+  public Boolean isSynced(MoneroRpcConnection connection) {
+    ConnectionState state = getState(connection);
+    return state == null ? null : state.isSynced;
+  }
+
+  /**
+   * Get the last height reported by a connection's daemon.
+   *
+   * @param connection is the connection to get the height of
+   * @return the last reported height or null if unknown
+   */
+  public Long getHeight(MoneroRpcConnection connection) {
+    ConnectionState state = getState(connection);
+    return state == null ? null : state.height;
+  }
+
+  /**
+   * Get the smoothed latency of a connection's checks.
+   *
+   * @param connection is the connection to get the latency of
+   * @return the smoothed latency in milliseconds or null if unknown
+   */
+  public Double getLatencyMs(MoneroRpcConnection connection) {
+    ConnectionState state = getState(connection);
+    return state == null ? null : state.latencyMs;
+  }
+
+  public long getCheckTimeoutMs() {
+    return checkTimeoutMs;
+  }
+
+  /**
+   * Set how long to wait for a connection to respond to a check before it
+   * is considered offline.
+   *
+   * @param checkTimeoutMs is the check timeout in milliseconds
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setCheckTimeoutMs(long checkTimeoutMs) {
+    this.checkTimeoutMs = checkTimeoutMs;
+    return this;
+  }
+
+  public boolean isHedgingEnabled() {
+    return isHedgingEnabled;
+  }
+
+  /**
+   * Enable or disable hedging of requests sent with sendHedged().
+   *
+   * @param isHedgingEnabled specifies if hedged requests are sent to a second connection
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setHedgingEnabled(boolean isHedgingEnabled) {
+    this.isHedgingEnabled = isHedgingEnabled;
+    return this;
+  }
+
+  public double getHedgingPercentile() {
+    return hedgingPercentile;
+  }
+
+  /**
+   * Set the percentile of a request's recent latencies to wait for the best
+   * connection to respond before the request is also sent to the next best
+   * connection.
+   *
+   * @param hedgingPercentile is the latency percentile in the range (0, 100]
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setHedgingPercentile(double hedgingPercentile) {
+    if (hedgingPercentile <= 0 || hedgingPercentile > 100) throw new MoneroError("Hedging percentile must be in the range (0, 100] but was " + hedgingPercentile);
+    this.hedgingPercentile = hedgingPercentile;
+    return this;
+  }
+
+  public long getMinHedgingDelayMs() {
+    return minHedgingDelayMs;
+  }
+
+  /**
+   * Set the minimum time to wait for the best connection to respond before a
+   * hedged request is also sent to the next best connection.
+   *
+   * @param minHedgingDelayMs is the minimum hedging delay in milliseconds
+   * @return this connection manager for chaining
+   */
+  public MoneroConnectionManager setMinHedgingDelayMs(long minHedgingDelayMs) {
+    this.minHedgingDelayMs = minHedgingDelayMs;
+    return this;
+  }
+
+  /**
+   * Get how long a hedged request waits for the best connection to respond
+   * before it is also sent to the next best connection.
+   *
+   * @param requestKey identifies the kind of request whose latencies are tracked
+   * @return the hedging delay in milliseconds
+   */
+  public long getHedgingDelayMs(String requestKey) {
+    LatencyTracker tracker = latencyTrackers.get(requestKey);
+    Double percentileMs = tracker == null ? null : tracker.getPercentile(hedgingPercentile, MIN_LATENCY_SAMPLES);
+    if (percentileMs == null) return DEFAULT_HEDGING_DELAY_MS;
+    return Math.max(minHedgingDelayMs, (long) Math.ceil(percentileMs));
+  }
+
+  public void addListener(MoneroConnectionManagerListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(MoneroConnectionManagerListener listener) {
+    if (!listeners.remove(listener)) throw new MoneroError("Connection manager does not contain listener to remove");
+  }
+
+  public List<MoneroConnectionManagerListener> getListeners() {
+    return new ArrayList<MoneroConnectionManagerListener>(listeners);
+  }
+
+  /**
+   * Check all connections concurrently and update the best connection.
+   */
+  public void checkConnections() {
+
+    // check each connection with get_info
+    List<ConnectionState> checkedStates = new ArrayList<ConnectionState>(states);
+    List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+    for (ConnectionState state : checkedStates) {
+      long startTime = System.nanoTime();
+      CompletableFuture<Map<String, Object>> future;
+      try {
+        future = state.connection.sendJsonRequestAsync("get_info");
+      } catch (Exception e) {
+        future = new CompletableFuture<Map<String, Object>>();
+        future.completeExceptionally(e);
+      }
+      futures.add(future.handle((resp, e) -> {
+        if (e == null) processInfo(state, resp, (System.nanoTime() - startTime) / 1000000.0);
+        else state.isOnline = false;
+        return null;
+      }));
+    }
+
+    // wait for checks up to the timeout, connections which do not respond are offline
+    long deadline = System.currentTimeMillis() + checkTimeoutMs;
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      } catch (Exception e) {
+        checkedStates.get(i).isOnline = false;
+      }
+    }
+    updateBestConnection();
+  }
+
+  /**
+   * Start checking connections in the background using the default period.
+   */
+  public void startCheckingConnections() {
+    startCheckingConnections(DEFAULT_CHECK_PERIOD_MS);
+  }
+
+  /**
+   * Start checking connections in the background.
+   *
+   * @param periodMs is the time between checks in milliseconds
+   */
+  public synchronized void startCheckingConnections(long periodMs) {
+    stopCheckingConnections();
+    checkExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "MoneroConnectionManager");
+      thread.setDaemon(true);
+      return thread;
+    });
+    checkExecutor.scheduleWithFixedDelay(() -> {
+      try {
+        checkConnections();
+      } catch (Exception e) {
+        LOGGER.warning("Failed to check connections: " + e.getMessage());
+      }
+    }, 0, periodMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop checking connections in the background.
+   */
+  public synchronized void stopCheckingConnections() {
+    if (checkExecutor == null) return;
+    checkExecutor.shutdownNow();
+    checkExecutor = null;
+  }
+
+  /**
+   * Send a request to the best connection, failing over to the next best
+   * connection if a connection does not respond.
+   *
+   * The request may be sent to more than one connection, so it must be safe
+   * to repeat, e.g. read-only.  Use sendOnce() otherwise.  Errors returned by
+   * the RPC API are thrown without failing over.
+   *
+   * @param <T> the type of the request's result
+   * @param request sends the request to the given connection
+   * @return the result of the request
+   */
+  public <T> T send(Function<MoneroRpcConnection, T> request) {
+    MoneroError lastError = null;
+    for (ConnectionState state : getStatesByPreference()) {
+      try {
+        T result = request.apply(state.connection);
+        setOnline(state, true);
+        return result;
+      } catch (MoneroError e) {
+        if (!isConnectionError(e)) throw e;
+        LOGGER.warning("Request to " + state.connection.getUri() + " failed, trying next connection: " + e.getMessage());
+        setOnline(state, false);
+        lastError = e;
+      }
+    }
+    throw lastError == null ? new MoneroError("Connection manager has no connections") : lastError;
+  }
+
+  /**
+   * Send a request to the best connection without failing over, for requests
+   * which are not safe to send more than once (e.g. submitting a tx or
+   * stopping a daemon).
+   *
+   * If the connection does not respond, it is marked offline so the next
+   * request goes to the next best connection, but this request is not retried.
+   *
+   * @param <T> the type of the request's result
+   * @param request sends the request to the given connection
+   * @return the result of the request
+   */
+  public <T> T sendOnce(Function<MoneroRpcConnection, T> request) {
+    List<ConnectionState> states = getStatesByPreference();
+    if (states.isEmpty()) throw new MoneroError("Connection manager has no connections");
+    ConnectionState state = states.get(0);
+    try {
+      T result = request.apply(state.connection);
+      setOnline(state, true);
+      return result;
+    } catch (MoneroError e) {
+      if (isConnectionError(e)) setOnline(state, false);
+      throw e;
+    }
+  }
+
+  /**
+   * Send a read-only request to the best connection and, each time no
+   * connection has responded within a percentile of the request's recent
+   * latencies, also to the next best connection.  The first response wins and
+   * requests still pending to other connections are cancelled.
+   *
+   * Behaves like send() if hedging is disabled or fewer than two connections
+   * are managed.
+   *
+   * @param <T> the type of the request's result
+   * @param requestKey identifies the kind of request to track latencies of (e.g. the RPC method)
+   * @param request sends the request to the given connection, must be safe to send more than once
+   * @return the result of the first response
+   */
+  public <T> T sendHedged(String requestKey, Function<MoneroRpcConnection, T> request) {
+    List<ConnectionState> states = getStatesByPreference();
+    if (!isHedgingEnabled || states.size() < 2) return send(request);
+    HedgedRequest<T> hedged = new HedgedRequest<T>(requestKey, request, states);
+    hedged.sendNext();
+    try {
+      while (true) {
+        try {
+          return hedged.result.get(getHedgingDelayMs(requestKey), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+          if (!hedged.sendNext()) return hedged.result.get();  // all connections requested
+        }
+      }
+    } catch (InterruptedException e) {
+      hedged.cancel();
+      Thread.currentThread().interrupt();
+      throw new MoneroError(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof MoneroError) throw (MoneroError) e.getCause();
+      throw new MoneroError(e.getCause());
+    }
+  }
+
+  /**
+   * Send a request to the best connection without blocking the calling thread,
+   * failing over to the next best connection if a connection does not respond.
+   *
+   * @param <T> the type of the request's result
+   * @param request sends the request to the given connection
+   * @return a future which completes with the result of the request
+   */
+  public <T> CompletableFuture<T> sendAsync(Function<MoneroRpcConnection, CompletableFuture<T>> request) {
+    List<ConnectionState> states = getStatesByPreference();
+    if (states.isEmpty()) {
+      CompletableFuture<T> future = new CompletableFuture<T>();
+      future.completeExceptionally(new MoneroError("Connection manager has no connections"));
+      return future;
+    }
+    return sendAsync(request, states, 0);
+  }
+
+  // --------------------------------- PRIVATE --------------------------------
+
+  private <T> CompletableFuture<T> sendAsync(Function<MoneroRpcConnection, CompletableFuture<T>> request, List<ConnectionState> states, int stateIdx) {
+    ConnectionState state = states.get(stateIdx);
+    CompletableFuture<T> future;
+    try {
+      future = request.apply(state.connection);
+    } catch (Exception e) {
+      future = new CompletableFuture<T>();
+      future.completeExceptionally(e);
+    }
+    return future.handle((result, e) -> {
+      if (e == null) {
+        setOnline(state, true);
+        return CompletableFuture.completedFuture(result);
+      }
+      Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+      if (!isConnectionError(cause) || stateIdx + 1 >= states.size()) {
+        if (isConnectionError(cause)) setOnline(state, false);
+        CompletableFuture<T> failed = new CompletableFuture<T>();
+        failed.completeExceptionally(cause);
+        return failed;
+      }
+      LOGGER.warning("Request to " + state.connection.getUri() + " failed, trying next connection: " + cause.getMessage());
+      setOnline(state, false);
+      return sendAsync(request, states, stateIdx + 1);
+    }).thenCompose(next -> next);
+  }
+
+  /**
+   * Indicates if an error means the connection did not respond, as opposed to
+   * an error returned by the RPC API.
+   */
+  private static boolean isConnectionError(Throwable e) {
+    if (e instanceof MoneroRpcError) {
+      Integer code = ((MoneroRpcError) e).getCode();
+      return code != null && code >= 500;  // http server error
+    }
+    if (e instanceof MoneroError) return e.getCause() instanceof IOException;  // transport error wrapped by the connection
+    return e instanceof IOException;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void processInfo(ConnectionState state, Map<String, Object> resp, double latencyMs) {
+    Map<String, Object> result = (Map<String, Object>) resp.get("result");
+    state.isOnline = true;
+    state.latencyMs = state.latencyMs == null ? latencyMs : state.latencyMs + LATENCY_SMOOTHING * (latencyMs - state.latencyMs);
+    if (result == null) return;
+    if (result.get("height") != null) state.height = ((BigInteger) result.get("height")).longValue();
+    state.isSynced = "OK".equals(result.get("status")) && Boolean.TRUE.equals(result.get("synchronized"));
+  }
+
+  private void setOnline(ConnectionState state, boolean isOnline) {
+    if (state.isOnline == isOnline) return;
+    state.isOnline = isOnline;
+    updateBestConnection();
+  }
+
+  private ConnectionState getState(MoneroRpcConnection connection) {
+    for (ConnectionState state : states) if (state.connection == connection) return state;
+    return null;
+  }
+
+  /**
+   * Sorts connections from best to worst by rank, then by latency with
+   * unchecked connections last, keeping the order of ties.
+   *
+   * Each state is read once into a snapshot before sorting, so concurrent
+   * updates cannot make the order inconsistent.
+   */
+  private List<ConnectionState> getStatesByPreference() {
+
+    // snapshot states
+    List<StateSnapshot> snapshots = new ArrayList<StateSnapshot>();
+    long maxHeight = 0;
+    for (ConnectionState state : states) {
+      StateSnapshot snapshot = new StateSnapshot(state);
+      if (snapshot.isOnline && snapshot.height != null) maxHeight = Math.max(maxHeight, snapshot.height);
+      snapshots.add(snapshot);
+    }
+    long minSyncedHeight = maxHeight - MAX_HEIGHT_LAG;
+    for (StateSnapshot snapshot : snapshots) snapshot.rank = getRank(snapshot, minSyncedHeight);
+
+    // sort snapshots
+    Collections.sort(snapshots, new Comparator<StateSnapshot>() {
+      @Override
+      public int compare(StateSnapshot s1, StateSnapshot s2) {
+        int compare = Integer.compare(s1.rank, s2.rank);
+        if (compare != 0) return compare;
+        if (s1.latencyMs == null) return s2.latencyMs == null ? 0 : 1;
+        if (s2.latencyMs == null) return -1;
+        return Double.compare(s1.latencyMs, s2.latencyMs);
+      }
+    });
+    List<ConnectionState> sorted = new ArrayList<ConnectionState>(snapshots.size());
+    for (StateSnapshot snapshot : snapshots) sorted.add(snapshot.state);
+    return sorted;
+  }
+
+  private static int getRank(StateSnapshot snapshot, long minSyncedHeight) {
+    if (!snapshot.isOnline) return 2;
+    if (Boolean.TRUE.equals(snapshot.isSynced) && snapshot.height != null && snapshot.height >= minSyncedHeight) return 0;
+    return 1;
+  }
+
+  private void updateBestConnection() {
+    MoneroRpcConnection newBestConnection;
+    MoneroRpcConnection oldBestConnection;
+    synchronized (this) {
+      List<ConnectionState> sorted = getStatesByPreference();
+      newBestConnection = sorted.isEmpty() ? null : sorted.get(0).connection;
+      oldBestConnection = bestConnection;
+      bestConnection = newBestConnection;
+    }
+    if (newBestConnection != oldBestConnection && newBestConnection != null) {
+      for (MoneroConnectionManagerListener listener : listeners) listener.onConnectionChanged(newBestConnection);
+    }
+  }
+
+  private LatencyTracker getLatencyTracker(String requestKey) {
+    LatencyTracker tracker = latencyTrackers.get(requestKey);
+    if (tracker == null) {
+      latencyTrackers.putIfAbsent(requestKey, new LatencyTracker());
+      tracker = latencyTrackers.get(requestKey);
+    }
+    return tracker;
+  }
+
+  /**
+   * Request sent to the best connection and possibly hedged to the next best
+   * connections.
+   */
+  private class HedgedRequest<T> {
+
+    private String requestKey;
+    private Function<MoneroRpcConnection, T> request;
+    private List<ConnectionState> states;
+    private AtomicInteger numSent;
+    private AtomicInteger numPending;
+    private List<Future<?>> attempts;
+    private CompletableFuture<T> result;
+
+    private HedgedRequest(String requestKey, Function<MoneroRpcConnection, T> request, List<ConnectionState> states) {
+      this.requestKey = requestKey;
+      this.request = request;
+      this.states = states;
+      this.numSent = new AtomicInteger(0);
+      this.numPending = new AtomicInteger(0);
+      this.attempts = new CopyOnWriteArrayList<Future<?>>();
+      this.result = new CompletableFuture<T>();
+    }
+
+    /**
+     * Sends the request to the next best connection.
+     *
+     * @return true if the request was sent, false if all connections have been requested
+     */
+    private boolean sendNext() {
+      int idx = numSent.getAndIncrement();
+      if (idx >= states.size()) return false;
+      ConnectionState state = states.get(idx);
+      numPending.incrementAndGet();
+      attempts.add(HEDGING_EXECUTOR.submit(() -> {
+        if (result.isDone()) {  // already answered
+          numPending.decrementAndGet();
+          return;
+        }
+        long startTime = System.nanoTime();
+        try {
+          T value = request.apply(state.connection);
+          getLatencyTracker(requestKey).add((System.nanoTime() - startTime) / 1000000.0);
+          setOnline(state, true);
+          numPending.decrementAndGet();
+          if (result.complete(value)) cancel();
+        } catch (Exception e) {
+          if (result.isDone()) {  // cancelled by another response
+            numPending.decrementAndGet();
+          } else if (isConnectionError(e)) {
+            LOGGER.warning("Hedged request to " + state.connection.getUri() + " failed: " + e.getMessage());
+            setOnline(state, false);
+            boolean isSent = sendNext();  // fail over immediately
+            if (numPending.decrementAndGet() == 0 && !isSent) result.completeExceptionally(e);
+          } else {
+            numPending.decrementAndGet();
+            if (result.completeExceptionally(e)) cancel();  // error returned by the rpc api is an answer
+          }
+        }
+      }));
+      return true;
+    }
+
+    /**
+     * Cancels the requests still pending, interrupting the threads sending them.
+     */
+    private void cancel() {
+      for (Future<?> attempt : attempts) attempt.cancel(true);
+    }
+  }
+
+  /**
+   * Records a bounded window of recent latencies to compute percentiles of.
+   */
+  private static class LatencyTracker {
+
+    private static final int WINDOW_SIZE = 256;
+
+    private final double[] latencies = new double[WINDOW_SIZE];
+    private int numLatencies;
+    private int nextIdx;
+
+    private synchronized void add(double latencyMs) {
+      latencies[nextIdx] = latencyMs;
+      nextIdx = (nextIdx + 1) % WINDOW_SIZE;
+      if (numLatencies < WINDOW_SIZE) numLatencies++;
+    }
+
+    private Double getPercentile(double percentile, int minSamples) {
+      double[] sorted;
+      synchronized (this) {
+        if (numLatencies < minSamples) return null;
+        sorted = Arrays.copyOf(latencies, numLatencies);
+      }
+      Arrays.sort(sorted);
+      int idx = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+      return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+  }
+
+  /**
+   * Values of a connection's state read once to sort connections by.
+   */
+  private static class StateSnapshot {
+
+    private final ConnectionState state;
+    private final boolean isOnline;
+    private final Boolean isSynced;
+    private final Long height;
+    private final Double latencyMs;
+    private int rank;
+
+    private StateSnapshot(ConnectionState state) {
+      this.state = state;
+      this.isOnline = state.isOnline;
+      this.isSynced = state.isSynced;
+      this.height = state.height;
+      this.latencyMs = state.latencyMs;
+    }
+  }
+
+  /**
+   * Tracks the state of a managed connection.
+   */
+  private static class ConnectionState {
+
+    private MoneroRpcConnection connection;
+    private volatile boolean isOnline;
+    private volatile Boolean isSynced;
+    private volatile Long height;
+    private volatile Double latencyMs;
+
+    private ConnectionState(MoneroRpcConnection connection) {
+      this.connection = connection;
+      this.isOnline = true;  // assume online until a request or check fails
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package monero.common;
+
+/**
+ * Receives notifications as a connection manager changes its best connection.
+ */
+public class MoneroConnectionManagerListener {
+
+  /**
+   * Called when the connection manager selects a different best connection.
+   *
+   * @param connection is the new best connection
+   */
+  public void onConnectionChanged(MoneroRpcConnection connection) { }
+}
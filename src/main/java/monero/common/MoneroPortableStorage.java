@@ -0,0 +1,66 @@
+package monero.common;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Serializes maps to and from Monero's portable storage binary format, which
+ * is used by the daemon's binary RPC endpoints (e.g. get_blocks_by_height.bin).
+ *
+ * Integers are decoded to the smallest of Integer, Long, or BigInteger which
+ * holds them.  Strings are decoded to String if they are valid UTF-8 and to
+ * byte[] otherwise, and byte[] values are encoded as strings.
+ */
+public class MoneroPortableStorage {
+
+  // format signature and version
+  static final int SIGNATURE_A = 0x01011101;
+  static final int SIGNATURE_B = 0x01020101;
+  static final byte FORMAT_VERSION = 1;
+
+  // entry types
+  public static final int TYPE_INT64 = 1;
+  public static final int TYPE_INT32 = 2;
+  public static final int TYPE_INT16 = 3;
+  public static final int TYPE_INT8 = 4;
+  public static final int TYPE_UINT64 = 5;
+  public static final int TYPE_UINT32 = 6;
+  public static final int TYPE_UINT16 = 7;
+  public static final int TYPE_UINT8 = 8;
+  public static final int TYPE_DOUBLE = 9;
+  public static final int TYPE_STRING = 10;
+  public static final int TYPE_BOOL = 11;
+  public static final int TYPE_OBJECT = 12;
+  public static final int TYPE_ARRAY = 13;
+  public static final int FLAG_ARRAY = 0x80;
+
+  /**
+   * Serialize a map to portable storage.
+   *
+   * @param map is the map to serialize, null for an empty section
+   * @return the map in portable storage format
+   */
+  public static byte[] serialize(Map<String, ?> map) {
+    return new MoneroPortableStorageWriter().writeRoot(map).toByteArray();
+  }
+
+  /**
+   * Deserialize portable storage to a map.
+   *
+   * @param bytes are the bytes in portable storage format
+   * @return the deserialized map
+   */
+  public static Map<String, Object> deserialize(byte[] bytes) {
+    return deserialize(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Deserialize portable storage to a map.
+   *
+   * @param buffer contains the bytes in portable storage format from its position to its limit
+   * @return the deserialized map
+   */
+  public static Map<String, Object> deserialize(ByteBuffer buffer) {
+    return new MoneroPortableStorageReader(buffer).readRoot();
+  }
+}
@@ -0,0 +1,282 @@
+package monero.common;
+
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static monero.common.MoneroPortableStorage.*;
+
+/**
+ * Reads Monero's portable storage binary format from a byte buffer.
+ *
+ * Values can be read into maps with readRoot() and readSection(), or pulled
+ * entry by entry to read only the fields of interest and skip the rest:
+ *
+ * <pre>
+ * reader.readHeader();
+ * long numEntries = reader.readVarint();
+ * for (long i = 0; i &lt; numEntries; i++) {
+ *   String name = reader.readName();
+ *   int type = reader.readType();
+ *   if (name.equals("status")) status = (String) reader.readValue(type);
+ *   else reader.skipValue(type);
+ * }
+ * </pre>
+ */
+public class MoneroPortableStorageReader {
+
+  private ByteBuffer buffer;
+
+  /**
+   * Construct a reader of the given bytes.
+   *
+   * @param bytes are the bytes to read
+   */
+  public MoneroPortableStorageReader(byte[] bytes) {
+    this(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Construct a reader of a buffer from its position to its limit.
+   *
+   * The given buffer's position is not modified.
+   *
+   * @param buffer is the buffer to read
+   */
+  public MoneroPortableStorageReader(ByteBuffer buffer) {
+    this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Get the number of bytes read.
+   *
+   * @return the number of bytes read
+   */
+  public int getPosition() {
+    return buffer.position();
+  }
+
+  public boolean hasRemaining() {
+    return buffer.hasRemaining();
+  }
+
+  /**
+   * Read the header and root section.
+   *
+   * @return the root section as a map
+   */
+  public Map<String, Object> readRoot() {
+    readHeader();
+    return readSection();
+  }
+
+  /**
+   * Read and validate the format signature and version.
+   */
+  public void readHeader() {
+    try {
+      if (buffer.getInt() != SIGNATURE_A || buffer.getInt() != SIGNATURE_B) throw new MoneroError("Invalid portable storage signature");
+      byte version = buffer.get();
+      if (version != FORMAT_VERSION) throw new MoneroError("Unsupported portable storage version: " + version);
+    } catch (BufferUnderflowException e) {
+      throw new MoneroError("Portable storage is truncated");
+    }
+  }
+
+  /**
+   * Read a section's entries into a map.
+   *
+   * @return the section's entries by name in the order they were read
+   */
+  public Map<String, Object> readSection() {
+    long numEntries = readCount();
+    Map<String, Object> section = new LinkedHashMap<String, Object>();
+    for (long i = 0; i < numEntries; i++) {
+      String name = readName();
+      section.put(name, readValue(readType()));
+    }
+    return section;
+  }
+
+  /**
+   * Read an entry's name.
+   *
+   * @return the entry's name
+   */
+  public String readName() {
+    try {
+      int length = buffer.get() & 0xff;
+      byte[] name = new byte[length];
+      buffer.get(name);
+      return new String(name, StandardCharsets.UTF_8);
+    } catch (BufferUnderflowException e) {
+      throw new MoneroError("Portable storage is truncated");
+    }
+  }
+
+  /**
+   * Read an entry's type.
+   *
+   * @return the entry's type, possibly combined with FLAG_ARRAY
+   */
+  public int readType() {
+    try {
+      return buffer.get() & 0xff;
+    } catch (BufferUnderflowException e) {
+      throw new MoneroError("Portable storage is truncated");
+    }
+  }
+
+  /**
+   * Read a variable length integer whose lowest 2 bits indicate its size of
+   * 1, 2, 4, or 8 bytes.
+   *
+   * @return the integer
+   */
+  public long readVarint() {
+    try {
+      int first = buffer.get(buffer.position()) & 0xff;
+      switch (first & 0x03) {
+        case 0: return (buffer.get() & 0xffl) >>> 2;
+        case 1: return (buffer.getShort() & 0xffffl) >>> 2;
+        case 2: return (buffer.getInt() & 0xffffffffl) >>> 2;
+        default: return buffer.getLong() >>> 2;
+      }
+    } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+      throw new MoneroError("Portable storage is truncated");
+    }
+  }
+
+  /**
+   * Read a string's raw bytes.
+   *
+   * @return the string's bytes
+   */
+  public byte[] readBlob() {
+    long length = readCount();
+    byte[] blob = new byte[(int) length];
+    buffer.get(blob);
+    return blob;
+  }
+
+  /**
+   * Read a value of the given type.
+   *
+   * @param type is the type of the value, possibly combined with FLAG_ARRAY
+   * @return the value as a Number, Double, String, byte[], Boolean, Map, or List
+   */
+  public Object readValue(int type) {
+    if ((type & FLAG_ARRAY) != 0) return readArray(type & ~FLAG_ARRAY);
+    try {
+      switch (type) {
+        case TYPE_INT64: return toNumber(buffer.getLong());
+        case TYPE_INT32: return buffer.getInt();
+        case TYPE_INT16: return (int) buffer.getShort();
+        case TYPE_INT8: return (int) buffer.get();
+        case TYPE_UINT64: {
+          long val = buffer.getLong();
+          return val >= 0 ? toNumber(val) : new BigInteger(Long.toUnsignedString(val));
+        }
+        case TYPE_UINT32: return toNumber(buffer.getInt() & 0xffffffffl);
+        case TYPE_UINT16: return buffer.getShort() & 0xffff;
+        case TYPE_UINT8: return buffer.get() & 0xff;
+        case TYPE_DOUBLE: return buffer.getDouble();
+        case TYPE_STRING: return decodeString(readBlob());
+        case TYPE_BOOL: return buffer.get() != 0;
+        case TYPE_OBJECT: return readSection();
+        case TYPE_ARRAY: return readValue(readType());  // array nested in an array
+        default: throw new MoneroError("Unsupported portable storage type: " + type);
+      }
+    } catch (BufferUnderflowException e) {
+      throw new MoneroError("Portable storage is truncated");
+    }
+  }
+
+  /**
+   * Read an array's elements of the given type.
+   *
+   * @param elementType is the type of the array's elements
+   * @return the array's elements
+   */
+  public List<Object> readArray(int elementType) {
+    long numElements = readCount();
+    List<Object> elements = new ArrayList<Object>((int) numElements);
+    for (long i = 0; i < numElements; i++) elements.add(readValue(elementType));
+    return elements;
+  }
+
+  /**
+   * Skip a value of the given type.
+   *
+   * @param type is the type of the value, possibly combined with FLAG_ARRAY
+   */
+  public void skipValue(int type) {
+    try {
+      if ((type & FLAG_ARRAY) != 0) {
+        long numElements = readCount();
+        for (long i = 0; i < numElements; i++) skipValue(type & ~FLAG_ARRAY);
+        return;
+      }
+      switch (type) {
+        case TYPE_INT64: case TYPE_UINT64: case TYPE_DOUBLE: skip(8); break;
+        case TYPE_INT32: case TYPE_UINT32: skip(4); break;
+        case TYPE_INT16: case TYPE_UINT16: skip(2); break;
+        case TYPE_INT8: case TYPE_UINT8: case TYPE_BOOL: skip(1); break;
+        case TYPE_STRING: skip(readCount()); break;
+        case TYPE_OBJECT: {
+          long numEntries = readCount();
+          for (long i = 0; i < numEntries; i++) {
+            skip(buffer.get() & 0xff);
+            skipValue(readType());
+          }
+          break;
+        }
+        case TYPE_ARRAY: skipValue(readType()); break;
+        default: throw new MoneroError("Unsupported portable storage type: " + type);
+      }
+    } catch (BufferUnderflowException e) {
+      throw new MoneroError("Portable storage is truncated");
+    }
+  }
+
+  // --------------------------------- PRIVATE --------------------------------
+
+  /**
+   * Reads a count which cannot exceed the number of remaining bytes.
+   */
+  private long readCount() {
+    long count = readVarint();
+    if (count > buffer.remaining()) throw new MoneroError("Portable storage is truncated");
+    return count;
+  }
+
+  private void skip(long numBytes) {
+    if (numBytes > buffer.remaining()) throw new MoneroError("Portable storage is truncated");
+    buffer.position(buffer.position() + (int) numBytes);
+  }
+
+  private static Number toNumber(long val) {
+    if (val >= Integer.MIN_VALUE && val <= Integer.MAX_VALUE) return (int) val;
+    return val;
+  }
+
+  private static Object decodeString(byte[] bytes) {
+    CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+    try {
+      CharBuffer chars = decoder.decode(ByteBuffer.wrap(bytes));
+      return chars.toString();
+    } catch (CharacterCodingException e) {
+      return bytes;  // binary data
+    }
+  }
+}
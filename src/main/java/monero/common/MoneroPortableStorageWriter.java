@@ -0,0 +1,251 @@
+package monero.common;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+import static monero.common.MoneroPortableStorage.*;
+
+/**
+ * Writes Monero's portable storage binary format to a growable byte buffer.
+ *
+ * Non-negative integers are written as unsigned 64-bit integers and negative
+ * integers as signed 64-bit integers, which the daemon converts to the integer
+ * type of each field.  Null values are omitted.
+ */
+public class MoneroPortableStorageWriter {
+
+  private static final BigInteger MAX_UINT64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+  private static final long MAX_VARINT = (1l << 62) - 1;
+
+  private ByteBuffer buffer;
+
+  public MoneroPortableStorageWriter() {
+    this(256);
+  }
+
+  /**
+   * Construct a writer with the given initial capacity.
+   *
+   * @param capacity is the initial capacity in bytes
+   */
+  public MoneroPortableStorageWriter(int capacity) {
+    this.buffer = ByteBuffer.allocate(Math.max(16, capacity)).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Write the header and a map as the root section.
+   *
+   * @param map is the map to write, null for an empty section
+   * @return this writer for chaining
+   */
+  public MoneroPortableStorageWriter writeRoot(Map<String, ?> map) {
+    writeHeader();
+    return writeSection(map);
+  }
+
+  /**
+   * Write the format signature and version.
+   *
+   * @return this writer for chaining
+   */
+  public MoneroPortableStorageWriter writeHeader() {
+    ensureCapacity(9);
+    buffer.putInt(SIGNATURE_A);
+    buffer.putInt(SIGNATURE_B);
+    buffer.put(FORMAT_VERSION);
+    return this;
+  }
+
+  /**
+   * Write a map as a section.
+   *
+   * @param map is the map to write, null for an empty section
+   * @return this writer for chaining
+   */
+  public MoneroPortableStorageWriter writeSection(Map<String, ?> map) {
+    int numEntries = 0;
+    if (map != null) for (Object val : map.values()) if (val != null) numEntries++;
+    writeVarint(numEntries);
+    if (map == null) return this;
+    for (Map.Entry<String, ?> entry : map.entrySet()) {
+      if (entry.getValue() == null) continue;
+      writeName(entry.getKey());
+      writeEntry(entry.getValue());
+    }
+    return this;
+  }
+
+  /**
+   * Write an entry's name.
+   *
+   * @param name is the entry's name which cannot exceed 255 bytes
+   * @return this writer for chaining
+   */
+  public MoneroPortableStorageWriter writeName(String name) {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > 255) throw new MoneroError("Portable storage entry name exceeds 255 bytes: " + name);
+    ensureCapacity(1 + bytes.length);
+    buffer.put((byte) bytes.length);
+    buffer.put(bytes);
+    return this;
+  }
+
+  /**
+   * Write a variable length integer whose lowest 2 bits indicate its size.
+   *
+   * @param val is the integer to write in the range [0, 2^62)
+   * @return this writer for chaining
+   */
+  public MoneroPortableStorageWriter writeVarint(long val) {
+    if (val < 0 || val > MAX_VARINT) throw new MoneroError("Portable storage varint out of range: " + val);
+    ensureCapacity(8);
+    if (val < (1 << 6)) buffer.put((byte) (val << 2));
+    else if (val < (1 << 14)) buffer.putShort((short) ((val << 2) | 1));
+    else if (val < (1 << 30)) buffer.putInt((int) ((val << 2) | 2));
+    else buffer.putLong((val << 2) | 3);
+    return this;
+  }
+
+  /**
+   * Write an entry's type and value.
+   *
+   * @param val is a Number, String, byte[], Boolean, Map, or Collection
+   * @return this writer for chaining
+   */
+  public MoneroPortableStorageWriter writeEntry(Object val) {
+    if (val instanceof Collection) {
+      Collection<?> elements = (Collection<?>) val;
+      int elementType = getArrayType(elements);
+      writeType(elementType | FLAG_ARRAY);
+      writeVarint(elements.size());
+      for (Object element : elements) writeValue(elementType, element);
+    } else {
+      int type = getType(val);
+      writeType(type);
+      writeValue(type, val);
+    }
+    return this;
+  }
+
+  /**
+   * Get the bytes written.
+   *
+   * @return a copy of the bytes written
+   */
+  public byte[] toByteArray() {
+    byte[] bytes = new byte[buffer.position()];
+    System.arraycopy(buffer.array(), 0, bytes, 0, bytes.length);
+    return bytes;
+  }
+
+  /**
+   * Get the bytes written without copying them.
+   *
+   * @return a read-only buffer of the bytes written
+   */
+  public ByteBuffer toByteBuffer() {
+    ByteBuffer written = buffer.duplicate();
+    written.flip();
+    return written.asReadOnlyBuffer();
+  }
+
+  // --------------------------------- PRIVATE --------------------------------
+
+  private void writeType(int type) {
+    ensureCapacity(1);
+    buffer.put((byte) type);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void writeValue(int type, Object val) {
+    switch (type) {
+      case TYPE_INT64:
+        if (val instanceof BigInteger && ((BigInteger) val).bitLength() > 63) throw new MoneroError("Integer exceeds signed 64 bits: " + val);
+        ensureCapacity(8);
+        buffer.putLong(((Number) val).longValue());
+        break;
+      case TYPE_UINT64:
+        ensureCapacity(8);
+        buffer.putLong(val instanceof BigInteger ? ((BigInteger) val).longValue() : ((Number) val).longValue());  // low 64 bits
+        break;
+      case TYPE_DOUBLE:
+        ensureCapacity(8);
+        buffer.putDouble(((Number) val).doubleValue());
+        break;
+      case TYPE_STRING: {
+        byte[] bytes = val instanceof byte[] ? (byte[]) val : val.toString().getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+        break;
+      }
+      case TYPE_BOOL:
+        ensureCapacity(1);
+        buffer.put((byte) (((Boolean) val) ? 1 : 0));
+        break;
+      case TYPE_OBJECT:
+        writeSection((Map<String, ?>) val);
+        break;
+      case TYPE_ARRAY:
+        writeEntry(val);  // nested array is written with its own type
+        break;
+      default:
+        throw new MoneroError("Unsupported portable storage type: " + type);
+    }
+  }
+
+  private static int getType(Object val) {
+    if (val instanceof Collection) return TYPE_ARRAY;
+    if (val instanceof Map) return TYPE_OBJECT;
+    if (val instanceof String || val instanceof byte[] || val instanceof Character || val instanceof Enum) return TYPE_STRING;
+    if (val instanceof Boolean) return TYPE_BOOL;
+    if (val instanceof Double || val instanceof Float || val instanceof BigDecimal) return TYPE_DOUBLE;
+    if (val instanceof BigInteger) {
+      BigInteger bi = (BigInteger) val;
+      if (bi.signum() >= 0) {
+        if (bi.compareTo(MAX_UINT64) > 0) throw new MoneroError("Integer exceeds 64 bits: " + bi);
+        return TYPE_UINT64;
+      }
+      if (bi.bitLength() > 63) throw new MoneroError("Integer exceeds 64 bits: " + bi);
+      return TYPE_INT64;
+    }
+    if (val instanceof Number) return ((Number) val).longValue() >= 0 ? TYPE_UINT64 : TYPE_INT64;
+    throw new MoneroError("Cannot serialize " + val.getClass().getName() + " to portable storage");
+  }
+
+  /**
+   * Get the type of an array's elements, which must be compatible.
+   */
+  private static int getArrayType(Collection<?> elements) {
+    int type = -1;
+    for (Object element : elements) {
+      if (element == null) throw new MoneroError("Cannot serialize null array element to portable storage");
+      int elementType = getType(element);
+      if (type == -1) type = elementType;
+      else if (isInteger(type) && isInteger(elementType)) {
+        if (elementType == TYPE_INT64) type = TYPE_INT64;  // array is signed if any element is negative
+      }
+      else if (elementType != type) throw new MoneroError("Cannot serialize array with mixed element types to portable storage");
+    }
+    return type == -1 ? TYPE_STRING : type;  // type of empty arrays is irrelevant
+  }
+
+  private static boolean isInteger(int type) {
+    return type == TYPE_INT64 || type == TYPE_UINT64;
+  }
+
+  private void ensureCapacity(int numBytes) {
+    if (buffer.remaining() >= numBytes) return;
+    int capacity = buffer.capacity();
+    while (capacity - buffer.position() < numBytes) capacity *= 2;
+    ByteBuffer grown = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.flip();
+    grown.put(buffer);
+    buffer = grown;
+  }
+}
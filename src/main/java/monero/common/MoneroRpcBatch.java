@@ -0,0 +1,284 @@
+package monero.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import common.utils.JsonUtils;
+
+/**
+ * Collects JSON-RPC requests to send to a Monero RPC API in as few HTTP
+ * requests as possible.
+ *
+ * Requests are sent as JSON-RPC 2.0 batches with ids unique to the connection,
+ * and each response is matched back to its request by id.  If the server does
+ * not accept batches, either by answering with a single error or by rejecting
+ * the HTTP request, the requests are sent individually and concurrently.
+ *
+ * Example:
+ *
+ * <pre>
+ * MoneroRpcBatch batch = new MoneroRpcBatch(rpc);
+ * CompletableFuture&lt;Map&lt;String, Object&gt;&gt; addresses = batch.addRequest("get_address", params);
+ * CompletableFuture&lt;Map&lt;String, Object&gt;&gt; height = batch.addRequest("get_height");
+ * batch.send();
+ * </pre>
+ */
+public class MoneroRpcBatch {
+
+  public static int DEFAULT_MAX_REQUESTS_PER_POST = 100;
+
+  private MoneroRpcConnection rpc;
+  private List<BatchRequest> requests;
+  private int maxRequestsPerPost;
+
+  public MoneroRpcBatch(MoneroRpcConnection rpc) {
+    if (rpc == null) throw new MoneroError("Must provide RPC connection to send batch requests to");
+    this.rpc = rpc;
+    this.requests = new ArrayList<BatchRequest>();
+    this.maxRequestsPerPost = DEFAULT_MAX_REQUESTS_PER_POST;
+  }
+
+  public int getMaxRequestsPerPost() {
+    return maxRequestsPerPost;
+  }
+
+  /**
+   * Sets the maximum number of requests to send in one HTTP request.
+   *
+   * @param maxRequestsPerPost is the maximum number of requests per HTTP request
+   * @return this batch for chaining
+   */
+  public MoneroRpcBatch setMaxRequestsPerPost(int maxRequestsPerPost) {
+    if (maxRequestsPerPost < 1) throw new MoneroError("Max requests per post must be positive but was " + maxRequestsPerPost);
+    this.maxRequestsPerPost = maxRequestsPerPost;
+    return this;
+  }
+
+  /**
+   * Get the number of requests in the batch.
+   *
+   * @return the number of requests in the batch
+   */
+  public int getSize() {
+    return requests.size();
+  }
+
+  /**
+   * Adds a request to the batch.
+   *
+   * @param method specifies the method to request
+   * @return a future which completes with the RPC API response once the batch is sent
+   */
+  public CompletableFuture<Map<String, Object>> addRequest(String method) {
+    return addRequest(method, null);
+  }
+
+  /**
+   * Adds a request to the batch.
+   *
+   * The returned future completes exceptionally with a MoneroRpcError if the
+   * RPC API returns an error for the request.
+   *
+   * @param method specifies the method to request
+   * @param params specifies input parameters (supports &lt;Map&lt;String, Object&gt;, List&lt;Object&gt;&lt;/code&gt;, String, etc)
+   * @return a future which completes with the RPC API response once the batch is sent
+   */
+  public CompletableFuture<Map<String, Object>> addRequest(String method, Object params) {
+    BatchRequest request = new BatchRequest(method, params, rpc.buildJsonRequestBody(method, params));
+    requests.add(request);
+    return request.future;
+  }
+
+  /**
+   * Sends the batch and waits for all responses.
+   *
+   * @return the RPC API responses in the order their requests were added
+   * @throws MoneroError if any request fails (the first failure is thrown)
+   */
+  public List<Map<String, Object>> send() {
+    for (int start = 0; start < requests.size(); start += maxRequestsPerPost) {
+
+      // send remaining requests individually if batches are unsupported
+      if (!rpc.isBatchSupported()) {
+        sendIndividually(requests.subList(start, requests.size())).join();
+        break;
+      }
+
+      // send chunk as batch
+      List<BatchRequest> chunk = requests.subList(start, Math.min(start + maxRequestsPerPost, requests.size()));
+      if (chunk.size() == 1) sendIndividually(chunk).join(); // no need for batch
+      else {
+        Object resp;
+        try {
+          resp = rpc.sendJsonBody(toBodies(chunk));
+        } catch (RuntimeException e) {
+          if (isBatchRejected(e)) {
+            rpc.setBatchSupported(false);
+            sendIndividually(chunk).join();
+            continue;
+          }
+          completeExceptionally(requests.subList(start, requests.size()), e);
+          throw e;
+        }
+        if (!processResponse(chunk, resp)) sendIndividually(chunk).join();
+      }
+    }
+    return getResponses();
+  }
+
+  /**
+   * Sends the batch without blocking the calling thread.
+   *
+   * @return a future which completes with the RPC API responses in the order their requests were added
+   */
+  public CompletableFuture<List<Map<String, Object>>> sendAsync() {
+    List<CompletableFuture<Void>> chunkFutures = new ArrayList<CompletableFuture<Void>>();
+    for (int start = 0; start < requests.size(); start += maxRequestsPerPost) {
+
+      // send remaining requests individually if batches are unsupported
+      if (!rpc.isBatchSupported()) {
+        chunkFutures.add(sendIndividually(requests.subList(start, requests.size())));
+        break;
+      }
+
+      // send chunk as batch
+      List<BatchRequest> chunk = requests.subList(start, Math.min(start + maxRequestsPerPost, requests.size()));
+      if (chunk.size() == 1) chunkFutures.add(sendIndividually(chunk));
+      else {
+        chunkFutures.add(rpc.sendJsonBodyAsync(toBodies(chunk)).handle((resp, e) -> {
+          if (e != null) {
+            Throwable cause = unwrap(e);
+            if (isBatchRejected(cause)) {
+              rpc.setBatchSupported(false);
+              return sendIndividually(chunk);
+            }
+            completeExceptionally(chunk, cause);
+            return CompletableFuture.<Void>completedFuture(null);
+          }
+          if (processResponse(chunk, resp)) return CompletableFuture.<Void>completedFuture(null);
+          return sendIndividually(chunk);
+        }).thenCompose(future -> future));
+      }
+    }
+    return CompletableFuture.allOf(chunkFutures.toArray(new CompletableFuture[chunkFutures.size()])).thenApply(ignored -> getResponses());
+  }
+
+  // --------------------------------- PRIVATE --------------------------------
+
+  private static List<Map<String, Object>> toBodies(List<BatchRequest> requests) {
+    List<Map<String, Object>> bodies = new ArrayList<Map<String, Object>>();
+    for (BatchRequest request : requests) bodies.add(request.body);
+    return bodies;
+  }
+
+  /**
+   * Matches a batch response to its requests by id.
+   *
+   * @param requests are the requests sent in the batch
+   * @param resp is the deserialized response to the batch
+   * @return true if the response was processed, false if the server does not support batches
+   */
+  @SuppressWarnings("unchecked")
+  private boolean processResponse(List<BatchRequest> requests, Object resp) {
+
+    // server responds to batches with a single error if unsupported
+    if (!(resp instanceof List)) {
+      rpc.setBatchSupported(false);
+      return false;
+    }
+
+    // index responses by id
+    Map<String, Map<String, Object>> respsById = new HashMap<String, Map<String, Object>>();
+    for (Object respObj : (List<Object>) resp) {
+      if (!(respObj instanceof Map)) continue;
+      Map<String, Object> respMap = (Map<String, Object>) respObj;
+      if (respMap.get("id") != null) respsById.put(respMap.get("id").toString(), respMap);
+    }
+
+    // complete each request's future
+    for (BatchRequest request : requests) {
+      Map<String, Object> respMap = respsById.get(request.body.get("id").toString());
+      if (respMap == null) {
+        request.future.completeExceptionally(new MoneroError("No response to batched request '" + request.method + "' with params: " + JsonUtils.serialize(request.params)));
+        continue;
+      }
+      try {
+        MoneroRpcConnection.validateRpcResponse(respMap, request.method, request.params);
+        request.future.complete(respMap);
+      } catch (MoneroError e) {
+        request.future.completeExceptionally(e);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Indicates if the server rejected a batch at the HTTP level, e.g. with 400
+   * Bad Request or 413 Payload Too Large, in which case its requests may
+   * still succeed individually.
+   *
+   * @param e is the error sending the batch
+   * @return true if the batch was rejected, false if the request failed otherwise
+   */
+  private static boolean isBatchRejected(Throwable e) {
+    if (!(e instanceof MoneroRpcError)) return false;
+    Integer code = ((MoneroRpcError) e).getCode();
+    return code != null && code >= 400 && code < 500 && code != 401 && code != 407; // authentication failures apply to every request
+  }
+
+  private CompletableFuture<Void> sendIndividually(List<BatchRequest> requests) {
+    List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<CompletableFuture<Map<String, Object>>>();
+    for (BatchRequest request : requests) {
+      futures.add(rpc.sendJsonRequestAsync(request.method, request.params).whenComplete((resp, e) -> {
+        if (e != null) request.future.completeExceptionally(unwrap(e));
+        else request.future.complete(resp);
+      }));
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).handle((ignored, e) -> null);
+  }
+
+  private static void completeExceptionally(List<BatchRequest> requests, Throwable e) {
+    for (BatchRequest request : requests) request.future.completeExceptionally(e);
+  }
+
+  private List<Map<String, Object>> getResponses() {
+    List<Map<String, Object>> resps = new ArrayList<Map<String, Object>>();
+    for (BatchRequest request : requests) {
+      try {
+        resps.add(request.future.join());
+      } catch (CompletionException e) {
+        Throwable cause = unwrap(e);
+        if (cause instanceof MoneroError) throw (MoneroError) cause;
+        throw new MoneroError(cause);
+      }
+    }
+    return resps;
+  }
+
+  private static Throwable unwrap(Throwable e) {
+    while (e instanceof CompletionException && e.getCause() != null) e = e.getCause();
+    return e;
+  }
+
+  /**
+   * Request added to the batch.
+   */
+  private static class BatchRequest {
+
+    private String method;
+    private Object params;
+    private Map<String, Object> body;
+    private CompletableFuture<Map<String, Object>> future;
+
+    private BatchRequest(String method, Object params, Map<String, Object> body) {
+      this.method = method;
+      this.params = params;
+      this.body = body;
+      this.future = new CompletableFuture<Map<String, Object>>();
+    }
+  }
+}
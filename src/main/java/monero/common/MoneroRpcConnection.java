@@ -1,25 +1,62 @@
 package monero.common;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequests;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.auth.AuthCache;
+import org.apache.hc.client5.http.auth.AuthChallenge;
+import org.apache.hc.client5.http.auth.AuthScheme;
 import org.apache.hc.client5.http.auth.AuthScope;
+import org.apache.hc.client5.http.auth.AuthenticationException;
+import org.apache.hc.client5.http.auth.CredentialsProvider;
+import org.apache.hc.client5.http.auth.MalformedChallengeException;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.io.SocketConfig;
 import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -44,8 +81,16 @@ public class MoneroRpcConnection {
   // instance variables
   private String uri;
   private CloseableHttpClient client;
+  private CloseableHttpAsyncClient asyncClient;  // created on first asynchronous request
+  private BasicCredentialsProvider credentialsProvider;
+  private AuthCache authCache;  // reuses auth challenges across requests
+  private MoneroRpcTransportConfig transportConfig;
   private String username;
   private String password;
+  private AtomicLong nextRequestId = new AtomicLong();
+  private volatile boolean batchSupported = true;
+  private Map<String, CompletableFuture<Map<String, Object>>> inFlightRequests = new ConcurrentHashMap<String, CompletableFuture<Map<String, Object>>>();  // coalesced requests by method and params
+  private volatile MoneroRpcMetrics metrics;  // records request metrics if set
   
   public MoneroRpcConnection(URI uri) {
     this(uri, null, null);
@@ -60,18 +105,26 @@ public class MoneroRpcConnection {
   }
   
   public MoneroRpcConnection(URI uri, String username, String password) {
+    this(uri, username, password, null);
+  }
+  
+  public MoneroRpcConnection(String uri, String username, String password, MoneroRpcTransportConfig transportConfig) {
+    this((URI) (uri == null ? null : MoneroUtils.parseUri(uri)), username, password, transportConfig);
+  }
+  
+  public MoneroRpcConnection(URI uri, String username, String password, MoneroRpcTransportConfig transportConfig) {
     this.uri = uri == null ? null : uri.toString();
     this.username = username;
     this.password = password;
+    this.transportConfig = transportConfig == null ? null : transportConfig.copy();
     if (username != null || password != null) {
       if (username == null) throw new MoneroError("username cannot be null because password is not null");
       if (password == null) throw new MoneroError("password cannot be null because username is not null");
-      BasicCredentialsProvider creds = new BasicCredentialsProvider();
-      creds.setCredentials(new AuthScope(uri.getHost(), uri.getPort()), new UsernamePasswordCredentials(username, password.toCharArray()));
-      this.client = HttpClients.custom().setDefaultCredentialsProvider(creds).build();
-    } else {
-      this.client = HttpClients.createDefault();
+      credentialsProvider = new BasicCredentialsProvider();
+      credentialsProvider.setCredentials(new AuthScope(uri.getHost(), uri.getPort()), new UsernamePasswordCredentials(username, password.toCharArray()));
+      authCache = new PersistentAuthCache();
     }
+    this.client = buildClient();
   }
   
   public String getUri() {
@@ -86,6 +139,29 @@ public class MoneroRpcConnection {
     return password;
   }
   
+  /**
+   * Get the transport configuration of this connection.
+   * 
+   * @return a copy of the transport configuration or null if the HTTP client defaults are used
+   */
+  public MoneroRpcTransportConfig getTransportConfig() {
+    return transportConfig == null ? null : transportConfig.copy();
+  }
+  
+  public MoneroRpcMetrics getMetrics() {
+    return metrics;
+  }
+  
+  /**
+   * Set the metrics which record the latency, size, and errors of each request
+   * sent by this connection.
+   * 
+   * @param metrics records request metrics, null to stop recording
+   */
+  public void setMetrics(MoneroRpcMetrics metrics) {
+    this.metrics = metrics;
+  }
+  
   /**
    * Sends a request to the RPC API.
    * 
@@ -103,47 +179,59 @@ public class MoneroRpcConnection {
    * @param params specifies input parameters (supports &lt;Map&lt;String, Object&gt;, List&lt;Object&gt;&lt;/code&gt;, String, etc)
    * @return the RPC API response as a map
    */
+  @SuppressWarnings("unchecked")
   public Map<String, Object> sendJsonRequest(String method, Object params) {
-    CloseableHttpResponse resp = null;
+    
+    // build request body
+    Map<String, Object> body = buildJsonRequestBody(method, params);
+    //System.out.println("Sending json request with method '" + method + "' and body: " + JsonUtils.serialize(body));
+    
+    // send request and check RPC response for errors
+    RequestMetrics requestMetrics = startRequestMetrics(method);
     try {
-
-      // build request body
-      Map<String, Object> body = new HashMap<String, Object>();
-      body.put("jsonrpc", "2.0");
-      body.put("id", "0");
-      body.put("method", method);
-      if (params != null) body.put("params", params);
-      //System.out.println("Sending json request with method '" + method + "' and body: " + JsonUtils.serialize(body));
-
-      // send http request and validate response
-      HttpPost post = new HttpPost(uri.toString() + "/json_rpc");
-      HttpEntity entity = new StringEntity(JsonUtils.serialize(body));
-      post.setEntity(entity);
-      resp = client.execute(post);
-      validateHttpResponse(resp);
-
-      // deserialize response
-      Map<String, Object> respMap = JsonUtils.toMap(MAPPER, EntityUtils.toString(resp.getEntity(), "UTF-8"));
-      EntityUtils.consume(resp.getEntity());
-
-      // check RPC response for errors
-      //String respStr = JsonUtils.serialize(respMap);
-      //respStr = respStr.substring(0, Math.min(1000, respStr.length()));
-      //System.out.println("Received response: " + respStr);
+      Object resp = postJsonBody(body, requestMetrics);
+      if (!(resp instanceof Map)) throw new MoneroError("Invalid response to JSON-RPC request '" + method + "': " + JsonUtils.serialize(resp));
+      Map<String, Object> respMap = (Map<String, Object>) resp;
       validateRpcResponse(respMap, method, params);
+      requestMetrics.complete(null);
       return respMap;
-    } catch (MoneroRpcError e1) {
-      throw e1;
-    } catch (Exception e2) {
-      //e3.printStackTrace();
-      throw new MoneroError(e2);
-    } finally {
-      try {
-        resp.close();
-      } catch (Exception e) {}
+    } catch (RuntimeException e) {
+      requestMetrics.complete(e);
+      throw e;
     }
   }
   
+  /**
+   * Sends a request to the RPC API and streams its result to the given reader.
+   * 
+   * The response is parsed as it is received, so no intermediate map of the
+   * response is built.
+   * 
+   * @param <T> the type of the model read from the result
+   * @param method specifies the method to request
+   * @param params specifies input parameters (supports &lt;Map&lt;String, Object&gt;, List&lt;Object&gt;&lt;/code&gt;, String, etc)
+   * @param resultReader reads the model from the response's result object
+   * @return the model read from the result or null if the response has no result
+   */
+  public <T> T sendJsonRequest(String method, Object params, MoneroRpcStreamReader<T> resultReader) {
+    String body = JsonUtils.serialize(buildJsonRequestBody(method, params));
+    return sendStreamRequest("json_rpc", method, body, parser -> {
+      T result = null;
+      while (parser.nextToken() != JsonToken.END_OBJECT) {
+        String key = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (key.equals("result") && token == JsonToken.START_OBJECT) result = resultReader.read(parser);
+        else if (key.equals("error")) {
+          Map<String, Object> respMap = new HashMap<String, Object>();
+          respMap.put("error", MAPPER.readValue(parser, Object.class));
+          validateRpcResponse(respMap, method, params);
+        }
+        else parser.skipChildren();
+      }
+      return result;
+    });
+  }
+  
   /**
    * Sends a RPC request to the given path and with the given paramters.
    * 
@@ -169,32 +257,40 @@ public class MoneroRpcConnection {
     //System.out.println("sendPathRequest(" + path + ", " + JsonUtils.serialize(params) + ")");
     
     CloseableHttpResponse resp = null;
+    RequestMetrics requestMetrics = startRequestMetrics(path);
     try {
       
       // build request
       HttpPost post = new HttpPost(uri.toString() + "/" + path);
       if (params != null) {
-        HttpEntity entity = new StringEntity(JsonUtils.serialize(params));
+        String body = JsonUtils.serialize(params);
+        requestMetrics.setRequestBody(body);
+        HttpEntity entity = new StringEntity(body);
         post.setEntity(entity);
       }
       //System.out.println("Sending path request with path '" + path + "' and params: " + JsonUtils.serialize(params));
       
       // send request and validate response
-      resp = client.execute(post);
+      resp = client.execute(post, createHttpContext());
       validateHttpResponse(resp);
       
       // deserialize response
-      Map<String, Object> respMap = JsonUtils.toMap(MAPPER, EntityUtils.toString(resp.getEntity(), "UTF-8"));
+      byte[] respBytes = EntityUtils.toByteArray(resp.getEntity());
+      requestMetrics.setResponseBytes(respBytes.length);
+      Map<String, Object> respMap = JsonUtils.toMap(MAPPER, new String(respBytes, StandardCharsets.UTF_8));
       EntityUtils.consume(resp.getEntity());
 
       // check RPC response for errors
       //System.out.println("Received response: " + respMap);
       validateRpcResponse(respMap, path, params);
+      requestMetrics.complete(null);
       return respMap;
     } catch (MoneroRpcError e1) {
+      requestMetrics.complete(e1);
       throw e1;
     } catch (Exception e2) {
       e2.printStackTrace();
+      requestMetrics.complete(e2);
       throw new MoneroError(e2);
     } finally {
       try {
@@ -203,6 +299,23 @@ public class MoneroRpcConnection {
     }
   }
   
+  /**
+   * Sends a RPC request to the given path and streams the response to the given reader.
+   * 
+   * The response is parsed as it is received, so no intermediate map of the
+   * response is built.  The reader is responsible for checking the response's
+   * status.
+   * 
+   * @param <T> the type of the model read from the response
+   * @param path is the url path of the request to invoke
+   * @param params are request parameters sent in the body
+   * @param reader reads the model from the response object
+   * @return the model read from the response
+   */
+  public <T> T sendPathRequest(String path, Map<String, Object> params, MoneroRpcStreamReader<T> reader) {
+    return sendStreamRequest(path, path, params == null ? null : JsonUtils.serialize(params), reader);
+  }
+  
   /**
    * Sends a binary RPC request.
    * 
@@ -215,31 +328,38 @@ public class MoneroRpcConnection {
     // serialize params to monero's portable binary storage format
     byte[] paramsBin = MoneroUtils.mapToBinary(params);
     CloseableHttpResponse resp = null;
+    RequestMetrics requestMetrics = startRequestMetrics(path);
     try {
       
       // build request
       HttpPost post = new HttpPost(uri.toString() + "/" + path);
       if (paramsBin != null) {
+        requestMetrics.setRequestBytes(paramsBin.length);
         HttpEntity entity = new ByteArrayEntity(paramsBin, ContentType.DEFAULT_BINARY);
         post.setEntity(entity);
       }
       LOGGER.fine("Sending binary request with path '" + path + "' and params: " + JsonUtils.serialize(params));
       
       // send request and validate response
-      resp = client.execute(post);
+      resp = client.execute(post, createHttpContext());
       validateHttpResponse(resp);
       
       // deserialize response
-      return EntityUtils.toByteArray(resp.getEntity());
+      byte[] respBin = EntityUtils.toByteArray(resp.getEntity());
+      requestMetrics.setResponseBytes(respBin.length);
+      requestMetrics.complete(null);
+      return respBin;
       
 //    // send request and store binary response as Uint8Array
 //    let resp = await this._throttledRequest(opts);
 //    if (resp.error) throw new MoneroRpcError(resp.error.code, resp.error.message, opts);
 //    return new Uint8Array(resp, 0, resp.length);
     } catch (MoneroRpcError e1) {
+      requestMetrics.complete(e1);
       throw e1;
     } catch (Exception e2) {
       e2.printStackTrace();
+      requestMetrics.complete(e2);
       throw new MoneroError(e2);
     } finally {
       try {
@@ -248,6 +368,141 @@ public class MoneroRpcConnection {
     }
   }
   
+  /**
+   * Sends a request to the RPC API without blocking the calling thread.
+   * 
+   * @param method specifies the method to request
+   * @return a future which completes with the RPC API response as a map
+   */
+  public CompletableFuture<Map<String, Object>> sendJsonRequestAsync(String method) {
+    return sendJsonRequestAsync(method, (Map<String, Object>) null);
+  }
+  
+  /**
+   * Sends a request to the RPC API without blocking the calling thread.
+   * 
+   * The returned future completes exceptionally with a MoneroRpcError if the
+   * RPC API returns an error or with a MoneroError if the request fails.
+   * 
+   * @param method specifies the method to request
+   * @param params specifies input parameters (supports &lt;Map&lt;String, Object&gt;, List&lt;Object&gt;&lt;/code&gt;, String, etc)
+   * @return a future which completes with the RPC API response as a map
+   */
+  public CompletableFuture<Map<String, Object>> sendJsonRequestAsync(String method, Object params) {
+    RequestMetrics requestMetrics = startRequestMetrics(method);
+    return requestMetrics.completeWith(postJsonBodyAsync(buildJsonRequestBody(method, params), requestMetrics).thenApply(resp -> {
+      if (!(resp instanceof Map)) throw new MoneroError("Invalid response to JSON-RPC request '" + method + "': " + JsonUtils.serialize(resp));
+      @SuppressWarnings("unchecked")
+      Map<String, Object> respMap = (Map<String, Object>) resp;
+      validateRpcResponse(respMap, method, params);
+      return respMap;
+    }));
+  }
+  
+  /**
+   * Sends a RPC request to the given path without blocking the calling thread.
+   * 
+   * @param path is the url path of the request to invoke
+   * @return a future which completes with the request's deserialized response
+   */
+  public CompletableFuture<Map<String, Object>> sendPathRequestAsync(String path) {
+    return sendPathRequestAsync(path, null);
+  }
+  
+  /**
+   * Sends a RPC request to the given path and with the given paramters without
+   * blocking the calling thread.
+   * 
+   * @param path is the url path of the request to invoke
+   * @param params are request parameters sent in the body
+   * @return a future which completes with the request's deserialized response
+   */
+  public CompletableFuture<Map<String, Object>> sendPathRequestAsync(String path, Map<String, Object> params) {
+    SimpleHttpRequest request = SimpleHttpRequests.post(uri + "/" + path);
+    RequestMetrics requestMetrics = startRequestMetrics(path);
+    if (params != null) {
+      String body = JsonUtils.serialize(params);
+      requestMetrics.setRequestBody(body);
+      request.setBody(body, ContentType.APPLICATION_JSON);
+    }
+    return requestMetrics.completeWith(executeAsync(request, requestMetrics).thenApply(resp -> {
+      Map<String, Object> respMap = JsonUtils.toMap(MAPPER, new String(resp.getBodyBytes(), StandardCharsets.UTF_8));
+      validateRpcResponse(respMap, path, params);
+      return respMap;
+    }));
+  }
+  
+  /**
+   * Sends a binary RPC request without blocking the calling thread.
+   * 
+   * @param path is the path of the binary RPC method to invoke
+   * @param params are the request parameters
+   * @return a future which completes with the binary response
+   */
+  public CompletableFuture<byte[]> sendBinaryRequestAsync(String path, Map<String, Object> params) {
+    SimpleHttpRequest request = SimpleHttpRequests.post(uri + "/" + path);
+    byte[] paramsBin;
+    try {
+      paramsBin = MoneroUtils.mapToBinary(params);
+      if (paramsBin != null) request.setBody(paramsBin, ContentType.DEFAULT_BINARY);
+    } catch (Exception e) {
+      CompletableFuture<byte[]> future = new CompletableFuture<byte[]>();
+      future.completeExceptionally(e instanceof MoneroError ? e : new MoneroError(e));
+      return future;
+    }
+    LOGGER.fine("Sending binary request with path '" + path + "' and params: " + JsonUtils.serialize(params));
+    RequestMetrics requestMetrics = startRequestMetrics(path);
+    if (paramsBin != null) requestMetrics.setRequestBytes(paramsBin.length);
+    return requestMetrics.completeWith(executeAsync(request, requestMetrics).thenApply(resp -> resp.getBodyBytes()));
+  }
+  
+  /**
+   * Sends a request to the RPC API, sharing the response with identical
+   * requests which are already in flight.
+   * 
+   * Concurrent callers with the same method and params wait on one request
+   * and receive the same response map, which must therefore not be modified.
+   * Only use for read-only requests.
+   * 
+   * @param method specifies the method to request
+   * @param params specifies input parameters (supports &lt;Map&lt;String, Object&gt;, List&lt;Object&gt;&lt;/code&gt;, String, etc)
+   * @return the RPC API response as a map
+   */
+  public Map<String, Object> sendJsonRequestCoalesced(String method, Object params) {
+    return coalesce("json_rpc:" + method + ":" + JsonUtils.serialize(params), () -> sendJsonRequest(method, params));
+  }
+  
+  /**
+   * Sends a RPC request to the given path, sharing the response with
+   * identical requests which are already in flight.
+   * 
+   * Concurrent callers with the same path and params wait on one request
+   * and receive the same response map, which must therefore not be modified.
+   * Only use for read-only requests.
+   * 
+   * @param path is the url path of the request to invoke
+   * @param params are request parameters sent in the body
+   * @return the request's deserialized response
+   */
+  public Map<String, Object> sendPathRequestCoalesced(String path, Map<String, Object> params) {
+    return coalesce(path + ":" + JsonUtils.serialize(params), () -> sendPathRequest(path, params));
+  }
+  
+  /**
+   * Releases the HTTP clients and connections held by this connection.
+   */
+  public void close() {
+    try {
+      client.close();
+      synchronized (this) {
+        if (asyncClient != null) asyncClient.close();
+        asyncClient = null;
+      }
+    } catch (Exception e) {
+      throw new MoneroError(e);
+    }
+  }
+  
   @Override
   public int hashCode() {
     final int prime = 31;
@@ -276,8 +531,378 @@ public class MoneroRpcConnection {
     return true;
   }
   
+  // ----------------------------- PACKAGE PRIVATE ----------------------------
+  
+  /**
+   * Indicates if the server accepts JSON-RPC 2.0 batch requests.
+   * 
+   * @return true unless a batch request was rejected by the server
+   */
+  boolean isBatchSupported() {
+    return batchSupported;
+  }
+  
+  void setBatchSupported(boolean batchSupported) {
+    this.batchSupported = batchSupported;
+  }
+  
+  /**
+   * Builds a JSON-RPC 2.0 request body with an id unique to this connection.
+   * 
+   * @param method specifies the method to request
+   * @param params specifies input parameters or null
+   * @return the request body
+   */
+  Map<String, Object> buildJsonRequestBody(String method, Object params) {
+    Map<String, Object> body = new HashMap<String, Object>();
+    body.put("jsonrpc", "2.0");
+    body.put("id", Long.toString(nextRequestId.incrementAndGet()));
+    body.put("method", method);
+    if (params != null) body.put("params", params);
+    return body;
+  }
+  
+  /**
+   * Posts a JSON body to the JSON-RPC endpoint.
+   * 
+   * @param body is the request object or array of request objects to post
+   * @return the deserialized response which is a map or a list of maps
+   */
+  Object sendJsonBody(Object body) {
+    RequestMetrics requestMetrics = startRequestMetrics(getMetricsMethod(body));
+    try {
+      Object resp = postJsonBody(body, requestMetrics);
+      requestMetrics.complete(null);
+      return resp;
+    } catch (RuntimeException e) {
+      requestMetrics.complete(e);
+      throw e;
+    }
+  }
+  
+  /**
+   * Posts a JSON body to the JSON-RPC endpoint without blocking the calling thread.
+   * 
+   * @param body is the request object or array of request objects to post
+   * @return a future which completes with the deserialized response
+   */
+  CompletableFuture<Object> sendJsonBodyAsync(Object body) {
+    RequestMetrics requestMetrics = startRequestMetrics(getMetricsMethod(body));
+    return requestMetrics.completeWith(postJsonBodyAsync(body, requestMetrics));
+  }
+  
+  // --------------------------------- PRIVATE --------------------------------
+  
+  private Object postJsonBody(Object body, RequestMetrics requestMetrics) {
+    CloseableHttpResponse resp = null;
+    try {
+      
+      // send http request and validate response
+      HttpPost post = new HttpPost(uri.toString() + "/json_rpc");
+      String bodyStr = JsonUtils.serialize(body);
+      requestMetrics.setRequestBody(bodyStr);
+      HttpEntity entity = new StringEntity(bodyStr);
+      post.setEntity(entity);
+      resp = client.execute(post, createHttpContext());
+      validateHttpResponse(resp);
+      
+      // deserialize response
+      byte[] respBytes = EntityUtils.toByteArray(resp.getEntity());
+      requestMetrics.setResponseBytes(respBytes.length);
+      Object respObj = JsonUtils.deserialize(MAPPER, new String(respBytes, StandardCharsets.UTF_8), Object.class);
+      EntityUtils.consume(resp.getEntity());
+      //String respStr = JsonUtils.serialize(respObj);
+      //respStr = respStr.substring(0, Math.min(1000, respStr.length()));
+      //System.out.println("Received response: " + respStr);
+      return respObj;
+    } catch (MoneroRpcError e1) {
+      throw e1;
+    } catch (Exception e2) {
+      throw new MoneroError(e2);
+    } finally {
+      try {
+        resp.close();
+      } catch (Exception e) {}
+    }
+  }
+  
+  private CompletableFuture<Object> postJsonBodyAsync(Object body, RequestMetrics requestMetrics) {
+    SimpleHttpRequest request = SimpleHttpRequests.post(uri + "/json_rpc");
+    String bodyStr = JsonUtils.serialize(body);
+    requestMetrics.setRequestBody(bodyStr);
+    request.setBody(bodyStr, ContentType.APPLICATION_JSON);
+    return executeAsync(request, requestMetrics).thenApply(resp -> JsonUtils.deserialize(MAPPER, new String(resp.getBodyBytes(), StandardCharsets.UTF_8), Object.class));
+  }
+  
+  private <T> T sendStreamRequest(String path, String method, String body, MoneroRpcStreamReader<T> reader) {
+    CloseableHttpResponse resp = null;
+    RequestMetrics requestMetrics = startRequestMetrics(method);
+    try {
+      
+      // send http request and validate response
+      HttpPost post = new HttpPost(uri.toString() + "/" + path);
+      if (body != null) {
+        requestMetrics.setRequestBody(body);
+        post.setEntity(new StringEntity(body));
+      }
+      resp = client.execute(post, createHttpContext());
+      validateHttpResponse(resp);
+      
+      // stream response to reader
+      T result;
+      try (CountingInputStream content = new CountingInputStream(resp.getEntity().getContent()); JsonParser parser = MAPPER.getFactory().createParser(content)) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) throw new MoneroError("Response to '" + path + "' is not a JSON object");
+        result = reader.read(parser);
+        requestMetrics.setResponseBytes(content.count);
+      }
+      requestMetrics.complete(null);
+      return result;
+    } catch (MoneroError e1) {
+      requestMetrics.complete(e1);
+      throw e1;
+    } catch (Exception e2) {
+      requestMetrics.complete(e2);
+      throw new MoneroError(e2);
+    } finally {
+      try {
+        resp.close();
+      } catch (Exception e) {}
+    }
+  }
+  
+  private Map<String, Object> coalesce(String key, Supplier<Map<String, Object>> request) {
+    
+    // join identical request in flight
+    CompletableFuture<Map<String, Object>> future = new CompletableFuture<Map<String, Object>>();
+    CompletableFuture<Map<String, Object>> inFlight = inFlightRequests.putIfAbsent(key, future);
+    if (inFlight != null) {
+      try {
+        return inFlight.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof MoneroError) throw (MoneroError) e.getCause();
+        throw new MoneroError(e.getCause());
+      }
+    }
+    
+    // otherwise send request and share its response
+    try {
+      Map<String, Object> resp = request.get();
+      future.complete(resp);
+      return resp;
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlightRequests.remove(key, future);
+    }
+  }
+  
+  private synchronized CloseableHttpAsyncClient getAsyncClient() {
+    if (asyncClient == null) {
+      asyncClient = buildAsyncClient();
+      asyncClient.start();
+    }
+    return asyncClient;
+  }
+  
+  /**
+   * Creates a context for one request which shares this connection's auth cache.
+   * 
+   * Once a request is authenticated, the cached auth scheme answers later
+   * requests preemptively, so they do not need a 401 challenge round trip.
+   * 
+   * @return the context for the request
+   */
+  private HttpClientContext createHttpContext() {
+    HttpClientContext context = HttpClientContext.create();
+    if (authCache != null) context.setAuthCache(authCache);
+    return context;
+  }
+  
+  private CloseableHttpClient buildClient() {
+    if (transportConfig == null) return credentialsProvider == null ? HttpClients.createDefault() : HttpClients.custom().setDefaultCredentialsProvider(credentialsProvider).build();
+    HttpClientBuilder builder = HttpClients.custom();
+    if (credentialsProvider != null) builder.setDefaultCredentialsProvider(credentialsProvider);
+    
+    // configure connection pool
+    PoolingHttpClientConnectionManagerBuilder connManagerBuilder = PoolingHttpClientConnectionManagerBuilder.create();
+    if (transportConfig.getMaxConnections() != null) connManagerBuilder.setMaxConnTotal(transportConfig.getMaxConnections());
+    if (transportConfig.getMaxConnectionsPerRoute() != null) connManagerBuilder.setMaxConnPerRoute(transportConfig.getMaxConnectionsPerRoute());
+    if (transportConfig.getConnectionTimeToLiveMs() != null) connManagerBuilder.setConnectionTimeToLive(TimeValue.ofMilliseconds(transportConfig.getConnectionTimeToLiveMs()));
+    SocketConfig.Builder socketConfigBuilder = SocketConfig.custom();
+    if (transportConfig.getSocketTimeoutMs() != null) socketConfigBuilder.setSoTimeout(Timeout.ofMilliseconds(transportConfig.getSocketTimeoutMs()));
+    if (transportConfig.getTcpNoDelay() != null) socketConfigBuilder.setTcpNoDelay(transportConfig.getTcpNoDelay());
+    connManagerBuilder.setDefaultSocketConfig(socketConfigBuilder.build());
+    builder.setConnectionManager(connManagerBuilder.build());
+    
+    // configure timeouts and keep-alive
+    builder.setDefaultRequestConfig(buildRequestConfig(transportConfig));
+    return builder.build();
+  }
+  
+  private CloseableHttpAsyncClient buildAsyncClient() {
+    if (transportConfig == null) return credentialsProvider == null ? HttpAsyncClients.createDefault() : HttpAsyncClients.custom().setDefaultCredentialsProvider(credentialsProvider).build();
+    HttpAsyncClientBuilder builder = HttpAsyncClients.custom();
+    if (credentialsProvider != null) builder.setDefaultCredentialsProvider(credentialsProvider);
+    
+    // configure connection pool
+    PoolingAsyncClientConnectionManagerBuilder connManagerBuilder = PoolingAsyncClientConnectionManagerBuilder.create();
+    if (transportConfig.getMaxConnections() != null) connManagerBuilder.setMaxConnTotal(transportConfig.getMaxConnections());
+    if (transportConfig.getMaxConnectionsPerRoute() != null) connManagerBuilder.setMaxConnPerRoute(transportConfig.getMaxConnectionsPerRoute());
+    if (transportConfig.getConnectionTimeToLiveMs() != null) connManagerBuilder.setConnectionTimeToLive(TimeValue.ofMilliseconds(transportConfig.getConnectionTimeToLiveMs()));
+    builder.setConnectionManager(connManagerBuilder.build());
+    
+    // configure I/O reactor
+    IOReactorConfig.Builder ioReactorConfigBuilder = IOReactorConfig.custom();
+    if (transportConfig.getSocketTimeoutMs() != null) ioReactorConfigBuilder.setSoTimeout(Timeout.ofMilliseconds(transportConfig.getSocketTimeoutMs()));
+    if (transportConfig.getTcpNoDelay() != null) ioReactorConfigBuilder.setTcpNoDelay(transportConfig.getTcpNoDelay());
+    if (transportConfig.getIoThreadCount() != null) ioReactorConfigBuilder.setIoThreadCount(transportConfig.getIoThreadCount());
+    builder.setIOReactorConfig(ioReactorConfigBuilder.build());
+    
+    // configure timeouts and keep-alive
+    builder.setDefaultRequestConfig(buildRequestConfig(transportConfig));
+    return builder.build();
+  }
+  
+  /**
+   * Executes a request on the asynchronous client.
+   * 
+   * @param request is the request to execute
+   * @param requestMetrics records the size of the response
+   * @return a future which completes with the validated http response
+   */
+  private CompletableFuture<SimpleHttpResponse> executeAsync(SimpleHttpRequest request, RequestMetrics requestMetrics) {
+    CompletableFuture<SimpleHttpResponse> future = new CompletableFuture<SimpleHttpResponse>();
+    getAsyncClient().execute(request, createHttpContext(), new FutureCallback<SimpleHttpResponse>() {
+      @Override
+      public void completed(SimpleHttpResponse resp) {
+        try {
+          if (resp.getBodyBytes() != null) requestMetrics.setResponseBytes(resp.getBodyBytes().length);
+          validateHttpResponse(resp);
+          future.complete(resp);
+        } catch (Exception e) {
+          future.completeExceptionally(e);
+        }
+      }
+      
+      @Override
+      public void failed(Exception e) {
+        future.completeExceptionally(new MoneroError(e));
+      }
+      
+      @Override
+      public void cancelled() {
+        future.cancel(false);
+      }
+    });
+    return future;
+  }
+  
+  private RequestMetrics startRequestMetrics(String method) {
+    return new RequestMetrics(metrics, method);
+  }
+  
+  /**
+   * Get the method to record metrics of a JSON-RPC request body under.
+   */
+  @SuppressWarnings("unchecked")
+  private static String getMetricsMethod(Object body) {
+    if (body instanceof Map) return (String) ((Map<String, Object>) body).get("method");
+    return "batch";
+  }
+  
+  /**
+   * Measures one request and reports it to the connection's metrics.
+   */
+  private static class RequestMetrics {
+    
+    private MoneroRpcMetrics metrics;
+    private String method;
+    private long startTime;
+    private long requestBytes;
+    private long responseBytes;
+    
+    private RequestMetrics(MoneroRpcMetrics metrics, String method) {
+      this.metrics = metrics;
+      this.method = method;
+      if (metrics == null) return;
+      this.startTime = System.nanoTime();
+      metrics.onRequestStarted(method);
+    }
+    
+    private void setRequestBody(String body) {
+      if (metrics != null) requestBytes = body.getBytes(StandardCharsets.UTF_8).length;
+    }
+    
+    private void setRequestBytes(long requestBytes) {
+      this.requestBytes = requestBytes;
+    }
+    
+    private void setResponseBytes(long responseBytes) {
+      this.responseBytes = responseBytes;
+    }
+    
+    private void complete(Throwable error) {
+      if (metrics == null) return;
+      while (error instanceof CompletionException && error.getCause() != null) error = error.getCause();
+      MoneroError moneroError = error == null ? null : error instanceof MoneroError ? (MoneroError) error : new MoneroError(error);
+      try {
+        metrics.onRequestCompleted(method, System.nanoTime() - startTime, requestBytes, responseBytes, moneroError);
+      } catch (Exception e) {
+        LOGGER.warning("Failed to record metrics of request '" + method + "': " + e.getMessage());
+      }
+    }
+    
+    private <T> CompletableFuture<T> completeWith(CompletableFuture<T> future) {
+      if (metrics == null) return future;
+      return future.whenComplete((result, error) -> complete(error));
+    }
+  }
+  
+  /**
+   * Counts the bytes read from a stream.
+   */
+  private static class CountingInputStream extends FilterInputStream {
+    
+    private long count;
+    
+    private CountingInputStream(InputStream in) {
+      super(in);
+    }
+    
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) count++;
+      return b;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) count += n;
+      return n;
+    }
+    
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+  }
+  
   // ------------------------------ STATIC UTILITIES --------------------------
-
+  
+  private static RequestConfig buildRequestConfig(MoneroRpcTransportConfig transportConfig) {
+    RequestConfig.Builder builder = RequestConfig.custom();
+    if (transportConfig.getConnectTimeoutMs() != null) builder.setConnectTimeout(Timeout.ofMilliseconds(transportConfig.getConnectTimeoutMs()));
+    if (transportConfig.getConnectionRequestTimeoutMs() != null) builder.setConnectionRequestTimeout(Timeout.ofMilliseconds(transportConfig.getConnectionRequestTimeoutMs()));
+    if (transportConfig.getResponseTimeoutMs() != null) builder.setResponseTimeout(Timeout.ofMilliseconds(transportConfig.getResponseTimeoutMs()));
+    if (transportConfig.getKeepAliveMs() != null) builder.setConnectionKeepAlive(TimeValue.ofMilliseconds(transportConfig.getKeepAliveMs()));
+    return builder.build();
+  }
+  
   private static void validateHttpResponse(CloseableHttpResponse resp) {
     int code = resp.getCode();
     if (code < 200 || code > 299) {
@@ -290,13 +915,121 @@ public class MoneroRpcConnection {
       throw new MoneroRpcError(code + " " + resp.getReasonPhrase() + (content == null || content.isEmpty() ? "" : (": " + content)), code, null, null);
     }
   }
+  
+  private static void validateHttpResponse(SimpleHttpResponse resp) {
+    int code = resp.getCode();
+    if (code < 200 || code > 299) {
+      byte[] content = resp.getBodyBytes();
+      throw new MoneroRpcError(code + " " + resp.getReasonPhrase() + (content == null || content.length == 0 ? "" : (": " + new String(content, StandardCharsets.UTF_8))), code, null, null);
+    }
+  }
 
   @SuppressWarnings("unchecked")
-  private static void validateRpcResponse(Map<String, Object> respMap, String method, Object params) {
+  static void validateRpcResponse(Map<String, Object> respMap, String method, Object params) {
     Map<String, Object> error = (Map<String, Object>) respMap.get("error");
     if (error == null) return;
     String msg = (String) error.get("message");
     int code = ((BigInteger) error.get("code")).intValue();
     throw new MoneroRpcError(msg, code, method, params);
   }
+  
+  /**
+   * Caches live auth schemes per host.
+   * 
+   * The default cache stores schemes in serialized form, so each request gets
+   * a fresh copy and the digest nonce count restarts.  Keeping the instances
+   * lets the digest scheme reuse the server's nonce with an incrementing count.
+   * Cached schemes are shared by concurrent requests, so they are wrapped to
+   * update the nonce count and client nonce under a lock.
+   */
+  private static class PersistentAuthCache implements AuthCache {
+    
+    private Map<HttpHost, AuthScheme> schemes = new ConcurrentHashMap<HttpHost, AuthScheme>();
+    
+    @Override
+    public void put(HttpHost host, AuthScheme authScheme) {
+      if (host == null) return;
+      if (authScheme == null) schemes.remove(host);
+      else schemes.put(host, authScheme instanceof SynchronizedAuthScheme ? authScheme : new SynchronizedAuthScheme(authScheme));
+    }
+    
+    @Override
+    public AuthScheme get(HttpHost host) {
+      return host == null ? null : schemes.get(host);
+    }
+    
+    @Override
+    public void remove(HttpHost host) {
+      if (host != null) schemes.remove(host);
+    }
+    
+    @Override
+    public void clear() {
+      schemes.clear();
+    }
+  }
+  
+  /**
+   * Serializes access to an auth scheme shared by concurrent requests.
+   */
+  private static class SynchronizedAuthScheme implements AuthScheme {
+    
+    private final AuthScheme scheme;
+    
+    private SynchronizedAuthScheme(AuthScheme scheme) {
+      this.scheme = scheme;
+    }
+    
+    @Override
+    public String getName() {
+      return scheme.getName();
+    }
+    
+    @Override
+    public boolean isConnectionBased() {
+      return scheme.isConnectionBased();
+    }
+    
+    @Override
+    public void processChallenge(AuthChallenge authChallenge, HttpContext context) throws MalformedChallengeException {
+      synchronized (scheme) {
+        scheme.processChallenge(authChallenge, context);
+      }
+    }
+    
+    @Override
+    public boolean isChallengeComplete() {
+      synchronized (scheme) {
+        return scheme.isChallengeComplete();
+      }
+    }
+    
+    @Override
+    public String getRealm() {
+      synchronized (scheme) {
+        return scheme.getRealm();
+      }
+    }
+    
+    @Override
+    public boolean isResponseReady(HttpHost host, CredentialsProvider credentialsProvider, HttpContext context) throws AuthenticationException {
+      synchronized (scheme) {
+        return scheme.isResponseReady(host, credentialsProvider, context);
+      }
+    }
+    
+    @Override
+    public Principal getPrincipal() {
+      synchronized (scheme) {
+        return scheme.getPrincipal();
+      }
+    }
+    
+    @Override
+    public String generateAuthResponse(HttpHost host, HttpRequest request, HttpContext context) throws AuthenticationException {
+      synchronized (scheme) {  // increments the nonce count and renews the client nonce
+        return scheme.generateAuthResponse(host, request, context);
+      }
+    }
+  }
 }
@@ -0,0 +1,118 @@
+package monero.common;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Snapshot of the metrics recorded for one RPC method.
+ */
+public class MoneroRpcMethodMetrics {
+
+  private String method;
+  private long numRequests;
+  private long numErrors;
+  private long numInFlight;
+  private long requestBytes;
+  private long responseBytes;
+  private long totalLatencyNanos;
+  private long maxLatencyNanos;
+  private long[] latencyBuckets;
+  private Map<Integer, Long> errorCodes;
+
+  MoneroRpcMethodMetrics(String method, long numRequests, long numErrors, long numInFlight, long requestBytes, long responseBytes, long totalLatencyNanos, long maxLatencyNanos, long[] latencyBuckets, Map<Integer, Long> errorCodes) {
+    this.method = method;
+    this.numRequests = numRequests;
+    this.numErrors = numErrors;
+    this.numInFlight = numInFlight;
+    this.requestBytes = requestBytes;
+    this.responseBytes = responseBytes;
+    this.totalLatencyNanos = totalLatencyNanos;
+    this.maxLatencyNanos = maxLatencyNanos;
+    this.latencyBuckets = latencyBuckets;
+    this.errorCodes = Collections.unmodifiableMap(errorCodes);
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * Get the number of completed requests, including failed requests.
+   *
+   * @return the number of completed requests
+   */
+  public long getNumRequests() {
+    return numRequests;
+  }
+
+  public long getNumErrors() {
+    return numErrors;
+  }
+
+  public long getNumInFlight() {
+    return numInFlight;
+  }
+
+  public long getRequestBytes() {
+    return requestBytes;
+  }
+
+  public long getResponseBytes() {
+    return responseBytes;
+  }
+
+  /**
+   * Get the number of failed requests by error code, e.g. the code of a
+   * MoneroRpcError or a HTTP status code.
+   *
+   * @return the number of failed requests by error code
+   */
+  public Map<Integer, Long> getErrorCodes() {
+    return errorCodes;
+  }
+
+  public double getMeanLatencyMs() {
+    return numRequests == 0 ? 0 : totalLatencyNanos / 1000000.0 / numRequests;
+  }
+
+  public double getMaxLatencyMs() {
+    return maxLatencyNanos / 1000000.0;
+  }
+
+  /**
+   * Get a latency percentile from the latency histogram.
+   *
+   * @param percentile is the percentile to get in the range (0, 100]
+   * @return the upper bound of the histogram bucket containing the percentile in milliseconds
+   */
+  public double getLatencyPercentileMs(double percentile) {
+    if (percentile <= 0 || percentile > 100) throw new MoneroError("Percentile must be in the range (0, 100] but was " + percentile);
+    long numLatencies = 0;
+    for (long count : latencyBuckets) numLatencies += count;
+    if (numLatencies == 0) return 0;
+    long rank = (long) Math.ceil(percentile / 100 * numLatencies);
+    long count = 0;
+    for (int i = 0; i < latencyBuckets.length - 1; i++) {
+      count += latencyBuckets[i];
+      if (count >= rank) return Math.min((1l << i) / 1000.0, getMaxLatencyMs());
+    }
+    return getMaxLatencyMs();
+  }
+
+  /**
+   * Get the latency histogram.
+   *
+   * Bucket i counts latencies less than 2^i microseconds and at least
+   * 2^(i-1) microseconds.  The last bucket counts all longer latencies.
+   *
+   * @return the number of latencies in each bucket
+   */
+  public long[] getLatencyBuckets() {
+    return latencyBuckets.clone();
+  }
+
+  @Override
+  public String toString() {
+    return method + ": requests=" + numRequests + ", errors=" + numErrors + ", inFlight=" + numInFlight + ", requestBytes=" + requestBytes + ", responseBytes=" + responseBytes + ", meanMs=" + getMeanLatencyMs() + ", maxMs=" + getMaxLatencyMs() + ", errorCodes=" + errorCodes;
+  }
+}
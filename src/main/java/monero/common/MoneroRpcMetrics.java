@@ -0,0 +1,29 @@
+package monero.common;
+
+/**
+ * Receives metrics of the requests sent by a RPC connection.
+ *
+ * Requests are identified by their JSON-RPC method or url path, or by "batch"
+ * for JSON-RPC batches.  Callbacks are invoked on the threads sending and
+ * completing requests, so implementations must be thread-safe and fast.
+ */
+public interface MoneroRpcMetrics {
+
+  /**
+   * Called when a request is sent.
+   *
+   * @param method is the JSON-RPC method or url path of the request
+   */
+  public void onRequestStarted(String method);
+
+  /**
+   * Called when a request completes or fails.
+   *
+   * @param method is the JSON-RPC method or url path of the request
+   * @param latencyNanos is the time from sending the request until its response was processed
+   * @param requestBytes is the size of the request body in bytes
+   * @param responseBytes is the size of the response body in bytes, 0 if no response was received
+   * @param error is the error the request failed with (e.g. a MoneroRpcError with its code) or null if successful
+   */
+  public void onRequestCompleted(String method, long latencyNanos, long requestBytes, long responseBytes, MoneroError error);
+}
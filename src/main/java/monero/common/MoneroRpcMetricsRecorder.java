@@ -0,0 +1,144 @@
+package monero.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records metrics of RPC requests in memory, per method.
+ *
+ * Latencies are recorded in a histogram whose buckets double in size from 1
+ * microsecond, so percentiles are accurate to within a factor of 2.
+ *
+ * Example:
+ *
+ * <pre>
+ * MoneroRpcMetricsRecorder recorder = new MoneroRpcMetricsRecorder();
+ * rpc.setMetrics(recorder);
+ * ...
+ * MoneroRpcMethodMetrics metrics = recorder.getMetrics("get_transactions");
+ * System.out.println(metrics.getLatencyPercentileMs(99));
+ * </pre>
+ */
+public class MoneroRpcMetricsRecorder implements MoneroRpcMetrics {
+
+  static final int NUM_LATENCY_BUCKETS = 40;  // bucket i counts latencies < 2^i microseconds, last bucket is unbounded
+
+  private Map<String, MethodRecorder> recorders = new ConcurrentHashMap<String, MethodRecorder>();
+
+  @Override
+  public void onRequestStarted(String method) {
+    getRecorder(method).numInFlight.incrementAndGet();
+  }
+
+  @Override
+  public void onRequestCompleted(String method, long latencyNanos, long requestBytes, long responseBytes, MoneroError error) {
+    MethodRecorder recorder = getRecorder(method);
+    recorder.numInFlight.decrementAndGet();
+    recorder.numRequests.increment();
+    recorder.requestBytes.add(requestBytes);
+    recorder.responseBytes.add(responseBytes);
+    recorder.latencyNanos.add(latencyNanos);
+    recorder.latencyBuckets.incrementAndGet(getLatencyBucket(latencyNanos));
+    long maxLatencyNanos;
+    while ((maxLatencyNanos = recorder.maxLatencyNanos.get()) < latencyNanos && !recorder.maxLatencyNanos.compareAndSet(maxLatencyNanos, latencyNanos));
+    if (error != null) {
+      recorder.numErrors.increment();
+      if (error.getCode() != null) getErrorCount(recorder, error.getCode()).increment();
+    }
+  }
+
+  /**
+   * Get the methods which have been recorded.
+   *
+   * @return the recorded methods in alphabetical order
+   */
+  public List<String> getMethods() {
+    List<String> methods = new ArrayList<String>(recorders.keySet());
+    Collections.sort(methods);
+    return methods;
+  }
+
+  /**
+   * Get a snapshot of the metrics recorded for a method.
+   *
+   * @param method is the JSON-RPC method or url path to get metrics of
+   * @return the method's metrics or null if no requests have been recorded
+   */
+  public MoneroRpcMethodMetrics getMetrics(String method) {
+    MethodRecorder recorder = recorders.get(method);
+    if (recorder == null) return null;
+    long[] latencyBuckets = new long[NUM_LATENCY_BUCKETS];
+    for (int i = 0; i < NUM_LATENCY_BUCKETS; i++) latencyBuckets[i] = recorder.latencyBuckets.get(i);
+    Map<Integer, Long> errorCodes = new HashMap<Integer, Long>();
+    for (Map.Entry<Integer, LongAdder> entry : recorder.errorCodes.entrySet()) errorCodes.put(entry.getKey(), entry.getValue().sum());
+    return new MoneroRpcMethodMetrics(method, recorder.numRequests.sum(), recorder.numErrors.sum(), recorder.numInFlight.get(), recorder.requestBytes.sum(), recorder.responseBytes.sum(), recorder.latencyNanos.sum(), recorder.maxLatencyNanos.get(), latencyBuckets, errorCodes);
+  }
+
+  /**
+   * Clear all recorded metrics except the number of requests in flight.
+   *
+   * Metrics are cleared in place, so requests in flight keep their count and
+   * are recorded once they complete.  A request completing during the reset
+   * may be partially cleared.
+   */
+  public void reset() {
+    for (MethodRecorder recorder : recorders.values()) {
+      recorder.numRequests.reset();
+      recorder.numErrors.reset();
+      recorder.requestBytes.reset();
+      recorder.responseBytes.reset();
+      recorder.latencyNanos.reset();
+      recorder.maxLatencyNanos.set(0);
+      for (int i = 0; i < NUM_LATENCY_BUCKETS; i++) recorder.latencyBuckets.set(i, 0);
+      recorder.errorCodes.clear();
+    }
+  }
+
+  // --------------------------------- PRIVATE --------------------------------
+
+  private MethodRecorder getRecorder(String method) {
+    MethodRecorder recorder = recorders.get(method);
+    if (recorder == null) {
+      recorders.putIfAbsent(method, new MethodRecorder());
+      recorder = recorders.get(method);
+    }
+    return recorder;
+  }
+
+  private static LongAdder getErrorCount(MethodRecorder recorder, int code) {
+    LongAdder count = recorder.errorCodes.get(code);
+    if (count == null) {
+      recorder.errorCodes.putIfAbsent(code, new LongAdder());
+      count = recorder.errorCodes.get(code);
+    }
+    return count;
+  }
+
+  static int getLatencyBucket(long latencyNanos) {
+    long latencyMicros = latencyNanos / 1000;
+    int bucket = 64 - Long.numberOfLeadingZeros(latencyMicros);  // smallest i such that latencyMicros < 2^i
+    return Math.min(bucket, NUM_LATENCY_BUCKETS - 1);
+  }
+
+  /**
+   * Records the metrics of one method.
+   */
+  private static class MethodRecorder {
+    private LongAdder numRequests = new LongAdder();
+    private LongAdder numErrors = new LongAdder();
+    private AtomicLong numInFlight = new AtomicLong();
+    private LongAdder requestBytes = new LongAdder();
+    private LongAdder responseBytes = new LongAdder();
+    private LongAdder latencyNanos = new LongAdder();
+    private AtomicLong maxLatencyNanos = new AtomicLong();
+    private AtomicLongArray latencyBuckets = new AtomicLongArray(NUM_LATENCY_BUCKETS);
+    private Map<Integer, LongAdder> errorCodes = new ConcurrentHashMap<Integer, LongAdder>();
+  }
+}
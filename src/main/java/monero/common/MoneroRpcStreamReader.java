@@ -0,0 +1,27 @@
+package monero.common;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Reads a model directly from a streamed JSON response without building an
+ * intermediate map of the response.
+ *
+ * @param <T> the type of the model read from the response
+ */
+@FunctionalInterface
+public interface MoneroRpcStreamReader<T> {
+
+  /**
+   * Reads a model from the given parser.
+   *
+   * The parser is positioned at the START_OBJECT token of the object to read
+   * and must be left at its matching END_OBJECT token.
+   *
+   * @param parser is the parser to read from
+   * @return the model read from the parser
+   * @throws IOException if the response cannot be read
+   */
+  public T read(JsonParser parser) throws IOException;
+}
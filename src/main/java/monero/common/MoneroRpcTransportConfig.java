@@ -0,0 +1,187 @@
+package monero.common;
+
+/**
+ * Configures the HTTP transport of a RPC connection, including connection
+ * pooling, timeouts, and keep-alive.
+ *
+ * Unset values use the defaults of the underlying HTTP client.  All durations
+ * are in milliseconds.
+ */
+public class MoneroRpcTransportConfig {
+
+  private Integer maxConnections;
+  private Integer maxConnectionsPerRoute;
+  private Long connectTimeoutMs;
+  private Long connectionRequestTimeoutMs;
+  private Long responseTimeoutMs;
+  private Long socketTimeoutMs;
+  private Long keepAliveMs;
+  private Long connectionTimeToLiveMs;
+  private Boolean tcpNoDelay;
+  private Integer ioThreadCount;
+
+  public MoneroRpcTransportConfig() {
+    // nothing to construct
+  }
+
+  public MoneroRpcTransportConfig(final MoneroRpcTransportConfig config) {
+    this.maxConnections = config.maxConnections;
+    this.maxConnectionsPerRoute = config.maxConnectionsPerRoute;
+    this.connectTimeoutMs = config.connectTimeoutMs;
+    this.connectionRequestTimeoutMs = config.connectionRequestTimeoutMs;
+    this.responseTimeoutMs = config.responseTimeoutMs;
+    this.socketTimeoutMs = config.socketTimeoutMs;
+    this.keepAliveMs = config.keepAliveMs;
+    this.connectionTimeToLiveMs = config.connectionTimeToLiveMs;
+    this.tcpNoDelay = config.tcpNoDelay;
+    this.ioThreadCount = config.ioThreadCount;
+  }
+
+  public MoneroRpcTransportConfig copy() {
+    return new MoneroRpcTransportConfig(this);
+  }
+
+  public Integer getMaxConnections() {
+    return maxConnections;
+  }
+
+  /**
+   * Set the maximum number of pooled connections across all routes.
+   *
+   * @param maxConnections is the maximum number of pooled connections
+   * @return this config for chaining
+   */
+  public MoneroRpcTransportConfig setMaxConnections(Integer maxConnections) {
+    this.maxConnections = maxConnections;
+    return this;
+  }
+
+  public Integer getMaxConnectionsPerRoute() {
+    return maxConnectionsPerRoute;
+  }
+
+  /**
+   * Set the maximum number of pooled connections to one endpoint.
+   *
+   * @param maxConnectionsPerRoute is the maximum number of pooled connections per endpoint
+   * @return this config for chaining
+   */
+  public MoneroRpcTransportConfig setMaxConnectionsPerRoute(Integer maxConnectionsPerRoute) {
+    this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    return this;
+  }
+
+  public Long getConnectTimeoutMs() {
+    return connectTimeoutMs;
+  }
+
+  /**
+   * Set the timeout to establish a new connection.
+   *
+   * @param connectTimeoutMs is the connect timeout in milliseconds
+   * @return this config for chaining
+   */
+  public MoneroRpcTransportConfig setConnectTimeoutMs(Long connectTimeoutMs) {
+    this.connectTimeoutMs = connectTimeoutMs;
+    return this;
+  }
+
+  public Long getConnectionRequestTimeoutMs() {
+    return connectionRequestTimeoutMs;
+  }
+
+  /**
+   * Set the timeout to lease a connection from the pool.
+   *
+   * @param connectionRequestTimeoutMs is the connection request timeout in milliseconds
+   * @return this config for chaining
+   */
+  public MoneroRpcTransportConfig setConnectionRequestTimeoutMs(Long connectionRequestTimeoutMs) {
+    this.connectionRequestTimeoutMs = connectionRequestTimeoutMs;
+    return this;
+  }
+
+  public Long getResponseTimeoutMs() {
+    return responseTimeoutMs;
+  }
+
+  /**
+   * Set the timeout to receive a response after a request is sent.
+   *
+   * @param responseTimeoutMs is the response timeout in milliseconds
+   * @return this config for chaining
+   */
+  public MoneroRpcTransportConfig setResponseTimeoutMs(Long responseTimeoutMs) {
+    this.responseTimeoutMs = responseTimeoutMs;
+    return this;
+  }
+
+  public Long getSocketTimeoutMs() {
+    return socketTimeoutMs;
+  }
+
+  /**
+   * Set the maximum time a socket may be inactive while reading.
+   *
+   * @param socketTimeoutMs is the socket timeout in milliseconds
+   * @return this config for chaining
+   */
+  public MoneroRpcTransportConfig setSocketTimeoutMs(Long socketTimeoutMs) {
+    this.socketTimeoutMs = socketTimeoutMs;
+    return this;
+  }
+
+  public Long getKeepAliveMs() {
+    return keepAliveMs;
+  }
+
+  /**
+   * Set how long idle connections are kept alive if the server does not specify.
+   *
+   * @param keepAliveMs is the keep-alive duration in milliseconds
+   * @return this config for chaining
+   */
+  public MoneroRpcTransportConfig setKeepAliveMs(Long keepAliveMs) {
+    this.keepAliveMs = keepAliveMs;
+    return this;
+  }
+
+  public Long getConnectionTimeToLiveMs() {
+    return connectionTimeToLiveMs;
+  }
+
+  /**
+   * Set the maximum lifetime of a pooled connection.
+   *
+   * @param connectionTimeToLiveMs is the connection time to live in milliseconds
+   * @return this config for chaining
+   */
+  public MoneroRpcTransportConfig setConnectionTimeToLiveMs(Long connectionTimeToLiveMs) {
+    this.connectionTimeToLiveMs = connectionTimeToLiveMs;
+    return this;
+  }
+
+  public Boolean getTcpNoDelay() {
+    return tcpNoDelay;
+  }
+
+  public MoneroRpcTransportConfig setTcpNoDelay(Boolean tcpNoDelay) {
+    this.tcpNoDelay = tcpNoDelay;
+    return this;
+  }
+
+  public Integer getIoThreadCount() {
+    return ioThreadCount;
+  }
+
+  /**
+   * Set the number of I/O threads of the asynchronous client.
+   *
+   * @param ioThreadCount is the number of I/O threads
+   * @return this config for chaining
+   */
+  public MoneroRpcTransportConfig setIoThreadCount(Integer ioThreadCount) {
+    this.ioThreadCount = ioThreadCount;
+    return this;
+  }
+}
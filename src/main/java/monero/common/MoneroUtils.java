@@ -1,21 +1,24 @@
 package monero.common;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 import org.bouncycastle.jcajce.provider.digest.Keccak;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-
 import common.utils.GenUtils;
-import common.utils.JsonUtils;
+import monero.daemon.model.MoneroBlock;
 import monero.daemon.model.MoneroNetworkType;
+import monero.daemon.model.MoneroOutput;
 import monero.daemon.model.MoneroTx;
 import monero.wallet.model.MoneroAddressType;
 import monero.wallet.model.MoneroDecodedAddress;
@@ -216,6 +219,44 @@ public class MoneroUtils {
     if (!str.matches("^([0-9A-Fa-f]{2})+$")) throw new MoneroError("Invalid hex: " + str);
   }
 
+  /**
+   * Convert hex to bytes.
+   * 
+   * @param hex is the hex to convert
+   * @return the bytes of the hex
+   * @throws MoneroError if the hex is invalid
+   */
+  public static byte[] hexToBytes(String hex) {
+    if (hex == null) throw new MoneroError("Invalid hex: null");
+    try {
+      return Hex.decodeHex(hex.toCharArray());
+    } catch (DecoderException e) {
+      throw new MoneroError("Invalid hex: " + hex);
+    }
+  }
+  
+  /**
+   * Convert bytes to lowercase hex.
+   * 
+   * @param bytes are the bytes to convert
+   * @return the hex of the bytes
+   */
+  public static String bytesToHex(byte[] bytes) {
+    return Hex.encodeHexString(bytes);
+  }
+  
+  /**
+   * Convert a range of bytes to lowercase hex.
+   * 
+   * @param bytes contains the bytes to convert
+   * @param offset is the index of the first byte to convert
+   * @param length is the number of bytes to convert
+   * @return the hex of the bytes
+   */
+  public static String bytesToHex(byte[] bytes, int offset, int length) {
+    return Hex.encodeHexString(Arrays.copyOfRange(bytes, offset, offset + length));
+  }
+  
   public static void validateBase58(String standardAddress) {
     for (char c : standardAddress.toCharArray()) {
       if (!CHARS.contains((Character) c)) throw new MoneroError("Invalid Base58 " + standardAddress);
@@ -258,44 +299,56 @@ public class MoneroUtils {
     txs.add(tx);
   }
   
+  /**
+   * Serialize a map to Monero's portable storage binary format.
+   * 
+   * @param map is the map to serialize
+   * @return the map in portable storage format
+   */
   public static byte[] mapToBinary(Map<String, Object> map) {
-    return jsonToBinaryJni(JsonUtils.serialize(map));
+    return MoneroPortableStorage.serialize(map);
   }
   
+  /**
+   * Deserialize Monero's portable storage binary format to a map.
+   * 
+   * @param bin is the binary to deserialize
+   * @return the deserialized map
+   */
   public static Map<String, Object> binaryToMap(byte[] bin) {
-    return JsonUtils.deserialize(binaryToJsonJni(bin), new TypeReference<Map<String, Object>>(){});
+    return MoneroPortableStorage.deserialize(bin);
   }
   
+  /**
+   * Deserialize a get_blocks_by_height.bin response to a map whose blocks and
+   * txs are in the shape of the daemon's JSON, one list of txs per block.
+   * 
+   * Miner tx inputs and output view tags are not included.
+   * 
+   * @param binBlocks is the binary response to deserialize
+   * @return the deserialized map with its blocks and txs
+   * @deprecated read blocks and txs with {@link MoneroBlobReader} instead
+   */
+  @Deprecated
   @SuppressWarnings("unchecked")
   public static Map<String, Object> binaryBlocksToMap(byte[] binBlocks) {
-    
-    // convert binary blocks to json then to map
-    Map<String, Object> map = JsonUtils.deserialize(MoneroRpcConnection.MAPPER, binaryBlocksToJsonJni(binBlocks), new TypeReference<Map<String, Object>>(){});
-    
-    // parse blocks to maps
+    Map<String, Object> map = binaryToMap(binBlocks);
     List<Map<String, Object>> blockMaps = new ArrayList<Map<String, Object>>();
-    for (String blockStr : (List<String>) map.get("blocks")) {
-      blockMaps.add(JsonUtils.deserialize(MoneroRpcConnection.MAPPER, blockStr, new TypeReference<Map<String, Object>>(){}));
-    }
-    map.put("blocks", blockMaps); // overwrite block strings
-    
-    // parse txs to maps, one array of txs per block
     List<List<Map<String, Object>>> allTxs = new ArrayList<List<Map<String, Object>>>();
-    List<Object> rpcAllTxs = (List<Object>) map.get("txs");
-    for (Object rpcTxs : rpcAllTxs) {
-      if ("".equals(rpcTxs)) {
-        allTxs.add(new ArrayList<Map<String, Object>>());
-      } else {
+    if (map.get("blocks") != null) {
+      for (Map<String, Object> blockEntry : (List<Map<String, Object>>) map.get("blocks")) {
+        blockMaps.add(blockToMap(MoneroBlobReader.readBlock(toBlob(blockEntry.get("block")))));
         List<Map<String, Object>> txs = new ArrayList<Map<String, Object>>();
         allTxs.add(txs);
-        for (String rpcTx : (List<String>) rpcTxs) {
-          txs.add(JsonUtils.deserialize(MoneroRpcConnection.MAPPER, rpcTx.replaceFirst(",", "{") + "}", new TypeReference<Map<String, Object>>(){})); // modify tx string to proper json and parse // TODO: more efficient way than this json manipulation?
+        if (!(blockEntry.get("txs") instanceof List)) continue;
+        for (Object txEntry : (List<Object>) blockEntry.get("txs")) {
+          Object txBlob = txEntry instanceof Map ? ((Map<String, Object>) txEntry).get("blob") : txEntry; // newer daemons send blob entries
+          txs.add(txToMap(MoneroBlobReader.readTx(toBlob(txBlob))));
         }
       }
     }
-    map.put("txs", allTxs); // overwrite tx strings
-
-    // return map containing blocks and txs as maps
+    map.put("blocks", blockMaps); // overwrite block entries
+    map.put("txs", allTxs);
     return map;
   }
   
@@ -310,16 +363,65 @@ public class MoneroUtils {
   
   // ---------------------------- PRIVATE HELPERS -----------------------------
   
-  private native static byte[] jsonToBinaryJni(String json);
-  
-  private native static String binaryToJsonJni(byte[] bin);
-  
-  private native static String binaryBlocksToJsonJni(byte[] binBlocks);
-  
   private native static void initLoggingJni(String path, boolean console);
 
   private native static void setLogLevelJni(int level);
 
+  private static byte[] toBlob(Object value) {
+    if (value instanceof byte[]) return (byte[]) value;
+    if (value instanceof String) return ((String) value).getBytes(StandardCharsets.UTF_8); // blob happened to be valid utf-8
+    throw new MoneroError("Expected binary blob but got " + value);
+  }
+  
+  private static Map<String, Object> blockToMap(MoneroBlock block) {
+    Map<String, Object> blockMap = new HashMap<String, Object>();
+    blockMap.put("major_version", BigInteger.valueOf(block.getMajorVersion()));
+    blockMap.put("minor_version", BigInteger.valueOf(block.getMinorVersion()));
+    blockMap.put("timestamp", BigInteger.valueOf(block.getTimestamp()));
+    blockMap.put("prev_id", block.getPrevHash());
+    blockMap.put("nonce", BigInteger.valueOf(Integer.toUnsignedLong(block.getNonce())));
+    blockMap.put("miner_tx", txToMap(block.getMinerTx()));
+    blockMap.put("tx_hashes", block.getTxHashes());
+    return blockMap;
+  }
+  
+  private static Map<String, Object> txToMap(MoneroTx tx) {
+    Map<String, Object> txMap = new HashMap<String, Object>();
+    txMap.put("version", BigInteger.valueOf(tx.getVersion()));
+    txMap.put("unlock_time", BigInteger.valueOf(tx.getUnlockHeight()));
+    List<Map<String, Object>> vin = new ArrayList<Map<String, Object>>();
+    if (tx.getInputs() != null) {
+      for (MoneroOutput input : tx.getInputs()) {
+        Map<String, Object> key = new HashMap<String, Object>();
+        key.put("amount", input.getAmount());
+        List<BigInteger> keyOffsets = new ArrayList<BigInteger>();
+        for (Integer offset : input.getRingOutputIndices()) keyOffsets.add(BigInteger.valueOf(offset));
+        key.put("key_offsets", keyOffsets);
+        key.put("k_image", input.getKeyImage().getHex());
+        Map<String, Object> inputMap = new HashMap<String, Object>();
+        inputMap.put("key", key);
+        vin.add(inputMap);
+      }
+    }
+    txMap.put("vin", vin);
+    List<Map<String, Object>> vout = new ArrayList<Map<String, Object>>();
+    for (MoneroOutput output : tx.getOutputs()) {
+      Map<String, Object> target = new HashMap<String, Object>();
+      target.put("key", output.getStealthPublicKey());
+      Map<String, Object> outputMap = new HashMap<String, Object>();
+      outputMap.put("amount", output.getAmount());
+      outputMap.put("target", target);
+      vout.add(outputMap);
+    }
+    txMap.put("vout", vout);
+    List<BigInteger> extra = new ArrayList<BigInteger>();
+    for (int b : tx.getExtra()) extra.add(BigInteger.valueOf(b));
+    txMap.put("extra", extra);
+    if (tx.getSignatures() != null) txMap.put("signatures", tx.getSignatures());
+    if (tx.getRctSignatures() != null) txMap.put("rct_signatures", tx.getRctSignatures());
+    return txMap;
+  }
+  
   private static boolean isValidAddressHash(String decodedAddrStr) {
     String checksumCheck = decodedAddrStr.substring(decodedAddrStr.length() - 8);
     String withoutChecksumStr = decodedAddrStr.substring(0, decodedAddrStr.length() - 8);
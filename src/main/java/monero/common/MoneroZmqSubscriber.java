@@ -0,0 +1,324 @@
+package monero.common;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Subscribes to a ZeroMQ publisher such as monerod's --zmq-pub endpoint.
+ *
+ * Implements the subscriber side of ZMTP 3.0 over TCP with the NULL security
+ * mechanism, which is all monerod's publisher requires.  Subscriptions are
+ * sent as messages, which ZMTP 3.1 publishers accept from 3.0 peers.
+ *
+ * Example:
+ *
+ * <pre>
+ * MoneroZmqSubscriber subscriber = new MoneroZmqSubscriber("tcp://127.0.0.1:18083");
+ * subscriber.connect();
+ * subscriber.subscribe("json-minimal-chain_main");
+ * String message = subscriber.receiveString();  // e.g. json-minimal-chain_main:{...}
+ * </pre>
+ */
+public class MoneroZmqSubscriber implements Closeable {
+
+  public static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;
+  private static final int GREETING_LENGTH = 64;
+  private static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;  // larger frames are rejected
+  private static final int FLAG_MORE = 0x01;
+  private static final int FLAG_LONG = 0x02;
+  private static final int FLAG_COMMAND = 0x04;
+
+  private String host;
+  private int port;
+  private int connectTimeoutMs;
+  private int receiveTimeoutMs;
+  private volatile Socket socket;
+  private DataInputStream in;
+  private OutputStream out;
+
+  /**
+   * Construct a subscriber to a publisher's endpoint.
+   *
+   * @param uri is the publisher's endpoint, e.g. tcp://127.0.0.1:18083
+   */
+  public MoneroZmqSubscriber(String uri) {
+    this(uri, DEFAULT_CONNECT_TIMEOUT_MS);
+  }
+
+  /**
+   * Construct a subscriber to a publisher's endpoint.
+   *
+   * @param uri is the publisher's endpoint, e.g. tcp://127.0.0.1:18083
+   * @param connectTimeoutMs is the timeout to connect and handshake in milliseconds
+   */
+  public MoneroZmqSubscriber(String uri, int connectTimeoutMs) {
+    this(uri, connectTimeoutMs, 0);
+  }
+
+  /**
+   * Construct a subscriber to a publisher's endpoint.
+   *
+   * A receive timeout detects a connection which silently stopped delivering,
+   * so it should exceed the longest expected gap between messages or
+   * heartbeats.
+   *
+   * @param uri is the publisher's endpoint, e.g. tcp://127.0.0.1:18083
+   * @param connectTimeoutMs is the timeout to connect and handshake in milliseconds
+   * @param receiveTimeoutMs is the timeout to receive the next message or heartbeat in milliseconds, 0 to wait indefinitely
+   */
+  public MoneroZmqSubscriber(String uri, int connectTimeoutMs, int receiveTimeoutMs) {
+    if (receiveTimeoutMs < 0) throw new MoneroError("ZMQ receive timeout cannot be negative: " + receiveTimeoutMs);
+    URI parsed;
+    try {
+      parsed = new URI(uri);
+    } catch (Exception e) {
+      throw new MoneroError("Invalid ZMQ endpoint: " + uri);
+    }
+    if (!"tcp".equals(parsed.getScheme()) || parsed.getHost() == null || parsed.getPort() < 0) throw new MoneroError("ZMQ endpoint must be tcp://host:port: " + uri);
+    this.host = parsed.getHost();
+    this.port = parsed.getPort();
+    this.connectTimeoutMs = connectTimeoutMs;
+    this.receiveTimeoutMs = receiveTimeoutMs;
+  }
+
+  public int getReceiveTimeoutMs() {
+    return receiveTimeoutMs;
+  }
+
+  /**
+   * Connect to the publisher and complete the ZMTP handshake.
+   */
+  public void connect() {
+    if (socket != null) throw new MoneroError("ZMQ subscriber is already connected");
+    Socket socket = new Socket();
+    this.socket = socket;
+    try {
+      socket.connect(new InetSocketAddress(host, port), connectTimeoutMs);
+      socket.setTcpNoDelay(true);
+      socket.setKeepAlive(true);
+      socket.setSoTimeout(connectTimeoutMs);
+      in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      out = socket.getOutputStream();
+
+      // exchange greetings
+      out.write(getGreeting());
+      out.flush();
+      byte[] greeting = new byte[GREETING_LENGTH];
+      in.readFully(greeting);
+      if ((greeting[0] & 0xff) != 0xff || (greeting[9] & 0x01) != 0x01) throw new MoneroError("ZMQ peer is not a ZMTP peer");
+      if (greeting[10] < 3) throw new MoneroError("ZMQ peer uses unsupported ZMTP version " + greeting[10]);
+      if (!"NULL".equals(new String(greeting, 12, 20, StandardCharsets.US_ASCII).trim())) throw new MoneroError("ZMQ peer requires unsupported security mechanism");
+
+      // exchange ready commands
+      writeFrame(FLAG_COMMAND, getReadyCommand());
+      out.flush();
+      byte[] command = readFrame(true);
+      String name = getCommandName(command);
+      if ("ERROR".equals(name)) throw new MoneroError("ZMQ peer rejected handshake");
+      if (!"READY".equals(name)) throw new MoneroError("ZMQ peer sent unexpected command: " + name);
+      socket.setSoTimeout(receiveTimeoutMs);
+    } catch (IOException e) {
+      close();
+      throw new MoneroError("Failed to connect to ZMQ endpoint tcp://" + host + ":" + port + ": " + e.getMessage());
+    } catch (MoneroError e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Subscribe to messages starting with a topic.
+   *
+   * @param topic is the topic to subscribe to, empty to subscribe to all messages
+   */
+  public void subscribe(String topic) {
+    sendSubscription(0x01, topic);
+  }
+
+  /**
+   * Unsubscribe from messages starting with a topic.
+   *
+   * @param topic is the topic to unsubscribe from
+   */
+  public void unsubscribe(String topic) {
+    sendSubscription(0x00, topic);
+  }
+
+  /**
+   * Receive the next message, blocking until one is published.
+   *
+   * The connection is closed if no message or heartbeat arrives within the
+   * receive timeout.
+   *
+   * @return the message's frames
+   */
+  public List<byte[]> receive() {
+    try {
+      while (true) {
+        List<byte[]> frames = new ArrayList<byte[]>();
+        boolean hasMore = true;
+        while (hasMore) {
+          int flags = in.readUnsignedByte();
+          byte[] frame = readFrameBody(flags);
+          if ((flags & FLAG_COMMAND) != 0) {
+            onCommand(frame);
+            hasMore = !frames.isEmpty();
+            continue;
+          }
+          frames.add(frame);
+          hasMore = (flags & FLAG_MORE) != 0;
+        }
+        if (!frames.isEmpty()) return frames;
+      }
+    } catch (SocketTimeoutException e) {
+      close();
+      throw new MoneroError("No ZMQ message received within " + receiveTimeoutMs + " ms");
+    } catch (IOException e) {
+      close();
+      throw new MoneroError("ZMQ connection closed" + (e.getMessage() == null ? "" : ": " + e.getMessage()));
+    } catch (MoneroError e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Receive the next message as a UTF-8 string of its concatenated frames.
+   *
+   * @return the message as a string
+   */
+  public String receiveString() {
+    StringBuilder sb = new StringBuilder();
+    for (byte[] frame : receive()) sb.append(new String(frame, StandardCharsets.UTF_8));
+    return sb.toString();
+  }
+
+  public boolean isConnected() {
+    Socket socket = this.socket;
+    return socket != null && socket.isConnected() && !socket.isClosed();
+  }
+
+  /**
+   * Close the connection, which unblocks a thread waiting to receive.
+   */
+  @Override
+  public void close() {
+    Socket socket = this.socket;
+    if (socket == null) return;
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // ignore
+    }
+  }
+
+  // --------------------------------- PRIVATE --------------------------------
+
+  private static byte[] getGreeting() {
+    byte[] greeting = new byte[GREETING_LENGTH];
+    greeting[0] = (byte) 0xff;  // signature
+    greeting[9] = 0x7f;
+    greeting[10] = 3;           // version 3.0
+    greeting[11] = 0;
+    byte[] mechanism = "NULL".getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(mechanism, 0, greeting, 12, mechanism.length);
+    return greeting;            // as-server and filler are 0
+  }
+
+  private static byte[] getReadyCommand() {
+    byte[] name = "READY".getBytes(StandardCharsets.US_ASCII);
+    byte[] property = "Socket-Type".getBytes(StandardCharsets.US_ASCII);
+    byte[] value = "SUB".getBytes(StandardCharsets.US_ASCII);
+    byte[] command = new byte[1 + name.length + 1 + property.length + 4 + value.length];
+    int pos = 0;
+    command[pos++] = (byte) name.length;
+    System.arraycopy(name, 0, command, pos, name.length);
+    pos += name.length;
+    command[pos++] = (byte) property.length;
+    System.arraycopy(property, 0, command, pos, property.length);
+    pos += property.length;
+    pos += 3;  // value length is 4 bytes big endian
+    command[pos++] = (byte) value.length;
+    System.arraycopy(value, 0, command, pos, value.length);
+    return command;
+  }
+
+  private static String getCommandName(byte[] command) {
+    if (command.length == 0 || command.length < 1 + (command[0] & 0xff)) throw new MoneroError("ZMQ peer sent malformed command");
+    return new String(command, 1, command[0] & 0xff, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Responds to heartbeats and ignores other commands.
+   */
+  private void onCommand(byte[] command) throws IOException {
+    if (!"PING".equals(getCommandName(command))) return;
+    int contextOffset = 1 + 4 + 2;  // name and ttl
+    byte[] name = "PONG".getBytes(StandardCharsets.US_ASCII);
+    int contextLength = Math.max(0, command.length - contextOffset);
+    byte[] pong = new byte[1 + name.length + contextLength];
+    pong[0] = (byte) name.length;
+    System.arraycopy(name, 0, pong, 1, name.length);
+    if (contextLength > 0) System.arraycopy(command, contextOffset, pong, 1 + name.length, contextLength);
+    synchronized (this) {
+      writeFrame(FLAG_COMMAND, pong);
+      out.flush();
+    }
+  }
+
+  private synchronized void sendSubscription(int type, String topic) {
+    if (!isConnected()) throw new MoneroError("ZMQ subscriber is not connected");
+    byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+    byte[] message = new byte[1 + topicBytes.length];
+    message[0] = (byte) type;
+    System.arraycopy(topicBytes, 0, message, 1, topicBytes.length);
+    try {
+      writeFrame(0, message);
+      out.flush();
+    } catch (IOException e) {
+      close();
+      throw new MoneroError("ZMQ connection closed" + (e.getMessage() == null ? "" : ": " + e.getMessage()));
+    }
+  }
+
+  private void writeFrame(int flags, byte[] body) throws IOException {
+    if (body.length > 255) {
+      out.write(flags | FLAG_LONG);
+      long size = body.length;
+      for (int i = 7; i >= 0; i--) out.write((int) (size >>> (8 * i)));
+    } else {
+      out.write(flags);
+      out.write(body.length);
+    }
+    out.write(body);
+  }
+
+  private byte[] readFrame(boolean isCommand) throws IOException {
+    int flags = in.readUnsignedByte();
+    if (isCommand != ((flags & FLAG_COMMAND) != 0)) throw new MoneroError("ZMQ peer sent unexpected " + (isCommand ? "message" : "command"));
+    return readFrameBody(flags);
+  }
+
+  private byte[] readFrameBody(int flags) throws IOException {
+    long size = (flags & FLAG_LONG) != 0 ? in.readLong() : in.readUnsignedByte();
+    if (size < 0 || size > MAX_FRAME_SIZE) throw new MoneroError("ZMQ frame exceeds max size: " + size);
+    byte[] body = new byte[(int) size];
+    try {
+      in.readFully(body);
+    } catch (EOFException e) {
+      throw new IOException("ZMQ frame is truncated");
+    }
+    return body;
+  }
+}
@@ -0,0 +1,316 @@
+package monero.daemon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import monero.common.MoneroError;
+import monero.common.MoneroUtils;
+import monero.daemon.model.MoneroBlockHeader;
+
+/**
+ * In-memory index of block heights, hashes, sizes, weights, and timestamps.
+ *
+ * Headers are stored in primitive columns indexed by height, so millions of
+ * headers fit in tens of megabytes.  Blocks are looked up by height and by
+ * hash in constant time and by timestamp in logarithmic time.
+ *
+ * The index is filled from the daemon's block headers by sync(), which
+ * rewinds the index if the daemon's chain has reorganized.
+ *
+ * Example:
+ *
+ * <pre>
+ * MoneroChainIndex index = new MoneroChainIndex(daemon);
+ * index.sync();
+ * long height = index.getHeightByDate(2020, 1, 1);
+ * </pre>
+ */
+public class MoneroChainIndex {
+
+  private static final int HASH_LENGTH = 32;
+
+  private MoneroDaemon daemon;
+  private long startHeight;
+  private int numBlocks;
+  private byte[] hashes;            // 32 bytes per block
+  private int[] sizes;
+  private int[] weights;
+  private int[] timestamps;         // unsigned seconds
+  private int[] maxTimestamps;      // running maximum of timestamps to search by timestamp
+  private int[] heightsByHash;      // open addressing table of index + 1 by hash, 0 if empty
+  private volatile String genesisHash;  // fetched once if the index does not start at the genesis block
+  private Object syncLock = new Object();
+
+  /**
+   * Construct an index of the daemon's chain from the genesis block.
+   *
+   * @param daemon is the daemon to index
+   */
+  public MoneroChainIndex(MoneroDaemon daemon) {
+    this(daemon, 0);
+  }
+
+  /**
+   * Construct an index of the daemon's chain from a start height.
+   *
+   * @param daemon is the daemon to index
+   * @param startHeight is the height of the first block to index
+   */
+  public MoneroChainIndex(MoneroDaemon daemon, long startHeight) {
+    if (startHeight < 0) throw new MoneroError("Start height cannot be negative");
+    this.daemon = daemon;
+    this.startHeight = startHeight;
+    this.hashes = new byte[1024 * HASH_LENGTH];
+    this.sizes = new int[1024];
+    this.weights = new int[1024];
+    this.timestamps = new int[1024];
+    this.maxTimestamps = new int[1024];
+    this.heightsByHash = new int[2048];
+  }
+
+  /**
+   * Index the daemon's blocks from the last indexed block to its chain tip.
+   *
+   * Headers are fetched in ranges of NUM_HEADERS_PER_REQ.  If the daemon's
+   * chain no longer links to the last indexed block, the index is rewound to
+   * the fork point first.
+   *
+   * @return the height after the last indexed block
+   */
+  public long sync() {
+    synchronized (syncLock) {
+      long daemonHeight = daemon.getHeight();
+      while (getHeight() < daemonHeight) {
+        long fromHeight = getHeight();
+        long toHeight = Math.min(daemonHeight - 1, fromHeight + MoneroDaemonRpc.NUM_HEADERS_PER_REQ - 1);
+        List<MoneroBlockHeader> headers = daemon.getBlockHeadersByRange(fromHeight, toHeight);
+        if (headers.isEmpty()) break;
+        if (!linksToIndex(headers.get(0))) rewind();
+        else addHeaders(headers);
+      }
+      return getHeight();
+    }
+  }
+
+  /**
+   * Append headers which follow the last indexed block.
+   *
+   * @param headers are consecutive headers starting at the height after the last indexed block
+   */
+  public synchronized void addHeaders(List<MoneroBlockHeader> headers) {
+    for (MoneroBlockHeader header : headers) {
+      if (header.getHeight() == null || header.getHeight() != getHeight()) throw new MoneroError("Header height " + header.getHeight() + " does not follow indexed height " + getHeight());
+      if (!linksToIndex(header)) throw new MoneroError("Header at height " + header.getHeight() + " does not link to the last indexed block");
+      ensureCapacity(numBlocks + 1);
+      int index = numBlocks;
+      hexToBytes(header.getHash(), hashes, index * HASH_LENGTH);
+      sizes[index] = header.getSize() == null ? 0 : (int) (long) header.getSize();
+      weights[index] = header.getWeight() == null ? 0 : (int) (long) header.getWeight();
+      timestamps[index] = (int) (long) header.getTimestamp();
+      maxTimestamps[index] = index == 0 ? timestamps[index] : (int) Math.max(toUnsigned(timestamps[index]), toUnsigned(maxTimestamps[index - 1]));
+      numBlocks++;
+      putHash(index);
+    }
+  }
+
+  /**
+   * Remove indexed blocks at and above the given height.
+   *
+   * @param height is the height of the first block to remove
+   */
+  public synchronized void truncate(long height) {
+    if (height >= getHeight()) return;
+    numBlocks = (int) Math.max(0, height - startHeight);
+    Arrays.fill(heightsByHash, 0);
+    for (int i = 0; i < numBlocks; i++) putHash(i);
+  }
+
+  public long getStartHeight() {
+    return startHeight;
+  }
+
+  /**
+   * Get the height after the last indexed block.
+   *
+   * @return the height after the last indexed block
+   */
+  public synchronized long getHeight() {
+    return startHeight + numBlocks;
+  }
+
+  public synchronized String getBlockHash(long height) {
+    return bytesToHex(hashes, getIndex(height) * HASH_LENGTH);
+  }
+
+  /**
+   * Get the height of an indexed block by its hash.
+   *
+   * @param blockHash is the hash of the block
+   * @return the height of the block or null if not indexed
+   */
+  public synchronized Long getBlockHeight(String blockHash) {
+    byte[] hash = new byte[HASH_LENGTH];
+    hexToBytes(blockHash, hash, 0);
+    int mask = heightsByHash.length - 1;
+    for (int slot = getSlot(hash, 0) & mask; heightsByHash[slot] != 0; slot = (slot + 1) & mask) {
+      int index = heightsByHash[slot] - 1;
+      if (equalsHash(hash, index)) return startHeight + index;
+    }
+    return null;
+  }
+
+  /**
+   * Get a sparse list of indexed block hashes from the last indexed block to
+   * the genesis block, as expected by getBlocksByHash() and getBlockHashes().
+   *
+   * The first 10 hashes are sequential, then the offsets double, and the
+   * first indexed block's hash and the genesis block's hash are always last.
+   * The genesis block's hash is fetched from the daemon once if the index
+   * does not start at the genesis block.
+   *
+   * @return the sparse list of block hashes ending with the genesis block's hash
+   */
+  public List<String> getSparseBlockHashes() {
+    List<String> sparseHashes = new ArrayList<String>();
+    synchronized (this) {
+      long offset = 0;
+      long step = 1;
+      while (offset < numBlocks) {
+        sparseHashes.add(bytesToHex(hashes, (int) (numBlocks - 1 - offset) * HASH_LENGTH));
+        if (sparseHashes.size() >= 10) step *= 2;
+        offset += step;
+      }
+      if (numBlocks > 0 && offset - step != numBlocks - 1) sparseHashes.add(bytesToHex(hashes, 0));
+      if (startHeight == 0 && numBlocks > 0) return sparseHashes;  // first indexed block is genesis
+    }
+    sparseHashes.add(getGenesisHash());
+    return sparseHashes;
+  }
+
+  public synchronized int getBlockSize(long height) {
+    return sizes[getIndex(height)];
+  }
+
+  public synchronized int getBlockWeight(long height) {
+    return weights[getIndex(height)];
+  }
+
+  public synchronized long getBlockTimestamp(long height) {
+    return toUnsigned(timestamps[getIndex(height)]);
+  }
+
+  /**
+   * Get the height of the first indexed block whose timestamp or any earlier
+   * block's timestamp is at least the given timestamp.
+   *
+   * Block timestamps are not strictly increasing, so the running maximum of
+   * timestamps is searched.
+   *
+   * @param timestamp is the timestamp in seconds since the epoch
+   * @return the height of the first block at or after the timestamp, or the height after the last indexed block if none
+   */
+  public synchronized long getHeightByTimestamp(long timestamp) {
+    int low = 0;
+    int high = numBlocks;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (toUnsigned(maxTimestamps[mid]) < timestamp) low = mid + 1;
+      else high = mid;
+    }
+    return startHeight + low;
+  }
+
+  /**
+   * Get the height of the first indexed block on or after a UTC date.
+   *
+   * @param year is the year
+   * @param month is the month from 1 to 12
+   * @param day is the day of the month from 1 to 31
+   * @return the height of the first block on or after the date
+   */
+  public long getHeightByDate(int year, int month, int day) {
+    Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    calendar.clear();
+    calendar.set(year, month - 1, day);
+    return getHeightByTimestamp(calendar.getTimeInMillis() / 1000);
+  }
+
+  // --------------------------------- PRIVATE --------------------------------
+
+  /**
+   * Rewinds the index to the highest block which is still on the daemon's chain.
+   */
+  private void rewind() {
+    long toHeight = getHeight() - 1;
+    long fromHeight = Math.max(startHeight, toHeight - MoneroDaemonRpc.NUM_HEADERS_PER_REQ + 1);
+    List<MoneroBlockHeader> headers = daemon.getBlockHeadersByRange(fromHeight, toHeight);
+    long forkHeight = fromHeight;
+    for (MoneroBlockHeader header : headers) {
+      if (!getBlockHash(header.getHeight()).equals(header.getHash())) break;
+      forkHeight = header.getHeight() + 1;
+    }
+    truncate(forkHeight);
+  }
+
+  private String getGenesisHash() {
+    if (genesisHash == null) genesisHash = daemon.getBlockHash(0);
+    return genesisHash;
+  }
+
+  private synchronized boolean linksToIndex(MoneroBlockHeader header) {
+    if (numBlocks == 0 || header.getPrevHash() == null) return true;
+    return getBlockHash(getHeight() - 1).equals(header.getPrevHash());
+  }
+
+  private int getIndex(long height) {
+    if (height < startHeight || height >= getHeight()) throw new MoneroError("Height " + height + " is not indexed");
+    return (int) (height - startHeight);
+  }
+
+  private void putHash(int index) {
+    if (2 * (numBlocks + 1) > heightsByHash.length) {  // keep load factor at most 1/2
+      heightsByHash = new int[heightsByHash.length * 2];
+      for (int i = 0; i < numBlocks; i++) if (i != index) putHash(i);
+    }
+    int mask = heightsByHash.length - 1;
+    int slot = getSlot(hashes, index * HASH_LENGTH) & mask;
+    while (heightsByHash[slot] != 0) slot = (slot + 1) & mask;
+    heightsByHash[slot] = index + 1;
+  }
+
+  private static int getSlot(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8 | (bytes[offset + 2] & 0xff) << 16 | (bytes[offset + 3] & 0xff) << 24;  // hashes are uniformly distributed
+  }
+
+  private boolean equalsHash(byte[] hash, int index) {
+    int offset = index * HASH_LENGTH;
+    for (int i = 0; i < HASH_LENGTH; i++) if (hashes[offset + i] != hash[i]) return false;
+    return true;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= sizes.length) return;
+    int newCapacity = Math.max(capacity, sizes.length * 2);
+    hashes = Arrays.copyOf(hashes, newCapacity * HASH_LENGTH);
+    sizes = Arrays.copyOf(sizes, newCapacity);
+    weights = Arrays.copyOf(weights, newCapacity);
+    timestamps = Arrays.copyOf(timestamps, newCapacity);
+    maxTimestamps = Arrays.copyOf(maxTimestamps, newCapacity);
+  }
+
+  private static long toUnsigned(int val) {
+    return val & 0xffffffffl;
+  }
+
+  private static void hexToBytes(String hex, byte[] bytes, int offset) {
+    if (hex == null || hex.length() != 2 * HASH_LENGTH) throw new MoneroError("Invalid block hash: " + hex);
+    System.arraycopy(MoneroUtils.hexToBytes(hex), 0, bytes, offset, HASH_LENGTH);
+  }
+
+  private static String bytesToHex(byte[] bytes, int offset) {
+    return MoneroUtils.bytesToHex(bytes, offset, HASH_LENGTH);
+  }
+}
@@ -24,7 +24,9 @@ package monero.daemon;
 
 import java.math.BigInteger;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import monero.daemon.model.MoneroAltChain;
 import monero.daemon.model.MoneroBan;
@@ -201,6 +203,52 @@ public interface MoneroDaemon {
    */
   public List<MoneroBlock> getBlocksByRangeChunked(Long startHeight, Long endHeight, Long maxChunkSize);
   
+  /**
+   * Get an iterator of blocks in the given height range which fetches blocks
+   * in chunks as they are iterated, so iterated blocks can be garbage collected.
+   * 
+   * @param startHeight is the start height lower bound inclusive (optional)
+   * @param endHeight is the end height upper bound inclusive (optional)
+   * @return an iterator of blocks in the given height range
+   */
+  public Iterator<MoneroBlock> getBlocksByRangeIterator(Long startHeight, Long endHeight);
+  
+  /**
+   * Get an iterator of blocks in the given height range which fetches blocks
+   * in chunks as they are iterated, so iterated blocks can be garbage collected.
+   * 
+   * @param startHeight is the start height lower bound inclusive (optional)
+   * @param endHeight is the end height upper bound inclusive (optional)
+   * @param maxChunkSize is the maximum chunk size in any one request (default 3,000,000 bytes)
+   * @return an iterator of blocks in the given height range
+   */
+  public Iterator<MoneroBlock> getBlocksByRangeIterator(Long startHeight, Long endHeight, Long maxChunkSize);
+  
+  /**
+   * Get a sequential stream of blocks in the given height range which fetches
+   * blocks in chunks as they are consumed.
+   * 
+   * Closing the stream cancels requests for blocks which have not been consumed.
+   * 
+   * @param startHeight is the start height lower bound inclusive (optional)
+   * @param endHeight is the end height upper bound inclusive (optional)
+   * @return a stream of blocks in the given height range
+   */
+  public Stream<MoneroBlock> getBlocksByRangeStream(Long startHeight, Long endHeight);
+  
+  /**
+   * Get a sequential stream of blocks in the given height range which fetches
+   * blocks in chunks as they are consumed.
+   * 
+   * Closing the stream cancels requests for blocks which have not been consumed.
+   * 
+   * @param startHeight is the start height lower bound inclusive (optional)
+   * @param endHeight is the end height upper bound inclusive (optional)
+   * @param maxChunkSize is the maximum chunk size in any one request (default 3,000,000 bytes)
+   * @return a stream of blocks in the given height range
+   */
+  public Stream<MoneroBlock> getBlocksByRangeStream(Long startHeight, Long endHeight, Long maxChunkSize);
+  
   /**
    * Get block hashes as a binary request to the daemon.
    * 
@@ -240,6 +288,10 @@ public interface MoneroDaemon {
   /**
    * Get transactions by hashes.
    * 
+   * Pruned transactions are read from their binary blobs, so the daemon does
+   * not also send them as JSON.  Unpruned transactions are still requested as
+   * JSON since their prunable signature data is not read from the blobs.
+   * 
    * @param txHashes are hashes of transactions to get
    * @param prune specifies if the returned txs should be pruned (defaults to false)
    * @return the transactions with the given hashes
@@ -25,8 +25,14 @@ package monero.daemon;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import monero.common.MoneroError;
 import monero.daemon.model.MoneroBan;
 import monero.daemon.model.MoneroBlock;
 import monero.daemon.model.MoneroBlockTemplate;
@@ -51,6 +57,32 @@ public abstract class MoneroDaemonDefault implements MoneroDaemon {
     return getBlocksByRangeChunked(startHeight, endHeight, null);
   }
   
+  @Override
+  public Iterator<MoneroBlock> getBlocksByRangeIterator(Long startHeight, Long endHeight) {
+    return getBlocksByRangeIterator(startHeight, endHeight, null);
+  }
+  
+  @Override
+  public Stream<MoneroBlock> getBlocksByRangeStream(Long startHeight, Long endHeight) {
+    return getBlocksByRangeStream(startHeight, endHeight, null);
+  }
+  
+  @Override
+  public Stream<MoneroBlock> getBlocksByRangeStream(Long startHeight, Long endHeight, Long maxChunkSize) {
+    Iterator<MoneroBlock> iterator = getBlocksByRangeIterator(startHeight, endHeight, maxChunkSize);
+    Stream<MoneroBlock> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    if (iterator instanceof AutoCloseable) {
+      stream = stream.onClose(() -> {
+        try {
+          ((AutoCloseable) iterator).close();
+        } catch (Exception e) {
+          throw new MoneroError(e);
+        }
+      });
+    }
+    return stream;
+  }
+  
   @Override
   public MoneroTx getTx(String txHash) {
     return getTx(txHash, null);
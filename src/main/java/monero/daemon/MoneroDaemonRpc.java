@@ -22,24 +22,50 @@
 
 package monero.daemon;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 
 import common.utils.GenUtils;
 import common.utils.JsonUtils;
+import monero.common.MoneroBlobReader;
+import monero.common.MoneroConnectionManager;
 import monero.common.MoneroError;
+import monero.common.MoneroPortableStorage;
+import monero.common.MoneroPortableStorageReader;
 import monero.common.MoneroRpcConnection;
 import monero.common.MoneroRpcError;
+import monero.common.MoneroRpcStreamReader;
+import monero.common.MoneroRpcTransportConfig;
+import monero.common.MoneroZmqSubscriber;
 import monero.common.MoneroUtils;
 import monero.daemon.model.ConnectionType;
 import monero.daemon.model.MoneroAltChain;
@@ -81,12 +107,43 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   private static final Logger LOGGER = Logger.getLogger(MoneroDaemonRpc.class.getName());
   private static final String DEFAULT_ID = "0000000000000000000000000000000000000000000000000000000000000000";
   private static long MAX_REQ_SIZE = 3000000;  // max request size when fetching blocks from daemon
-  private static int NUM_HEADERS_PER_REQ = 750;
+  static int NUM_HEADERS_PER_REQ = 750;
+  private static int MAX_CACHED_HEADERS = 10000;  // max headers cached to size block chunks
+  private static long CACHE_REORG_DEPTH = 30;  // responses are cached once their block is this many blocks below a fetched tip
+  private static int DEFAULT_MAX_CHUNK_REQUESTS = 4;  // default number of block chunk requests in flight
+  private static int DEFAULT_MAX_OUTPUTS_PER_REQ = 5000;  // max outputs per get_outs.bin request to a restricted daemon
+  private static int DEFAULT_MAX_TXS_PER_REQ = 100;  // max txs per get_transactions request to a restricted daemon
+  private static int DEFAULT_MAX_KEY_IMAGES_PER_REQ = 5000;  // max key images per is_key_image_spent request to a restricted daemon
+  private static final Set<String> NON_IDEMPOTENT_METHODS = new HashSet<String>(Arrays.asList(  // writes and admin requests which are not failed over
+      "flush_txpool", "in_peers", "out_peers", "relay_tx", "send_raw_transaction", "set_bans", "set_limit",
+      "start_mining", "stop_daemon", "stop_mining", "submit_block", "update"));
+  private static final String ZMQ_CHAIN_MAIN_TOPIC = "json-minimal-chain_main";
+  private static final String ZMQ_TXPOOL_ADD_TOPIC = "json-minimal-txpool_add";
+  private static final int ZMQ_RECEIVE_TIMEOUT_MS = 600000;  // 5 target block times without a message before the subscription is reconnected
+  private static long TX_POOL_SNAPSHOT_NANOS = TimeUnit.SECONDS.toNanos(1);  // max age of a tx pool snapshot shared by getTxs() calls
+  private static int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 5;  // HTTP client's default max pooled connections to one endpoint
+  private static long DEFAULT_POLL_PERIOD_MS = 10000;  // default period to poll for new blocks while listening
+  private static long MAX_POLL_BACKOFF_MS = 300000;  // max delay between polls while the daemon is unreachable
+  private static int NUM_POLL_THREADS = 2;  // threads shared by all daemons' pollers, which never block on I/O
+  private static long POLL_TIMEOUT_MS = 60000;  // max time to wait for a daemon to respond to a poll
+  private static final ScheduledExecutorService POLL_EXECUTOR = newPollExecutor();
   
   // instance variables
   private MoneroRpcConnection rpc;
+  private MoneroConnectionManager connectionManager;
   private MoneroDaemonPoller daemonPoller;
-  private Map<Long, MoneroBlockHeader> cachedHeaders;
+  private HeaderCache cachedHeaders;
+  private volatile ResponseCache responseCache;  // caches immutable lookups if enabled
+  private volatile int maxChunkRequests = DEFAULT_MAX_CHUNK_REQUESTS;
+  private volatile int maxTxsPerRequest = DEFAULT_MAX_TXS_PER_REQ;
+  private volatile int maxKeyImagesPerRequest = DEFAULT_MAX_KEY_IMAGES_PER_REQ;
+  private volatile int maxOutputsPerRequest = DEFAULT_MAX_OUTPUTS_PER_REQ;
+  private volatile String zmqUri;  // monerod's zmq-pub endpoint to notify listeners, null to poll
+  private volatile long pollPeriodMs = DEFAULT_POLL_PERIOD_MS;
+  private volatile boolean isTxPoolTrackingEnabled;
+  private TxPoolSnapshot txPoolSnapshot;  // latest tx pool snapshot shared by getTxs() calls
+  private final ExecutorService chunkExecutor;  // sends chunk requests, bounded by the connections available to them
+  private final Object txPoolSnapshotLock = new Object();
   
   public MoneroDaemonRpc(URI uri) {
     this(new MoneroRpcConnection(uri));
@@ -103,21 +160,209 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public MoneroDaemonRpc(URI uri, String username, String password) {
     this(new MoneroRpcConnection(uri, username, password));
   }
+  
+  public MoneroDaemonRpc(String uri, String username, String password, MoneroRpcTransportConfig transportConfig) {
+    this(new MoneroRpcConnection(uri, username, password, transportConfig));
+  }
 
   public MoneroDaemonRpc(MoneroRpcConnection rpc) {
     GenUtils.assertNotNull(rpc);
     this.rpc = rpc;
     this.daemonPoller = new MoneroDaemonPoller(this);
-    this.cachedHeaders = new HashMap<Long, MoneroBlockHeader>();
+    this.cachedHeaders = new HeaderCache(MAX_CACHED_HEADERS);
+    this.chunkExecutor = newChunkExecutor(rpc);
+  }
+  
+  /**
+   * Construct a daemon client which routes requests to the best connection of
+   * a connection manager and fails over if a connection does not respond.
+   * 
+   * @param connectionManager manages the connections to send requests to
+   */
+  public MoneroDaemonRpc(MoneroConnectionManager connectionManager) {
+    GenUtils.assertNotNull(connectionManager);
+    this.connectionManager = connectionManager;
+    this.daemonPoller = new MoneroDaemonPoller(this);
+    this.cachedHeaders = new HeaderCache(MAX_CACHED_HEADERS);
+    this.chunkExecutor = newChunkExecutor(null);
   }
   
   /**
    * Get the daemon's RPC connection.
    * 
-   * @return the daemon's rpc connection
+   * @return the daemon's rpc connection or the connection manager's best connection if managed
    */
   public MoneroRpcConnection getRpcConnection() {
-    return this.rpc;
+    return connectionManager == null ? this.rpc : connectionManager.getBestConnection();
+  }
+  
+  /**
+   * Get the manager of the daemon's connections.
+   * 
+   * @return the daemon's connection manager or null if not managed
+   */
+  public MoneroConnectionManager getConnectionManager() {
+    return connectionManager;
+  }
+  
+  /**
+   * Cache blocks and block headers fetched by hash and confirmed transactions
+   * fetched by hash, evicting the least recently used entries beyond the given
+   * size.
+   * 
+   * Only results at least 30 blocks below a chain tip fetched from the daemon
+   * are cached, so they are not reorganized out of the chain.  Cached results
+   * are copies, so they may be modified by the caller.
+   * 
+   * @param maxBytes is the approximate maximum size of the cache in bytes, 0 to disable caching
+   */
+  public void setResponseCacheSize(long maxBytes) {
+    if (maxBytes < 0) throw new MoneroError("Response cache size cannot be negative");
+    responseCache = maxBytes == 0 ? null : new ResponseCache(maxBytes);
+  }
+  
+  /**
+   * Get the approximate maximum size of the response cache.
+   * 
+   * @return the maximum size of the response cache in bytes, 0 if caching is disabled
+   */
+  public long getResponseCacheSize() {
+    ResponseCache cache = responseCache;
+    return cache == null ? 0 : cache.maxBytes;
+  }
+  
+  /**
+   * Set the maximum number of chunk requests kept in flight when fetching
+   * blocks by range in chunks or txs, key images, and outputs in batches.
+   * 
+   * Chunks are sized ahead from block headers and delivered in height order,
+   * so at most this many chunks are buffered at a time.
+   * 
+   * @param maxChunkRequests is the maximum number of chunk requests in flight, 1 to fetch one chunk at a time
+   */
+  public void setMaxChunkRequests(int maxChunkRequests) {
+    if (maxChunkRequests < 1) throw new MoneroError("Max chunk requests must be at least 1");
+    this.maxChunkRequests = maxChunkRequests;
+  }
+  
+  public int getMaxChunkRequests() {
+    return maxChunkRequests;
+  }
+  
+  /**
+   * Set the maximum number of txs fetched per request by getTxs().
+   * 
+   * Larger collections are split into batches which are fetched in parallel
+   * and returned in the order requested.  Restricted daemons reject requests
+   * for more than 100 txs.
+   * 
+   * @param maxTxsPerRequest is the maximum number of txs per request (default 100)
+   */
+  public void setMaxTxsPerRequest(int maxTxsPerRequest) {
+    if (maxTxsPerRequest < 1) throw new MoneroError("Max txs per request must be at least 1");
+    this.maxTxsPerRequest = maxTxsPerRequest;
+  }
+  
+  public int getMaxTxsPerRequest() {
+    return maxTxsPerRequest;
+  }
+  
+  /**
+   * Set the maximum number of key images checked per request by
+   * getKeyImageSpentStatuses().
+   * 
+   * Larger collections are split into batches which are checked in parallel
+   * and returned in the order requested.  Restricted daemons reject requests
+   * for more than 5000 key images.
+   * 
+   * @param maxKeyImagesPerRequest is the maximum number of key images per request (default 5000)
+   */
+  public void setMaxKeyImagesPerRequest(int maxKeyImagesPerRequest) {
+    if (maxKeyImagesPerRequest < 1) throw new MoneroError("Max key images per request must be at least 1");
+    this.maxKeyImagesPerRequest = maxKeyImagesPerRequest;
+  }
+  
+  public int getMaxKeyImagesPerRequest() {
+    return maxKeyImagesPerRequest;
+  }
+  
+  /**
+   * Set the maximum number of outputs fetched per request by getOutputs().
+   * 
+   * Larger collections are split into batches which are fetched in parallel
+   * and returned in the order requested.  Restricted daemons reject requests
+   * for more than 5000 outputs.
+   * 
+   * @param maxOutputsPerRequest is the maximum number of outputs per request (default 5000)
+   */
+  public void setMaxOutputsPerRequest(int maxOutputsPerRequest) {
+    if (maxOutputsPerRequest < 1) throw new MoneroError("Max outputs per request must be at least 1");
+    this.maxOutputsPerRequest = maxOutputsPerRequest;
+  }
+  
+  public int getMaxOutputsPerRequest() {
+    return maxOutputsPerRequest;
+  }
+  
+  /**
+   * Set monerod's ZMQ publisher endpoint to notify listeners of new blocks
+   * and pool txs as soon as the daemon publishes them.
+   * 
+   * The daemon must be started with e.g. --zmq-pub tcp://127.0.0.1:18083.
+   * Listeners fall back to polling for new blocks if the endpoint cannot be
+   * reached or the connection is lost.
+   * 
+   * @param zmqUri is the ZMQ publisher endpoint, null to poll for new blocks
+   */
+  public void setZmqUri(String zmqUri) {
+    if (zmqUri != null) new MoneroZmqSubscriber(zmqUri);  // validate endpoint
+    this.zmqUri = zmqUri;
+    daemonPoller.restart();
+  }
+  
+  public String getZmqUri() {
+    return zmqUri;
+  }
+  
+  /**
+   * Set the period to poll the daemon for new blocks while listeners are
+   * registered and no ZMQ endpoint is set.
+   * 
+   * Polls run on threads shared by all daemon instances.  While the daemon
+   * is unreachable, the delay between polls doubles up to 5 minutes and is
+   * reset once the daemon responds.
+   * 
+   * @param pollPeriodMs is the period to poll in milliseconds (default 10000)
+   */
+  public void setPollPeriod(long pollPeriodMs) {
+    if (pollPeriodMs <= 0) throw new MoneroError("Poll period must be greater than 0");
+    this.pollPeriodMs = pollPeriodMs;
+    daemonPoller.reschedule();
+  }
+  
+  public long getPollPeriod() {
+    return pollPeriodMs;
+  }
+  
+  /**
+   * Enable tracking the tx pool to notify listeners of txs added to,
+   * confirmed from, and evicted from the pool.
+   * 
+   * While listeners are registered, the pool's tx hashes are fetched every
+   * poll period and compared to the last known hashes.  Only the details of
+   * added txs are fetched, and removed txs are looked up to distinguish
+   * confirmed from evicted txs.  Txs in the pool when tracking starts are
+   * not notified.  Set a poll period under a second for 0-conf detection.
+   * 
+   * @param isTxPoolTrackingEnabled specifies if the tx pool is tracked (default false)
+   */
+  public void setTxPoolTrackingEnabled(boolean isTxPoolTrackingEnabled) {
+    this.isTxPoolTrackingEnabled = isTxPoolTrackingEnabled;
+    daemonPoller.updateTxPoolTracking();
+  }
+  
+  public boolean isTxPoolTrackingEnabled() {
+    return isTxPoolTrackingEnabled;
   }
   
   /**
@@ -137,14 +382,14 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public MoneroVersion getVersion() {
-    Map<String, Object> resp = rpc.sendJsonRequest("get_version");
+    Map<String, Object> resp = sendJsonRequest("get_version");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     return new MoneroVersion(((BigInteger) result.get("version")).intValue(), (Boolean) result.get("release"));
   }
 
   @Override
   public boolean isTrusted() {
-    Map<String, Object> resp = rpc.sendPathRequest("get_height");
+    Map<String, Object> resp = sendPathRequestCoalesced("get_height");
     checkResponseStatus(resp);
     return !(boolean) resp.get("untrusted");
   }
@@ -152,14 +397,17 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public long getHeight() {
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block_count");
+    Map<String, Object> respMap = sendJsonRequestCoalesced("get_block_count");
     Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
-    return ((BigInteger) resultMap.get("count")).intValue();
+    long height = ((BigInteger) resultMap.get("count")).intValue();
+    ResponseCache cache = responseCache;
+    if (cache != null) cache.observeTipHeight(height - 1);
+    return height;
   }
 
   @Override
   public String getBlockHash(long height) {
-    Map<String, Object> respMap = rpc.sendJsonRequest("on_get_block_hash", Arrays.asList(height));
+    Map<String, Object> respMap = sendJsonRequest("on_get_block_hash", Arrays.asList(height));
     return (String) respMap.get("result");
   }
 
@@ -169,7 +417,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("wallet_address", walletAddress);
     params.put("reserve_size", reserveSize);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block_template", params);
+    Map<String, Object> respMap = sendJsonRequest("get_block_template", params);
     Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
     MoneroBlockTemplate template = convertRpcBlockTemplate(resultMap);
     return template;
@@ -178,21 +426,34 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public MoneroBlockHeader getLastBlockHeader() {
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_last_block_header");
+    Map<String, Object> respMap = sendJsonRequestCoalesced("get_last_block_header");
     Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
     checkResponseStatus(resultMap);
     MoneroBlockHeader header = convertRpcBlockHeader((Map<String, Object>) resultMap.get("block_header"));
+    observeHeader(header);
     return header;
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public MoneroBlockHeader getBlockHeaderByHash(String blockHash) {
+    
+    // check cache
+    ResponseCache cache = responseCache;
+    String cacheKey = "header:" + blockHash;
+    if (cache != null) {
+      CacheEntry entry = cache.get(cacheKey);
+      if (entry != null) return cache.adjustDepth(new MoneroBlockHeader((MoneroBlockHeader) entry.value), entry);
+    }
+    
+    // fetch header
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("hash", blockHash);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block_header_by_hash", params);
+    Map<String, Object> respMap = sendJsonRequest("get_block_header_by_hash", params);
     Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
     MoneroBlockHeader header = convertRpcBlockHeader((Map<String, Object>) resultMap.get("block_header"));
+    observeHeader(header);
+    if (cache != null && header.getHeight() != null) cache.put(cacheKey, new MoneroBlockHeader(header), header.getHeight(), ResponseCache.HEADER_SIZE);
     return header;
   }
 
@@ -201,9 +462,10 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public MoneroBlockHeader getBlockHeaderByHeight(long height) {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("height", height);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block_header_by_height", params);
+    Map<String, Object> respMap = sendJsonRequestHedged("get_block_header_by_height", params);
     Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
     MoneroBlockHeader header = convertRpcBlockHeader((Map<String, Object>) resultMap.get("block_header"));
+    observeHeader(header);
     return header;
   }
 
@@ -213,31 +475,55 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("start_height", startHeight);
     params.put("end_height", endHeight);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block_headers_range", params);
-    Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
-    List<Map<String, Object>> rpcHeaders = (List<Map<String, Object>>) resultMap.get("headers");
-    List<MoneroBlockHeader> headers = new ArrayList<MoneroBlockHeader>();
-    for (Map<String, Object> rpcHeader : rpcHeaders) {
-      MoneroBlockHeader header = convertRpcBlockHeader(rpcHeader);
-      headers.add(header);
-    }
-    return headers;
+    return sendJsonRequest("get_block_headers_range", params, parser -> {
+      List<MoneroBlockHeader> headers = new ArrayList<MoneroBlockHeader>();
+      while (parser.nextToken() != JsonToken.END_OBJECT) {
+        String key = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (key.equals("headers") && token == JsonToken.START_ARRAY) {
+          while (parser.nextToken() != JsonToken.END_ARRAY) headers.add(readRpcBlockHeader(parser));
+        }
+        else parser.skipChildren();
+      }
+      return headers;
+    });
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public MoneroBlock getBlockByHash(String blockHash) {
+    
+    // check cache
+    ResponseCache cache = responseCache;
+    String cacheKey = "block:" + blockHash;
+    if (cache != null) {
+      CacheEntry entry = cache.get(cacheKey);
+      if (entry != null) return cache.adjustDepth(((MoneroBlock) entry.value).copy(), entry);
+    }
+    
+    // fetch block
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("hash", blockHash);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block", params);
+    Map<String, Object> respMap = sendJsonRequest("get_block", params);
     Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
     MoneroBlock block = convertRpcBlock(resultMap);
+    observeHeader(block);
+    if (cache != null && block.getHeight() != null) cache.put(cacheKey, block.copy(), block.getHeight(), ResponseCache.estimateSize(block));
     return block;
   }
 
   @Override
   public List<MoneroBlock> getBlocksByHash(List<String> blockHashes, Long startHeight, Boolean prune) {
-    throw new RuntimeException("MoneroDaemonRpc.getBlocksByHash() not implemented");
+    
+    // fetch blocks after the highest known hash in binary
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("block_ids", hashesToBinary(blockHashes));
+    params.put("start_height", startHeight);
+    params.put("prune", prune);
+    byte[] respBin = sendBinaryRequest("get_blocks.bin", params);
+    
+    // decode binary blocks with transactions
+    return readBinaryBlocks(respBin);
   }
 
   @SuppressWarnings("unchecked")
@@ -245,62 +531,25 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public MoneroBlock getBlockByHeight(long height) {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("height", height);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_block", params);
+    Map<String, Object> respMap = sendJsonRequest("get_block", params);
     Map<String, Object> rpcBlock = (Map<String, Object>) respMap.get("result");
     MoneroBlock block = convertRpcBlock((Map<String, Object>) rpcBlock);
+    observeHeader(block);
     return block;
   }
 
-  @SuppressWarnings({ "unchecked" })
   @Override
   public List<MoneroBlock> getBlocksByHeight(List<Long> heights) {
     
     // fetch blocks in binary
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("heights", heights);
-    byte[] respBin = rpc.sendBinaryRequest("get_blocks_by_height.bin", params);
-    
-    // convert binary blocks to map
-    Map<String, Object> rpcResp = MoneroUtils.binaryBlocksToMap(respBin);
-    checkResponseStatus(rpcResp);
+    byte[] respBin = sendBinaryRequest("get_blocks_by_height.bin", params);
     
-    // build blocks with transactions
-    List<MoneroBlock> blocks = new ArrayList<MoneroBlock>();
-    List<Map<String, Object>> rpcBlocks = (List<Map<String, Object>>) rpcResp.get("blocks");
-    List<List<Map<String, Object>>> rpcTxs = (List<List<Map<String, Object>>>) rpcResp.get("txs");
-    GenUtils.assertEquals(rpcBlocks.size(), rpcTxs.size());
-    for (int blockIdx = 0; blockIdx < rpcBlocks.size(); blockIdx++) {
-      
-      // build block
-      MoneroBlock block = convertRpcBlock(rpcBlocks.get(blockIdx));
-      block.setHeight(heights.get(blockIdx));
-      blocks.add(block);
-
-      // build transactions
-      List<MoneroTx> txs = new ArrayList<MoneroTx>();
-      for (int txIdx = 0; txIdx < rpcTxs.get(blockIdx).size(); txIdx++) {
-        MoneroTx tx = new MoneroTx();
-        txs.add(tx);
-        List<String> txHashes = (List<String>) rpcBlocks.get(blockIdx).get("tx_hashes");
-        tx.setHash(txHashes.get(txIdx));
-        tx.setIsConfirmed(true);
-        tx.setInTxPool(false);
-        tx.setIsMinerTx(false);
-        tx.setRelay(true);
-        tx.setIsRelayed(true);
-        tx.setIsFailed(false);
-        tx.setIsDoubleSpendSeen(false);
-        List<Map<String, Object>> blockTxs = (List<Map<String, Object>>) rpcTxs.get(blockIdx);
-        convertRpcTx(blockTxs.get(txIdx), tx);
-      }
-      
-      // merge into one block
-      block.setTxs(new ArrayList<MoneroTx>());
-      for (MoneroTx tx : txs) {
-        if (tx.getBlock() != null) block.merge(tx.getBlock());
-        else block.getTxs().add(tx.setBlock(block));
-      }
-    }
+    // decode binary blocks with transactions
+    List<MoneroBlock> blocks = readBinaryBlocks(respBin);
+    GenUtils.assertEquals(heights.size(), blocks.size());
+    for (int blockIdx = 0; blockIdx < blocks.size(); blockIdx++) blocks.get(blockIdx).setHeight(heights.get(blockIdx));
     
     return blocks;
   }
@@ -318,18 +567,43 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public List<MoneroBlock> getBlocksByRangeChunked(Long startHeight, Long endHeight, Long maxChunkSize) {
     if (startHeight == null) startHeight = 0l;
     if (endHeight == null) endHeight = getHeight() - 1;
-    long lastHeight = startHeight - 1;
     List<MoneroBlock> blocks = new ArrayList<MoneroBlock>();
-    while (lastHeight < endHeight) {
-      blocks.addAll(getMaxBlocks(lastHeight + 1, endHeight, maxChunkSize));
-      lastHeight = blocks.get(blocks.size() - 1).getHeight();
+    BlockChunkDownloader downloader = new BlockChunkDownloader(startHeight, endHeight, maxChunkSize);
+    try {
+      while (downloader.hasNext()) blocks.addAll(downloader.next());
+    } finally {
+      downloader.close();
     }
     return blocks;
   }
   
+  @Override
+  public Iterator<MoneroBlock> getBlocksByRangeIterator(Long startHeight, Long endHeight, Long maxChunkSize) {
+    if (startHeight == null) startHeight = 0l;
+    if (endHeight == null) endHeight = getHeight() - 1;
+    return new BlockIterator(new BlockChunkDownloader(startHeight, endHeight, maxChunkSize));
+  }
+  
   @Override
   public List<String> getBlockHashes(List<String> blockHashes, Long startHeight) {
-    throw new RuntimeException("MoneroDaemonRpc.getBlockHashes() not implemented");
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("block_ids", hashesToBinary(blockHashes));
+    params.put("start_height", startHeight);
+    byte[] respBin = sendBinaryRequest("get_hashes.bin", params);
+    MoneroPortableStorageReader reader = new MoneroPortableStorageReader(respBin);
+    reader.readHeader();
+    String status = null;
+    List<String> hashes = new ArrayList<String>();
+    long numEntries = reader.readVarint();
+    for (long i = 0; i < numEntries; i++) {
+      String name = reader.readName();
+      int type = reader.readType();
+      if (name.equals("status")) status = (String) reader.readValue(type);
+      else if (name.equals("m_block_ids") && type == MoneroPortableStorage.TYPE_STRING) hashes = binaryToHashes(reader.readBlob());
+      else reader.skipValue(type);
+    }
+    checkResponseStatus(status);
+    return hashes;
   }
 
   @SuppressWarnings("unchecked")
@@ -339,42 +613,55 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     // validate input
     if (txHashes.isEmpty()) throw new MoneroError("Must provide an array of transaction hashes");
     
-    // fetch transactions
-    Map<String, Object> params = new HashMap<String, Object>();
-    params.put("txs_hashes", txHashes);
-    params.put("decode_as_json", true);
-    params.put("prune", prune);
-    Map<String, Object> respMap = rpc.sendPathRequest("get_transactions", params);
-    try {
-      checkResponseStatus(respMap);
-    } catch (MoneroError e) {
-      if (e.getMessage().indexOf("Failed to parse hex representation of transaction hash") >= 0) throw new MoneroError("Invalid transaction hash", e.getCode());
-      throw e;
+    // get confirmed txs from cache
+    long startNanos = System.nanoTime();
+    ResponseCache cache = responseCache;
+    Map<String, MoneroTx> cachedTxs = new HashMap<String, MoneroTx>();
+    List<String> uncachedHashes = new ArrayList<String>();
+    for (String txHash : txHashes) {
+      CacheEntry entry = cache == null ? null : cache.get(getTxCacheKey(txHash, prune));
+      if (entry != null) cachedTxs.put(txHash, copyTx((MoneroTx) entry.value));
+      else uncachedHashes.add(txHash);
     }
+    if (uncachedHashes.isEmpty()) return getCachedTxs(txHashes, cachedTxs);
     
-    //  interpret response
-    List<Map<String, Object>> rpcTxs = (List<Map<String, Object>>) respMap.get("txs");
+    // fetch transactions in batches
+    List<MoneroTx> txs = sendBatches(uncachedHashes, maxTxsPerRequest, batch -> getTxsBatch(batch, prune));
     
-    // build transaction models
-    List<MoneroTx> txs = new ArrayList<MoneroTx>();
-    if (rpcTxs != null) {
-      for (int i = 0; i < rpcTxs.size(); i++) {
-        MoneroTx tx = new MoneroTx();
-        tx.setIsMinerTx(false);
-        txs.add(convertRpcTx(rpcTxs.get(i), tx));
+    // cache confirmed txs too deep to be reorganized
+    if (cache != null) {
+      boolean isTipFetched = false;
+      for (MoneroTx tx : txs) {
+        if (!Boolean.TRUE.equals(tx.isConfirmed()) || tx.getHeight() == null) continue;
+        if (!cache.isFinal(tx.getHeight()) && !isTipFetched) {
+          getHeight();  // observe the tip
+          isTipFetched = true;
+        }
+        cache.put(getTxCacheKey(tx.getHash(), prune), copyTx(tx), tx.getHeight(), ResponseCache.estimateSize(tx));
       }
     }
     
-    // fetch unconfirmed txs from pool and merge additional fields  // TODO monero-daemon-rpc: merge rpc calls so this isn't necessary?
-    //System.out.println("Fetching from pool...");  // TODO monero core: getTxPool() can get stuck under certain conditions (observed it before coordinating tx pool as part of tests, so double spend related?)
-    List<MoneroTx> poolTxs = getTxPool();
-    for (MoneroTx tx : txs) {
-      for (MoneroTx poolTx : poolTxs) {
-        if (tx.getHash().equals(poolTx.getHash())) tx.merge(poolTx);
+    // merge additional fields of txs in the pool from a shared pool snapshot  // TODO monero-daemon-rpc: merge rpc calls so this isn't necessary?
+    List<MoneroTx> poolTxs = new ArrayList<MoneroTx>();
+    for (MoneroTx tx : txs) if (Boolean.TRUE.equals(tx.inTxPool())) poolTxs.add(tx);
+    if (!poolTxs.isEmpty()) {
+      Map<String, MoneroTx> snapshot = getTxPoolSnapshot(startNanos - TX_POOL_SNAPSHOT_NANOS);
+      for (MoneroTx tx : poolTxs) {
+        if (!snapshot.containsKey(tx.getHash())) {
+          snapshot = getTxPoolSnapshot(startNanos);  // tx entered the pool after the snapshot
+          break;
+        }
+      }
+      for (MoneroTx tx : poolTxs) {
+        MoneroTx poolTx = snapshot.get(tx.getHash());
+        if (poolTx != null) tx.merge(poolTx.copy());
       }
     }
     
-    return txs;
+    // merge cached txs in requested order
+    if (cachedTxs.isEmpty()) return txs;
+    for (MoneroTx tx : txs) cachedTxs.put(tx.getHash(), tx);
+    return getCachedTxs(txHashes, cachedTxs);
   }
 
   @Override
@@ -393,7 +680,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("height", height);
     params.put("count", numBlocks);
-    Map<String, Object> respMap = rpc.sendJsonRequest("get_coinbase_tx_sum", params);
+    Map<String, Object> respMap = sendJsonRequest("get_coinbase_tx_sum", params);
     Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
     checkResponseStatus(resultMap);
     MoneroMinerTxSum txSum = new MoneroMinerTxSum();
@@ -405,7 +692,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public BigInteger getFeeEstimate(Integer graceBlocks) {
-    Map<String, Object> resp = rpc.sendJsonRequest("get_fee_estimate");
+    Map<String, Object> resp = sendJsonRequestHedged("get_fee_estimate", null);
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     return (BigInteger) result.get("fee");
@@ -416,7 +703,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("tx_as_hex", txHex);
     params.put("do_not_relay", doNotRelay);
-    Map<String, Object> resp = rpc.sendPathRequest("send_raw_transaction", params);
+    Map<String, Object> resp = sendPathRequest("send_raw_transaction", params);
     MoneroSubmitTxResult submitResult = convertRpcSubmitTxResult(resp);
     
     // set isGood based on status
@@ -434,39 +721,46 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public void relayTxsByHash(Collection<String> txHashes) {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("txids", txHashes);
-    Map<String, Object> resp = rpc.sendJsonRequest("relay_tx", params);
+    Map<String, Object> resp = sendJsonRequest("relay_tx", params);
     checkResponseStatus((Map<String, Object>) resp.get("result"));
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public List<MoneroTx> getTxPool() {
     
-    
-    // send rpc request
-    Map<String, Object> resp = rpc.sendPathRequest("get_transaction_pool");
-    checkResponseStatus(resp);
-    
-    // build txs
-    List<MoneroTx> txs = new ArrayList<MoneroTx>();
-    if (resp.containsKey("transactions")) {
-      for (Map<String, Object> rpcTx : (List<Map<String, Object>>) resp.get("transactions")) {
-        MoneroTx tx = new MoneroTx();
-        txs.add(tx);
-        tx.setIsConfirmed(false);
-        tx.setIsMinerTx(false);
-        tx.setInTxPool(true);
-        tx.setNumConfirmations(0l);
-        convertRpcTx(rpcTx, tx);
-      }
-    }
-    
-    return txs;
+    // send rpc request and stream txs from response
+    return sendPathRequest("get_transaction_pool", null, parser -> readRpcTxs(parser, "transactions", true));
   }
 
   @Override
   public List<String> getTxPoolHashes() {
-    throw new RuntimeException("MoneroDaemonRpc.getTxPoolHashes() not implemented");
+    return readTxPoolHashes(sendBinaryRequest("get_transaction_pool_hashes.bin", new HashMap<String, Object>()));
+  }
+  
+  /**
+   * Get the hashes of the txs in the pool without blocking the calling thread.
+   * 
+   * @return a future which completes with the hashes of the txs in the pool
+   */
+  private CompletableFuture<List<String>> getTxPoolHashesAsync() {
+    return sendBinaryRequestAsync("get_transaction_pool_hashes.bin", new HashMap<String, Object>()).thenApply(MoneroDaemonRpc::readTxPoolHashes);
+  }
+  
+  private static List<String> readTxPoolHashes(byte[] respBin) {
+    MoneroPortableStorageReader reader = new MoneroPortableStorageReader(respBin);
+    reader.readHeader();
+    String status = null;
+    List<String> hashes = new ArrayList<String>();
+    long numEntries = reader.readVarint();
+    for (long i = 0; i < numEntries; i++) {
+      String name = reader.readName();
+      int type = reader.readType();
+      if (name.equals("status")) status = (String) reader.readValue(type);
+      else if (name.equals("tx_hashes") && type == MoneroPortableStorage.TYPE_STRING) hashes = binaryToHashes(reader.readBlob());
+      else reader.skipValue(type);
+    }
+    checkResponseStatus(status);
+    return hashes;
   }
 
   @Override
@@ -504,7 +798,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public void flushTxPool(String... hashes) {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("txids", hashes);
-    Map<String, Object> resp = rpc.sendJsonRequest("flush_txpool", params);
+    Map<String, Object> resp = sendJsonRequest("flush_txpool", params);
     checkResponseStatus((Map<String, Object>) resp.get("result"));
   }
   
@@ -513,13 +807,17 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     flushTxPool(hashes.toArray(new String[0]));
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public List<MoneroKeyImageSpentStatus> getKeyImageSpentStatuses(Collection<String> keyImages) {
     if (keyImages == null || keyImages.isEmpty()) throw new MoneroError("Must provide key images to check the status of");
+    return sendBatches(new ArrayList<String>(keyImages), maxKeyImagesPerRequest, this::getKeyImageSpentStatusesBatch);
+  }
+  
+  @SuppressWarnings("unchecked")
+  private List<MoneroKeyImageSpentStatus> getKeyImageSpentStatusesBatch(List<String> keyImages) {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("key_images", keyImages);
-    Map<String, Object> resp = rpc.sendPathRequest("is_key_image_spent", params);
+    Map<String, Object> resp = sendPathRequestHedged("is_key_image_spent", params);
     checkResponseStatus(resp);
     List<MoneroKeyImageSpentStatus> statuses = new ArrayList<MoneroKeyImageSpentStatus>();
     for (BigInteger bi : (List<BigInteger>) resp.get("spent_status")) {
@@ -530,7 +828,8 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
 
   @Override
   public List<MoneroOutput> getOutputs(Collection<MoneroOutput> outputs) {
-    throw new RuntimeException("MoneroDaemonRpc.getOutputs() not implemented");
+    if (outputs == null) throw new MoneroError("Must provide outputs to get");
+    return sendBatches(new ArrayList<MoneroOutput>(outputs), maxOutputsPerRequest, this::getOutputsBatch);
   }
 
   @SuppressWarnings("unchecked")
@@ -546,7 +845,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     params.put("recent_cutoff", recentCutoff);
     
     // send rpc request
-    Map<String, Object> resp = rpc.sendJsonRequest("get_output_histogram", params);
+    Map<String, Object> resp = sendJsonRequest("get_output_histogram", params);
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     
@@ -595,7 +894,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public MoneroDaemonInfo getInfo() {
-    Map<String, Object> resp = rpc.sendJsonRequest("get_info");
+    Map<String, Object> resp = sendJsonRequestCoalesced("get_info");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     return convertRpcInfo(result);
@@ -604,7 +903,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public MoneroDaemonSyncInfo getSyncInfo() {
-    Map<String, Object> resp = rpc.sendJsonRequest("sync_info");
+    Map<String, Object> resp = sendJsonRequest("sync_info");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     return convertRpcSyncInfo(result);
@@ -613,7 +912,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public MoneroHardForkInfo getHardForkInfo() {
-    Map<String, Object> resp = rpc.sendJsonRequest("hard_fork_info");
+    Map<String, Object> resp = sendJsonRequest("hard_fork_info");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     return convertRpcHardForkInfo(result);
@@ -622,7 +921,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public List<MoneroAltChain> getAltChains() {
-    Map<String, Object> resp = rpc.sendJsonRequest("get_alternate_chains");
+    Map<String, Object> resp = sendJsonRequest("get_alternate_chains");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     List<MoneroAltChain> chains = new ArrayList<MoneroAltChain>();
@@ -634,7 +933,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public List<String> getAltBlockHashes() {
-    Map<String, Object> resp = rpc.sendPathRequest("get_alt_blocks_hashes");
+    Map<String, Object> resp = sendPathRequest("get_alt_blocks_hashes");
     checkResponseStatus(resp);
     if (!resp.containsKey("blks_hashes")) return new ArrayList<String>();
     return (List<String>) resp.get("blks_hashes");
@@ -677,7 +976,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @SuppressWarnings("unchecked")
   @Override
   public List<MoneroDaemonConnection> getConnections() {
-    Map<String, Object> resp = rpc.sendJsonRequest("get_connections");
+    Map<String, Object> resp = sendJsonRequest("get_connections");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     List<MoneroDaemonConnection> connections = new ArrayList<MoneroDaemonConnection>();
@@ -693,7 +992,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public List<MoneroDaemonPeer> getKnownPeers() {
     
     // send request
-    Map<String, Object> respMap = rpc.sendPathRequest("get_peer_list");
+    Map<String, Object> respMap = sendPathRequest("get_peer_list");
     checkResponseStatus(respMap);
     
     // build peers
@@ -720,7 +1019,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     if (limit < 0) throw new MoneroError("Outgoing peer limit must be >= 0");
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("out_peers", limit);
-    Map<String, Object> resp = rpc.sendPathRequest("out_peers", params);
+    Map<String, Object> resp = sendPathRequest("out_peers", params);
     checkResponseStatus(resp);
   }
 
@@ -729,14 +1028,14 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     if (limit < 0) throw new MoneroError("Incoming peer limit must be >= 0");
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("in_peers", limit);
-    Map<String, Object> resp = rpc.sendPathRequest("in_peers", params);
+    Map<String, Object> resp = sendPathRequest("in_peers", params);
     checkResponseStatus(resp);
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public List<MoneroBan> getPeerBans() {
-    Map<String, Object> resp = (Map<String, Object>) rpc.sendJsonRequest("get_bans");
+    Map<String, Object> resp = (Map<String, Object>) sendJsonRequest("get_bans");
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     checkResponseStatus(result);
     List<MoneroBan> bans = new ArrayList<MoneroBan>();
@@ -757,7 +1056,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     for (MoneroBan ban : bans) rpcBans.add(convertToRpcBan(ban));
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("bans", rpcBans);
-    Map<String, Object> resp = rpc.sendJsonRequest("set_bans", params);
+    Map<String, Object> resp = sendJsonRequest("set_bans", params);
     checkResponseStatus((Map<String, Object>) resp.get("result"));
   }
   
@@ -807,19 +1106,19 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     params.put("threads_count", numThreads);
     params.put("do_background_mining", isBackground);
     params.put("ignore_battery", ignoreBattery);
-    Map<String, Object> resp = rpc.sendPathRequest("start_mining", params);
+    Map<String, Object> resp = sendPathRequest("start_mining", params);
     checkResponseStatus(resp);
   }
 
   @Override
   public void stopMining() {
-    Map<String, Object> resp = rpc.sendPathRequest("stop_mining");
+    Map<String, Object> resp = sendPathRequest("stop_mining");
     checkResponseStatus(resp);
   }
 
   @Override
   public MoneroMiningStatus getMiningStatus() {
-    Map<String, Object> resp = rpc.sendPathRequest("mining_status");
+    Map<String, Object> resp = sendPathRequest("mining_status");
     checkResponseStatus(resp);
     return convertRpcMiningStatus(resp);
   }
@@ -828,7 +1127,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   @Override
   public void submitBlocks(Collection<String> blockBlobs) {
     if (blockBlobs.isEmpty()) throw new MoneroError("Must provide an array of mined block blobs to submit");
-    Map<String, Object> resp = rpc.sendJsonRequest("submit_block", blockBlobs);
+    Map<String, Object> resp = sendJsonRequest("submit_block", blockBlobs);
     checkResponseStatus((Map<String, Object>) resp.get("result"));
   }
 
@@ -836,7 +1135,7 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
   public MoneroDaemonUpdateCheckResult checkForUpdate() {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("command", "check");
-    Map<String, Object> respMap = rpc.sendPathRequest("update", params);
+    Map<String, Object> respMap = sendPathRequest("update", params);
     checkResponseStatus(respMap);
     return convertRpcUpdateCheckResult(respMap);
   }
@@ -846,14 +1145,14 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     Map<String, Object> params = new HashMap<String, Object>();
     params.put("command", "download");
     params.put("path", path);
-    Map<String, Object> resp = rpc.sendPathRequest("update", params);
+    Map<String, Object> resp = sendPathRequest("update", params);
     checkResponseStatus(resp);
     return convertRpcUpdateDownloadResult(resp);
   }
 
   @Override
   public void stop() {
-    Map<String, Object> resp = rpc.sendPathRequest("stop_daemon");
+    Map<String, Object> resp = sendPathRequest("stop_daemon");
     checkResponseStatus(resp);
   }
 
@@ -891,149 +1190,781 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     daemonPoller.removeListener(listener);
   }
   
-  // ------------------------------- PRIVATE INSTANCE  ----------------------------
+  // ----------------------------- ASYNC METHODS ------------------------------
   
-  private int[] getBandwidthLimits() {
-    Map<String, Object> resp = rpc.sendPathRequest("get_limit");
-    checkResponseStatus(resp);
-    return new int[] { ((BigInteger) resp.get("limit_down")).intValue(), ((BigInteger) resp.get("limit_up")).intValue() };
+  /**
+   * Get the number of blocks in the longest chain known to the node without
+   * blocking the calling thread.
+   * 
+   * @return a future which completes with the number of blocks
+   */
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<Long> getHeightAsync() {
+    return sendJsonRequestAsync("get_block_count").thenApply(respMap -> {
+      Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
+      return ((BigInteger) resultMap.get("count")).longValue();
+    });
   }
   
-  private int[] setBandwidthLimits(Integer downLimit, Integer upLimit) {
-    if (downLimit == null) downLimit = 0;
-    if (upLimit == null) upLimit = 0;
-    Map<String, Object> params = new HashMap<String, Object>();
-    params.put("limit_down", downLimit);
-    params.put("limit_up", upLimit);
-    Map<String, Object> resp = rpc.sendPathRequest("set_limit", params);
-    checkResponseStatus(resp);
-    return new int[] { ((BigInteger) resp.get("limit_down")).intValue(), ((BigInteger) resp.get("limit_up")).intValue() };
+  /**
+   * Get the last block's header without blocking the calling thread.
+   * 
+   * @return a future which completes with the last block's header
+   */
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<MoneroBlockHeader> getLastBlockHeaderAsync() {
+    return sendJsonRequestAsync("get_last_block_header").thenApply(respMap -> {
+      Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
+      checkResponseStatus(resultMap);
+      return convertRpcBlockHeader((Map<String, Object>) resultMap.get("block_header"));
+    });
   }
   
   /**
-   * Get a contiguous chunk of blocks starting from a given height up to a maximum
-   * height or maximum amount of block data fetched from the blockchain, whichever comes first.
+   * Get a block header by its hash without blocking the calling thread.
    * 
-   * @param startHeight is the start height to retrieve blocks (default 0)
-   * @param maxHeight is the maximum end height to retrieve blocks (default blockchain height)
-   * @param chunkSize is the maximum chunk size in any one request (default 3,000,000 bytes)
-   * @return List<MoneroBlock> are the resulting chunk of blocks
+   * @param blockHash is the hash of the block to get the header of
+   * @return a future which completes with the block's header
    */
-  private List<MoneroBlock> getMaxBlocks(Long startHeight, Long maxHeight, Long chunkSize) {
-    if (startHeight == null) startHeight = 0l;
-    if (maxHeight == null) maxHeight = getHeight() - 1;
-    if (chunkSize == null) chunkSize = MAX_REQ_SIZE;
-    
-    // determine end height to fetch
-    int reqSize = 0;
-    long endHeight = startHeight - 1;
-    while (reqSize < chunkSize && endHeight < maxHeight) {
-      
-      // get header of next block
-      MoneroBlockHeader header = getBlockHeaderByHeightCached(endHeight + 1, maxHeight);
-      
-      // block cannot be bigger than max request size
-      GenUtils.assertTrue("Block exceeds maximum request size: " + header.getSize(), header.getSize() <= chunkSize);
-      
-      // done iterating if fetching block would exceed max request size
-      if (reqSize + header.getSize() > chunkSize) break;
-      
-      // otherwise block is included
-      reqSize += header.getSize();
-      endHeight++;
-    }
-    return endHeight >= startHeight ? getBlocksByRange(startHeight, endHeight) : new ArrayList<MoneroBlock>();
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<MoneroBlockHeader> getBlockHeaderByHashAsync(String blockHash) {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("hash", blockHash);
+    return sendJsonRequestAsync("get_block_header_by_hash", params).thenApply(respMap -> {
+      Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
+      return convertRpcBlockHeader((Map<String, Object>) resultMap.get("block_header"));
+    });
   }
   
   /**
-   * Retrieves a header by height from the cache or fetches and caches a header
-   * range if not already in the cache.
+   * Get a block header by its height without blocking the calling thread.
    * 
-   * @param height is the height of the header to retrieve from the cache
-   * @param maxHeight is the maximum height of headers to cache
+   * @param height is the height of the block to get the header of
+   * @return a future which completes with the block's header
    */
-  private MoneroBlockHeader getBlockHeaderByHeightCached(long height, long maxHeight) {
-    
-    // get header from cache
-    MoneroBlockHeader cachedHeader = cachedHeaders.get(height);
-    if (cachedHeader != null) return cachedHeader;
-    
-    // fetch and cache headers if not in cache
-    long endHeight = Math.min(maxHeight, height + NUM_HEADERS_PER_REQ - 1);  // TODO: could specify end height to cache to optimize small requests (would like to have time profiling in place though)
-    List<MoneroBlockHeader> headers = getBlockHeadersByRange(height, endHeight);
-    for (MoneroBlockHeader header : headers) {
-      cachedHeaders.put(header.getHeight(), header);
-    }
-    
-    // return the cached header
-    return cachedHeaders.get(height);
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<MoneroBlockHeader> getBlockHeaderByHeightAsync(long height) {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("height", height);
+    return sendJsonRequestAsync("get_block_header_by_height", params).thenApply(respMap -> {
+      Map<String, Object> resultMap = (Map<String, Object>) respMap.get("result");
+      return convertRpcBlockHeader((Map<String, Object>) resultMap.get("block_header"));
+    });
   }
   
-  //---------------------------------- PRIVATE STATIC -------------------------------
-  
-  private static void checkResponseStatus(Map<String, Object> resp) {
-    String status = (String) resp.get("status");
-    if (!"OK".equals(status)) throw new MoneroRpcError(status, null, null, null);
+  /**
+   * Get a block by hash without blocking the calling thread.
+   * 
+   * @param blockHash is the hash of the block to get
+   * @return a future which completes with the block
+   */
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<MoneroBlock> getBlockByHashAsync(String blockHash) {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("hash", blockHash);
+    return sendJsonRequestAsync("get_block", params).thenApply(respMap -> convertRpcBlock((Map<String, Object>) respMap.get("result")));
   }
   
-  private static MoneroBlockTemplate convertRpcBlockTemplate(Map<String, Object> rpcTemplate) {
-    MoneroBlockTemplate template = new MoneroBlockTemplate();
-    for (String key : rpcTemplate.keySet()) {
-      Object val = rpcTemplate.get(key);
-      if (key.equals("blockhashing_blob")) template.setBlockTemplateBlob((String) val);
-      else if (key.equals("blocktemplate_blob")) template.setBlockHashingBlob((String) val);
-      else if (key.equals("difficulty")) template.setDifficulty((BigInteger) val);
-      else if (key.equals("expected_reward")) template.setExpectedReward((BigInteger) val);
-      else if (key.equals("difficulty")) { }  // handled by wide_difficulty
-      else if (key.equals("difficulty_top64")) { }  // handled by wide_difficulty
-      else if (key.equals("wide_difficulty")) template.setDifficulty(GenUtils.reconcile(template.getDifficulty(), prefixedHexToBI((String) val)));
-      else if (key.equals("height")) template.setHeight(((BigInteger) val).longValue());
-      else if (key.equals("prev_hash")) template.setPrevHash((String) val);
-      else if (key.equals("reserved_offset")) template.setReservedOffset(((BigInteger) val).longValue());
-      else if (key.equals("status")) {}  // handled elsewhere
-      else if (key.equals("untrusted")) {}  // handled elsewhere
-      else if (key.equals("seed_height")) template.setSeedHeight(((BigInteger) val).longValue());
-      else if (key.equals("seed_hash")) template.setSeedHash((String) val);
-      else if (key.equals("next_seed_hash")) template.setNextSeedHash((String) val);
-      else LOGGER.warning("WARNING: ignoring unexpected field in block template: " + key + ": " + val);
-    }
-    if ("".equals(template.getNextSeedHash())) template.setNextSeedHash(null);
-    return template;
+  /**
+   * Get a block by height without blocking the calling thread.
+   * 
+   * @param height is the height of the block to get
+   * @return a future which completes with the block
+   */
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<MoneroBlock> getBlockByHeightAsync(long height) {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("height", height);
+    return sendJsonRequestAsync("get_block", params).thenApply(respMap -> convertRpcBlock((Map<String, Object>) respMap.get("result")));
   }
   
-  private static MoneroBlockHeader convertRpcBlockHeader(Map<String, Object> rpcHeader) {
+  /**
+   * Get the fee estimate per kB without blocking the calling thread.
+   * 
+   * @return a future which completes with the fee estimate per kB
+   */
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<BigInteger> getFeeEstimateAsync() {
+    return sendJsonRequestAsync("get_fee_estimate").thenApply(resp -> {
+      Map<String, Object> result = (Map<String, Object>) resp.get("result");
+      checkResponseStatus(result);
+      return (BigInteger) result.get("fee");
+    });
+  }
+  
+  /**
+   * Get general information about the state of the node and the network
+   * without blocking the calling thread.
+   * 
+   * @return a future which completes with the daemon info
+   */
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<MoneroDaemonInfo> getInfoAsync() {
+    return sendJsonRequestAsync("get_info").thenApply(resp -> {
+      Map<String, Object> result = (Map<String, Object>) resp.get("result");
+      checkResponseStatus(result);
+      return convertRpcInfo(result);
+    });
+  }
+  
+  /**
+   * Get the spent status of the given key images without blocking the calling
+   * thread.
+   * 
+   * @param keyImages are hex key images to get the statuses of
+   * @return a future which completes with the spent status for each key image
+   */
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<List<MoneroKeyImageSpentStatus>> getKeyImageSpentStatusesAsync(Collection<String> keyImages) {
+    if (keyImages == null || keyImages.isEmpty()) throw new MoneroError("Must provide key images to check the status of");
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("key_images", keyImages);
+    return sendPathRequestAsync("is_key_image_spent", params).thenApply(resp -> {
+      checkResponseStatus(resp);
+      List<MoneroKeyImageSpentStatus> statuses = new ArrayList<MoneroKeyImageSpentStatus>();
+      for (BigInteger bi : (List<BigInteger>) resp.get("spent_status")) {
+        statuses.add(MoneroKeyImageSpentStatus.valueOf(bi.intValue()));
+      }
+      return statuses;
+    });
+  }
+  
+  // ------------------------------- PRIVATE INSTANCE  ----------------------------
+  
+  private void observeHeader(MoneroBlockHeader header) {
+    cachedHeaders.observe(header);
+    ResponseCache cache = responseCache;
+    if (cache == null || header == null || header.getHeight() == null) return;
+    if (header.getDepth() != null) cache.observeTipHeight(header.getHeight() + header.getDepth());
+  }
+  
+  private static String getTxCacheKey(String txHash, Boolean prune) {
+    return (Boolean.TRUE.equals(prune) ? "pruned_tx:" : "tx:") + txHash;
+  }
+  
+  private static List<MoneroTx> getCachedTxs(Collection<String> txHashes, Map<String, MoneroTx> txsByHash) {
+    List<MoneroTx> txs = new ArrayList<MoneroTx>();
+    for (String txHash : txHashes) {
+      MoneroTx tx = txsByHash.get(txHash);
+      if (tx != null) txs.add(tx);
+    }
+    return txs;
+  }
+  
+  /**
+   * Gets the tx pool indexed by tx hash, sharing a snapshot which was started
+   * at or after the given time, possibly by a concurrent call.
+   * 
+   * The snapshot's txs must be copied before they are modified.
+   * 
+   * @param minStartNanos is the earliest start time of a shared snapshot per System.nanoTime()
+   * @return the pool txs by hash
+   */
+  private Map<String, MoneroTx> getTxPoolSnapshot(long minStartNanos) {
+    TxPoolSnapshot snapshot;
+    boolean isFetcher = false;
+    synchronized (txPoolSnapshotLock) {
+      snapshot = txPoolSnapshot;
+      if (snapshot == null || snapshot.txs.isCompletedExceptionally() || snapshot.startNanos - minStartNanos < 0) {
+        snapshot = txPoolSnapshot = new TxPoolSnapshot(System.nanoTime());
+        isFetcher = true;
+      }
+    }
+    if (isFetcher) {
+      try {
+        Map<String, MoneroTx> txs = new HashMap<String, MoneroTx>();
+        for (MoneroTx tx : getTxPool()) txs.put(tx.getHash(), tx);
+        snapshot.txs.complete(txs);
+      } catch (RuntimeException e) {
+        snapshot.txs.completeExceptionally(e);
+      }
+    }
+    try {
+      return snapshot.txs.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+      throw new MoneroError(e.getCause());
+    }
+  }
+  
+  /**
+   * Copies a tx with the block it is linked to.
+   */
+  private static MoneroTx copyTx(MoneroTx tx) {
+    if (tx.getBlock() == null || tx.getBlock().getTxs() == null) return tx.copy();
+    int txIdx = tx.getBlock().getTxs().indexOf(tx);
+    MoneroBlock block = tx.getBlock().copy();
+    return block.getTxs().get(txIdx);
+  }
+  
+  // requests are routed through the connection manager if managed
+  
+  private Map<String, Object> sendJsonRequest(String method) {
+    return sendJsonRequest(method, null);
+  }
+  
+  private Map<String, Object> sendJsonRequest(String method, Object params) {
+    if (connectionManager == null) return rpc.sendJsonRequest(method, params);
+    return sendManaged(method, connection -> connection.sendJsonRequest(method, params));
+  }
+  
+  private <T> T sendJsonRequest(String method, Object params, MoneroRpcStreamReader<T> resultReader) {
+    if (connectionManager == null) return rpc.sendJsonRequest(method, params, resultReader);
+    return sendManaged(method, connection -> connection.sendJsonRequest(method, params, resultReader));
+  }
+  
+  private Map<String, Object> sendPathRequest(String path) {
+    return sendPathRequest(path, null);
+  }
+  
+  private Map<String, Object> sendPathRequest(String path, Map<String, Object> params) {
+    if (connectionManager == null) return rpc.sendPathRequest(path, params);
+    return sendManaged(path, connection -> connection.sendPathRequest(path, params));
+  }
+  
+  private <T> T sendPathRequest(String path, Map<String, Object> params, MoneroRpcStreamReader<T> reader) {
+    if (connectionManager == null) return rpc.sendPathRequest(path, params, reader);
+    return sendManaged(path, connection -> connection.sendPathRequest(path, params, reader));
+  }
+  
+  private byte[] sendBinaryRequest(String path, Map<String, Object> params) {
+    if (connectionManager == null) return rpc.sendBinaryRequest(path, params);
+    return sendManaged(path, connection -> connection.sendBinaryRequest(path, params));
+  }
+  
+  /**
+   * Sends a request through the connection manager, failing over only if the
+   * method is safe to send to more than one connection.
+   */
+  private <T> T sendManaged(String method, Function<MoneroRpcConnection, T> request) {
+    if (NON_IDEMPOTENT_METHODS.contains(method)) return connectionManager.sendOnce(request);
+    return connectionManager.send(request);
+  }
+  
+  // identical read-only requests in flight share one request and its response
+  
+  private Map<String, Object> sendJsonRequestCoalesced(String method) {
+    if (connectionManager == null) return rpc.sendJsonRequestCoalesced(method, null);
+    return connectionManager.send(connection -> connection.sendJsonRequestCoalesced(method, null));
+  }
+  
+  private Map<String, Object> sendPathRequestCoalesced(String path) {
+    if (connectionManager == null) return rpc.sendPathRequestCoalesced(path, null);
+    return connectionManager.send(connection -> connection.sendPathRequestCoalesced(path, null));
+  }
+  
+  // read-only requests are hedged to a second connection if enabled by the connection manager
+  
+  private Map<String, Object> sendJsonRequestHedged(String method, Object params) {
+    if (connectionManager == null) return rpc.sendJsonRequestCoalesced(method, params);
+    return connectionManager.sendHedged(method, connection -> connection.sendJsonRequestCoalesced(method, params));
+  }
+  
+  private Map<String, Object> sendPathRequestHedged(String path, Map<String, Object> params) {
+    if (connectionManager == null) return rpc.sendPathRequest(path, params);
+    return connectionManager.sendHedged(path, connection -> connection.sendPathRequest(path, params));
+  }
+  
+  private <T> T sendPathRequestHedged(String path, Map<String, Object> params, MoneroRpcStreamReader<T> reader) {
+    if (connectionManager == null) return rpc.sendPathRequest(path, params, reader);
+    return connectionManager.sendHedged(path, connection -> connection.sendPathRequest(path, params, reader));
+  }
+  
+  private CompletableFuture<Map<String, Object>> sendJsonRequestAsync(String method) {
+    return sendJsonRequestAsync(method, null);
+  }
+  
+  private CompletableFuture<Map<String, Object>> sendJsonRequestAsync(String method, Object params) {
+    if (connectionManager == null) return rpc.sendJsonRequestAsync(method, params);
+    return connectionManager.sendAsync(connection -> connection.sendJsonRequestAsync(method, params));
+  }
+  
+  private CompletableFuture<Map<String, Object>> sendPathRequestAsync(String path, Map<String, Object> params) {
+    if (connectionManager == null) return rpc.sendPathRequestAsync(path, params);
+    return connectionManager.sendAsync(connection -> connection.sendPathRequestAsync(path, params));
+  }
+  
+  private CompletableFuture<byte[]> sendBinaryRequestAsync(String path, Map<String, Object> params) {
+    if (connectionManager == null) return rpc.sendBinaryRequestAsync(path, params);
+    return connectionManager.sendAsync(connection -> connection.sendBinaryRequestAsync(path, params));
+  }
+  
+  private int[] getBandwidthLimits() {
+    Map<String, Object> resp = sendPathRequest("get_limit");
+    checkResponseStatus(resp);
+    return new int[] { ((BigInteger) resp.get("limit_down")).intValue(), ((BigInteger) resp.get("limit_up")).intValue() };
+  }
+  
+  private int[] setBandwidthLimits(Integer downLimit, Integer upLimit) {
+    if (downLimit == null) downLimit = 0;
+    if (upLimit == null) upLimit = 0;
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("limit_down", downLimit);
+    params.put("limit_up", upLimit);
+    Map<String, Object> resp = sendPathRequest("set_limit", params);
+    checkResponseStatus(resp);
+    return new int[] { ((BigInteger) resp.get("limit_down")).intValue(), ((BigInteger) resp.get("limit_up")).intValue() };
+  }
+  
+  /**
+   * Fetches txs in one get_transactions request.
+   * 
+   * @param txHashes are the hashes of the txs to fetch
+   * @param prune specifies if the txs are pruned
+   * @return the txs found in the order requested
+   */
+  private List<MoneroTx> getTxsBatch(List<String> txHashes, Boolean prune) {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("txs_hashes", txHashes);
+    params.put("decode_as_json", !Boolean.TRUE.equals(prune));  // pruned txs are decoded from hex, unpruned txs need json for their prunable signatures
+    params.put("prune", prune);
+    try {
+      return sendPathRequestHedged("get_transactions", params, parser -> readRpcTxs(parser, "txs", false));
+    } catch (MoneroError e) {
+      if (e.getMessage() != null && e.getMessage().indexOf("Failed to parse hex representation of transaction hash") >= 0) throw new MoneroError("Invalid transaction hash", e.getCode());
+      throw e;
+    }
+  }
+  
+  /**
+   * Fetches txs in get_transactions requests of up to maxTxsPerRequest txs,
+   * one request at a time, without blocking the calling thread.
+   * 
+   * @param txHashes are the hashes of the txs to fetch
+   * @param prune specifies if the txs are pruned
+   * @return a future which completes with the txs found in the order requested
+   */
+  private CompletableFuture<List<MoneroTx>> getTxsAsync(List<String> txHashes, boolean prune) {
+    CompletableFuture<List<MoneroTx>> txs = CompletableFuture.completedFuture(new ArrayList<MoneroTx>());
+    for (int start = 0; start < txHashes.size(); start += maxTxsPerRequest) {
+      List<String> batch = txHashes.subList(start, Math.min(txHashes.size(), start + maxTxsPerRequest));
+      txs = txs.thenCompose(fetched -> getTxsBatchAsync(batch, prune).thenApply(batchTxs -> {
+        fetched.addAll(batchTxs);
+        return fetched;
+      }));
+    }
+    return txs;
+  }
+  
+  @SuppressWarnings("unchecked")
+  private CompletableFuture<List<MoneroTx>> getTxsBatchAsync(List<String> txHashes, boolean prune) {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("txs_hashes", txHashes);
+    params.put("decode_as_json", !prune);
+    params.put("prune", prune);
+    return sendPathRequestAsync("get_transactions", params).thenApply(resp -> {
+      checkResponseStatus(resp);
+      List<MoneroTx> txs = new ArrayList<MoneroTx>();
+      List<Map<String, Object>> rpcTxs = (List<Map<String, Object>>) resp.get("txs");
+      if (rpcTxs == null) return txs;
+      for (Map<String, Object> rpcTx : rpcTxs) {
+        MoneroTx tx = new MoneroTx();
+        tx.setIsMinerTx(false);
+        txs.add(convertRpcTx(rpcTx, tx));
+      }
+      return txs;
+    });
+  }
+  
+  /**
+   * Fetches outputs identified by amount and index in one get_outs.bin request.
+   * 
+   * @param outputs identify each output by amount (0 for RingCT) and global index
+   * @return the outputs with their key, mask, unlock state, and tx hash and height
+   */
+  private List<MoneroOutput> getOutputsBatch(List<MoneroOutput> outputs) {
+    
+    // fetch outputs in binary
+    List<Map<String, Object>> rpcOutputs = new ArrayList<Map<String, Object>>();
+    for (MoneroOutput output : outputs) {
+      if (output.getIndex() == null) throw new MoneroError("Must provide index of output to get");
+      Map<String, Object> rpcOutput = new HashMap<String, Object>();
+      rpcOutput.put("amount", output.getAmount() == null ? BigInteger.ZERO : output.getAmount());
+      rpcOutput.put("index", output.getIndex());
+      rpcOutputs.add(rpcOutput);
+    }
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("outputs", rpcOutputs);
+    params.put("get_txid", true);
+    byte[] respBin = sendBinaryRequest("get_outs.bin", params);
+    
+    // decode outputs
+    MoneroPortableStorageReader reader = new MoneroPortableStorageReader(respBin);
+    reader.readHeader();
+    String status = null;
+    List<MoneroOutput> fetched = new ArrayList<MoneroOutput>(outputs.size());
+    long numEntries = reader.readVarint();
+    for (long i = 0; i < numEntries; i++) {
+      String name = reader.readName();
+      int type = reader.readType();
+      if (name.equals("status")) status = (String) reader.readValue(type);
+      else if (name.equals("outs") && type == (MoneroPortableStorage.TYPE_OBJECT | MoneroPortableStorage.FLAG_ARRAY)) {
+        long numOutputs = reader.readVarint();
+        for (long j = 0; j < numOutputs; j++) fetched.add(readBinaryOutput(reader));
+      }
+      else reader.skipValue(type);
+    }
+    checkResponseStatus(status);
+    GenUtils.assertEquals(outputs.size(), fetched.size());
+    for (int outputIdx = 0; outputIdx < outputs.size(); outputIdx++) {
+      MoneroOutput output = fetched.get(outputIdx);
+      output.setAmount(outputs.get(outputIdx).getAmount() == null ? BigInteger.ZERO : outputs.get(outputIdx).getAmount());
+      output.setIndex(outputs.get(outputIdx).getIndex());
+    }
+    return fetched;
+  }
+  
+  /**
+   * Splits items into batches which are requested with up to maxChunkRequests
+   * requests in flight.
+   * 
+   * @param items are the items to request
+   * @param batchSize is the maximum number of items per request
+   * @param request requests a batch of items
+   * @return the results of each batch concatenated in the order of the items
+   */
+  private <T, R> List<R> sendBatches(List<T> items, int batchSize, Function<List<T>, List<R>> request) {
+    if (items.isEmpty()) return new ArrayList<R>();
+    if (items.size() <= batchSize) return request.apply(items);
+    List<R> results = new ArrayList<R>(items.size());
+    Deque<CompletableFuture<List<R>>> batches = new ArrayDeque<CompletableFuture<List<R>>>();
+    int maxRequests = maxChunkRequests;
+    int nextIdx = 0;
+    try {
+      while (nextIdx < items.size() || !batches.isEmpty()) {
+        while (batches.size() < maxRequests && nextIdx < items.size()) {
+          List<T> batch = items.subList(nextIdx, Math.min(items.size(), nextIdx + batchSize));
+          batches.add(CompletableFuture.supplyAsync(() -> request.apply(batch), chunkExecutor));
+          nextIdx += batch.size();
+        }
+        results.addAll(batches.poll().join());
+      }
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+      throw new MoneroError(e.getCause());
+    } finally {
+      for (CompletableFuture<List<R>> batch : batches) batch.cancel(false);
+    }
+    return results;
+  }
+  
+  /**
+   * Determines the end height of the largest chunk of blocks from a start
+   * height which does not exceed a maximum request size.
+   * 
+   * @param startHeight is the height of the first block in the chunk
+   * @param maxHeight is the maximum height of the chunk
+   * @param chunkSize is the maximum size of the chunk in bytes (default MAX_REQ_SIZE)
+   * @return the height of the last block in the chunk
+   */
+  private long getChunkEndHeight(long startHeight, long maxHeight, Long chunkSize) {
+    if (chunkSize == null) chunkSize = MAX_REQ_SIZE;
+    
+    // determine end height to fetch
+    int reqSize = 0;
+    long endHeight = startHeight - 1;
+    while (reqSize < chunkSize && endHeight < maxHeight) {
+      
+      // get header of next block
+      MoneroBlockHeader header = getBlockHeaderByHeightCached(endHeight + 1, maxHeight);
+      
+      // block cannot be bigger than max request size
+      GenUtils.assertTrue("Block exceeds maximum request size: " + header.getSize(), header.getSize() <= chunkSize);
+      
+      // done iterating if fetching block would exceed max request size
+      if (reqSize + header.getSize() > chunkSize) break;
+      
+      // otherwise block is included
+      reqSize += header.getSize();
+      endHeight++;
+    }
+    return endHeight;
+  }
+  
+  /**
+   * Retrieves a header by height from the cache or fetches and caches a header
+   * range if not already in the cache.
+   * 
+   * @param height is the height of the header to retrieve from the cache
+   * @param maxHeight is the maximum height of headers to cache
+   */
+  private MoneroBlockHeader getBlockHeaderByHeightCached(long height, long maxHeight) {
+    
+    // get header from cache
+    MoneroBlockHeader cachedHeader = cachedHeaders.get(height);
+    if (cachedHeader != null) return cachedHeader;
+    
+    // fetch and cache headers if not in cache
+    long endHeight = Math.min(maxHeight, height + NUM_HEADERS_PER_REQ - 1);  // TODO: could specify end height to cache to optimize small requests (would like to have time profiling in place though)
+    List<MoneroBlockHeader> headers = getBlockHeadersByRange(height, endHeight);
+    for (MoneroBlockHeader header : headers) cachedHeaders.observe(header);
+    
+    // return the fetched header
+    return headers.get(0);
+  }
+  
+  //---------------------------------- PRIVATE STATIC -------------------------------
+  
+  private static void checkResponseStatus(Map<String, Object> resp) {
+    checkResponseStatus((String) resp.get("status"));
+  }
+  
+  private static void checkResponseStatus(String status) {
+    if (!"OK".equals(status)) throw new MoneroRpcError(status, null, null, null);
+  }
+  
+  private static MoneroBlockTemplate convertRpcBlockTemplate(Map<String, Object> rpcTemplate) {
+    MoneroBlockTemplate template = new MoneroBlockTemplate();
+    for (String key : rpcTemplate.keySet()) {
+      Object val = rpcTemplate.get(key);
+      if (key.equals("blockhashing_blob")) template.setBlockTemplateBlob((String) val);
+      else if (key.equals("blocktemplate_blob")) template.setBlockHashingBlob((String) val);
+      else if (key.equals("difficulty")) template.setDifficulty((BigInteger) val);
+      else if (key.equals("expected_reward")) template.setExpectedReward((BigInteger) val);
+      else if (key.equals("difficulty")) { }  // handled by wide_difficulty
+      else if (key.equals("difficulty_top64")) { }  // handled by wide_difficulty
+      else if (key.equals("wide_difficulty")) template.setDifficulty(GenUtils.reconcile(template.getDifficulty(), prefixedHexToBI((String) val)));
+      else if (key.equals("height")) template.setHeight(((BigInteger) val).longValue());
+      else if (key.equals("prev_hash")) template.setPrevHash((String) val);
+      else if (key.equals("reserved_offset")) template.setReservedOffset(((BigInteger) val).longValue());
+      else if (key.equals("status")) {}  // handled elsewhere
+      else if (key.equals("untrusted")) {}  // handled elsewhere
+      else if (key.equals("seed_height")) template.setSeedHeight(((BigInteger) val).longValue());
+      else if (key.equals("seed_hash")) template.setSeedHash((String) val);
+      else if (key.equals("next_seed_hash")) template.setNextSeedHash((String) val);
+      else LOGGER.warning("WARNING: ignoring unexpected field in block template: " + key + ": " + val);
+    }
+    if ("".equals(template.getNextSeedHash())) template.setNextSeedHash(null);
+    return template;
+  }
+  
+  private static MoneroBlockHeader convertRpcBlockHeader(Map<String, Object> rpcHeader) {
     return convertRpcBlockHeader(rpcHeader, null);
   }
   
   private static MoneroBlockHeader convertRpcBlockHeader(Map<String, Object> rpcHeader, MoneroBlockHeader header) {
     if (header == null) header = new MoneroBlockHeader();
-    for (String key : rpcHeader.keySet()) {
-      Object val = rpcHeader.get(key);
-      if (key.equals("block_size")) header.setSize(GenUtils.reconcile(header.getSize(), ((BigInteger) val).longValue()));
-      else if (key.equals("depth")) header.setDepth(GenUtils.reconcile(header.getDepth(), ((BigInteger) val).longValue()));
-      else if (key.equals("difficulty")) { }  // handled by wide_difficulty
-      else if (key.equals("cumulative_difficulty")) { } // handled by wide_cumulative_difficulty
-      else if (key.equals("difficulty_top64")) { }  // handled by wide_difficulty
-      else if (key.equals("cumulative_difficulty_top64")) { } // handled by wide_cumulative_difficulty
-      else if (key.equals("wide_difficulty")) header.setDifficulty(GenUtils.reconcile(header.getDifficulty(), prefixedHexToBI((String) val)));
-      else if (key.equals("wide_cumulative_difficulty")) header.setCumulativeDifficulty(GenUtils.reconcile(header.getCumulativeDifficulty(), prefixedHexToBI((String) val)));
-      else if (key.equals("hash")) header.setHash(GenUtils.reconcile(header.getHash(), (String) val));
-      else if (key.equals("height")) header.setHeight(GenUtils.reconcile(header.getHeight(), ((BigInteger) val).longValue()));
-      else if (key.equals("major_version")) header.setMajorVersion(GenUtils.reconcile(header.getMajorVersion(), ((BigInteger) val).intValue()));
-      else if (key.equals("minor_version")) header.setMinorVersion(GenUtils.reconcile(header.getMinorVersion(), ((BigInteger) val).intValue()));
-      else if (key.equals("nonce")) header.setNonce(GenUtils.reconcile(header.getNonce(), ((BigInteger) val).intValue()));
-      else if (key.equals("num_txes")) header.setNumTxs(GenUtils.reconcile(header.getNumTxs(), ((BigInteger) val).intValue()));
-      else if (key.equals("orphan_status")) header.setOrphanStatus(GenUtils.reconcile(header.getOrphanStatus(), (Boolean) val));
-      else if (key.equals("prev_hash") || key.equals("prev_id")) header.setPrevHash(GenUtils.reconcile(header.getPrevHash(), (String) val));
-      else if (key.equals("reward")) header.setReward(GenUtils.reconcile(header.getReward(), (BigInteger) val));
-      else if (key.equals("timestamp")) header.setTimestamp(GenUtils.reconcile(header.getTimestamp(), ((BigInteger) val).longValue()));
-      else if (key.equals("block_weight")) header.setWeight(GenUtils.reconcile(header.getWeight(), ((BigInteger) val).longValue()));
-      else if (key.equals("long_term_weight")) header.setLongTermWeight(GenUtils.reconcile(header.getLongTermWeight(), ((BigInteger) val).longValue()));
-      else if (key.equals("pow_hash")) header.setPowHash(GenUtils.reconcile(header.getPowHash(), "".equals(val) ? null : (String) val));
-      else if (key.equals("tx_hashes")) {}  // used in block model, not header model
-      else if (key.equals("miner_tx")) {}   // used in block model, not header model
-      else if (key.equals("miner_tx_hash")) header.setMinerTxHash((String) val);
-      else LOGGER.warning("WARNING: ignoring unexpected block header field: '" + key + "': " + val);
+    for (String key : rpcHeader.keySet()) convertRpcBlockHeaderField(key, rpcHeader.get(key), header);
+    return header;
+  }
+  
+  private static void convertRpcBlockHeaderField(String key, Object val, MoneroBlockHeader header) {
+    if (key.equals("block_size")) header.setSize(GenUtils.reconcile(header.getSize(), ((BigInteger) val).longValue()));
+    else if (key.equals("depth")) header.setDepth(GenUtils.reconcile(header.getDepth(), ((BigInteger) val).longValue()));
+    else if (key.equals("difficulty")) { }  // handled by wide_difficulty
+    else if (key.equals("cumulative_difficulty")) { } // handled by wide_cumulative_difficulty
+    else if (key.equals("difficulty_top64")) { }  // handled by wide_difficulty
+    else if (key.equals("cumulative_difficulty_top64")) { } // handled by wide_cumulative_difficulty
+    else if (key.equals("wide_difficulty")) header.setDifficulty(GenUtils.reconcile(header.getDifficulty(), prefixedHexToBI((String) val)));
+    else if (key.equals("wide_cumulative_difficulty")) header.setCumulativeDifficulty(GenUtils.reconcile(header.getCumulativeDifficulty(), prefixedHexToBI((String) val)));
+    else if (key.equals("hash")) header.setHash(GenUtils.reconcile(header.getHash(), (String) val));
+    else if (key.equals("height")) header.setHeight(GenUtils.reconcile(header.getHeight(), ((BigInteger) val).longValue()));
+    else if (key.equals("major_version")) header.setMajorVersion(GenUtils.reconcile(header.getMajorVersion(), ((BigInteger) val).intValue()));
+    else if (key.equals("minor_version")) header.setMinorVersion(GenUtils.reconcile(header.getMinorVersion(), ((BigInteger) val).intValue()));
+    else if (key.equals("nonce")) header.setNonce(GenUtils.reconcile(header.getNonce(), ((BigInteger) val).intValue()));
+    else if (key.equals("num_txes")) header.setNumTxs(GenUtils.reconcile(header.getNumTxs(), ((BigInteger) val).intValue()));
+    else if (key.equals("orphan_status")) header.setOrphanStatus(GenUtils.reconcile(header.getOrphanStatus(), (Boolean) val));
+    else if (key.equals("prev_hash") || key.equals("prev_id")) header.setPrevHash(GenUtils.reconcile(header.getPrevHash(), (String) val));
+    else if (key.equals("reward")) header.setReward(GenUtils.reconcile(header.getReward(), (BigInteger) val));
+    else if (key.equals("timestamp")) header.setTimestamp(GenUtils.reconcile(header.getTimestamp(), ((BigInteger) val).longValue()));
+    else if (key.equals("block_weight")) header.setWeight(GenUtils.reconcile(header.getWeight(), ((BigInteger) val).longValue()));
+    else if (key.equals("long_term_weight")) header.setLongTermWeight(GenUtils.reconcile(header.getLongTermWeight(), ((BigInteger) val).longValue()));
+    else if (key.equals("pow_hash")) header.setPowHash(GenUtils.reconcile(header.getPowHash(), "".equals(val) ? null : (String) val));
+    else if (key.equals("tx_hashes")) {}  // used in block model, not header model
+    else if (key.equals("miner_tx")) {}   // used in block model, not header model
+    else if (key.equals("miner_tx_hash")) header.setMinerTxHash((String) val);
+    else LOGGER.warning("WARNING: ignoring unexpected block header field: '" + key + "': " + val);
+  }
+  
+  /**
+   * Reads blocks with their transactions from a binary blocks response in one
+   * pass, decoding block and transaction blobs directly into models.
+   * 
+   * @param respBin is the portable storage response of get_blocks_by_height.bin or get_blocks.bin
+   * @return the blocks in the response
+   */
+  private static List<MoneroBlock> readBinaryBlocks(byte[] respBin) {
+    MoneroPortableStorageReader reader = new MoneroPortableStorageReader(respBin);
+    reader.readHeader();
+    String status = null;
+    Long startHeight = null;
+    List<MoneroBlock> blocks = new ArrayList<MoneroBlock>();
+    long numEntries = reader.readVarint();
+    for (long i = 0; i < numEntries; i++) {
+      String name = reader.readName();
+      int type = reader.readType();
+      if (name.equals("status")) status = (String) reader.readValue(type);
+      else if (name.equals("start_height")) startHeight = ((Number) reader.readValue(type)).longValue();
+      else if (name.equals("blocks") && type == (MoneroPortableStorage.TYPE_OBJECT | MoneroPortableStorage.FLAG_ARRAY)) {
+        long numBlocks = reader.readVarint();
+        for (long j = 0; j < numBlocks; j++) blocks.add(readBinaryBlock(reader));
+      }
+      else reader.skipValue(type);
+    }
+    checkResponseStatus(status);
+    if (startHeight != null) for (int blockIdx = 0; blockIdx < blocks.size(); blockIdx++) blocks.get(blockIdx).setHeight(startHeight + blockIdx);
+    return blocks;
+  }
+  
+  /**
+   * Reads the block hashes added to the main chain from a ZMQ json-minimal-chain_main message.
+   */
+  private static List<String> readZmqChainMain(String json) {
+    Map<String, Object> chainMain = JsonUtils.deserialize(json, new TypeReference<Map<String, Object>>(){});
+    List<String> blockHashes = new ArrayList<String>();
+    Object ids = chainMain.get("ids");
+    if (ids instanceof List) for (Object id : (List<?>) ids) blockHashes.add((String) id);
+    return blockHashes;
+  }
+  
+  /**
+   * Reads the txs added to the pool from a ZMQ json-minimal-txpool_add message.
+   */
+  private static List<MoneroTx> readZmqTxPoolAdd(String json) {
+    List<Map<String, Object>> rpcTxs = JsonUtils.deserialize(json, new TypeReference<List<Map<String, Object>>>(){});
+    List<MoneroTx> txs = new ArrayList<MoneroTx>();
+    for (Map<String, Object> rpcTx : rpcTxs) {
+      MoneroTx tx = new MoneroTx();
+      tx.setHash((String) rpcTx.get("id"));
+      if (rpcTx.get("blob_size") != null) tx.setSize(((Number) rpcTx.get("blob_size")).longValue());
+      if (rpcTx.get("weight") != null) tx.setWeight(((Number) rpcTx.get("weight")).longValue());
+      if (rpcTx.get("fee") != null) tx.setFee(new BigInteger(rpcTx.get("fee").toString()));
+      tx.setIsConfirmed(false);
+      tx.setInTxPool(true);
+      tx.setIsMinerTx(false);
+      txs.add(tx);
+    }
+    return txs;
+  }
+  
+  /**
+   * Reads an output from a binary get_outs.bin entry.
+   * 
+   * @param reader is positioned at the start of the output entry's section
+   * @return the output with its tx hash and height
+   */
+  private static MoneroOutput readBinaryOutput(MoneroPortableStorageReader reader) {
+    MoneroOutput output = new MoneroOutput();
+    MoneroTx tx = new MoneroTx();
+    long numEntries = reader.readVarint();
+    for (long i = 0; i < numEntries; i++) {
+      String name = reader.readName();
+      int type = reader.readType();
+      if (name.equals("key")) output.setStealthPublicKey(binaryToHash(reader.readBlob()));
+      else if (name.equals("mask")) output.setMask(binaryToHash(reader.readBlob()));
+      else if (name.equals("unlocked")) output.setIsUnlocked((Boolean) reader.readValue(type));
+      else if (name.equals("height")) tx.setBlock(new MoneroBlock().setHeight(((Number) reader.readValue(type)).longValue()));
+      else if (name.equals("txid")) tx.setHash(binaryToHash(reader.readBlob()));
+      else reader.skipValue(type);
+    }
+    if (tx.getBlock() != null) tx.getBlock().setTxs(tx);
+    tx.setOutputs(new ArrayList<MoneroOutput>(Arrays.asList(output)));
+    output.setTx(tx);
+    return output;
+  }
+  
+  /**
+   * Concatenates hex block hashes into the binary list of hashes expected by binary requests.
+   */
+  private static byte[] hashesToBinary(List<String> hashes) {
+    if (hashes == null) return null;
+    byte[] bytes = new byte[hashes.size() * 32];
+    for (int hashIdx = 0; hashIdx < hashes.size(); hashIdx++) {
+      String hash = hashes.get(hashIdx);
+      if (hash == null || hash.length() != 64) throw new MoneroError("Invalid block hash: " + hash);
+      System.arraycopy(MoneroUtils.hexToBytes(hash), 0, bytes, hashIdx * 32, 32);
+    }
+    return bytes;
+  }
+  
+  /**
+   * Splits a binary list of hashes into hex hashes.
+   */
+  private static List<String> binaryToHashes(byte[] bytes) {
+    if (bytes.length % 32 != 0) throw new MoneroError("Binary hash list has invalid length: " + bytes.length);
+    List<String> hashes = new ArrayList<String>(bytes.length / 32);
+    for (int offset = 0; offset < bytes.length; offset += 32) hashes.add(MoneroUtils.bytesToHex(bytes, offset, 32));
+    return hashes;
+  }
+  
+  /**
+   * Converts a binary key, mask, or hash to hex.
+   */
+  private static String binaryToHash(byte[] bytes) {
+    if (bytes.length != 32) throw new MoneroError("Binary hash has invalid length: " + bytes.length);
+    return MoneroUtils.bytesToHex(bytes);
+  }
+  
+  /**
+   * Reads a block and its transactions from a binary block entry.
+   * 
+   * @param reader is positioned at the start of the block entry's section
+   * @return the block with its transactions
+   */
+  private static MoneroBlock readBinaryBlock(MoneroPortableStorageReader reader) {
+    MoneroBlock block = null;
+    List<MoneroTx> txs = new ArrayList<MoneroTx>();
+    long numEntries = reader.readVarint();
+    for (long i = 0; i < numEntries; i++) {
+      String name = reader.readName();
+      int type = reader.readType();
+      if (name.equals("block")) block = MoneroBlobReader.readBlock(reader.readBlob());
+      else if (name.equals("txs") && type == (MoneroPortableStorage.TYPE_STRING | MoneroPortableStorage.FLAG_ARRAY)) {
+        long numTxs = reader.readVarint();
+        for (long j = 0; j < numTxs; j++) txs.add(MoneroBlobReader.readTx(reader.readBlob()));
+      }
+      else if (name.equals("txs") && type == (MoneroPortableStorage.TYPE_OBJECT | MoneroPortableStorage.FLAG_ARRAY)) {  // tx blob entries
+        long numTxs = reader.readVarint();
+        for (long j = 0; j < numTxs; j++) {
+          long numTxEntries = reader.readVarint();
+          for (long k = 0; k < numTxEntries; k++) {
+            String txName = reader.readName();
+            int txType = reader.readType();
+            if (txName.equals("blob")) txs.add(MoneroBlobReader.readTx(reader.readBlob()));
+            else reader.skipValue(txType);
+          }
+        }
+      }
+      else reader.skipValue(type);
+    }
+    if (block == null) throw new MoneroError("Binary block entry is missing its block");
+    GenUtils.assertEquals(block.getTxHashes().size(), txs.size());
+    
+    // initialize miner tx
+    block.getMinerTx().setIsConfirmed(true);
+    initializeRpcTx(block.getMinerTx());
+    
+    // initialize txs
+    for (int txIdx = 0; txIdx < txs.size(); txIdx++) {
+      MoneroTx tx = txs.get(txIdx);
+      tx.setHash(block.getTxHashes().get(txIdx));
+      tx.setIsConfirmed(true);
+      tx.setInTxPool(false);
+      tx.setIsMinerTx(false);
+      tx.setRelay(true);
+      tx.setIsRelayed(true);
+      tx.setIsFailed(false);
+      tx.setIsDoubleSpendSeen(false);
+      initializeRpcTx(tx);
+      tx.setBlock(block);
+    }
+    block.setTxs(txs);
+    return block;
+  }
+  
+  /**
+   * Reads a block header from a streamed RPC response.
+   * 
+   * @param parser is positioned at the start of the RPC header object
+   * @return the block header read from the parser
+   */
+  private static MoneroBlockHeader readRpcBlockHeader(JsonParser parser) throws IOException {
+    MoneroBlockHeader header = new MoneroBlockHeader();
+    while (parser.nextToken() != JsonToken.END_OBJECT) {
+      String key = parser.getCurrentName();
+      parser.nextToken();
+      if (key.equals("tx_hashes") || key.equals("miner_tx")) parser.skipChildren();  // used in block model, not header model
+      else convertRpcBlockHeaderField(key, readRpcValue(parser), header);
     }
     return header;
   }
@@ -1075,31 +2006,10 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
 //    System.out.println(tx.toString());
     
     // initialize from rpc map
-    MoneroBlock block = null;
+    String txJson = null;
     for (String key : rpcTx.keySet()) {
       Object val = rpcTx.get(key);
-      if (key.equals("tx_hash") || key.equals("id_hash")) tx.setHash(GenUtils.reconcile(tx.getHash(), (String) val));
-      else if (key.equals("block_timestamp")) {
-        if (block == null) block = new MoneroBlock();
-        block.setTimestamp(GenUtils.reconcile(block.getTimestamp(), ((BigInteger) val).longValue()));
-      }
-      else if (key.equals("block_height")) {
-        if (block == null) block = new MoneroBlock();
-        block.setHeight(GenUtils.reconcile(block.getHeight(), ((BigInteger) val).longValue()));
-      }
-      else if (key.equals("last_relayed_time")) tx.setLastRelayedTimestamp(GenUtils.reconcile(tx.getLastRelayedTimestamp(), ((BigInteger) val).longValue()));
-      else if (key.equals("receive_time") || key.equals("received_timestamp")) tx.setReceivedTimestamp(GenUtils.reconcile(tx.getReceivedTimestamp(), ((BigInteger) val).longValue()));
-      else if (key.equals("in_pool")) {
-        tx.setIsConfirmed(GenUtils.reconcile(tx.isConfirmed(), !(Boolean) val));
-        tx.setInTxPool(GenUtils.reconcile(tx.inTxPool(), (Boolean) val));
-      }
-      else if (key.equals("double_spend_seen")) tx.setIsDoubleSpendSeen(GenUtils.reconcile(tx.isDoubleSpendSeen(), (Boolean) val));
-      else if (key.equals("version")) tx.setVersion(GenUtils.reconcile(tx.getVersion(), ((BigInteger) val).intValue()));
-      else if (key.equals("extra")) {
-        List<Integer> ints = new ArrayList<Integer>();
-        for (BigInteger bi : (List<BigInteger>) val) ints.add(bi.intValue());
-        tx.setExtra(GenUtils.reconcile(tx.getExtra(), GenUtils.listToIntArray(ints)));
-      }
+      if (key.equals("as_json") || key.equals("tx_json")) { if (!"".equals(val)) txJson = (String) val; }  // handled last so tx is as initialized as possible
       else if (key.equals("vin")) {
         List<Map<String, Object>> rpcInputs = (List<Map<String, Object>>) val;
         if (rpcInputs.size() != 1 || !rpcInputs.get(0).containsKey("gen")) {  // ignore miner input TODO: why? probably needs re-enabled
@@ -1114,49 +2024,142 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
         for (Map<String, Object> rpcOutput : rpcOutputs) outputs.add(convertRpcOutput(rpcOutput, tx));
         tx.setOutputs(outputs);
       }
-      else if (key.equals("rct_signatures")) tx.setRctSignatures(GenUtils.reconcile(tx.getRctSignatures(), (Map<String, Object>) val));
-      else if (key.equals("rctsig_prunable")) tx.setRctSigPrunable(GenUtils.reconcile(tx.getRctSigPrunable(), val));
-      else if (key.equals("unlock_time")) tx.setUnlockHeight(GenUtils.reconcile(tx.getUnlockHeight(), ((BigInteger) val).longValue()));
-      else if (key.equals("as_json") || key.equals("tx_json")) { }  // handled last so tx is as initialized as possible
-      else if (key.equals("as_hex") || key.equals("tx_blob")) tx.setFullHex(GenUtils.reconcile(tx.getFullHex(), "".equals((String) val) ? null : (String) val));
-      else if (key.equals("blob_size")) tx.setSize(GenUtils.reconcile(tx.getSize(), ((BigInteger) val).longValue()));
-      else if (key.equals("weight")) tx.setWeight(GenUtils.reconcile(tx.getWeight(), ((BigInteger) val).longValue()));
-      else if (key.equals("fee")) tx.setFee(GenUtils.reconcile(tx.getFee(), (BigInteger) val));
-      else if (key.equals("relayed")) tx.setIsRelayed(GenUtils.reconcile(tx.isRelayed(), (Boolean) val));
-      else if (key.equals("output_indices")) {
-        List<Integer> indices = new ArrayList<Integer>();
-        for (BigInteger bi : (List<BigInteger>) val) indices.add(bi.intValue());
-        tx.setOutputIndices(GenUtils.reconcile(tx.getOutputIndices(), indices));
+      else convertRpcTxField(key, val, tx);
+    }
+    
+    // decode tx blob unless decoded json is given
+    if (txJson == null && tx.getOutputs() == null) readRpcTxBlob(tx);
+    
+    // initialize remaining fields and merge decoded json
+    initializeRpcTx(tx);
+    if (txJson != null) convertRpcTx(JsonUtils.deserialize(MoneroRpcConnection.MAPPER, txJson, new TypeReference<Map<String, Object>>(){}), tx);
+    if (!Boolean.TRUE.equals(tx.isRelayed())) tx.setLastRelayedTimestamp(null);  // TODO monero-daemon-rpc: returns last_relayed_timestamp despite relayed: false, self inconsistent
+    
+    // return built transaction
+    return tx;
+  }
+  
+  /**
+   * Reads RPC tx fields from a streamed RPC response into a given MoneroTx
+   * without overwriting previous values.
+   * 
+   * @param parser is positioned at the start of the RPC tx object
+   * @param tx is the MoneroTx to populate with values
+   * @return tx is the same tx that was passed in
+   */
+  private static MoneroTx readRpcTx(JsonParser parser, MoneroTx tx) throws IOException {
+    
+    // initialize from stream
+    String txJson = null;
+    while (parser.nextToken() != JsonToken.END_OBJECT) {
+      String key = parser.getCurrentName();
+      parser.nextToken();
+      if (key.equals("as_json") || key.equals("tx_json")) { if (!"".equals(parser.getText())) txJson = parser.getText(); }  // handled last so tx is as initialized as possible
+      else if (key.equals("vin")) readRpcInputs(parser, tx);
+      else if (key.equals("vout")) readRpcOutputs(parser, tx);
+      else convertRpcTxField(key, readRpcValue(parser), tx);
+    }
+    
+    // decode tx blob unless decoded json is given
+    if (txJson == null && tx.getOutputs() == null) readRpcTxBlob(tx);
+    
+    // initialize remaining fields and merge decoded json
+    initializeRpcTx(tx);
+    if (txJson != null) {
+      try (JsonParser txParser = MoneroRpcConnection.MAPPER.getFactory().createParser(txJson)) {
+        txParser.nextToken();
+        readRpcTx(txParser, tx);
       }
-      else if (key.equals("do_not_relay")) tx.setRelay(GenUtils.reconcile(tx.getRelay(), !(Boolean) val));
-      else if (key.equals("kept_by_block")) tx.setIsKeptByBlock(GenUtils.reconcile(tx.isKeptByBlock(), (Boolean) val));
-      else if (key.equals("signatures")) tx.setSignatures(GenUtils.reconcile(tx.getSignatures(), (List<String>) val));
-      else if (key.equals("last_failed_height")) {
-        long lastFailedHeight = ((BigInteger) val).longValue();
-        if (lastFailedHeight == 0) tx.setIsFailed(GenUtils.reconcile(tx.isFailed(), false));
-        else {
-          tx.setIsFailed(GenUtils.reconcile(tx.isFailed(), true));
-          tx.setLastFailedHeight(GenUtils.reconcile(tx.getLastFailedHeight(), lastFailedHeight));
-        }
+    }
+    if (!Boolean.TRUE.equals(tx.isRelayed())) tx.setLastRelayedTimestamp(null);  // TODO monero-daemon-rpc: returns last_relayed_timestamp despite relayed: false, self inconsistent
+    return tx;
+  }
+  
+  /**
+   * Initializes a tx's decoded fields from its full or pruned hex.
+   * 
+   * @param tx is the tx to initialize
+   */
+  private static void readRpcTxBlob(MoneroTx tx) {
+    String txHex = tx.getFullHex() != null ? tx.getFullHex() : tx.getPrunedHex();
+    if (txHex == null) return;
+    new MoneroBlobReader(txHex).readTx(tx);
+  }
+  
+  @SuppressWarnings("unchecked")
+  private static void convertRpcTxField(String key, Object val, MoneroTx tx) {
+    if (key.equals("tx_hash") || key.equals("id_hash")) tx.setHash(GenUtils.reconcile(tx.getHash(), (String) val));
+    else if (key.equals("block_timestamp")) {
+      MoneroBlock block = getOrCreateRpcTxBlock(tx);
+      block.setTimestamp(GenUtils.reconcile(block.getTimestamp(), ((BigInteger) val).longValue()));
+    }
+    else if (key.equals("block_height")) {
+      MoneroBlock block = getOrCreateRpcTxBlock(tx);
+      block.setHeight(GenUtils.reconcile(block.getHeight(), ((BigInteger) val).longValue()));
+    }
+    else if (key.equals("last_relayed_time")) tx.setLastRelayedTimestamp(GenUtils.reconcile(tx.getLastRelayedTimestamp(), ((BigInteger) val).longValue()));
+    else if (key.equals("receive_time") || key.equals("received_timestamp")) tx.setReceivedTimestamp(GenUtils.reconcile(tx.getReceivedTimestamp(), ((BigInteger) val).longValue()));
+    else if (key.equals("in_pool")) {
+      tx.setIsConfirmed(GenUtils.reconcile(tx.isConfirmed(), !(Boolean) val));
+      tx.setInTxPool(GenUtils.reconcile(tx.inTxPool(), (Boolean) val));
+    }
+    else if (key.equals("double_spend_seen")) tx.setIsDoubleSpendSeen(GenUtils.reconcile(tx.isDoubleSpendSeen(), (Boolean) val));
+    else if (key.equals("version")) tx.setVersion(GenUtils.reconcile(tx.getVersion(), ((BigInteger) val).intValue()));
+    else if (key.equals("extra")) {
+      List<Integer> ints = new ArrayList<Integer>();
+      for (BigInteger bi : (List<BigInteger>) val) ints.add(bi.intValue());
+      tx.setExtra(GenUtils.reconcile(tx.getExtra(), GenUtils.listToIntArray(ints)));
+    }
+    else if (key.equals("rct_signatures")) tx.setRctSignatures(GenUtils.reconcile(tx.getRctSignatures(), (Map<String, Object>) val));
+    else if (key.equals("rctsig_prunable")) tx.setRctSigPrunable(GenUtils.reconcile(tx.getRctSigPrunable(), val));
+    else if (key.equals("unlock_time")) tx.setUnlockHeight(GenUtils.reconcile(tx.getUnlockHeight(), ((BigInteger) val).longValue()));
+    else if (key.equals("as_hex") || key.equals("tx_blob")) tx.setFullHex(GenUtils.reconcile(tx.getFullHex(), "".equals((String) val) ? null : (String) val));
+    else if (key.equals("blob_size")) tx.setSize(GenUtils.reconcile(tx.getSize(), ((BigInteger) val).longValue()));
+    else if (key.equals("weight")) tx.setWeight(GenUtils.reconcile(tx.getWeight(), ((BigInteger) val).longValue()));
+    else if (key.equals("fee")) tx.setFee(GenUtils.reconcile(tx.getFee(), (BigInteger) val));
+    else if (key.equals("relayed")) tx.setIsRelayed(GenUtils.reconcile(tx.isRelayed(), (Boolean) val));
+    else if (key.equals("output_indices")) {
+      List<Integer> indices = new ArrayList<Integer>();
+      for (BigInteger bi : (List<BigInteger>) val) indices.add(bi.intValue());
+      tx.setOutputIndices(GenUtils.reconcile(tx.getOutputIndices(), indices));
+    }
+    else if (key.equals("do_not_relay")) tx.setRelay(GenUtils.reconcile(tx.getRelay(), !(Boolean) val));
+    else if (key.equals("kept_by_block")) tx.setIsKeptByBlock(GenUtils.reconcile(tx.isKeptByBlock(), (Boolean) val));
+    else if (key.equals("signatures")) tx.setSignatures(GenUtils.reconcile(tx.getSignatures(), (List<String>) val));
+    else if (key.equals("last_failed_height")) {
+      long lastFailedHeight = ((BigInteger) val).longValue();
+      if (lastFailedHeight == 0) tx.setIsFailed(GenUtils.reconcile(tx.isFailed(), false));
+      else {
+        tx.setIsFailed(GenUtils.reconcile(tx.isFailed(), true));
+        tx.setLastFailedHeight(GenUtils.reconcile(tx.getLastFailedHeight(), lastFailedHeight));
       }
-      else if (key.equals("last_failed_id_hash")) {
-        if (DEFAULT_ID.equals((String) val)) tx.setIsFailed(GenUtils.reconcile(tx.isFailed(), false));
-        else {
-          tx.setIsFailed(GenUtils.reconcile(tx.isFailed(), true));
-          tx.setLastFailedHash(GenUtils.reconcile(tx.getLastFailedHash(), (String) val));
-        }
+    }
+    else if (key.equals("last_failed_id_hash")) {
+      if (DEFAULT_ID.equals((String) val)) tx.setIsFailed(GenUtils.reconcile(tx.isFailed(), false));
+      else {
+        tx.setIsFailed(GenUtils.reconcile(tx.isFailed(), true));
+        tx.setLastFailedHash(GenUtils.reconcile(tx.getLastFailedHash(), (String) val));
       }
-      else if (key.equals("max_used_block_height")) tx.setMaxUsedBlockHeight(GenUtils.reconcile(tx.getMaxUsedBlockHeight(), ((BigInteger) val).longValue()));
-      else if (key.equals("max_used_block_id_hash")) tx.setMaxUsedBlockHash(GenUtils.reconcile(tx.getMaxUsedBlockHash(), (String) val));
-      else if (key.equals("prunable_hash")) tx.setPrunableHash(GenUtils.reconcile(tx.getPrunableHash(), "".equals((String) val) ? null : (String) val));
-      else if (key.equals("prunable_as_hex")) tx.setPrunableHex(GenUtils.reconcile(tx.getPrunableHex(), "".equals((String) val) ? null : (String) val));
-      else if (key.equals("pruned_as_hex")) tx.setPrunedHex(GenUtils.reconcile(tx.getPrunedHex(), "".equals((String) val) ? null : (String) val));
-      else LOGGER.warning("WARNING: ignoring unexpected field in rpc tx: " + key + ": " + val);
     }
-    
-    // link block and tx
-    if (block != null) tx.setBlock(block.setTxs(Arrays.asList(tx)));
-    
+    else if (key.equals("max_used_block_height")) tx.setMaxUsedBlockHeight(GenUtils.reconcile(tx.getMaxUsedBlockHeight(), ((BigInteger) val).longValue()));
+    else if (key.equals("max_used_block_id_hash")) tx.setMaxUsedBlockHash(GenUtils.reconcile(tx.getMaxUsedBlockHash(), (String) val));
+    else if (key.equals("prunable_hash")) tx.setPrunableHash(GenUtils.reconcile(tx.getPrunableHash(), "".equals((String) val) ? null : (String) val));
+    else if (key.equals("prunable_as_hex")) tx.setPrunableHex(GenUtils.reconcile(tx.getPrunableHex(), "".equals((String) val) ? null : (String) val));
+    else if (key.equals("pruned_as_hex")) tx.setPrunedHex(GenUtils.reconcile(tx.getPrunedHex(), "".equals((String) val) ? null : (String) val));
+    else LOGGER.warning("WARNING: ignoring unexpected field in rpc tx: " + key + ": " + val);
+  }
+  
+  private static MoneroBlock getOrCreateRpcTxBlock(MoneroTx tx) {
+    if (tx.getBlock() == null) tx.setBlock(new MoneroBlock().setTxs(Arrays.asList(tx)));
+    return tx.getBlock();
+  }
+  
+  /**
+   * Initializes known fields of a tx after its RPC fields are transferred.
+   * 
+   * @param tx is the tx to initialize
+   */
+  private static void initializeRpcTx(MoneroTx tx) {
     // TODO monero-daemon-rpc: unconfirmed txs misreport block height and timestamp
     if (tx.getBlock() != null && tx.getBlock().getHeight() != null && (long) tx.getBlock().getHeight() == tx.getBlock().getTimestamp()) {
       tx.setBlock(null);
@@ -1178,12 +2181,6 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
         tx.getOutputs().get(i).setIndex(tx.getOutputIndices().get(i));  // transfer output indices to outputs
       }
     }
-    if (rpcTx.containsKey("as_json") && !"".equals(rpcTx.get("as_json"))) convertRpcTx(JsonUtils.deserialize(MoneroRpcConnection.MAPPER, (String) rpcTx.get("as_json"), new TypeReference<Map<String, Object>>(){}), tx);
-    if (rpcTx.containsKey("tx_json") && !"".equals(rpcTx.get("tx_json"))) convertRpcTx(JsonUtils.deserialize(MoneroRpcConnection.MAPPER, (String) rpcTx.get("tx_json"), new TypeReference<Map<String, Object>>(){}), tx);
-    if (!Boolean.TRUE.equals(tx.isRelayed())) tx.setLastRelayedTimestamp(null);  // TODO monero-daemon-rpc: returns last_relayed_timestamp despite relayed: false, self inconsistent
-    
-    // return built transaction
-    return tx;
   }
   
   @SuppressWarnings("unchecked")
@@ -1208,6 +2205,118 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     return output;
   }
   
+  private static void readRpcInputs(JsonParser parser, MoneroTx tx) throws IOException {
+    List<MoneroOutput> inputs = new ArrayList<MoneroOutput>();
+    boolean hasMinerInput = false;
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      MoneroOutput input = readRpcOutput(parser, tx);
+      if (input == null) hasMinerInput = true;
+      else inputs.add(input);
+    }
+    if (hasMinerInput) {  // ignore miner input TODO: why? probably needs re-enabled
+      if (!inputs.isEmpty()) throw new Error("Output with 'gen' from daemon rpc is miner tx which we ignore (i.e. each miner input is null)");
+      return;
+    }
+    tx.setInputs(inputs);
+  }
+  
+  private static void readRpcOutputs(JsonParser parser, MoneroTx tx) throws IOException {
+    List<MoneroOutput> outputs = new ArrayList<MoneroOutput>();
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      MoneroOutput output = readRpcOutput(parser, tx);
+      if (output == null) throw new Error("Output with 'gen' from daemon rpc is miner tx which we ignore (i.e. each miner input is null)");
+      outputs.add(output);
+    }
+    tx.setOutputs(outputs);
+  }
+  
+  /**
+   * Reads an input or output from a streamed RPC response.
+   * 
+   * @param parser is positioned at the start of the RPC output object
+   * @param tx is the tx of the output
+   * @return the output read from the parser or null if it is a miner input
+   */
+  private static MoneroOutput readRpcOutput(JsonParser parser, MoneroTx tx) throws IOException {
+    MoneroOutput output = new MoneroOutput();
+    output.setTx(tx);
+    boolean isMinerInput = false;
+    while (parser.nextToken() != JsonToken.END_OBJECT) {
+      String key = parser.getCurrentName();
+      parser.nextToken();
+      if (key.equals("gen")) {
+        isMinerInput = true;
+        parser.skipChildren();
+      }
+      else if (key.equals("key")) {
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+          String keyField = parser.getCurrentName();
+          parser.nextToken();
+          if (keyField.equals("amount")) output.setAmount(GenUtils.reconcile(output.getAmount(), parser.getBigIntegerValue()));
+          else if (keyField.equals("k_image")) output.setKeyImage(GenUtils.reconcile(output.getKeyImage(), new MoneroKeyImage(parser.getText())));
+          else if (keyField.equals("key_offsets")) {
+            List<Integer> ringOutputIndices = new ArrayList<Integer>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) ringOutputIndices.add((int) parser.getLongValue());
+            output.setRingOutputIndices(GenUtils.reconcile(output.getRingOutputIndices(), ringOutputIndices));
+          }
+          else parser.skipChildren();
+        }
+      }
+      else if (key.equals("amount")) output.setAmount(GenUtils.reconcile(output.getAmount(), parser.getBigIntegerValue()));
+      else if (key.equals("target")) {
+        String stealthPublicKey = null;
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+          String targetField = parser.getCurrentName();
+          parser.nextToken();
+          if (targetField.equals("key")) stealthPublicKey = parser.getText();
+          else parser.skipChildren();
+        }
+        output.setStealthPublicKey(GenUtils.reconcile(output.getStealthPublicKey(), stealthPublicKey));
+      }
+      else {
+        LOGGER.warning("WARNING: ignoring unexpected field output: " + key + ": " + readRpcValue(parser));
+      }
+    }
+    return isMinerInput ? null : output;
+  }
+  
+  /**
+   * Reads txs from a streamed RPC response and checks the response's status.
+   * 
+   * @param parser is positioned at the start of the RPC response object
+   * @param txsKey is the key of the txs in the response
+   * @param isPool specifies if the txs are in the pool
+   * @return the txs read from the parser
+   */
+  private static List<MoneroTx> readRpcTxs(JsonParser parser, String txsKey, boolean isPool) throws IOException {
+    List<MoneroTx> txs = new ArrayList<MoneroTx>();
+    String status = null;
+    while (parser.nextToken() != JsonToken.END_OBJECT) {
+      String key = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (key.equals(txsKey) && token == JsonToken.START_ARRAY) {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          MoneroTx tx = new MoneroTx();
+          tx.setIsMinerTx(false);
+          if (isPool) {
+            tx.setIsConfirmed(false);
+            tx.setInTxPool(true);
+            tx.setNumConfirmations(0l);
+          }
+          txs.add(readRpcTx(parser, tx));
+        }
+      }
+      else if (key.equals("status")) status = parser.getText();
+      else parser.skipChildren();
+    }
+    checkResponseStatus(status);
+    return txs;
+  }
+  
+  private static Object readRpcValue(JsonParser parser) throws IOException {
+    return MoneroRpcConnection.MAPPER.readValue(parser, Object.class);
+  }
+  
   private static MoneroDaemonUpdateCheckResult convertRpcUpdateCheckResult(Map<String, Object> rpcResult) {
     MoneroDaemonUpdateCheckResult result = new MoneroDaemonUpdateCheckResult();
     for (String key : rpcResult.keySet()) {
@@ -1517,15 +2626,300 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
     return new BigInteger(hex.substring(2), 16);
   }
   
+  /**
+   * Downloads consecutive chunks of blocks with up to maxChunkRequests requests
+   * in flight and returns the chunks in height order.
+   * 
+   * Chunk boundaries are determined ahead from cached block headers as chunks
+   * are consumed, so no more than maxChunkRequests chunks are buffered.
+   */
+  private class BlockChunkDownloader implements Iterator<List<MoneroBlock>> {
+    
+    private long nextHeight;
+    private long endHeight;
+    private Long maxChunkSize;
+    private int maxRequests;
+    private Deque<CompletableFuture<List<MoneroBlock>>> chunks = new ArrayDeque<CompletableFuture<List<MoneroBlock>>>();
+    
+    BlockChunkDownloader(long startHeight, long endHeight, Long maxChunkSize) {
+      this.nextHeight = startHeight;
+      this.endHeight = endHeight;
+      this.maxChunkSize = maxChunkSize;
+      this.maxRequests = maxChunkRequests;
+    }
+    
+    @Override
+    public boolean hasNext() {
+      return !chunks.isEmpty() || nextHeight <= endHeight;
+    }
+    
+    @Override
+    public List<MoneroBlock> next() {
+      requestChunks();
+      if (chunks.isEmpty()) throw new NoSuchElementException();
+      CompletableFuture<List<MoneroBlock>> chunk = chunks.poll();
+      List<MoneroBlock> blocks;
+      try {
+        blocks = chunk.join();
+      } catch (CompletionException e) {
+        close();
+        if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+        throw new MoneroError(e.getCause());
+      }
+      requestChunks();  // replace consumed chunk
+      return blocks;
+    }
+    
+    /**
+     * Cancels chunk requests which have not been consumed.
+     */
+    void close() {
+      for (CompletableFuture<List<MoneroBlock>> chunk : chunks) chunk.cancel(false);
+      chunks.clear();
+      nextHeight = endHeight + 1;
+    }
+    
+    private void requestChunks() {
+      while (chunks.size() < maxRequests && nextHeight <= endHeight) {
+        long chunkStartHeight = nextHeight;
+        long chunkEndHeight = getChunkEndHeight(chunkStartHeight, endHeight, maxChunkSize);
+        chunks.add(CompletableFuture.supplyAsync(() -> getBlocksByRange(chunkStartHeight, chunkEndHeight), chunkExecutor));
+        nextHeight = chunkEndHeight + 1;
+      }
+    }
+  }
+  
+  /**
+   * Tx pool fetched at a point in time, shared while it is being fetched and
+   * for a short time after.
+   */
+  private static class TxPoolSnapshot {
+    
+    private final long startNanos;
+    private final CompletableFuture<Map<String, MoneroTx>> txs = new CompletableFuture<Map<String, MoneroTx>>();
+    
+    private TxPoolSnapshot(long startNanos) {
+      this.startNanos = startNanos;
+    }
+  }
+  
+  /**
+   * Iterates blocks downloaded in chunks, releasing each block once iterated.
+   */
+  private static class BlockIterator implements Iterator<MoneroBlock>, AutoCloseable {
+    
+    private BlockChunkDownloader downloader;
+    private Deque<MoneroBlock> blocks = new ArrayDeque<MoneroBlock>();
+    
+    BlockIterator(BlockChunkDownloader downloader) {
+      this.downloader = downloader;
+    }
+    
+    @Override
+    public boolean hasNext() {
+      return !blocks.isEmpty() || downloader.hasNext();
+    }
+    
+    @Override
+    public MoneroBlock next() {
+      if (blocks.isEmpty()) blocks.addAll(downloader.next());
+      return blocks.poll();
+    }
+    
+    /**
+     * Cancels requests for blocks which have not been iterated.
+     */
+    @Override
+    public void close() {
+      downloader.close();
+      blocks.clear();
+    }
+  }
+  
+  /**
+   * Bounded cache of block headers by height which evicts headers above a
+   * fork point when an observed header does not link to the cached chain.
+   */
+  private static class HeaderCache {
+    
+    private int maxSize;
+    private LinkedHashMap<Long, MoneroBlockHeader> headers;
+    
+    private HeaderCache(int maxSize) {
+      this.maxSize = maxSize;
+      this.headers = new LinkedHashMap<Long, MoneroBlockHeader>(16, 0.75f, true);  // access order for lru eviction
+    }
+    
+    private synchronized MoneroBlockHeader get(long height) {
+      return headers.get(height);
+    }
+    
+    /**
+     * Caches a header on the daemon's main chain.
+     * 
+     * Cached headers at and above the header's height are evicted if the
+     * cached header at its height has a different hash.  If the cached header
+     * below it is not its previous block, the fork point is unknown, so cached
+     * headers within CACHE_REORG_DEPTH blocks below it are evicted too.  A
+     * header at the tip (i.e. depth 0) evicts all cached headers above it.
+     */
+    private synchronized void observe(MoneroBlockHeader header) {
+      if (header == null || header.getHeight() == null || header.getHash() == null || Boolean.TRUE.equals(header.getOrphanStatus())) return;
+      long height = header.getHeight();
+      MoneroBlockHeader cached = headers.get(height);
+      MoneroBlockHeader cachedPrev = headers.get(height - 1);
+      if (cachedPrev != null && header.getPrevHash() != null && !cachedPrev.getHash().equals(header.getPrevHash())) evictFrom(height - 1 - CACHE_REORG_DEPTH);
+      else if (cached != null && !cached.getHash().equals(header.getHash())) evictFrom(height);
+      if (header.getDepth() != null && header.getDepth() == 0) evictFrom(height + 1);
+      headers.put(height, header);
+      Iterator<MoneroBlockHeader> iter = headers.values().iterator();
+      while (headers.size() > maxSize && iter.hasNext()) {
+        iter.next();
+        iter.remove();
+      }
+    }
+    
+    private void evictFrom(long height) {
+      headers.keySet().removeIf(cachedHeight -> cachedHeight >= height);
+    }
+  }
+  
+  /**
+   * Caches lookups whose results do not change unless their block is
+   * reorganized out of the chain.
+   * 
+   * Entries are evicted least recently used first to stay within a byte
+   * budget.  Only entries at least CACHE_REORG_DEPTH blocks below the highest
+   * tip fetched from the daemon are cached.
+   */
+  private static class ResponseCache {
+    
+    private static final long HEADER_SIZE = 512;  // approximate size of a block header in bytes
+    
+    private long maxBytes;
+    private long numBytes;
+    private long tipHeight;  // highest chain tip fetched from the daemon
+    private LinkedHashMap<String, CacheEntry> entries;
+    
+    private ResponseCache(long maxBytes) {
+      this.maxBytes = maxBytes;
+      this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true);  // access order for lru eviction
+    }
+    
+    private synchronized CacheEntry get(String key) {
+      return entries.get(key);
+    }
+    
+    /**
+     * Caches a result if its block is too deep below the fetched tip to be
+     * reorganized.
+     */
+    private synchronized void put(String key, Object value, long height, long size) {
+      if (size > maxBytes || !isFinal(height)) return;
+      CacheEntry replaced = entries.put(key, new CacheEntry(value, size, tipHeight));
+      if (replaced != null) numBytes -= replaced.size;
+      numBytes += size;
+      Iterator<CacheEntry> iter = entries.values().iterator();
+      while (numBytes > maxBytes && iter.hasNext()) {
+        numBytes -= iter.next().size;
+        iter.remove();
+      }
+    }
+    
+    /**
+     * Updates the depth of a cached header by the number of blocks added
+     * since it was cached.
+     */
+    private synchronized <T extends MoneroBlockHeader> T adjustDepth(T header, CacheEntry entry) {
+      if (header.getDepth() != null) header.setDepth(header.getDepth() + Math.max(0, tipHeight - entry.tipHeight));
+      return header;
+    }
+    
+    private synchronized void observeTipHeight(long height) {
+      if (height > tipHeight) tipHeight = height;
+    }
+    
+    /**
+     * Indicates if a block is at least CACHE_REORG_DEPTH blocks below a
+     * fetched tip, false if no tip has been fetched.
+     */
+    private synchronized boolean isFinal(long height) {
+      return tipHeight > 0 && height <= tipHeight - CACHE_REORG_DEPTH;
+    }
+    
+    private static long estimateSize(MoneroBlock block) {
+      long size = HEADER_SIZE;
+      if (block.getHex() != null) size += block.getHex().length();
+      if (block.getTxHashes() != null) size += 64l * block.getTxHashes().size();
+      if (block.getMinerTx() != null) size += estimateSize(block.getMinerTx());
+      if (block.getTxs() != null) for (MoneroTx tx : block.getTxs()) size += estimateSize(tx);
+      return size;
+    }
+    
+    private static long estimateSize(MoneroTx tx) {
+      long size = 512;
+      if (tx.getFullHex() != null) size += tx.getFullHex().length();
+      if (tx.getPrunedHex() != null) size += tx.getPrunedHex().length();
+      if (tx.getPrunableHex() != null) size += tx.getPrunableHex().length();
+      if (tx.getInputs() != null) size += 256l * tx.getInputs().size();
+      if (tx.getOutputs() != null) size += 256l * tx.getOutputs().size();
+      return size;
+    }
+  }
+  
+  /**
+   * Cached lookup result.
+   */
+  private static class CacheEntry {
+    
+    private Object value;
+    private long size;
+    private long tipHeight;  // chain tip when cached
+    
+    private CacheEntry(Object value, long size, long tipHeight) {
+      this.value = value;
+      this.size = size;
+      this.tipHeight = tipHeight;
+    }
+  }
+  
+  /**
+   * Creates an executor for chunk requests with one thread per pooled
+   * connection to the daemon, since more threads would only wait for a
+   * connection.  Idle threads exit.
+   */
+  private static ExecutorService newChunkExecutor(MoneroRpcConnection rpc) {
+    int numThreads = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    if (rpc != null && rpc.getTransportConfig() != null && rpc.getTransportConfig().getMaxConnectionsPerRoute() != null) numThreads = Math.max(1, rpc.getTransportConfig().getMaxConnectionsPerRoute());
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+      Thread thread = new Thread(runnable, "MoneroDaemonRpc-chunks");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+  
+  private static ScheduledExecutorService newPollExecutor() {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(NUM_POLL_THREADS, runnable -> {
+      Thread thread = new Thread(runnable, "MoneroDaemonRpc-poller");
+      thread.setDaemon(true); // daemon thread does not prevent JVM from halting
+      return thread;
+    });
+    executor.setRemoveOnCancelPolicy(true);  // stopped pollers do not linger in the queue
+    return executor;
+  }
+  
   /**
    * Polls a Monero daemon for updates and notifies listeners as they occur.
    */
   private class MoneroDaemonPoller {
     
     private MoneroDaemon daemon;
-    private MoneroDaemonPollerRunnable runnable;
+    private MoneroDaemonPollTask pollTask;
+    private MoneroTxPoolTrackTask poolTrackTask;
+    private MoneroDaemonZmqRunnable zmqRunnable;
     private List<MoneroDaemonListener> listeners;
-    private static final long POLL_INTERVAL_MS = 10000; // poll every X ms  TODO: poll interval should come from configuration
     
     public MoneroDaemonPoller(MoneroDaemon daemon) {
       this.daemon = daemon;
@@ -1538,13 +2932,8 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
         // register listener
         listeners.add(listener);
         
-        // start polling thread
-        if (runnable == null) {
-          runnable = new MoneroDaemonPollerRunnable(daemon, POLL_INTERVAL_MS);
-          Thread thread = new Thread(runnable);
-          thread.setDaemon(true); // daemon thread does not prevent JVM from halting
-          thread.start();
-        }
+        // start subscribing or polling
+        if (!isListening()) start();
       }
     }
     
@@ -1552,57 +2941,425 @@ public class MoneroDaemonRpc extends MoneroDaemonDefault {
       synchronized(listeners) {
         boolean found = listeners.remove(listener);
         if (!found) throw new MoneroError("Listener is not registered");
-        if (listeners.isEmpty()) {
-          runnable.terminate();
-          runnable = null;
+        if (listeners.isEmpty()) stop();
+      }
+    }
+    
+    /**
+     * Restarts notifications if listening, e.g. after the ZMQ endpoint changes.
+     */
+    public void restart() {
+      synchronized(listeners) {
+        if (!isListening()) return;
+        stop();
+        start();
+      }
+    }
+    
+    /**
+     * Applies a new poll period to the next poll if polling.
+     */
+    public void reschedule() {
+      synchronized(listeners) {
+        if (pollTask != null) pollTask.schedule(pollPeriodMs);
+        if (poolTrackTask != null) poolTrackTask.schedule(pollPeriodMs);
+      }
+    }
+    
+    /**
+     * Starts or stops tracking the tx pool if listening.
+     */
+    public void updateTxPoolTracking() {
+      synchronized(listeners) {
+        if (!isListening()) return;
+        if (isTxPoolTrackingEnabled && poolTrackTask == null) startTxPoolTracking();
+        else if (!isTxPoolTrackingEnabled && poolTrackTask != null) {
+          poolTrackTask.cancel();
+          poolTrackTask = null;
+        }
+      }
+    }
+    
+    private boolean isListening() {
+      return pollTask != null || zmqRunnable != null;
+    }
+    
+    private void start() {
+      String uri = zmqUri;
+      if (uri == null) startPolling();
+      else {
+        zmqRunnable = new MoneroDaemonZmqRunnable(uri);
+        Thread thread = new Thread(zmqRunnable, "MoneroDaemonRpc-zmq");
+        thread.setDaemon(true); // daemon thread does not prevent JVM from halting
+        thread.start();
+      }
+      if (isTxPoolTrackingEnabled) startTxPoolTracking();
+    }
+    
+    private void startPolling() {
+      pollTask = new MoneroDaemonPollTask();
+      pollTask.schedule(0);  // fetch header to detect changes
+    }
+    
+    private void startTxPoolTracking() {
+      poolTrackTask = new MoneroTxPoolTrackTask();
+      poolTrackTask.schedule(0);  // fetch pool hashes to detect changes
+    }
+    
+    private void stop() {
+      if (pollTask != null) pollTask.cancel();
+      if (poolTrackTask != null) poolTrackTask.cancel();
+      if (zmqRunnable != null) zmqRunnable.terminate();
+      pollTask = null;
+      poolTrackTask = null;
+      zmqRunnable = null;
+    }
+    
+    /**
+     * Falls back to polling if the ZMQ subscription fails while listening.
+     */
+    private void fallBackToPolling(MoneroDaemonZmqRunnable failed, RuntimeException e) {
+      synchronized(listeners) {
+        if (zmqRunnable != failed) return;
+        LOGGER.warning("ZMQ subscription to " + failed.uri + " failed, falling back to polling: " + e.getMessage());
+        zmqRunnable = null;
+        startPolling();
+      }
+    }
+    
+    /**
+     * Claims a tx published to the pool so it is notified once if the pool
+     * is also tracked.
+     * 
+     * @return true if the tx should be notified, false if already notified
+     */
+    private boolean claimPoolTx(String txHash) {
+      MoneroTxPoolTrackTask task;
+      synchronized(listeners) {
+        task = poolTrackTask;
+      }
+      return task == null || task.claim(txHash);
+    }
+    
+    /**
+     * Copies the listeners to notify outside the lock, so a listener can add
+     * or remove listeners and a slow listener does not block registration.
+     */
+    private List<MoneroDaemonListener> copyListeners() {
+      synchronized(listeners) {
+        return new ArrayList<MoneroDaemonListener>(listeners);
+      }
+    }
+    
+    private void notifyBlockHeader(MoneroBlockHeader header) {
+      for (MoneroDaemonListener listener : copyListeners()) {
+        try {
+          listener.onBlockHeader(header); // notify listener
+        } catch (RuntimeException e) {
+          LOGGER.warning("Daemon listener failed to process block header: " + e.getMessage());
+        }
+      }
+    }
+    
+    private void notifyPoolTxAdded(MoneroTx tx) {
+      for (MoneroDaemonListener listener : copyListeners()) {
+        try {
+          listener.onPoolTxAdded(tx.copy()); // notify listener
+        } catch (RuntimeException e) {
+          LOGGER.warning("Daemon listener failed to process pool tx: " + e.getMessage());
+        }
+      }
+    }
+    
+    private void notifyPoolTxConfirmed(MoneroTx tx) {
+      for (MoneroDaemonListener listener : copyListeners()) {
+        try {
+          listener.onPoolTxConfirmed(copyTx(tx)); // notify listener
+        } catch (RuntimeException e) {
+          LOGGER.warning("Daemon listener failed to process confirmed tx: " + e.getMessage());
+        }
+      }
+    }
+    
+    private void notifyPoolTxEvicted(String txHash) {
+      for (MoneroDaemonListener listener : copyListeners()) {
+        try {
+          listener.onPoolTxEvicted(txHash); // notify listener
+        } catch (RuntimeException e) {
+          LOGGER.warning("Daemon listener failed to process evicted tx: " + e.getMessage());
         }
       }
     }
     
-    private class MoneroDaemonPollerRunnable implements Runnable {
+    /**
+     * Polls the daemon on the shared poll executor and reschedules itself
+     * after each poll, backing off while the daemon is unreachable.
+     * 
+     * Requests are sent with the asynchronous client, so a daemon which does
+     * not respond holds no poll thread.  A poll fails if the daemon does not
+     * respond within POLL_TIMEOUT_MS.
+     */
+    private abstract class MoneroDaemonScheduledTask implements Runnable {
       
-      private MoneroDaemon daemon;
-      private long interval;
-      private boolean isTerminated;
+      private int numFailures;
+      private boolean isPolling;
+      protected volatile boolean isCancelled;
+      private ScheduledFuture<?> future;
+      
+      /**
+       * Polls the daemon once and notifies listeners of changes.
+       * 
+       * @return a future which completes once the poll is processed
+       */
+      protected abstract CompletableFuture<Void> poll();
       
-      public MoneroDaemonPollerRunnable(MoneroDaemon daemon, long interval) {
-        this.daemon = daemon;
-        this.interval = interval;
-        this.isTerminated = false;
-      }
-
       @Override
       public void run() {
-        
-        // get header to detect changes while polling
-        MoneroBlockHeader lastHeader = daemon.getLastBlockHeader();
-        
-        // poll until stopped
-        while (!isTerminated) {
+        synchronized (this) {
+          if (isCancelled || isPolling) return;
+          isPolling = true;
+        }
+        CompletableFuture<Void> polled;
+        try {
+          polled = poll();
+        } catch (RuntimeException e) {
+          polled = new CompletableFuture<Void>();
+          polled.completeExceptionally(e);
+        }
+        polled.whenComplete((ignored, e) -> onPolled(e));
+      }
+      
+      /**
+       * Schedules the next poll, replacing any poll already scheduled.
+       */
+      public synchronized void schedule(long delayMs) {
+        if (isCancelled || isPolling) return;  // next poll is scheduled once the poll in flight completes
+        if (future != null) future.cancel(false);
+        future = POLL_EXECUTOR.schedule(this, delayMs, TimeUnit.MILLISECONDS);
+      }
+      
+      /**
+       * Cancels polling.  A poll in flight is abandoned.
+       */
+      public synchronized void cancel() {
+        isCancelled = true;
+        if (future != null) future.cancel(false);
+      }
+      
+      /**
+       * Times out a request sent while polling.
+       * 
+       * @param request is the request's future
+       * @return a future which completes with the request's result or fails after POLL_TIMEOUT_MS
+       */
+      protected <T> CompletableFuture<T> withTimeout(CompletableFuture<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        ScheduledFuture<?> timeout = POLL_EXECUTOR.schedule(() -> result.completeExceptionally(new MoneroError("Daemon did not respond to poll within " + POLL_TIMEOUT_MS + " ms")), POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        request.whenComplete((value, e) -> {
+          timeout.cancel(false);
+          if (e == null) result.complete(value);
+          else result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+        });
+        return result;
+      }
+      
+      private synchronized void onPolled(Throwable e) {
+        isPolling = false;
+        if (isCancelled) return;
+        long delayMs = pollPeriodMs;
+        if (e == null) numFailures = 0;
+        else {
+          if (numFailures++ == 0) LOGGER.warning("Failed to poll daemon, backing off: " + (e instanceof CompletionException && e.getCause() != null ? e.getCause() : e).getMessage());
+          if (pollPeriodMs < MAX_POLL_BACKOFF_MS) delayMs = Math.min(MAX_POLL_BACKOFF_MS, pollPeriodMs << Math.min(numFailures, 16));
+        }
+        schedule(delayMs);
+      }
+    }
+    
+    /**
+     * Polls the daemon's last block header.
+     */
+    private class MoneroDaemonPollTask extends MoneroDaemonScheduledTask {
+      
+      private MoneroBlockHeader lastHeader;
+      
+      @Override
+      protected CompletableFuture<Void> poll() {
+        return withTimeout(getLastBlockHeaderAsync()).thenAcceptAsync(header -> {
+          if (isCancelled) return;
+          if (lastHeader != null && !header.getHash().equals(lastHeader.getHash())) notifyBlockHeader(header);
+          lastHeader = header;
+        }, POLL_EXECUTOR);
+      }
+    }
+    
+    /**
+     * Tracks the tx pool by comparing its tx hashes to the last known hashes.
+     */
+    private class MoneroTxPoolTrackTask extends MoneroDaemonScheduledTask {
+      
+      private Set<String> poolHashes;  // hashes of txs known to be in the pool, null until first poll
+      
+      /**
+       * Claims a tx to notify as added to the pool.
+       * 
+       * @return true if the tx was not known to be in the pool
+       */
+      public synchronized boolean claim(String txHash) {
+        return poolHashes == null || poolHashes.add(txHash);
+      }
+      
+      @Override
+      protected CompletableFuture<Void> poll() {
+        return withTimeout(getTxPoolHashesAsync()).thenComposeAsync(hashes -> {
           
-          // pause for interval ms
-          try {
-            TimeUnit.MILLISECONDS.sleep(interval);
-          } catch (InterruptedException e) {
-            e.printStackTrace();
-            terminate();
+          // compare pool hashes to known hashes
+          List<String> addedHashes = new ArrayList<String>();
+          List<String> removedHashes = new ArrayList<String>();
+          synchronized (this) {
+            if (poolHashes == null) {
+              poolHashes = new HashSet<String>(hashes);  // txs in the pool when tracking starts are not notified
+              return CompletableFuture.completedFuture(null);
+            }
+            Set<String> currentHashes = new HashSet<String>(hashes);
+            for (String hash : hashes) if (poolHashes.add(hash)) addedHashes.add(hash);
+            for (String hash : poolHashes) if (!currentHashes.contains(hash)) removedHashes.add(hash);
           }
-          
-          // fetch and compare latest block header
-          MoneroBlockHeader header = daemon.getLastBlockHeader();
-          if (!header.getHash().equals(lastHeader.getHash())) {
-            lastHeader = header;
-            synchronized(listeners) {
-              for (MoneroDaemonListener listener : listeners) {
-                listener.onBlockHeader(header); // notify listener
-              }
+          return notifyAdded(addedHashes).thenComposeAsync(ignored -> notifyRemoved(removedHashes), POLL_EXECUTOR);
+        }, POLL_EXECUTOR);
+      }
+      
+      /**
+       * Fetches and notifies txs added to the pool.
+       */
+      private CompletableFuture<Void> notifyAdded(List<String> addedHashes) {
+        if (addedHashes.isEmpty()) return CompletableFuture.completedFuture(null);
+        return withTimeout(getTxsAsync(addedHashes, false)).handleAsync((txs, e) -> {
+          if (e != null) {
+            synchronized (this) { poolHashes.removeAll(addedHashes); }  // fetch again next poll
+            throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+          }
+          Set<String> missingHashes = new HashSet<String>(addedHashes);
+          for (MoneroTx tx : txs) missingHashes.remove(tx.getHash());
+          synchronized (this) { poolHashes.removeAll(missingHashes); }  // left the pool before they were fetched
+          for (MoneroTx tx : txs) {
+            if (isCancelled) return null;
+            notifyPoolTxAdded(tx);
+          }
+          return null;
+        }, POLL_EXECUTOR);
+      }
+      
+      /**
+       * Looks up txs removed from the pool to notify as confirmed or evicted.
+       */
+      private CompletableFuture<Void> notifyRemoved(List<String> removedHashes) {
+        if (removedHashes.isEmpty()) return CompletableFuture.completedFuture(null);
+        return withTimeout(getTxsAsync(removedHashes, true)).thenAcceptAsync(txs -> {
+          Map<String, MoneroTx> txsByHash = new HashMap<String, MoneroTx>();
+          for (MoneroTx tx : txs) txsByHash.put(tx.getHash(), tx);
+          for (String hash : removedHashes) {
+            MoneroTx tx = txsByHash.get(hash);
+            if (tx != null && Boolean.TRUE.equals(tx.inTxPool())) continue;  // entered the pool after its hashes were fetched
+            synchronized (this) { poolHashes.remove(hash); }
+            if (isCancelled) return;
+            if (tx != null && Boolean.TRUE.equals(tx.isConfirmed())) notifyPoolTxConfirmed(tx);
+            else notifyPoolTxEvicted(hash);
+          }
+        }, POLL_EXECUTOR);
+      }
+    }
+    
+    /**
+     * Notifies listeners of monerod's chain and pool events published over ZMQ.
+     * 
+     * If no message arrives within ZMQ_RECEIVE_TIMEOUT_MS or the publisher
+     * disconnects, the subscription is reconnected and the chain tip is
+     * checked for blocks missed meanwhile.  Falls back to polling if the
+     * publisher cannot be reconnected or drops the subscription right away.
+     */
+    private class MoneroDaemonZmqRunnable implements Runnable {
+      
+      private String uri;
+      private volatile boolean isTerminated;
+      private volatile MoneroZmqSubscriber subscriber;
+      
+      public MoneroDaemonZmqRunnable(String uri) {
+        this.uri = uri;
+        this.isTerminated = false;
+      }
+      
+      @Override
+      public void run() {
+        try {
+          String lastHash = null;
+          while (!isTerminated) {
+            subscribe();
+            if (isTerminated) return;
+            
+            // detect changes like polling, including blocks missed while reconnecting
+            MoneroBlockHeader tip = daemon.getLastBlockHeader();
+            if (lastHash != null && !lastHash.equals(tip.getHash())) notifyBlockHeader(tip);
+            lastHash = tip.getHash();
+            
+            // receive until the subscription fails
+            long subscribeTime = System.currentTimeMillis();
+            try {
+              while (!isTerminated) lastHash = processMessage(subscriber.receiveString(), lastHash);
+            } catch (MoneroError e) {
+              if (isTerminated) return;
+              if (System.currentTimeMillis() - subscribeTime < MoneroZmqSubscriber.DEFAULT_CONNECT_TIMEOUT_MS) throw e;  // publisher drops subscriptions
+              LOGGER.warning("Reconnecting ZMQ subscription to " + uri + ": " + e.getMessage());
             }
           }
+        } catch (RuntimeException e) {
+          if (!isTerminated) fallBackToPolling(this, e);
+        } finally {
+          if (subscriber != null) subscriber.close();
+        }
+      }
+      
+      private void subscribe() {
+        if (subscriber != null) subscriber.close();
+        subscriber = new MoneroZmqSubscriber(uri, MoneroZmqSubscriber.DEFAULT_CONNECT_TIMEOUT_MS, ZMQ_RECEIVE_TIMEOUT_MS);
+        subscriber.connect();
+        subscriber.subscribe(ZMQ_CHAIN_MAIN_TOPIC);
+        subscriber.subscribe(ZMQ_TXPOOL_ADD_TOPIC);
+      }
+      
+      /**
+       * Notifies listeners of a published message.
+       * 
+       * @param message is the published message
+       * @param lastHash is the hash of the last block notified
+       * @return the hash of the last block notified
+       */
+      private String processMessage(String message, String lastHash) {
+        int separatorIdx = message.indexOf(':');
+        if (separatorIdx < 0) return lastHash;
+        String topic = message.substring(0, separatorIdx);
+        String json = message.substring(separatorIdx + 1);
+        try {
+          if (topic.equals(ZMQ_CHAIN_MAIN_TOPIC)) {
+            List<String> blockHashes = readZmqChainMain(json);
+            if (blockHashes.isEmpty()) return lastHash;
+            String blockHash = blockHashes.get(blockHashes.size() - 1);
+            if (blockHash.equals(lastHash)) return lastHash;
+            MoneroBlockHeader header = daemon.getBlockHeaderByHash(blockHash);
+            notifyBlockHeader(header);
+            return blockHash;
+          } else if (topic.equals(ZMQ_TXPOOL_ADD_TOPIC)) {
+            for (MoneroTx tx : readZmqTxPoolAdd(json)) if (claimPoolTx(tx.getHash())) notifyPoolTxAdded(tx);
+          }
+        } catch (RuntimeException e) {
+          LOGGER.warning("Failed to process ZMQ message with topic " + topic + ": " + e.getMessage());  // keep subscribing
         }
+        return lastHash;
       }
       
       public void terminate() {
         isTerminated = true;
+        if (subscriber != null) subscriber.close();  // unblocks receiving
       }
     }
   }
@@ -16,6 +16,35 @@ public class MoneroDaemonListener {
     lastHeader = header;
   }
   
+  /**
+   * Called when a transaction is added to the pool.
+   * 
+   * Only notified if the daemon publishes pool events, e.g. over ZMQ, or if
+   * the pool is tracked.
+   * 
+   * @param tx is the transaction with at least its hash, size, weight, and fee
+   */
+  public void onPoolTxAdded(MoneroTx tx) { }
+  
+  /**
+   * Called when a transaction in the pool is confirmed in a block.
+   * 
+   * Only notified if the pool is tracked.
+   * 
+   * @param tx is the confirmed transaction with its height
+   */
+  public void onPoolTxConfirmed(MoneroTx tx) { }
+  
+  /**
+   * Called when a transaction is removed from the pool without being
+   * confirmed, e.g. because it expired, was flushed, or was double spent.
+   * 
+   * Only notified if the pool is tracked.
+   * 
+   * @param txHash is the hash of the evicted transaction
+   */
+  public void onPoolTxEvicted(String txHash) { }
+  
   /**
    * Get the last notified block header.
    * 
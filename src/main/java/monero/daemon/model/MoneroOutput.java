@@ -19,6 +19,8 @@ public class MoneroOutput {
   private Integer index;
   private List<Integer> ringOutputIndices;
   private String stealthPublicKey;
+  private String mask;
+  private Boolean isUnlocked;
   
   public MoneroOutput() {
     // nothing to build
@@ -30,6 +32,8 @@ public class MoneroOutput {
     this.index = output.index;
     if (output.ringOutputIndices != null) this.ringOutputIndices = new ArrayList<Integer>(output.ringOutputIndices);
     this.stealthPublicKey = output.stealthPublicKey;
+    this.mask = output.mask;
+    this.isUnlocked = output.isUnlocked;
   }
   
   public MoneroOutput copy() {
@@ -91,6 +95,29 @@ public class MoneroOutput {
     return this;
   }
   
+  /**
+   * Get the output's amount commitment (mask).
+   * 
+   * @return the output's amount commitment
+   */
+  public String getMask() {
+    return mask;
+  }
+  
+  public MoneroOutput setMask(String mask) {
+    this.mask = mask;
+    return this;
+  }
+  
+  public Boolean isUnlocked() {
+    return isUnlocked;
+  }
+  
+  public MoneroOutput setIsUnlocked(Boolean isUnlocked) {
+    this.isUnlocked = isUnlocked;
+    return this;
+  }
+  
   public String toString() {
     return toString(0);
   }
@@ -108,6 +135,8 @@ public class MoneroOutput {
       else if (output.getKeyImage() != null) this.getKeyImage().merge(output.getKeyImage());
       this.setAmount(GenUtils.reconcile(this.getAmount(), output.getAmount()));
       this.setIndex(GenUtils.reconcile(this.getIndex(), output.getIndex()));
+      this.setMask(GenUtils.reconcile(this.getMask(), output.getMask()));
+      this.setIsUnlocked(GenUtils.reconcile(this.isUnlocked(), output.isUnlocked(), null, true, null));  // outputs only unlock
     }
 
     return this;
@@ -123,6 +152,8 @@ public class MoneroOutput {
     sb.append(GenUtils.kvLine("Index", getIndex(), indent));
     sb.append(GenUtils.kvLine("Ring output indices", getRingOutputIndices(), indent));
     sb.append(GenUtils.kvLine("Stealth public key", getStealthPublicKey(), indent));
+    sb.append(GenUtils.kvLine("Mask", getMask(), indent));
+    sb.append(GenUtils.kvLine("Is unlocked", isUnlocked(), indent));
     String str = sb.toString();
     return str.isEmpty() ? str : str.substring(0, str.length() - 1);  // strip newline
   }
@@ -133,7 +164,9 @@ public class MoneroOutput {
     int result = 1;
     result = prime * result + ((amount == null) ? 0 : amount.hashCode());
     result = prime * result + ((index == null) ? 0 : index.hashCode());
+    result = prime * result + ((isUnlocked == null) ? 0 : isUnlocked.hashCode());
     result = prime * result + ((keyImage == null) ? 0 : keyImage.hashCode());
+    result = prime * result + ((mask == null) ? 0 : mask.hashCode());
     result = prime * result + ((ringOutputIndices == null) ? 0 : ringOutputIndices.hashCode());
     result = prime * result + ((stealthPublicKey == null) ? 0 : stealthPublicKey.hashCode());
     return result;
@@ -151,9 +184,15 @@ public class MoneroOutput {
     if (index == null) {
       if (other.index != null) return false;
     } else if (!index.equals(other.index)) return false;
+    if (isUnlocked == null) {
+      if (other.isUnlocked != null) return false;
+    } else if (!isUnlocked.equals(other.isUnlocked)) return false;
     if (keyImage == null) {
       if (other.keyImage != null) return false;
     } else if (!keyImage.equals(other.keyImage)) return false;
+    if (mask == null) {
+      if (other.mask != null) return false;
+    } else if (!mask.equals(other.mask)) return false;
     if (ringOutputIndices == null) {
       if (other.ringOutputIndices != null) return false;
     } else if (!ringOutputIndices.equals(other.ringOutputIndices)) return false;
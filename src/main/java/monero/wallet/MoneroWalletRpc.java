@@ -22,6 +22,7 @@ x * Copyright (c) 2017-2020 woodser
 
 package monero.wallet;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.net.URI;
 import java.util.ArrayList;
@@ -35,12 +36,20 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
 import common.utils.GenUtils;
+import monero.common.MoneroConnectionManager;
+import monero.common.MoneroConnectionManagerListener;
 import monero.common.MoneroError;
+import monero.common.MoneroRpcBatch;
 import monero.common.MoneroRpcConnection;
 import monero.common.MoneroRpcError;
+import monero.common.MoneroRpcTransportConfig;
 import monero.common.MoneroUtils;
 import monero.common.SslOptions;
 import monero.daemon.model.MoneroBlock;
@@ -85,6 +94,8 @@ public class MoneroWalletRpc extends MoneroWalletBase {
   private String path;                                      // wallet's path identifier
   private MoneroRpcConnection rpc;                          // handles rpc interactions
   private Map<Integer, Map<Integer, String>> addressCache;  // cache static addresses to reduce requests
+  private MoneroConnectionManager daemonConnectionManager;  // manages daemon connections if set
+  private MoneroConnectionManagerListener daemonConnectionListener; // switches daemon connection on change
   
   // static
   private static final int ERROR_CODE_INVALID_PAYMENT_ID = -5;  // invalid payment id error code
@@ -107,6 +118,10 @@ public class MoneroWalletRpc extends MoneroWalletBase {
     this(new MoneroRpcConnection(uri, username, password));
   }
   
+  public MoneroWalletRpc(String uri, String username, String password, MoneroRpcTransportConfig transportConfig) {
+    this(new MoneroRpcConnection(uri, username, password, transportConfig));
+  }
+  
   public MoneroWalletRpc(MoneroRpcConnection rpc) {
     this.rpc = rpc;
     addressCache = new HashMap<Integer, Map<Integer, String>>();
@@ -348,6 +363,62 @@ public class MoneroWalletRpc extends MoneroWalletBase {
     path = null;
   }
   
+  /**
+   * Get the height of the last block processed by the wallet without blocking
+   * the calling thread.
+   * 
+   * @return a future which completes with the height of the last processed block
+   */
+  @SuppressWarnings("unchecked")
+  public CompletableFuture<Long> getHeightAsync() {
+    return rpc.sendJsonRequestAsync("get_height").thenApply(resp -> {
+      Map<String, Object> result = (Map<String, Object>) resp.get("result");
+      return ((BigInteger) result.get("height")).longValue();
+    });
+  }
+  
+  /**
+   * Get an account's balance without blocking the calling thread.
+   * 
+   * @param accountIdx is the index of the account to get the balance of
+   * @return a future which completes with the account's balance
+   */
+  public CompletableFuture<BigInteger> getBalanceAsync(int accountIdx) {
+    return getBalancesAsync(accountIdx, null).thenApply(balances -> balances[0]);
+  }
+  
+  /**
+   * Get a subaddress's balance without blocking the calling thread.
+   * 
+   * @param accountIdx is the index of the subaddress's account
+   * @param subaddressIdx is the index of the subaddress to get the balance of
+   * @return a future which completes with the subaddress's balance
+   */
+  public CompletableFuture<BigInteger> getBalanceAsync(int accountIdx, int subaddressIdx) {
+    return getBalancesAsync(accountIdx, subaddressIdx).thenApply(balances -> balances[0]);
+  }
+  
+  /**
+   * Get an account's unlocked balance without blocking the calling thread.
+   * 
+   * @param accountIdx is the index of the account to get the unlocked balance of
+   * @return a future which completes with the account's unlocked balance
+   */
+  public CompletableFuture<BigInteger> getUnlockedBalanceAsync(int accountIdx) {
+    return getBalancesAsync(accountIdx, null).thenApply(balances -> balances[1]);
+  }
+  
+  /**
+   * Get a subaddress's unlocked balance without blocking the calling thread.
+   * 
+   * @param accountIdx is the index of the subaddress's account
+   * @param subaddressIdx is the index of the subaddress to get the unlocked balance of
+   * @return a future which completes with the subaddress's unlocked balance
+   */
+  public CompletableFuture<BigInteger> getUnlockedBalanceAsync(int accountIdx, int subaddressIdx) {
+    return getBalancesAsync(accountIdx, subaddressIdx).thenApply(balances -> balances[1]);
+  }
+  
   // -------------------------- COMMON WALLET METHODS -------------------------
   
   public boolean isViewOnly() {
@@ -382,6 +453,31 @@ public class MoneroWalletRpc extends MoneroWalletBase {
     rpc.sendJsonRequest("set_daemon", params);
   }
   
+  /**
+   * Connect the wallet to the best connection of a connection manager and
+   * switch connections whenever the manager's best connection changes.
+   * 
+   * @param connectionManager manages the daemon connections to use
+   */
+  public void setDaemonConnection(MoneroConnectionManager connectionManager) {
+    if (daemonConnectionManager != null) daemonConnectionManager.removeListener(daemonConnectionListener);
+    daemonConnectionManager = connectionManager;
+    daemonConnectionListener = null;
+    if (connectionManager == null) return;
+    daemonConnectionListener = new MoneroConnectionManagerListener() {
+      @Override
+      public void onConnectionChanged(MoneroRpcConnection connection) {
+        try {
+          setDaemonConnection(connection);
+        } catch (MoneroError e) {
+          LOGGER.warning("Failed to switch daemon connection to " + connection.getUri() + ": " + e.getMessage());
+        }
+      }
+    };
+    connectionManager.addListener(daemonConnectionListener);
+    if (connectionManager.getBestConnection() != null) setDaemonConnection(connectionManager.getBestConnection());
+  }
+  
   public MoneroRpcConnection getDaemonConnection() {
     throw new RuntimeException("MoneroWalletRpc.getDaemonConnection() not implemented");
   }
@@ -626,13 +722,28 @@ public class MoneroWalletRpc extends MoneroWalletBase {
     Map<String, Object> resp = rpc.sendJsonRequest("get_accounts", params);
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     
-    // build account objects and fetch subaddresses per account using get_address
-    // TODO monero-wallet-rpc: get_address should support all_accounts so not called once per account
+    // build account objects
     List<MoneroAccount> accounts = new ArrayList<MoneroAccount>();
     for (Map<String, Object> rpcAccount : (List<Map<String, Object>>) result.get("subaddress_accounts")) {
-      MoneroAccount account = convertRpcAccount(rpcAccount);
-      if (includeSubaddresses) account.setSubaddresses(getSubaddresses(account.getIndex(), null, true));
-      accounts.add(account);
+      accounts.add(convertRpcAccount(rpcAccount));
+    }
+    
+    // fetch subaddresses per account using batched get_address
+    // TODO monero-wallet-rpc: get_address should support all_accounts so not called once per account
+    if (includeSubaddresses) {
+      MoneroRpcBatch batch = new MoneroRpcBatch(rpc);
+      for (MoneroAccount account : accounts) {
+        Map<String, Object> addressParams = new HashMap<String, Object>();
+        addressParams.put("account_index", account.getIndex());
+        batch.addRequest("get_address", addressParams);
+      }
+      List<Map<String, Object>> resps = batch.send();
+      for (int i = 0; i < accounts.size(); i++) {
+        MoneroAccount account = accounts.get(i);
+        List<MoneroSubaddress> subaddresses = convertRpcAddresses(account.getIndex(), (Map<String, Object>) resps.get(i).get("result"));
+        cacheSubaddresses(account.getIndex(), subaddresses);
+        account.setSubaddresses(subaddresses);
+      }
     }
     
     // fetch and merge fields from get_balance across all accounts
@@ -718,12 +829,7 @@ public class MoneroWalletRpc extends MoneroWalletBase {
     Map<String, Object> result = (Map<String, Object>) resp.get("result");
     
     // initialize subaddresses
-    List<MoneroSubaddress> subaddresses = new ArrayList<MoneroSubaddress>();
-    for (Map<String, Object> rpcSubaddress : (List<Map<String, Object>>) result.get("addresses")) {
-      MoneroSubaddress subaddress = convertRpcSubaddress(rpcSubaddress);
-      subaddress.setAccountIndex(accountIdx);
-      subaddresses.add(subaddress);
-    }
+    List<MoneroSubaddress> subaddresses = convertRpcAddresses(accountIdx, result);
     
     // fetch and initialize subaddress balances
     if (!skipBalances) {
@@ -756,14 +862,7 @@ public class MoneroWalletRpc extends MoneroWalletBase {
     }
     
     // cache addresses
-    Map<Integer, String> subaddressMap = addressCache.get(accountIdx);
-    if (subaddressMap == null) {
-      subaddressMap = new HashMap<Integer, String>();
-      addressCache.put(accountIdx, subaddressMap);
-    }
-    for (MoneroSubaddress subaddress : subaddresses) {
-      subaddressMap.put(subaddress.getIndex(), subaddress.getAddress());
-    }
+    cacheSubaddresses(accountIdx, subaddresses);
     
     // return results
     return subaddresses;
@@ -1720,23 +1819,27 @@ public class MoneroWalletRpc extends MoneroWalletBase {
   
   private Map<Integer, List<Integer>> getAccountIndices(boolean getSubaddressIndices) {
     Map<Integer, List<Integer>> indices = new HashMap<Integer, List<Integer>>();
-    for (MoneroAccount account : getAccounts()) {
-      indices.put(account.getIndex(), getSubaddressIndices ? getSubaddressIndices(account.getIndex()) : null);
+    if (getSubaddressIndices) {
+      for (MoneroAccount account : getAccounts(true, null, true)) {
+        List<Integer> subaddressIndices = new ArrayList<Integer>();
+        for (MoneroSubaddress subaddress : account.getSubaddresses()) subaddressIndices.add(subaddress.getIndex());
+        indices.put(account.getIndex(), subaddressIndices);
+      }
+    } else {
+      for (MoneroAccount account : getAccounts()) indices.put(account.getIndex(), null);
     }
     return indices;
   }
   
-  @SuppressWarnings("unchecked")
-  private List<Integer> getSubaddressIndices(int accountIdx) {
-    List<Integer> subaddressIndices = new ArrayList<Integer>();
-    Map<String, Object> params = new HashMap<String, Object>();
-    params.put("account_index", accountIdx);
-    Map<String, Object> resp = rpc.sendJsonRequest("get_address", params);
-    Map<String, Object> result = (Map<String, Object>) resp.get("result");
-    for (Map<String, Object> address : (List<Map<String, Object>>) result.get("addresses")) {
-      subaddressIndices.add(((BigInteger) address.get("address_index")).intValue());
+  private void cacheSubaddresses(int accountIdx, List<MoneroSubaddress> subaddresses) {
+    Map<Integer, String> subaddressMap = addressCache.get(accountIdx);
+    if (subaddressMap == null) {
+      subaddressMap = new HashMap<Integer, String>();
+      addressCache.put(accountIdx, subaddressMap);
+    }
+    for (MoneroSubaddress subaddress : subaddresses) {
+      subaddressMap.put(subaddress.getIndex(), subaddress.getAddress());
     }
-    return subaddressIndices;
   }
   
   /**
@@ -1771,19 +1874,16 @@ public class MoneroWalletRpc extends MoneroWalletBase {
       }
       return new BigInteger[] { balance, unlockedBalance };
     } else {
-      Map<String, Object> params = new HashMap<String, Object>();
-      params.put("account_index", accountIdx);
-      params.put("address_indices", subaddressIdx == null ? null : new Integer[] { subaddressIdx });
-      Map<String, Object> resp = rpc.sendJsonRequest("get_balance", params);
-      Map<String, Object> result = (Map<String, Object>) resp.get("result");
-      if (subaddressIdx == null) return new BigInteger[] { (BigInteger) result.get("balance"), (BigInteger) result.get("unlocked_balance") };
-      else {
-        List<Map<String, Object>> rpcBalancesPerSubaddress = (List<Map<String, Object>>) result.get("per_subaddress");
-        return new BigInteger[] { (BigInteger) rpcBalancesPerSubaddress.get(0).get("balance"), (BigInteger) rpcBalancesPerSubaddress.get(0).get("unlocked_balance") };
-      }
+      Map<String, Object> resp = rpc.sendJsonRequest("get_balance", getBalanceParams(accountIdx, subaddressIdx));
+      return convertRpcBalances((Map<String, Object>) resp.get("result"), subaddressIdx);
     }
   }
   
+  @SuppressWarnings("unchecked")
+  private CompletableFuture<BigInteger[]> getBalancesAsync(int accountIdx, Integer subaddressIdx) {
+    return rpc.sendJsonRequestAsync("get_balance", getBalanceParams(accountIdx, subaddressIdx)).thenApply(resp -> convertRpcBalances((Map<String, Object>) resp.get("result"), subaddressIdx));
+  }
+  
   @SuppressWarnings("unchecked")
   private List<MoneroTransfer> getTransfersAux(MoneroTransferQuery query) {
     
@@ -1846,11 +1946,9 @@ public class MoneroWalletRpc extends MoneroWalletBase {
     Map<Long, MoneroBlock> blockMap = new HashMap<Long, MoneroBlock>();
     
     // build txs using `get_transfers`
-    Map<String, Object> resp = rpc.sendJsonRequest("get_transfers", params);
-    Map<String, Object> result = (Map<String, Object>) resp.get("result");
-    for (String key : result.keySet()) {
-      for (Map<String, Object> rpcTx :((List<Map<String, Object>>) result.get(key))) {
-        MoneroTxWallet tx = convertRpcTxWithTransfer(rpcTx, null, null);
+    List<MoneroTxWallet> rpcTxs = rpc.sendJsonRequest("get_transfers", params, parser -> readRpcTxsWithTransfers(parser));
+    if (rpcTxs != null) {
+      for (MoneroTxWallet tx : rpcTxs) {
         if (tx.isConfirmed()) GenUtils.assertTrue(tx.getBlock().getTxs().contains(tx));
 //        if (tx.getId().equals("38436c710dfbebfb24a14cddfd430d422e7282bbe94da5e080643a1bd2880b44")) {
 //          System.out.println(rpcTx);
@@ -1934,20 +2032,21 @@ public class MoneroWalletRpc extends MoneroWalletBase {
     Map<String, MoneroTxWallet> txMap = new HashMap<String, MoneroTxWallet>();
     Map<Long, MoneroBlock> blockMap = new HashMap<Long, MoneroBlock>();
     
-    // collect txs with outputs for each indicated account using `incoming_transfers` rpc call
-    Map<String, Object> params = new HashMap<String, Object>();
+    // collect txs with outputs for each indicated account using batched `incoming_transfers` rpc calls
     String transferType;
     if (Boolean.TRUE.equals(query.isSpent())) transferType = "unavailable";
     else if (Boolean.FALSE.equals(query.isSpent())) transferType = "available";
     else transferType = "all";
-    params.put("transfer_type", transferType);
-    params.put("verbose", true);
+    MoneroRpcBatch batch = new MoneroRpcBatch(rpc);
     for (int accountIdx : indices.keySet()) {
-    
-      // send request
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put("transfer_type", transferType);
+      params.put("verbose", true);
       params.put("account_index", accountIdx);
       params.put("subaddr_indices", indices.get(accountIdx));
-      Map<String, Object> resp = rpc.sendJsonRequest("incoming_transfers", params);
+      batch.addRequest("incoming_transfers", params);
+    }
+    for (Map<String, Object> resp : batch.send()) {
       Map<String, Object> result = (Map<String, Object>) resp.get("result");
       
       // convert response to txs with outputs and merge
@@ -2050,6 +2149,20 @@ public class MoneroWalletRpc extends MoneroWalletBase {
   
   // ---------------------------- PRIVATE STATIC ------------------------------
   
+  private static Map<String, Object> getBalanceParams(int accountIdx, Integer subaddressIdx) {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("account_index", accountIdx);
+    params.put("address_indices", subaddressIdx == null ? null : new Integer[] { subaddressIdx });
+    return params;
+  }
+  
+  @SuppressWarnings("unchecked")
+  private static BigInteger[] convertRpcBalances(Map<String, Object> result, Integer subaddressIdx) {
+    if (subaddressIdx == null) return new BigInteger[] { (BigInteger) result.get("balance"), (BigInteger) result.get("unlocked_balance") };
+    List<Map<String, Object>> rpcBalancesPerSubaddress = (List<Map<String, Object>>) result.get("per_subaddress");
+    return new BigInteger[] { (BigInteger) rpcBalancesPerSubaddress.get(0).get("balance"), (BigInteger) rpcBalancesPerSubaddress.get(0).get("unlocked_balance") };
+  }
+  
   /**
    * Remove criteria which requires looking up other transfers/outputs to
    * fulfill query.
@@ -2099,6 +2212,17 @@ public class MoneroWalletRpc extends MoneroWalletBase {
     return account;
   }
   
+  @SuppressWarnings("unchecked")
+  private static List<MoneroSubaddress> convertRpcAddresses(int accountIdx, Map<String, Object> rpcResult) {
+    List<MoneroSubaddress> subaddresses = new ArrayList<MoneroSubaddress>();
+    for (Map<String, Object> rpcSubaddress : (List<Map<String, Object>>) rpcResult.get("addresses")) {
+      MoneroSubaddress subaddress = convertRpcSubaddress(rpcSubaddress);
+      subaddress.setAccountIndex(accountIdx);
+      subaddresses.add(subaddress);
+    }
+    return subaddresses;
+  }
+  
   private static MoneroSubaddress convertRpcSubaddress(Map<String, Object> rpcSubaddress) {
     MoneroSubaddress subaddress = new MoneroSubaddress();
     for (String key : rpcSubaddress.keySet()) {
@@ -2273,117 +2397,55 @@ public class MoneroWalletRpc extends MoneroWalletBase {
     if (rpcTx.containsKey("type")) isOutgoing = decodeRpcType((String) rpcTx.get("type"), tx);
     else GenUtils.assertNotNull("Must indicate if tx is outgoing (true) xor incoming (false) since unknown", isOutgoing);
     
-    // TODO: safe set
-    // initialize remaining fields  TODO: seems this should be part of common function with DaemonRpc._convertRpcTx
-    MoneroBlockHeader header = null;
-    MoneroTransfer transfer = null;
-    for (String key : rpcTx.keySet()) {
-      Object val = rpcTx.get(key);
-      if (key.equals("txid")) tx.setHash((String) val);
-      else if (key.equals("tx_hash")) tx.setHash((String) val);
-      else if (key.equals("fee")) tx.setFee((BigInteger) val);
-      else if (key.equals("note")) { if (!"".equals(val)) tx.setNote((String) val); }
-      else if (key.equals("tx_key")) tx.setKey((String) val);
-      else if (key.equals("type")) { } // type already handled
-      else if (key.equals("tx_size")) tx.setSize(((BigInteger) val).longValue());
-      else if (key.equals("unlock_time")) tx.setUnlockHeight(((BigInteger) val).longValue());
-      else if (key.equals("weight")) tx.setWeight(((BigInteger) val).longValue());
-      else if (key.equals("locked")) tx.setIsLocked((Boolean) val);
-      else if (key.equals("tx_blob")) tx.setFullHex((String) val);
-      else if (key.equals("tx_metadata")) tx.setMetadata((String) val);
-      else if (key.equals("double_spend_seen")) tx.setIsDoubleSpendSeen((Boolean) val);
-      else if (key.equals("block_height") || key.equals("height")) {
-        if (tx.isConfirmed()) {
-          if (header == null) header = new MoneroBlockHeader();
-          header.setHeight(((BigInteger) val).longValue());
-        }
-      }
-      else if (key.equals("timestamp")) {
-        if (tx.isConfirmed()) {
-          if (header == null) header = new MoneroBlockHeader();
-          header.setTimestamp(((BigInteger) val).longValue());
-        } else {
-          // timestamp of unconfirmed tx is current request time
-        }
-      }
-      else if (key.equals("confirmations")) tx.setNumConfirmations(((BigInteger) val).longValue());
-      else if (key.equals("suggested_confirmations_threshold")) {
-        if (transfer == null) transfer = (isOutgoing ? new MoneroOutgoingTransfer() : new MoneroIncomingTransfer()).setTx(tx);
-        if (!isOutgoing) ((MoneroIncomingTransfer) transfer).setNumSuggestedConfirmations(((BigInteger) val).longValue());
-      }
-      else if (key.equals("amount")) {
-        if (transfer == null) transfer = (isOutgoing ? new MoneroOutgoingTransfer() : new MoneroIncomingTransfer()).setTx(tx);
-        transfer.setAmount((BigInteger) val);
-      } else if (key.equals("amounts")) {}  // ignoring, amounts sum to amount
-      else if (key.equals("address")) {
-        if (!isOutgoing) {
-          if (transfer == null) transfer = new MoneroIncomingTransfer().setTx(tx);
-          ((MoneroIncomingTransfer) transfer).setAddress((String) val);
-        }
-      }
-      else if (key.equals("payment_id")) {
-        if (!"".equals(val) && !MoneroTxWallet.DEFAULT_PAYMENT_ID.equals(val)) tx.setPaymentId((String) val);  // default is undefined
-      }
-      else if (key.equals("subaddr_index")) GenUtils.assertTrue(rpcTx.containsKey("subaddr_indices")); // handled by subaddr_indices
-      else if (key.equals("subaddr_indices")) {
-        if (transfer == null) transfer = (isOutgoing ? new MoneroOutgoingTransfer() : new MoneroIncomingTransfer()).setTx(tx);
-        List<Map<String, BigInteger>> rpcIndices = (List<Map<String, BigInteger>>) val;
-        transfer.setAccountIndex(rpcIndices.get(0).get("major").intValue());
-        if (isOutgoing) {
-          List<Integer> subaddressIndices = new ArrayList<Integer>();
-          for (Map<String, BigInteger> rpcIndex : rpcIndices) subaddressIndices.add(rpcIndex.get("minor").intValue());
-          ((MoneroOutgoingTransfer) transfer).setSubaddressIndices(subaddressIndices);
-        } else {
-          GenUtils.assertEquals(1, rpcIndices.size());
-          ((MoneroIncomingTransfer) transfer).setSubaddressIndex(rpcIndices.get(0).get("minor").intValue());
-        }
+    // initialize remaining fields
+    RpcTxWithTransferConverter converter = new RpcTxWithTransferConverter(tx, isOutgoing);
+    for (String key : rpcTx.keySet()) converter.convertField(key, rpcTx.get(key));
+    return converter.finish();
+  }
+  
+  /**
+   * Reads the txs of a get_transfers result from a streamed RPC response.
+   * 
+   * @param parser is positioned at the start of the RPC result object
+   * @return the txs with transfers read from the parser
+   */
+  private static List<MoneroTxWallet> readRpcTxsWithTransfers(JsonParser parser) throws IOException {
+    List<MoneroTxWallet> txs = new ArrayList<MoneroTxWallet>();
+    while (parser.nextToken() != JsonToken.END_OBJECT) {
+      String rpcType = parser.getCurrentName();  // results are grouped by transfer type
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        parser.skipChildren();
+        continue;
       }
-      else if (key.equals("destinations") || key.equals("recipients")) {
-        GenUtils.assertTrue(isOutgoing);
-        List<MoneroDestination> destinations = new ArrayList<MoneroDestination>();
-        for (Map<String, Object> rpcDestination : (List<Map<String, Object>>) val) {
-          MoneroDestination destination = new MoneroDestination();
-          destinations.add(destination);
-          for (String destinationKey : rpcDestination.keySet()) {
-            if (destinationKey.equals("address")) destination.setAddress((String) rpcDestination.get(destinationKey));
-            else if (destinationKey.equals("amount")) destination.setAmount((BigInteger) rpcDestination.get(destinationKey));
-            else throw new MoneroError("Unrecognized transaction destination field: " + destinationKey);
-          }
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        MoneroTxWallet tx = new MoneroTxWallet();
+        RpcTxWithTransferConverter converter = new RpcTxWithTransferConverter(tx, decodeRpcType(rpcType, tx));
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+          String key = parser.getCurrentName();
+          JsonToken token = parser.nextToken();
+          Object val = token.isScalarValue() ? readRpcScalar(parser, token) : MoneroRpcConnection.MAPPER.readValue(parser, Object.class);
+          if (key.equals("type")) decodeRpcType((String) val, tx);  // refine group type (e.g. block)
+          else converter.convertField(key, val);
         }
-        if (transfer == null) transfer = new MoneroOutgoingTransfer().setTx(tx);
-        ((MoneroOutgoingTransfer) transfer).setDestinations(destinations);
+        txs.add(converter.finish());
       }
-      else if (key.equals("multisig_txset") && val != null) {}  // handled elsewhere; this method only builds a tx wallet
-      else if (key.equals("unsigned_txset") && val != null) {}  // handled elsewhere; this method only builds a tx wallet
-      else if (key.equals("amount_in")) tx.setInputSum((BigInteger) val);
-      else if (key.equals("amount_out")) tx.setOutputSum((BigInteger) val);
-      else if (key.equals("change_address")) tx.setChangeAddress("".equals(val) ? null : (String) val);
-      else if (key.equals("change_amount")) tx.setChangeAmount((BigInteger) val);
-      else if (key.equals("dummy_outputs")) tx.setNumDummyOutputs(((BigInteger) val).intValue());
-      else if (key.equals("extra")) tx.setExtraHex((String) val);
-      else if (key.equals("ring_size")) tx.setRingSize(((BigInteger) val).intValue());
-      else LOGGER.warning("WARNING: ignoring unexpected transaction field: " + key + ": " + val);
     }
-    
-    // link block and tx
-    if (header != null) tx.setBlock(new MoneroBlock(header).setTxs(tx));
-    
-    // initialize final fields
-    if (transfer != null) {
-      if (tx.isConfirmed() == null) tx.setIsConfirmed(false);
-      if (!transfer.getTx().isConfirmed()) tx.setNumConfirmations(0l);
-      if (isOutgoing) {
-        tx.setIsOutgoing(true);
-        if (tx.getOutgoingTransfer() != null) tx.getOutgoingTransfer().merge(transfer);
-        else tx.setOutgoingTransfer((MoneroOutgoingTransfer) transfer);
-      } else {
-        tx.setIsIncoming(true);
-        tx.setIncomingTransfers(new ArrayList<MoneroIncomingTransfer>(Arrays.asList((MoneroIncomingTransfer) transfer)));
-      }
+    return txs;
+  }
+  
+  /**
+   * Reads a scalar value from a streamed RPC response as the RPC mapper would.
+   */
+  private static Object readRpcScalar(JsonParser parser, JsonToken token) throws IOException {
+    switch (token) {
+      case VALUE_STRING: return parser.getText();
+      case VALUE_NUMBER_INT: return parser.getBigIntegerValue();
+      case VALUE_NUMBER_FLOAT: return parser.getDoubleValue();
+      case VALUE_TRUE: return true;
+      case VALUE_FALSE: return false;
+      case VALUE_NULL: return null;
+      default: return MoneroRpcConnection.MAPPER.readValue(parser, Object.class);
     }
-    
-    // return initialized transaction
-    return tx;
   }
   
   @SuppressWarnings("unchecked")
@@ -2610,4 +2672,135 @@ public class MoneroWalletRpc extends MoneroWalletBase {
       return ow1.getKeyImage().getHex().compareTo(ow2.getKeyImage().getHex());
     }
   }
+  
+  /**
+   * Transfers RPC tx fields to a tx with a transfer one field at a time.
+   */
+  private static class RpcTxWithTransferConverter {
+    
+    private MoneroTxWallet tx;
+    private boolean isOutgoing;
+    private MoneroBlockHeader header;
+    private MoneroTransfer transfer;
+    private boolean hasSubaddrIndex;
+    private boolean hasSubaddrIndices;
+    
+    private RpcTxWithTransferConverter(MoneroTxWallet tx, boolean isOutgoing) {
+      this.tx = tx;
+      this.isOutgoing = isOutgoing;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void convertField(String key, Object val) {
+      if (key.equals("txid")) tx.setHash((String) val);
+      else if (key.equals("tx_hash")) tx.setHash((String) val);
+      else if (key.equals("fee")) tx.setFee((BigInteger) val);
+      else if (key.equals("note")) { if (!"".equals(val)) tx.setNote((String) val); }
+      else if (key.equals("tx_key")) tx.setKey((String) val);
+      else if (key.equals("type")) { } // type already handled
+      else if (key.equals("tx_size")) tx.setSize(((BigInteger) val).longValue());
+      else if (key.equals("unlock_time")) tx.setUnlockHeight(((BigInteger) val).longValue());
+      else if (key.equals("weight")) tx.setWeight(((BigInteger) val).longValue());
+      else if (key.equals("locked")) tx.setIsLocked((Boolean) val);
+      else if (key.equals("tx_blob")) tx.setFullHex((String) val);
+      else if (key.equals("tx_metadata")) tx.setMetadata((String) val);
+      else if (key.equals("double_spend_seen")) tx.setIsDoubleSpendSeen((Boolean) val);
+      else if (key.equals("block_height") || key.equals("height")) {
+        if (tx.isConfirmed()) {
+          if (header == null) header = new MoneroBlockHeader();
+          header.setHeight(((BigInteger) val).longValue());
+        }
+      }
+      else if (key.equals("timestamp")) {
+        if (tx.isConfirmed()) {
+          if (header == null) header = new MoneroBlockHeader();
+          header.setTimestamp(((BigInteger) val).longValue());
+        } else {
+          // timestamp of unconfirmed tx is current request time
+        }
+      }
+      else if (key.equals("confirmations")) tx.setNumConfirmations(((BigInteger) val).longValue());
+      else if (key.equals("suggested_confirmations_threshold")) {
+        if (transfer == null) transfer = (isOutgoing ? new MoneroOutgoingTransfer() : new MoneroIncomingTransfer()).setTx(tx);
+        if (!isOutgoing) ((MoneroIncomingTransfer) transfer).setNumSuggestedConfirmations(((BigInteger) val).longValue());
+      }
+      else if (key.equals("amount")) {
+        if (transfer == null) transfer = (isOutgoing ? new MoneroOutgoingTransfer() : new MoneroIncomingTransfer()).setTx(tx);
+        transfer.setAmount((BigInteger) val);
+      } else if (key.equals("amounts")) {}  // ignoring, amounts sum to amount
+      else if (key.equals("address")) {
+        if (!isOutgoing) {
+          if (transfer == null) transfer = new MoneroIncomingTransfer().setTx(tx);
+          ((MoneroIncomingTransfer) transfer).setAddress((String) val);
+        }
+      }
+      else if (key.equals("payment_id")) {
+        if (!"".equals(val) && !MoneroTxWallet.DEFAULT_PAYMENT_ID.equals(val)) tx.setPaymentId((String) val);  // default is undefined
+      }
+      else if (key.equals("subaddr_index")) hasSubaddrIndex = true; // handled by subaddr_indices
+      else if (key.equals("subaddr_indices")) {
+        hasSubaddrIndices = true;
+        if (transfer == null) transfer = (isOutgoing ? new MoneroOutgoingTransfer() : new MoneroIncomingTransfer()).setTx(tx);
+        List<Map<String, BigInteger>> rpcIndices = (List<Map<String, BigInteger>>) val;
+        transfer.setAccountIndex(rpcIndices.get(0).get("major").intValue());
+        if (isOutgoing) {
+          List<Integer> subaddressIndices = new ArrayList<Integer>();
+          for (Map<String, BigInteger> rpcIndex : rpcIndices) subaddressIndices.add(rpcIndex.get("minor").intValue());
+          ((MoneroOutgoingTransfer) transfer).setSubaddressIndices(subaddressIndices);
+        } else {
+          GenUtils.assertEquals(1, rpcIndices.size());
+          ((MoneroIncomingTransfer) transfer).setSubaddressIndex(rpcIndices.get(0).get("minor").intValue());
+        }
+      }
+      else if (key.equals("destinations") || key.equals("recipients")) {
+        GenUtils.assertTrue(isOutgoing);
+        List<MoneroDestination> destinations = new ArrayList<MoneroDestination>();
+        for (Map<String, Object> rpcDestination : (List<Map<String, Object>>) val) {
+          MoneroDestination destination = new MoneroDestination();
+          destinations.add(destination);
+          for (String destinationKey : rpcDestination.keySet()) {
+            if (destinationKey.equals("address")) destination.setAddress((String) rpcDestination.get(destinationKey));
+            else if (destinationKey.equals("amount")) destination.setAmount((BigInteger) rpcDestination.get(destinationKey));
+            else throw new MoneroError("Unrecognized transaction destination field: " + destinationKey);
+          }
+        }
+        if (transfer == null) transfer = new MoneroOutgoingTransfer().setTx(tx);
+        ((MoneroOutgoingTransfer) transfer).setDestinations(destinations);
+      }
+      else if (key.equals("multisig_txset") && val != null) {}  // handled elsewhere; this method only builds a tx wallet
+      else if (key.equals("unsigned_txset") && val != null) {}  // handled elsewhere; this method only builds a tx wallet
+      else if (key.equals("amount_in")) tx.setInputSum((BigInteger) val);
+      else if (key.equals("amount_out")) tx.setOutputSum((BigInteger) val);
+      else if (key.equals("change_address")) tx.setChangeAddress("".equals(val) ? null : (String) val);
+      else if (key.equals("change_amount")) tx.setChangeAmount((BigInteger) val);
+      else if (key.equals("dummy_outputs")) tx.setNumDummyOutputs(((BigInteger) val).intValue());
+      else if (key.equals("extra")) tx.setExtraHex((String) val);
+      else if (key.equals("ring_size")) tx.setRingSize(((BigInteger) val).intValue());
+      else LOGGER.warning("WARNING: ignoring unexpected transaction field: " + key + ": " + val);
+    }
+    
+    private MoneroTxWallet finish() {
+      if (hasSubaddrIndex) GenUtils.assertTrue(hasSubaddrIndices);
+      
+      // link block and tx
+      if (header != null) tx.setBlock(new MoneroBlock(header).setTxs(tx));
+      
+      // initialize final fields
+      if (transfer != null) {
+        if (tx.isConfirmed() == null) tx.setIsConfirmed(false);
+        if (!transfer.getTx().isConfirmed()) tx.setNumConfirmations(0l);
+        if (isOutgoing) {
+          tx.setIsOutgoing(true);
+          if (tx.getOutgoingTransfer() != null) tx.getOutgoingTransfer().merge(transfer);
+          else tx.setOutgoingTransfer((MoneroOutgoingTransfer) transfer);
+        } else {
+          tx.setIsIncoming(true);
+          tx.setIncomingTransfers(new ArrayList<MoneroIncomingTransfer>(Arrays.asList((MoneroIncomingTransfer) transfer)));
+        }
+      }
+      
+      // return initialized transaction
+      return tx;
+    }
+  }
 }
@@ -8,22 +8,50 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.OutputStream;
 import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.sun.net.httpserver.HttpServer;
+
 import common.utils.JsonUtils;
+import monero.common.MoneroBlobReader;
+import monero.common.MoneroConnectionManager;
 import monero.common.MoneroError;
+import monero.common.MoneroRpcConnection;
 import monero.common.MoneroRpcError;
+import monero.common.MoneroRpcMethodMetrics;
+import monero.common.MoneroRpcMetricsRecorder;
 import monero.common.MoneroUtils;
+import monero.daemon.MoneroChainIndex;
 import monero.daemon.MoneroDaemon;
 import monero.daemon.MoneroDaemonRpc;
 import monero.daemon.model.MoneroAltChain;
@@ -54,6 +82,7 @@ import monero.daemon.model.MoneroVersion;
 import monero.wallet.MoneroWallet;
 import monero.wallet.model.MoneroTxConfig;
 import utils.TestUtils;
+import utils.ZmqPublisherStandIn;
 
 /**
  * Tests a Monero daemon.
@@ -190,6 +219,304 @@ public class TestMoneroDaemonRpc {
     assertEquals(lastHeader.getHeight() - 1, (long) header.getHeight());
   }
   
+  // Can get the height, last block header, and info asynchronously
+  @Test
+  public void testGetAsync() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    
+    // send requests concurrently
+    CompletableFuture<Long> heightFuture = daemon.getHeightAsync();
+    CompletableFuture<MoneroBlockHeader> lastHeaderFuture = daemon.getLastBlockHeaderAsync();
+    CompletableFuture<MoneroDaemonInfo> infoFuture = daemon.getInfoAsync();
+    
+    // test results
+    MoneroBlockHeader lastHeader = lastHeaderFuture.join();
+    testBlockHeader(lastHeader, true);
+    assertTrue(heightFuture.join() >= lastHeader.getHeight());
+    testInfo(infoFuture.join());
+    assertEquals(lastHeader, daemon.getBlockHeaderByHeightAsync(lastHeader.getHeight()).join());
+    
+    // rpc errors complete the future exceptionally
+    try {
+      daemon.getBlockHeaderByHashAsync("invalid").join();
+      fail("Should have thrown error on invalid hash");
+    } catch (CompletionException e) {
+      assertTrue(e.getCause() instanceof MoneroError);
+    }
+  }
+  
+  // Can fail over between connections managed by a connection manager
+  @Test
+  public void testConnectionManager() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    
+    // manage an offline connection and the test daemon's connection
+    MoneroRpcConnection offlineConnection = new MoneroRpcConnection(TestUtils.OFFLINE_DAEMON_RPC_URI, TestUtils.DAEMON_RPC_USERNAME, TestUtils.DAEMON_RPC_PASSWORD);
+    MoneroRpcConnection onlineConnection = daemon.getRpcConnection();
+    MoneroConnectionManager connectionManager = new MoneroConnectionManager(offlineConnection, onlineConnection);
+    assertEquals(offlineConnection, connectionManager.getBestConnection());
+    
+    // requests fail over to the online connection
+    MoneroDaemonRpc managedDaemon = new MoneroDaemonRpc(connectionManager);
+    assertEquals(daemon.getHeight(), managedDaemon.getHeight());
+    assertFalse(connectionManager.isOnline(offlineConnection));
+    assertEquals(onlineConnection, managedDaemon.getRpcConnection());
+    
+    // checking connections updates their state
+    connectionManager.checkConnections();
+    assertFalse(connectionManager.isOnline(offlineConnection));
+    assertTrue(connectionManager.isOnline(onlineConnection));
+    assertNotNull(connectionManager.getLatencyMs(onlineConnection));
+    assertTrue(connectionManager.getHeight(onlineConnection) > 0);
+    assertEquals(Arrays.asList(onlineConnection, offlineConnection), connectionManager.getConnectionsByPreference());
+    
+    // rpc errors are not failed over
+    try {
+      managedDaemon.getBlockHeaderByHash("invalid");
+      fail("Should have thrown error on invalid hash");
+    } catch (MoneroError e) {
+      assertTrue(connectionManager.isOnline(onlineConnection));
+    }
+    
+    // writes are sent to the best connection without failing over
+    MoneroConnectionManager writeConnectionManager = new MoneroConnectionManager(offlineConnection, onlineConnection);
+    MoneroDaemonRpc writeDaemon = new MoneroDaemonRpc(writeConnectionManager);
+    String unknownTxHash = "0000000000000000000000000000000000000000000000000000000000000000";
+    try {
+      writeDaemon.flushTxPool(unknownTxHash);
+      fail("Write should not have failed over");
+    } catch (MoneroError e) {
+      assertFalse(writeConnectionManager.isOnline(offlineConnection));
+    }
+    writeDaemon.flushTxPool(unknownTxHash);  // next write goes to the next best connection
+  }
+  
+  // Can hedge read-only requests across connections
+  @Test
+  public void testHedgedRequests() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    
+    // manage two connections to the test daemon and hedge after the minimum delay
+    MoneroConnectionManager connectionManager = new MoneroConnectionManager(
+        new MoneroRpcConnection(TestUtils.DAEMON_RPC_URI, TestUtils.DAEMON_RPC_USERNAME, TestUtils.DAEMON_RPC_PASSWORD),
+        new MoneroRpcConnection(TestUtils.DAEMON_RPC_URI, TestUtils.DAEMON_RPC_USERNAME, TestUtils.DAEMON_RPC_PASSWORD));
+    connectionManager.setHedgingEnabled(true).setHedgingPercentile(50).setMinHedgingDelayMs(0);
+    MoneroDaemonRpc hedgedDaemon = new MoneroDaemonRpc(connectionManager);
+    
+    // hedged requests return the same results
+    MoneroBlockHeader lastHeader = daemon.getLastBlockHeader();
+    for (int i = 0; i < 25; i++) assertEquals(lastHeader, hedgedDaemon.getBlockHeaderByHeight(lastHeader.getHeight()));
+    assertEquals(daemon.getFeeEstimate(), hedgedDaemon.getFeeEstimate());
+    assertTrue(connectionManager.getHedgingDelayMs("get_block_header_by_height") < MoneroConnectionManager.DEFAULT_HEDGING_DELAY_MS);
+    
+    // rpc errors are returned from hedged requests
+    try {
+      hedgedDaemon.getBlockHeaderByHeight(Long.MAX_VALUE);
+      fail("Should have thrown error on invalid height");
+    } catch (MoneroError e) {
+      assertNotNull(e.getMessage());
+    }
+    
+    // requests are hedged across all connections until one responds and the others are cancelled
+    MoneroRpcConnection fastConnection = new MoneroRpcConnection(TestUtils.DAEMON_RPC_URI);
+    connectionManager = new MoneroConnectionManager(new MoneroRpcConnection(TestUtils.DAEMON_RPC_URI), new MoneroRpcConnection(TestUtils.DAEMON_RPC_URI), fastConnection);
+    connectionManager.setHedgingEnabled(true).setMinHedgingDelayMs(0);
+    CountDownLatch numInterrupted = new CountDownLatch(2);
+    String uri = connectionManager.sendHedged("test_hedging", connection -> {
+      if (connection == fastConnection) return connection.getUri();
+      try {
+        Thread.sleep(60000);
+      } catch (InterruptedException e) {
+        numInterrupted.countDown();
+      }
+      throw new MoneroError("Slow connection was not cancelled");
+    });
+    assertEquals(fastConnection.getUri(), uri);
+    try {
+      assertTrue("Slow requests were not cancelled", numInterrupted.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  // Can coalesce identical concurrent requests
+  @Test
+  public void testCoalescedRequests() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    
+    // request info and height from many threads at once
+    List<CompletableFuture<MoneroDaemonInfo>> infoFutures = new ArrayList<CompletableFuture<MoneroDaemonInfo>>();
+    List<CompletableFuture<Long>> heightFutures = new ArrayList<CompletableFuture<Long>>();
+    for (int i = 0; i < 50; i++) {
+      infoFutures.add(CompletableFuture.supplyAsync(() -> daemon.getInfo()));
+      heightFutures.add(CompletableFuture.supplyAsync(() -> daemon.getHeight()));
+    }
+    
+    // each caller gets its own result
+    Set<MoneroDaemonInfo> infos = Collections.newSetFromMap(new IdentityHashMap<MoneroDaemonInfo, Boolean>());
+    for (CompletableFuture<MoneroDaemonInfo> infoFuture : infoFutures) {
+      MoneroDaemonInfo info = infoFuture.join();
+      testInfo(info);
+      infos.add(info);
+    }
+    assertEquals(infoFutures.size(), infos.size());
+    for (CompletableFuture<Long> heightFuture : heightFutures) assertTrue(heightFuture.join() > 0);
+    
+    // record requests on a separate client whose first get_info waits until all callers are waiting
+    CountDownLatch release = new CountDownLatch(1);
+    MoneroRpcMetricsRecorder recorder = new MoneroRpcMetricsRecorder() {
+      @Override
+      public void onRequestStarted(String method) {
+        super.onRequestStarted(method);
+        if (!"get_info".equals(method)) return;
+        try {
+          release.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    MoneroRpcConnection connection = new MoneroRpcConnection(TestUtils.DAEMON_RPC_URI, TestUtils.DAEMON_RPC_USERNAME, TestUtils.DAEMON_RPC_PASSWORD);
+    connection.setMetrics(recorder);
+    MoneroDaemonRpc recordedDaemon = new MoneroDaemonRpc(connection);
+    
+    // concurrent identical requests share one http request
+    int numCallers = 20;
+    List<CompletableFuture<MoneroDaemonInfo>> sharedFutures = new ArrayList<CompletableFuture<MoneroDaemonInfo>>();
+    List<Thread> callers = new ArrayList<Thread>();
+    for (int i = 0; i < numCallers; i++) {
+      CompletableFuture<MoneroDaemonInfo> sharedFuture = new CompletableFuture<MoneroDaemonInfo>();
+      sharedFutures.add(sharedFuture);
+      callers.add(new Thread(() -> {
+        try {
+          sharedFuture.complete(recordedDaemon.getInfo());
+        } catch (RuntimeException e) {
+          sharedFuture.completeExceptionally(e);
+        }
+      }));
+    }
+    for (Thread caller : callers) caller.start();
+    try {
+      for (Thread caller : callers) {
+        while (EnumSet.of(Thread.State.NEW, Thread.State.RUNNABLE, Thread.State.BLOCKED).contains(caller.getState())) Thread.sleep(10);  // wait until parked on the shared request
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+    release.countDown();
+    for (CompletableFuture<MoneroDaemonInfo> sharedFuture : sharedFutures) testInfo(sharedFuture.join());
+    assertEquals(1, recorder.getMetrics("get_info").getNumRequests());
+  }
+  
+  // Can cache immutable lookups
+  @Test
+  public void testResponseCache() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    
+    // enable cache on a separate client which records its requests
+    MoneroRpcConnection connection = new MoneroRpcConnection(TestUtils.DAEMON_RPC_URI, TestUtils.DAEMON_RPC_USERNAME, TestUtils.DAEMON_RPC_PASSWORD);
+    MoneroRpcMetricsRecorder recorder = new MoneroRpcMetricsRecorder();
+    connection.setMetrics(recorder);
+    MoneroDaemonRpc cachingDaemon = new MoneroDaemonRpc(connection);
+    assertEquals(0, cachingDaemon.getResponseCacheSize());
+    cachingDaemon.setResponseCacheSize(10000000);
+    assertEquals(10000000, cachingDaemon.getResponseCacheSize());
+    
+    // cached blocks and headers equal uncached results
+    MoneroBlockHeader header = daemon.getBlockHeaderByHeight(daemon.getHeight() - 50);
+    MoneroBlock block = cachingDaemon.getBlockByHash(header.getHash());
+    MoneroBlock cachedBlock = cachingDaemon.getBlockByHash(header.getHash());
+    assertEquals(block, cachedBlock);
+    assertTrue(block != cachedBlock);
+    assertEquals(1, recorder.getMetrics("get_block").getNumRequests());
+    assertEquals(header, cachingDaemon.getBlockHeaderByHash(header.getHash()));
+    assertEquals(header, cachingDaemon.getBlockHeaderByHash(header.getHash()));
+    assertEquals(1, recorder.getMetrics("get_block_header_by_hash").getNumRequests());
+    
+    // cached results are copies
+    cachedBlock.setHex(null);
+    assertEquals(block, cachingDaemon.getBlockByHash(header.getHash()));
+    
+    // blocks near the tip are not cached since they may be reorganized
+    MoneroBlockHeader lastHeader = daemon.getLastBlockHeader();
+    cachingDaemon.getBlockHeaderByHash(lastHeader.getHash());
+    cachingDaemon.getBlockHeaderByHash(lastHeader.getHash());
+    assertEquals(3, recorder.getMetrics("get_block_header_by_hash").getNumRequests());
+    
+    // cached txs equal uncached results in requested order
+    List<String> txHashes = getConfirmedTxHashes(daemon);
+    List<MoneroTx> txs = cachingDaemon.getTxs(txHashes);
+    List<MoneroTx> cachedTxs = cachingDaemon.getTxs(txHashes);
+    assertEquals(txs.size(), cachedTxs.size());
+    for (int i = 0; i < txs.size(); i++) {
+      assertEquals(txHashes.get(i), cachedTxs.get(i).getHash());
+      assertEquals(txs.get(i), cachedTxs.get(i));
+      assertTrue(txs.get(i) != cachedTxs.get(i));
+    }
+    
+    // deep txs are cached without fetching a header first
+    List<String> deepTxHashes = new ArrayList<String>();
+    for (long height = header.getHeight(); deepTxHashes.isEmpty() && height > 0; height--) deepTxHashes.addAll(daemon.getBlockByHeight(height).getTxHashes());
+    assertFalse("Test requires a confirmed tx", deepTxHashes.isEmpty());
+    MoneroDaemonRpc txCachingDaemon = new MoneroDaemonRpc(connection);
+    txCachingDaemon.setResponseCacheSize(10000000);
+    recorder.reset();
+    assertEquals(txCachingDaemon.getTxs(deepTxHashes), txCachingDaemon.getTxs(deepTxHashes));
+    assertEquals(1, recorder.getMetrics("get_transactions").getNumRequests());
+    assertEquals(1, recorder.getMetrics("get_block_count").getNumRequests());  // tip is fetched to check the txs' depth
+    
+    // disable cache
+    cachingDaemon.setResponseCacheSize(0);
+    assertEquals(block, cachingDaemon.getBlockByHash(header.getHash()));
+  }
+  
+  // Can record metrics of rpc requests
+  @Test
+  public void testRpcMetrics() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    
+    // record metrics on a separate connection
+    MoneroRpcConnection connection = new MoneroRpcConnection(TestUtils.DAEMON_RPC_URI, TestUtils.DAEMON_RPC_USERNAME, TestUtils.DAEMON_RPC_PASSWORD);
+    MoneroRpcMetricsRecorder recorder = new MoneroRpcMetricsRecorder();
+    connection.setMetrics(recorder);
+    assertEquals(recorder, connection.getMetrics());
+    MoneroDaemonRpc metricsDaemon = new MoneroDaemonRpc(connection);
+    
+    // send json, path, streamed, binary, and async requests
+    long height = metricsDaemon.getHeight();
+    metricsDaemon.getTxs(getConfirmedTxHashes(daemon));
+    metricsDaemon.getBlocksByHeight(Arrays.asList(height - 1));
+    metricsDaemon.getInfoAsync().join();
+    metricsDaemon.getInfoAsync().join();
+    try {
+      metricsDaemon.getBlockHeaderByHash("invalid");
+      fail("Should have thrown error on invalid hash");
+    } catch (MoneroError e) { }
+    
+    // test recorded metrics
+    assertTrue(recorder.getMethods().containsAll(Arrays.asList("get_block_count", "get_transactions", "get_blocks_by_height.bin", "get_info", "get_block_header_by_hash")));
+    assertNull(recorder.getMetrics("get_transaction_pool"));  // pool is only fetched for txs in the pool
+    for (String method : recorder.getMethods()) {
+      MoneroRpcMethodMetrics metrics = recorder.getMetrics(method);
+      assertEquals(method, metrics.getMethod());
+      assertTrue(metrics.getNumRequests() > 0);
+      assertEquals(0, metrics.getNumInFlight());
+      assertTrue(metrics.getMeanLatencyMs() > 0);
+      assertTrue(metrics.getLatencyPercentileMs(50) <= metrics.getLatencyPercentileMs(100));
+      assertTrue(metrics.getLatencyPercentileMs(100) <= metrics.getMaxLatencyMs());
+      if (!method.equals("get_block_header_by_hash")) assertTrue(metrics.getResponseBytes() > 0);
+    }
+    assertEquals(2, recorder.getMetrics("get_info").getNumRequests());
+    assertTrue(recorder.getMetrics("get_transactions").getRequestBytes() > 0);
+    MoneroRpcMethodMetrics errorMetrics = recorder.getMetrics("get_block_header_by_hash");
+    assertEquals(1, errorMetrics.getNumErrors());
+    assertEquals(1, errorMetrics.getErrorCodes().size());
+    
+    // reset metrics
+    recorder.reset();
+    assertEquals(0, recorder.getMetrics("get_info").getNumRequests());
+  }
+  
   // Can get block headers by range
   // TODO: test start with no end, vice versa, inclusivity
   @Test
@@ -246,7 +573,40 @@ public class TestMoneroDaemonRpc {
   @Test
   public void testGetBlocksByHashBinary() {
     org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
-    throw new RuntimeException("Not implemented");
+    
+    // get blocks after a known block with the genesis block last
+    long height = daemon.getHeight();
+    long knownHeight = height - 20;
+    List<String> blockHashes = new ArrayList<String>();
+    blockHashes.add(daemon.getBlockHash(knownHeight));
+    blockHashes.add(daemon.getBlockHash(0));
+    List<MoneroBlock> blocks = daemon.getBlocksByHash(blockHashes, null, false);
+    assertFalse(blocks.isEmpty());
+    assertEquals(knownHeight, (long) blocks.get(0).getHeight());  // daemon starts from the known block
+    for (int i = 0; i < blocks.size(); i++) {
+      MoneroBlock block = blocks.get(i);
+      assertEquals(knownHeight + i, (long) block.getHeight());
+      testBlock(block, BINARY_BLOCK_CTX);
+    }
+    assertEquals(height - 1, (long) blocks.get(blocks.size() - 1).getHeight());
+    
+    // get pruned blocks from a start height
+    List<MoneroBlock> prunedBlocks = daemon.getBlocksByHash(blockHashes, height - 5, true);
+    assertEquals(height - 5, (long) prunedBlocks.get(0).getHeight());
+    assertEquals(5, prunedBlocks.size());
+    for (int i = 0; i < prunedBlocks.size(); i++) {
+      MoneroBlock block = prunedBlocks.get(i);
+      testBlock(block, BINARY_BLOCK_CTX);
+      MoneroBlock unprunedBlock = blocks.get(blocks.size() - 5 + i);
+      assertEquals(unprunedBlock.getTxHashes(), block.getTxHashes());
+      for (int j = 0; j < block.getTxs().size(); j++) assertEquals(unprunedBlock.getTxs().get(j).getOutputs().size(), block.getTxs().get(j).getOutputs().size());
+    }
+    
+    // cannot get blocks without a hash on the daemon's chain
+    try {
+      daemon.getBlocksByHash(Arrays.asList("0000000000000000000000000000000000000000000000000000000000000000"), null, false);
+      fail("Should have thrown error");
+    } catch (MoneroError e) { }
   }
 
   // Can get a block by height
@@ -303,6 +663,31 @@ public class TestMoneroDaemonRpc {
     assertTrue("No transactions found to test", txFound);
   }
   
+  // Can compute block and tx hashes from their blobs
+  @Test
+  public void testGetBlobHashes() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    
+    // test recent blocks with multiple txs
+    int numBlocksTested = 0;
+    long height = daemon.getHeight() - 1;
+    for (long i = height; i > Math.max(0, height - 500) && numBlocksTested < 5; i--) {
+      MoneroBlock block = daemon.getBlockByHeight(i);
+      if (block.getTxHashes().size() < 2) continue;
+      numBlocksTested++;
+      
+      // block hash
+      assertEquals(block.getHash(), MoneroBlobReader.getBlockHash(block.getHex()));
+      assertEquals(block.getHash(), daemon.getBlockHeaderByHeight(i).getHash());
+      
+      // tx hashes
+      List<MoneroTx> txs = daemon.getTxs(block.getTxHashes());
+      assertEquals(block.getTxHashes().size(), txs.size());
+      for (MoneroTx tx : txs) assertEquals(tx.getHash(), MoneroBlobReader.getTxHash(tx.getFullHex()));
+    }
+    assertTrue("No blocks with multiple txs found to test", numBlocksTested > 0);
+  }
+  
   // Can get blocks by range in a single request
   @Test
   public void testGetBlocksByRange() {
@@ -351,12 +736,143 @@ public class TestMoneroDaemonRpc {
     testGetBlocksRange(endHeight - numBlocks - 1, null, height, true);
   };
   
+  // Can get blocks by range using pipelined chunk requests
+  @Test
+  public void testGetBlocksByRangeChunkedPipelined() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS && !LITE_MODE);
+    long height = daemon.getHeight();
+    long numBlocks = Math.min(height - 2, 500);
+    long startHeight = height - numBlocks;
+    long endHeight = height - 1;
+    int maxChunkRequests = daemon.getMaxChunkRequests();
+    try {
+      
+      // fetch small chunks one at a time
+      daemon.setMaxChunkRequests(1);
+      List<MoneroBlock> sequentialBlocks = daemon.getBlocksByRangeChunked(startHeight, endHeight, 50000l);
+      
+      // fetch small chunks with many requests in flight
+      daemon.setMaxChunkRequests(8);
+      List<MoneroBlock> pipelinedBlocks = daemon.getBlocksByRangeChunked(startHeight, endHeight, 50000l);
+      
+      // blocks are delivered in height order
+      assertEquals(numBlocks, pipelinedBlocks.size());
+      assertEquals(sequentialBlocks.size(), pipelinedBlocks.size());
+      for (int i = 0; i < pipelinedBlocks.size(); i++) {
+        assertEquals(startHeight + i, (long) pipelinedBlocks.get(i).getHeight());
+        assertEquals(sequentialBlocks.get(i).getPrevHash(), pipelinedBlocks.get(i).getPrevHash());
+        assertEquals(sequentialBlocks.get(i).getTxHashes(), pipelinedBlocks.get(i).getTxHashes());
+      }
+    } finally {
+      daemon.setMaxChunkRequests(maxChunkRequests);
+    }
+    
+    // max chunk requests must be positive
+    try {
+      daemon.setMaxChunkRequests(0);
+      fail("Should have failed to set max chunk requests to 0");
+    } catch (MoneroError e) {
+      assertEquals("Max chunk requests must be at least 1", e.getMessage());
+    }
+  }
+  
+  // Can iterate and stream blocks by range
+  @Test
+  public void testGetBlocksByRangeStream() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS && !LITE_MODE);
+    long height = daemon.getHeight();
+    long numBlocks = Math.min(height - 2, 200);
+    long startHeight = height - numBlocks;
+    long endHeight = height - 1;
+    
+    // iterate blocks in height order
+    Iterator<MoneroBlock> iterator = daemon.getBlocksByRangeIterator(startHeight, endHeight, 20000l);
+    long expectedHeight = startHeight;
+    while (iterator.hasNext()) {
+      MoneroBlock block = iterator.next();
+      assertEquals(expectedHeight++, (long) block.getHeight());
+      testBlock(block, BINARY_BLOCK_CTX);
+    }
+    assertEquals(endHeight + 1, expectedHeight);
+    try {
+      iterator.next();
+      fail("Should have thrown NoSuchElementException");
+    } catch (NoSuchElementException e) { }
+    
+    // stream blocks
+    try (Stream<MoneroBlock> stream = daemon.getBlocksByRangeStream(startHeight, endHeight, 20000l)) {
+      assertEquals(numBlocks, stream.count());
+    }
+    
+    // stop consuming a stream early
+    try (Stream<MoneroBlock> stream = daemon.getBlocksByRangeStream(startHeight, endHeight, 20000l)) {
+      List<MoneroBlock> blocks = stream.limit(5).collect(Collectors.toList());
+      assertEquals(5, blocks.size());
+      assertEquals(startHeight + 4, (long) blocks.get(4).getHeight());
+    }
+  }
+  
+  // Can index block headers by height, hash, and timestamp
+  @Test
+  public void testChainIndex() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS && !LITE_MODE);
+    long height = daemon.getHeight();
+    long startHeight = Math.max(0, height - 2000);
+    MoneroChainIndex index = new MoneroChainIndex(daemon, startHeight);
+    assertEquals(height, index.sync());
+    assertEquals(height, index.getHeight());
+    
+    // index matches headers from the daemon
+    for (long h : new long[] { startHeight, (startHeight + height) / 2, height - 1 }) {
+      MoneroBlockHeader header = daemon.getBlockHeaderByHeight(h);
+      assertEquals(header.getHash(), index.getBlockHash(h));
+      assertEquals(h, (long) index.getBlockHeight(header.getHash()));
+      assertEquals((long) header.getTimestamp(), index.getBlockTimestamp(h));
+      assertEquals((long) header.getSize(), index.getBlockSize(h));
+      assertEquals((long) header.getWeight(), index.getBlockWeight(h));
+      assertTrue(index.getHeightByTimestamp(header.getTimestamp()) <= h);
+    }
+    assertNull(index.getBlockHeight("0000000000000000000000000000000000000000000000000000000000000000"));
+    assertEquals(startHeight, index.getHeightByTimestamp(0));
+    assertEquals(height, index.getHeightByTimestamp(Long.MAX_VALUE));
+    
+    // rewinds to fork point
+    index.truncate(height - 10);
+    assertEquals(height - 10, index.getHeight());
+    assertNull(index.getBlockHeight(daemon.getBlockHeaderByHeight(height - 1).getHash()));
+    assertEquals(height, index.sync());
+    assertEquals(height - 1, (long) index.getBlockHeight(daemon.getBlockHeaderByHeight(height - 1).getHash()));
+    try {
+      index.getBlockHash(height);
+      fail("Should have thrown error");
+    } catch (MoneroError e) {
+      assertEquals("Height " + height + " is not indexed", e.getMessage());
+    }
+  }
+  
   // Can get block hashes (binary)
   @Test
   public void testGetBlockIdsBinary() {
     org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
-    //get_hashes.bin
-    throw new RuntimeException("Not implemented");
+    long height = daemon.getHeight();
+    long startHeight = height - 30;
+    
+    // get hashes after a sparse list of known hashes ending with the genesis block
+    MoneroChainIndex index = new MoneroChainIndex(daemon, startHeight);
+    index.addHeaders(daemon.getBlockHeadersByRange(startHeight, startHeight + 20));
+    List<String> sparseHashes = index.getSparseBlockHashes();
+    assertEquals(index.getBlockHash(startHeight + 20), sparseHashes.get(0));
+    assertEquals(index.getBlockHash(startHeight), sparseHashes.get(sparseHashes.size() - 2));
+    assertEquals(daemon.getBlockHash(0), sparseHashes.get(sparseHashes.size() - 1));
+    List<String> hashes = daemon.getBlockHashes(sparseHashes, startHeight);
+    assertFalse(hashes.isEmpty());
+    
+    // hashes are consecutive to the chain tip
+    long firstHeight = height - hashes.size();
+    for (int i = 0; i < hashes.size(); i += Math.max(1, hashes.size() / 10)) {
+      assertEquals(daemon.getBlockHash(firstHeight + i), hashes.get(i));
+    }
+    assertEquals(daemon.getBlockHash(height - 1), hashes.get(hashes.size() - 1));
   }
   
   // Can get a transaction by hash with and without pruning
@@ -377,6 +893,7 @@ public class TestMoneroDaemonRpc {
     for (String txHash : txHashes) {
       MoneroTx tx = daemon.getTx(txHash);
       testTx(tx, ctx);
+      if (tx.getVersion() == 2) assertNotNull(tx.getRctSigPrunable());
     }
     
     // fetch each tx by hash with pruning
@@ -414,6 +931,7 @@ public class TestMoneroDaemonRpc {
     assertEquals(txHashes.size(), txs.size());
     for (MoneroTx tx : txs) {
       testTx(tx, ctx);
+      if (tx.getVersion() == 2) assertNotNull(tx.getRctSigPrunable());
     }
     
     // fetch txs by hash with pruning
@@ -591,8 +1109,23 @@ public class TestMoneroDaemonRpc {
   @Test
   public void testGetIdsOfTxsInPoolBin() {
     org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
-    // TODO: get_transaction_pool_hashes.bin
-    throw new RuntimeException("Not implemented");
+    TestUtils.TX_POOL_WALLET_TRACKER.waitForWalletTxsToClearPool(wallet);
+    
+    // submit tx to pool but don't relay
+    MoneroTx tx = getUnrelayedTx(wallet, 1);
+    MoneroSubmitTxResult result = daemon.submitTxHex(tx.getFullHex(), true);
+    testSubmitTxResultGood(result);
+    
+    // fetch tx hashes in pool
+    List<String> txHashes = daemon.getTxPoolHashes();
+    assertTrue(txHashes.contains(tx.getHash()));
+    assertEquals(daemon.getTxPool().size(), txHashes.size());
+    for (String txHash : txHashes) assertEquals(64, txHash.length());
+    
+    // flush the tx from the pool, gg
+    daemon.flushTxPool(tx.getHash());
+    assertFalse(daemon.getTxPoolHashes().contains(tx.getHash()));
+    wallet.sync();
   }
   
   // Can get the transaction pool backlog (binary)
@@ -771,6 +1304,43 @@ public class TestMoneroDaemonRpc {
     daemon.flushTxPool(txHashes);
   }
   
+  // Can split txs and key images into batches which are fetched in parallel
+  @Test
+  public void testGetTxsAndKeyImagesInBatches() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    MoneroDaemonRpc batchingDaemon = new MoneroDaemonRpc(daemon.getRpcConnection());
+    batchingDaemon.setMaxTxsPerRequest(2);
+    batchingDaemon.setMaxKeyImagesPerRequest(3);
+    assertEquals(2, batchingDaemon.getMaxTxsPerRequest());
+    assertEquals(3, batchingDaemon.getMaxKeyImagesPerRequest());
+    try {
+      batchingDaemon.setMaxTxsPerRequest(0);
+      fail("Should have thrown error");
+    } catch (MoneroError e) {
+      assertEquals("Max txs per request must be at least 1", e.getMessage());
+    }
+    
+    // txs are returned in the order requested
+    List<MoneroTx> txs = getConfirmedTxs(daemon, 7);
+    List<String> txHashes = new ArrayList<String>();
+    for (int i = txs.size() - 1; i >= 0; i--) txHashes.add(txs.get(i).getHash());
+    List<MoneroTx> batchedTxs = batchingDaemon.getTxs(txHashes);
+    assertEquals(txHashes.size(), batchedTxs.size());
+    for (int i = 0; i < txHashes.size(); i++) assertEquals(txHashes.get(i), batchedTxs.get(i).getHash());
+    
+    // key image statuses are returned in the order requested
+    List<String> keyImages = new ArrayList<String>();
+    for (MoneroTx tx : txs) {
+      for (MoneroOutput input : tx.getInputs()) {
+        keyImages.add(input.getKeyImage().getHex());
+        keyImages.add(String.format("%064x", keyImages.size()));  // unspent key image
+      }
+    }
+    List<MoneroKeyImageSpentStatus> statuses = batchingDaemon.getKeyImageSpentStatuses(keyImages);
+    assertEquals(daemon.getKeyImageSpentStatuses(keyImages), statuses);
+    for (int i = 0; i < statuses.size(); i++) assertEquals(i % 2 == 0 ? MoneroKeyImageSpentStatus.CONFIRMED : MoneroKeyImageSpentStatus.NOT_SPENT, statuses.get(i));
+  }
+  
   // Can get output indices given a list of transaction hashes (binary)
   @Test
   public void testGetOutputIndicesFromTxIdsBinary() {
@@ -782,7 +1352,59 @@ public class TestMoneroDaemonRpc {
   @Test
   public void testGetOutputsFromAmountsAndIndicesBinary() {
     org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
-    throw new RuntimeException("Not implemented"); // get_outs.bin
+    
+    // get outputs of confirmed txs by amount and index
+    List<MoneroTx> txs = daemon.getTxs(getConfirmedTxHashes(daemon));
+    List<MoneroOutput> txOutputs = new ArrayList<MoneroOutput>();
+    for (MoneroTx tx : txs) txOutputs.addAll(tx.getOutputs());
+    List<MoneroOutput> requests = new ArrayList<MoneroOutput>();
+    for (MoneroOutput txOutput : txOutputs) requests.add(new MoneroOutput().setAmount(txOutput.getAmount()).setIndex(txOutput.getIndex()));
+    List<MoneroOutput> outputs = daemon.getOutputs(requests);
+    
+    // outputs match the txs' outputs in order
+    assertEquals(txOutputs.size(), outputs.size());
+    for (int i = 0; i < outputs.size(); i++) {
+      MoneroOutput output = outputs.get(i);
+      MoneroOutput txOutput = txOutputs.get(i);
+      assertEquals(txOutput.getIndex(), output.getIndex());
+      assertEquals(txOutput.getStealthPublicKey(), output.getStealthPublicKey());
+      assertEquals(64, output.getMask().length());
+      assertNotNull(output.isUnlocked());
+      assertEquals(txOutput.getTx().getHash(), output.getTx().getHash());
+      assertEquals(txOutput.getTx().getHeight(), output.getTx().getHeight());
+    }
+    
+    // cannot get outputs without requests
+    try {
+      daemon.getOutputs(null);
+      fail("Should have thrown error");
+    } catch (MoneroError e) {
+      assertEquals("Must provide outputs to get", e.getMessage());
+    }
+    
+    // get outputs in multiple batches
+    org.junit.Assume.assumeTrue(!LITE_MODE);
+    int numOutputs = 12000;
+    requests = new ArrayList<MoneroOutput>();
+    for (int i = 0; i < numOutputs; i++) requests.add(new MoneroOutput().setAmount(BigInteger.ZERO).setIndex(i));
+    outputs = daemon.getOutputs(requests);
+    assertEquals(numOutputs, outputs.size());
+    for (int i = 0; i < numOutputs; i += 1000) {
+      assertEquals(i, (int) outputs.get(i).getIndex());
+      assertEquals(daemon.getOutputs(Arrays.asList(requests.get(i))).get(0).getStealthPublicKey(), outputs.get(i).getStealthPublicKey());
+    }
+    
+    // get outputs in configured batches
+    MoneroDaemonRpc batchingDaemon = new MoneroDaemonRpc(daemon.getRpcConnection());
+    batchingDaemon.setMaxOutputsPerRequest(7);
+    assertEquals(7, batchingDaemon.getMaxOutputsPerRequest());
+    assertEquals(outputs.subList(0, 50), batchingDaemon.getOutputs(requests.subList(0, 50)));
+    try {
+      batchingDaemon.setMaxOutputsPerRequest(0);
+      fail("Should have thrown error");
+    } catch (MoneroError e) {
+      assertEquals("Max outputs per request must be at least 1", e.getMessage());
+    }
   }
   
   // Can get an output histogram (binary)
@@ -1300,6 +1922,225 @@ public class TestMoneroDaemonRpc {
     }
   }
   
+  // Can notify listeners of blocks and pool txs published over ZMQ
+  @Test
+  public void testZmqListener() throws Exception {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    MoneroDaemonRpc zmqDaemon = new MoneroDaemonRpc(daemon.getRpcConnection());
+    try (ZmqPublisherStandIn publisher = new ZmqPublisherStandIn()) {
+      
+      // listen over zmq
+      zmqDaemon.setZmqUri(publisher.getUri());
+      assertEquals(publisher.getUri(), zmqDaemon.getZmqUri());
+      BlockingQueue<MoneroBlockHeader> headers = new LinkedBlockingQueue<MoneroBlockHeader>();
+      BlockingQueue<MoneroTx> poolTxs = new LinkedBlockingQueue<MoneroTx>();
+      MoneroDaemonListener listener = new MoneroDaemonListener() {
+        @Override
+        public void onBlockHeader(MoneroBlockHeader header) {
+          super.onBlockHeader(header);
+          headers.add(header);
+        }
+        @Override
+        public void onPoolTxAdded(MoneroTx tx) {
+          poolTxs.add(tx);
+        }
+      };
+      zmqDaemon.addListener(listener);
+      publisher.accept();
+      assertEquals("\u0001json-minimal-chain_main", new String(publisher.readFrame(), StandardCharsets.UTF_8));
+      assertEquals("\u0001json-minimal-txpool_add", new String(publisher.readFrame(), StandardCharsets.UTF_8));
+      
+      // published chain is notified without polling
+      MoneroBlockHeader lastHeader = daemon.getLastBlockHeader();
+      MoneroBlockHeader prevHeader = daemon.getBlockHeaderByHeight(lastHeader.getHeight() - 1);
+      publisher.publish("json-minimal-chain_main", "{\"first_height\":" + prevHeader.getHeight() + ",\"first_prev_id\":\"" + prevHeader.getPrevHash() + "\",\"ids\":[\"" + prevHeader.getHash() + "\"]}");
+      MoneroBlockHeader header = headers.poll(5, TimeUnit.SECONDS);
+      assertNotNull("Block was not notified", header);
+      assertEquals(prevHeader.getHash(), header.getHash());
+      assertEquals(header, listener.getLastBlockHeader());
+      
+      // published pool txs are notified
+      String txHash = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+      publisher.publish("json-minimal-txpool_add", "[{\"id\":\"" + txHash + "\",\"blob_size\":1500,\"weight\":1500,\"fee\":30000000}]");
+      MoneroTx tx = poolTxs.poll(5, TimeUnit.SECONDS);
+      assertNotNull("Pool tx was not notified", tx);
+      assertEquals(txHash, tx.getHash());
+      assertEquals(1500l, (long) tx.getSize());
+      assertEquals(1500l, (long) tx.getWeight());
+      assertEquals(BigInteger.valueOf(30000000), tx.getFee());
+      assertTrue(tx.inTxPool());
+      
+      // unregister listener so daemon does not keep subscribing
+      zmqDaemon.removeListener(listener);
+    }
+    zmqDaemon.setZmqUri(null);
+    assertNull(zmqDaemon.getZmqUri());
+  }
+  
+  // Can track the tx pool to notify listeners of added and evicted txs
+  @Test
+  public void testTxPoolTracking() throws Exception {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    TestUtils.TX_POOL_WALLET_TRACKER.waitForWalletTxsToClearPool(wallet);
+    
+    // track pool
+    MoneroDaemonRpc trackingDaemon = new MoneroDaemonRpc(daemon.getRpcConnection());
+    assertFalse(trackingDaemon.isTxPoolTrackingEnabled());
+    trackingDaemon.setTxPoolTrackingEnabled(true);
+    assertTrue(trackingDaemon.isTxPoolTrackingEnabled());
+    trackingDaemon.setPollPeriod(250);
+    BlockingQueue<MoneroTx> addedTxs = new LinkedBlockingQueue<MoneroTx>();
+    BlockingQueue<String> evictedHashes = new LinkedBlockingQueue<String>();
+    MoneroDaemonListener listener = new MoneroDaemonListener() {
+      @Override
+      public void onPoolTxAdded(MoneroTx tx) {
+        addedTxs.add(tx);
+      }
+      @Override
+      public void onPoolTxEvicted(String txHash) {
+        evictedHashes.add(txHash);
+      }
+    };
+    trackingDaemon.addListener(listener);
+    TimeUnit.MILLISECONDS.sleep(1000);  // let tracking record the pool
+    
+    try {
+      
+      // submit tx to pool but don't relay
+      MoneroTx tx = getUnrelayedTx(wallet, 1);
+      MoneroSubmitTxResult result = daemon.submitTxHex(tx.getFullHex(), true);
+      testSubmitTxResultGood(result);
+      
+      // added tx is notified with its details
+      MoneroTx addedTx = addedTxs.poll(5, TimeUnit.SECONDS);
+      assertNotNull("Pool tx was not notified", addedTx);
+      assertEquals(tx.getHash(), addedTx.getHash());
+      assertTrue(addedTx.inTxPool());
+      assertEquals(tx.getFullHex(), addedTx.getFullHex());
+      TimeUnit.MILLISECONDS.sleep(1000);
+      for (MoneroTx otherTx : addedTxs) assertNotEquals(tx.getHash(), otherTx.getHash());  // notified once
+      
+      // flushed tx is notified as evicted
+      daemon.flushTxPool(tx.getHash());
+      assertEquals(tx.getHash(), evictedHashes.poll(5, TimeUnit.SECONDS));
+    } finally {
+      trackingDaemon.removeListener(listener);
+      wallet.sync();
+    }
+  }
+  
+  // Can poll many daemons on shared threads and back off while unreachable
+  @Test
+  public void testSharedPolling() throws Exception {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    
+    // poll period must be positive
+    MoneroDaemonRpc unreachableDaemon = new MoneroDaemonRpc("http://127.0.0.1:1");
+    assertEquals(10000l, unreachableDaemon.getPollPeriod());
+    try {
+      unreachableDaemon.setPollPeriod(0);
+      fail("Should have failed on poll period");
+    } catch (MoneroError e) {
+      assertEquals("Poll period must be greater than 0", e.getMessage());
+    }
+    
+    // poll many daemons
+    List<MoneroDaemonRpc> daemons = new ArrayList<MoneroDaemonRpc>();
+    MoneroDaemonListener listener = new MoneroDaemonListener();
+    for (int i = 0; i < 20; i++) {
+      MoneroDaemonRpc pollingDaemon = new MoneroDaemonRpc(daemon.getRpcConnection());
+      pollingDaemon.setPollPeriod(50);
+      pollingDaemon.addListener(listener);
+      daemons.add(pollingDaemon);
+    }
+    
+    // poll unreachable daemon which backs off
+    MoneroRpcMetricsRecorder recorder = new MoneroRpcMetricsRecorder();
+    unreachableDaemon.getRpcConnection().setMetrics(recorder);
+    unreachableDaemon.setPollPeriod(100);
+    unreachableDaemon.addListener(listener);
+    
+    // daemons share a bounded number of poller threads
+    TimeUnit.MILLISECONDS.sleep(1500);
+    int numPollerThreads = 0;
+    for (Thread thread : Thread.getAllStackTraces().keySet()) if (thread.getName().equals("MoneroDaemonRpc-poller")) numPollerThreads++;
+    assertTrue("Expected at most 2 poller threads but got " + numPollerThreads, numPollerThreads > 0 && numPollerThreads <= 2);
+    
+    // unreachable daemon is polled less often than its period
+    long numPolls = recorder.getMetrics("get_last_block_header").getNumRequests();
+    assertTrue("Expected backoff but polled " + numPolls + " times", numPolls >= 2 && numPolls <= 6);
+    assertEquals(numPolls, recorder.getMetrics("get_last_block_header").getNumErrors());
+    
+    // removing listeners stops polling immediately
+    for (MoneroDaemonRpc pollingDaemon : daemons) pollingDaemon.removeListener(listener);
+    unreachableDaemon.removeListener(listener);
+    TimeUnit.MILLISECONDS.sleep(1000);
+    assertEquals(numPolls, recorder.getMetrics("get_last_block_header").getNumRequests());
+    assertEquals(0, recorder.getMetrics("get_last_block_header").getNumInFlight());
+  }
+  
+  // Can poll daemons while other daemons never respond
+  @Test
+  public void testPollingWithUnresponsiveDaemons() throws Exception {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    
+    // stand in for a daemon whose chain tip changes on every request
+    AtomicInteger height = new AtomicInteger();
+    HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/json_rpc", exchange -> {
+      String body;
+      try (Scanner scanner = new Scanner(exchange.getRequestBody(), "UTF-8")) {
+        body = scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
+      }
+      int nextHeight = height.incrementAndGet();
+      byte[] resp = ("{\"jsonrpc\":\"2.0\",\"id\":\"" + JsonUtils.toMap(body).get("id") + "\",\"result\":{\"block_header\":{\"hash\":\"" + String.format("%064x", nextHeight) + "\",\"height\":" + nextHeight + "},\"status\":\"OK\",\"untrusted\":false}}").getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, resp.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(resp);
+      }
+    });
+    server.start();
+    
+    // accept connections to unresponsive daemons without ever answering
+    ServerSocket unresponsiveSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    List<MoneroDaemonRpc> unresponsiveDaemons = new ArrayList<MoneroDaemonRpc>();
+    MoneroDaemonListener unresponsiveListener = new MoneroDaemonListener();
+    try {
+      
+      // poll more unresponsive daemons than there are poller threads
+      for (int i = 0; i < 5; i++) {
+        MoneroDaemonRpc unresponsiveDaemon = new MoneroDaemonRpc("http://127.0.0.1:" + unresponsiveSocket.getLocalPort());
+        unresponsiveDaemon.setPollPeriod(50);
+        unresponsiveDaemon.setTxPoolTrackingEnabled(true);
+        unresponsiveDaemon.addListener(unresponsiveListener);
+        unresponsiveDaemons.add(unresponsiveDaemon);
+      }
+      TimeUnit.MILLISECONDS.sleep(500);
+      
+      // responsive daemon's listener keeps being notified
+      CountDownLatch numHeaders = new CountDownLatch(5);
+      MoneroDaemonListener listener = new MoneroDaemonListener() {
+        @Override
+        public void onBlockHeader(MoneroBlockHeader header) {
+          numHeaders.countDown();
+        }
+      };
+      MoneroDaemonRpc responsiveDaemon = new MoneroDaemonRpc("http://127.0.0.1:" + server.getAddress().getPort());
+      responsiveDaemon.setPollPeriod(50);
+      responsiveDaemon.addListener(listener);
+      try {
+        assertTrue("Responsive daemon was not polled while others did not respond", numHeaders.await(5, TimeUnit.SECONDS));
+      } finally {
+        responsiveDaemon.removeListener(listener);
+      }
+    } finally {
+      for (MoneroDaemonRpc unresponsiveDaemon : unresponsiveDaemons) unresponsiveDaemon.removeListener(unresponsiveListener);
+      unresponsiveSocket.close();
+      server.stop(0);
+    }
+  }
+  
   // ------------------------------- PRIVATE ---------------------------------
   
   /**
@@ -1,26 +1,59 @@
 package test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.codec.binary.Hex;
 import org.junit.Test;
 
+import com.sun.net.httpserver.HttpServer;
+
+import common.utils.JsonUtils;
+
+import monero.common.MoneroBlobReader;
 import monero.common.MoneroError;
+import monero.common.MoneroPortableStorageReader;
+import monero.common.MoneroRpcBatch;
+import monero.common.MoneroRpcConnection;
+import monero.common.MoneroRpcMetricsRecorder;
 import monero.common.MoneroUtils;
+import monero.common.MoneroZmqSubscriber;
+import monero.daemon.model.MoneroBlock;
 import monero.daemon.model.MoneroNetworkType;
+import monero.daemon.model.MoneroTx;
 import monero.wallet.MoneroWallet;
 import monero.wallet.MoneroWalletJni;
 import monero.wallet.model.MoneroWalletConfig;
+import utils.DigestServerStandIn;
 import utils.TestUtils;
+import utils.ZmqPublisherStandIn;
 
 /**
  * Tests static Monero utilities.
@@ -85,6 +118,263 @@ public class TestMoneroUtils {
     assertEquals(map, map2);
   }
   
+  // Can serialize to the portable storage format read by the daemon
+  @Test
+  public void testSerializePortableStorageFormat() {
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put("heights", Arrays.asList(111, 222));
+    byte[] expected = new byte[] {
+        0x01, 0x11, 0x01, 0x01, 0x01, 0x01, 0x02, 0x01, 0x01,  // signatures and version
+        0x04,                                                  // 1 entry
+        0x07, 'h', 'e', 'i', 'g', 'h', 't', 's',               // name
+        (byte) 0x85,                                           // array of uint64
+        0x08,                                                  // 2 elements
+        111, 0, 0, 0, 0, 0, 0, 0,
+        (byte) 222, 0, 0, 0, 0, 0, 0, 0
+    };
+    assertArrayEquals(expected, MoneroUtils.mapToBinary(map));
+    assertEquals(map, MoneroUtils.binaryToMap(expected));
+  }
+  
+  // Can serialize all portable storage types
+  @Test
+  public void testSerializePortableStorageTypes() {
+    Map<String, Object> nested = new HashMap<String, Object>();
+    nested.put("status", "OK");
+    nested.put("untrusted", false);
+    Map<String, Object> map = new HashMap<String, Object>();
+    map.put("small", 5);
+    map.put("negative", -5);
+    map.put("long", 1l << 40);
+    map.put("uint64", new BigInteger("18446744073709551615"));
+    map.put("double", 1.5);
+    map.put("bool", true);
+    map.put("object", nested);
+    map.put("objects", Arrays.asList(nested, nested));
+    map.put("strings", Arrays.asList("a", "bc", ""));
+    map.put("nested_arrays", Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3)));
+    map.put("empty", new ArrayList<Object>());
+    map.put("long_text", new String(new char[20000]).replace('\0', 'x'));  // 4 byte varint length
+    Map<String, Object> map2 = MoneroUtils.binaryToMap(MoneroUtils.mapToBinary(map));
+    assertEquals(map, map2);
+    
+    // binary strings are deserialized as bytes
+    Map<String, Object> blobMap = new HashMap<String, Object>();
+    byte[] blob = new byte[] { (byte) 0xff, (byte) 0xfe, 0x00, 0x01 };
+    blobMap.put("blob", blob);
+    assertArrayEquals(blob, (byte[]) MoneroUtils.binaryToMap(MoneroUtils.mapToBinary(blobMap)).get("blob"));
+    
+    // null values are omitted
+    Map<String, Object> nullMap = new HashMap<String, Object>();
+    nullMap.put("null", null);
+    nullMap.put("height", 1);
+    Map<String, Object> nullMap2 = MoneroUtils.binaryToMap(MoneroUtils.mapToBinary(nullMap));
+    assertEquals(1, nullMap2.size());
+    assertEquals(1, nullMap2.get("height"));
+    
+    // invalid and truncated binary is rejected
+    byte[] binary = MoneroUtils.mapToBinary(map);
+    try {
+      MoneroUtils.binaryToMap(Arrays.copyOf(binary, binary.length - 1));
+      fail("Should have failed to deserialize truncated binary");
+    } catch (MoneroError e) {
+      assertEquals("Portable storage is truncated", e.getMessage());
+    }
+    binary[0] = 0;
+    try {
+      MoneroUtils.binaryToMap(binary);
+      fail("Should have failed to deserialize invalid signature");
+    } catch (MoneroError e) {
+      assertEquals("Invalid portable storage signature", e.getMessage());
+    }
+  }
+  
+  // Can read portable storage entries without building maps
+  @Test
+  public void testReadPortableStorageEntries() {
+    Map<String, Object> map = new LinkedHashMap<String, Object>();
+    map.put("blocks", Arrays.asList(Collections.singletonMap("block", "skipped"), Collections.singletonMap("block", "skipped")));
+    map.put("start_height", 100);
+    map.put("status", "OK");
+    MoneroPortableStorageReader reader = new MoneroPortableStorageReader(ByteBuffer.wrap(MoneroUtils.mapToBinary(map)));
+    reader.readHeader();
+    assertEquals(3, reader.readVarint());
+    assertEquals("blocks", reader.readName());
+    reader.skipValue(reader.readType());
+    assertEquals("start_height", reader.readName());
+    assertEquals(100, reader.readValue(reader.readType()));
+    assertEquals("status", reader.readName());
+    assertEquals("OK", reader.readValue(reader.readType()));
+    assertFalse(reader.hasRemaining());
+  }
+  
+  // Can read a block and its txs from blobs
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testReadBlobs() {
+    
+    // read block
+    MoneroBlock block = MoneroBlobReader.readBlock(getBlockBlob());
+    assertEquals(16, (int) block.getMajorVersion());
+    assertEquals(16, (int) block.getMinorVersion());
+    assertEquals(1700000000l, (long) block.getTimestamp());
+    assertEquals(repeatHex("11", 32), block.getPrevHash());
+    assertEquals(0x01020304, (int) block.getNonce());
+    assertEquals(Arrays.asList(repeatHex("33", 32)), block.getTxHashes());
+    
+    // read miner tx
+    MoneroTx minerTx = block.getMinerTx();
+    assertTrue(minerTx.isMinerTx());
+    assertEquals(2, (int) minerTx.getVersion());
+    assertEquals(160l, (long) minerTx.getUnlockHeight());
+    assertNull(minerTx.getInputs());
+    assertEquals(1, minerTx.getOutputs().size());
+    assertEquals(new BigInteger("600000000000"), minerTx.getOutputs().get(0).getAmount());
+    assertEquals(repeatHex("22", 32), minerTx.getOutputs().get(0).getStealthPublicKey());
+    assertArrayEquals(new int[] { 1, 255 }, minerTx.getExtra());
+    assertNull(minerTx.getFee());
+    
+    // read tx through its rct signatures base
+    MoneroTx tx = MoneroBlobReader.readTx(getTxBlob());
+    assertEquals(2, (int) tx.getVersion());
+    assertEquals(0l, (long) tx.getUnlockHeight());
+    assertEquals(1, tx.getInputs().size());
+    assertTrue(tx == tx.getInputs().get(0).getTx());
+    assertEquals(BigInteger.ZERO, tx.getInputs().get(0).getAmount());
+    assertEquals(Arrays.asList(100000, 5), tx.getInputs().get(0).getRingOutputIndices());
+    assertEquals(repeatHex("44", 32), tx.getInputs().get(0).getKeyImage().getHex());
+    assertEquals(2, tx.getOutputs().size());
+    assertEquals(repeatHex("55", 32), tx.getOutputs().get(0).getStealthPublicKey());
+    assertEquals(repeatHex("66", 32), tx.getOutputs().get(1).getStealthPublicKey());
+    assertEquals(BigInteger.valueOf(30000000), tx.getFee());
+    Map<String, Object> rctSignatures = (Map<String, Object>) tx.getRctSignatures();
+    assertEquals(BigInteger.valueOf(6), rctSignatures.get("type"));
+    assertEquals(BigInteger.valueOf(30000000), rctSignatures.get("txnFee"));
+    assertEquals(Collections.singletonMap("amount", repeatHex("77", 8)), ((List<Object>) rctSignatures.get("ecdhInfo")).get(1));
+    assertEquals(Arrays.asList(repeatHex("88", 32), repeatHex("99", 32)), rctSignatures.get("outPk"));
+    
+    // truncated blob is rejected
+    try {
+      MoneroBlobReader.readTx(Arrays.copyOf(getTxBlob(), 50));
+      fail("Should have failed to read truncated blob");
+    } catch (MoneroError e) {
+      assertEquals("Blob is truncated", e.getMessage());
+    }
+  }
+  
+  // Can deserialize binary blocks to maps in the shape of the daemon's json
+  @SuppressWarnings({ "unchecked", "deprecation" })
+  @Test
+  public void testBinaryBlocksToMap() {
+    Map<String, Object> blockEntry = new HashMap<String, Object>();
+    blockEntry.put("block", getBlockBlob());
+    blockEntry.put("txs", Arrays.asList(getTxBlob()));
+    Map<String, Object> resp = new HashMap<String, Object>();
+    resp.put("status", "OK");
+    resp.put("blocks", Arrays.asList(blockEntry));
+    Map<String, Object> map = MoneroUtils.binaryBlocksToMap(MoneroUtils.mapToBinary(resp));
+    assertEquals("OK", map.get("status"));
+    
+    // check block
+    Map<String, Object> blockMap = ((List<Map<String, Object>>) map.get("blocks")).get(0);
+    assertEquals(BigInteger.valueOf(16), blockMap.get("major_version"));
+    assertEquals(repeatHex("11", 32), blockMap.get("prev_id"));
+    assertEquals(BigInteger.valueOf(0x01020304), blockMap.get("nonce"));
+    assertEquals(Arrays.asList(repeatHex("33", 32)), blockMap.get("tx_hashes"));
+    assertEquals(BigInteger.valueOf(160), ((Map<String, Object>) blockMap.get("miner_tx")).get("unlock_time"));
+    
+    // check txs
+    List<List<Map<String, Object>>> allTxs = (List<List<Map<String, Object>>>) map.get("txs");
+    assertEquals(1, allTxs.size());
+    Map<String, Object> txMap = allTxs.get(0).get(0);
+    Map<String, Object> key = (Map<String, Object>) ((List<Map<String, Object>>) txMap.get("vin")).get(0).get("key");
+    assertEquals(Arrays.asList(BigInteger.valueOf(100000), BigInteger.valueOf(5)), key.get("key_offsets"));
+    assertEquals(repeatHex("44", 32), key.get("k_image"));
+    Map<String, Object> target = (Map<String, Object>) ((List<Map<String, Object>>) txMap.get("vout")).get(1).get("target");
+    assertEquals(repeatHex("66", 32), target.get("key"));
+    assertEquals(BigInteger.valueOf(6), ((Map<String, Object>) txMap.get("rct_signatures")).get("type"));
+  }
+  
+  // Can compute block and tx hashes from blobs
+  @Test
+  public void testBlobHashes() {
+    
+    // mainnet genesis block
+    String minerTxHex = "013c01ff0001ffffffffffff03029b2e4c0281c0b02e7c53291a94d1d0cbff8883f8024f5142ee494ffbbd08807121017767aafcde9be00dcfd098715ebcf7f410daebc582fda69d24a28e9d0bc890d1";
+    String blockHex = "010000" + repeatHex("00", 32) + "10270000" + minerTxHex + "00";
+    assertEquals("c88ce9783b4f11190d7b9c17a69c1c52200f9faaee8e98dd07e6811175177139", MoneroBlobReader.getTxHash(minerTxHex));
+    assertEquals("418015bb9ae982a1975da7d79277c2705727a56894ba0fb246adaabb1f4632e3", MoneroBlobReader.getBlockHash(blockHex));
+    assertEquals(new BigInteger("17592186044415"), MoneroBlobReader.readBlock(blockHex).getMinerTx().getOutputs().get(0).getAmount());
+    
+    // tree hash of one hash is the hash
+    assertEquals("c88ce9783b4f11190d7b9c17a69c1c52200f9faaee8e98dd07e6811175177139", MoneroBlobReader.getTxTreeHash(Arrays.asList("c88ce9783b4f11190d7b9c17a69c1c52200f9faaee8e98dd07e6811175177139")));
+    
+    // block hash changes with its txs
+    String blockHash = MoneroBlobReader.getBlockHash(getBlockBlob());
+    assertEquals(64, blockHash.length());
+    byte[] blob = getBlockBlob();
+    blob[blob.length - 1] ^= 1;  // modify tx hash
+    assertFalse(blockHash.equals(MoneroBlobReader.getBlockHash(blob)));
+    
+    // cannot compute hash of pruned tx
+    byte[] txBlob = getTxBlob();
+    try {
+      MoneroBlobReader.getTxHash(Arrays.copyOf(txBlob, txBlob.length - 64));
+      fail("Should have failed to hash pruned tx");
+    } catch (MoneroError e) {
+      assertEquals("Cannot compute hash of pruned tx", e.getMessage());
+    }
+  }
+  
+  // Can read a version 1 tx from full and pruned hex
+  @Test
+  public void testReadTxHex() {
+    
+    // build version 1 tx prefix
+    ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+    writeVarint(prefix, 1);  // version
+    writeVarint(prefix, 0);  // unlock time
+    writeVarint(prefix, 1);  // num inputs
+    prefix.write(0x02);  // key input
+    writeVarint(prefix, 9000000000000l);  // amount
+    writeVarint(prefix, 2);  // num key offsets
+    writeVarint(prefix, 12);
+    writeVarint(prefix, 34);
+    writeRepeated(prefix, 0x44, 32);  // key image
+    writeVarint(prefix, 1);  // num outputs
+    writeVarint(prefix, 8000000000000l);
+    prefix.write(0x02);
+    writeRepeated(prefix, 0x55, 32);
+    writeVarint(prefix, 0);  // extra length
+    String prunedHex = Hex.encodeHexString(prefix.toByteArray());
+    String fullHex = prunedHex + repeatHex("ab", 2 * 64);  // one signature per ring member
+    
+    // read full tx
+    MoneroTx tx = MoneroBlobReader.readTx(fullHex);
+    assertEquals(1, (int) tx.getVersion());
+    assertEquals(new BigInteger("9000000000000"), tx.getInputs().get(0).getAmount());
+    assertEquals(Arrays.asList(12, 34), tx.getInputs().get(0).getRingOutputIndices());
+    assertEquals(Arrays.asList(repeatHex("ab", 2 * 64)), tx.getSignatures());
+    assertEquals(new BigInteger("1000000000000"), tx.getFee());
+    assertNull(tx.getRctSignatures());
+    
+    // read pruned tx into an existing tx
+    MoneroTx prunedTx = new MoneroTx().setHash(repeatHex("cd", 32));
+    new MoneroBlobReader(prunedHex).readTx(prunedTx);
+    assertEquals(repeatHex("cd", 32), prunedTx.getHash());
+    assertNull(prunedTx.getSignatures());
+    assertEquals(tx.getFee(), prunedTx.getFee());
+    assertTrue(prunedTx == prunedTx.getOutputs().get(0).getTx());
+    
+    // invalid hex is rejected
+    try {
+      MoneroBlobReader.readTx(prunedHex.substring(1));
+      fail("Should have failed to read odd length hex");
+    } catch (MoneroError e) {
+      assertTrue(e.getMessage().startsWith("Blob hex has odd length"));
+    }
+  }
+  
   @Test
   public void testAddressValidation() {
     
@@ -155,8 +445,212 @@ public class TestMoneroUtils {
     testInvalidAddress("718B5D2JmMh5TJVWFbygJR15dvio5Z5B24hfSrWDzeroM8j8Lqc9sMoFE6324xg2ReaAZqHJkgfGFRugRmYHugHZ4f17Gxo", MoneroNetworkType.STAGENET);
   }
   
+  // Can subscribe to a ZMQ publisher
+  @Test
+  public void testZmqSubscriber() throws Exception {
+    String uri;
+    try (ZmqPublisherStandIn publisher = new ZmqPublisherStandIn()) {
+      uri = publisher.getUri();
+      
+      // connect while the publisher accepts
+      MoneroZmqSubscriber subscriber = new MoneroZmqSubscriber(uri);
+      CompletableFuture<Void> accepted = CompletableFuture.runAsync(() -> {
+        try {
+          publisher.accept();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      subscriber.connect();
+      accepted.join();
+      assertTrue(subscriber.isConnected());
+      
+      // handshake identifies a ZMTP 3.0 subscriber with the NULL mechanism
+      byte[] greeting = publisher.getSubscriberGreeting();
+      assertEquals(0xff, greeting[0] & 0xff);
+      assertEquals(0x7f, greeting[9]);
+      assertEquals(3, greeting[10]);
+      assertEquals("NULL", new String(greeting, 12, 4, StandardCharsets.US_ASCII));
+      String ready = new String(publisher.getSubscriberReady(), StandardCharsets.US_ASCII);
+      assertTrue(ready.startsWith("\u0005READY\u000bSocket-Type"));
+      assertTrue(ready.endsWith("SUB"));
+      
+      // subscriptions are sent as messages
+      subscriber.subscribe("json-minimal-chain_main");
+      assertArrayEquals("\u0001json-minimal-chain_main".getBytes(StandardCharsets.US_ASCII), publisher.readFrame());
+      subscriber.unsubscribe("json-minimal-chain_main");
+      assertArrayEquals("\u0000json-minimal-chain_main".getBytes(StandardCharsets.US_ASCII), publisher.readFrame());
+      
+      // receive single frame, multipart, and long messages
+      publisher.publish("json-minimal-chain_main", "{\"first_height\":1}");
+      assertEquals("json-minimal-chain_main:{\"first_height\":1}", subscriber.receiveString());
+      publisher.publish("topic".getBytes(StandardCharsets.UTF_8), "body".getBytes(StandardCharsets.UTF_8));
+      List<byte[]> frames = subscriber.receive();
+      assertEquals(2, frames.size());
+      assertEquals("body", new String(frames.get(1), StandardCharsets.UTF_8));
+      String longMessage = "json-minimal-txpool_add:" + String.join("", Collections.nCopies(1000, "x"));
+      publisher.publish(longMessage.getBytes(StandardCharsets.UTF_8));
+      assertEquals(longMessage, subscriber.receiveString());
+      
+      // heartbeats are answered while receiving
+      publisher.ping("ctx".getBytes(StandardCharsets.US_ASCII));
+      publisher.publish("json-minimal-chain_main", "{}");
+      assertEquals("json-minimal-chain_main:{}", subscriber.receiveString());
+      assertEquals("\u0004PONGctx", new String(publisher.readFrame(), StandardCharsets.US_ASCII));
+      
+      // disconnecting unblocks receiving
+      publisher.disconnect();
+      try {
+        subscriber.receive();
+        fail("Should have thrown error");
+      } catch (MoneroError e) {
+        assertTrue(e.getMessage().startsWith("ZMQ connection closed"));
+      }
+      assertFalse(subscriber.isConnected());
+      
+      // receiving times out if nothing is published
+      MoneroZmqSubscriber timedSubscriber = new MoneroZmqSubscriber(uri, MoneroZmqSubscriber.DEFAULT_CONNECT_TIMEOUT_MS, 200);
+      accepted = CompletableFuture.runAsync(() -> {
+        try {
+          publisher.accept();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      timedSubscriber.connect();
+      accepted.join();
+      try {
+        timedSubscriber.receive();
+        fail("Should have thrown error");
+      } catch (MoneroError e) {
+        assertEquals("No ZMQ message received within 200 ms", e.getMessage());
+      }
+      assertFalse(timedSubscriber.isConnected());
+    }
+    
+    // cannot connect without a publisher
+    try {
+      new MoneroZmqSubscriber(uri).connect();
+      fail("Should have thrown error");
+    } catch (MoneroError e) {
+      assertTrue(e.getMessage().startsWith("Failed to connect to ZMQ endpoint"));
+    }
+    
+    // endpoint must be tcp
+    try {
+      new MoneroZmqSubscriber("ipc:///tmp/monero");
+      fail("Should have thrown error");
+    } catch (MoneroError e) {
+      assertEquals("ZMQ endpoint must be tcp://host:port: ipc:///tmp/monero", e.getMessage());
+    }
+  }
+  
+  // Can send concurrent requests which share a digest auth scheme
+  @Test
+  public void testConcurrentDigestAuth() throws Exception {
+    try (DigestServerStandIn server = new DigestServerStandIn("superuser", "abctesting123")) {
+      MoneroRpcConnection connection = new MoneroRpcConnection(server.getUri(), "superuser", "abctesting123");
+      
+      // authenticate once so later requests reuse the cached scheme
+      assertEquals("OK", connection.sendPathRequest("get_height").get("status"));
+      
+      // send sync and async requests concurrently
+      int numRequests = 200;
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+        List<CompletableFuture<Map<String, Object>>> responses = new ArrayList<CompletableFuture<Map<String, Object>>>();
+        for (int i = 0; i < numRequests; i++) {
+          if (i % 2 == 0) responses.add(CompletableFuture.supplyAsync(() -> connection.sendPathRequest("get_height"), executor));
+          else responses.add(connection.sendPathRequestAsync("get_height", null));
+        }
+        for (CompletableFuture<Map<String, Object>> response : responses) assertEquals("OK", response.join().get("status"));
+      } finally {
+        executor.shutdownNow();
+      }
+      
+      // nonce counts are never reused
+      assertEquals(0, server.getNumReplays());
+      assertEquals(numRequests + 1, server.getNumAuthenticated());
+    }
+  }
+  
+  // Can fall back to individual requests if the server rejects a batch
+  @Test
+  public void testBatchRejected() throws Exception {
+    AtomicInteger numRejected = new AtomicInteger();
+    HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", exchange -> {
+      String body;
+      try (InputStream in = exchange.getRequestBody()) {
+        body = new String(readAll(in), StandardCharsets.UTF_8);
+      }
+      byte[] resp = new byte[0];
+      if (body.trim().startsWith("[")) numRejected.incrementAndGet();
+      else resp = ("{\"jsonrpc\":\"2.0\",\"id\":\"" + JsonUtils.toMap(body).get("id") + "\",\"result\":{\"height\":1,\"status\":\"OK\"}}").getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(resp.length == 0 ? 413 : 200, resp.length == 0 ? -1 : resp.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(resp);
+      }
+    });
+    server.start();
+    try {
+      MoneroRpcConnection connection = new MoneroRpcConnection("http://127.0.0.1:" + server.getAddress().getPort());
+      
+      // first chunk is rejected and sent individually, later chunks are not batched
+      MoneroRpcBatch batch = new MoneroRpcBatch(connection).setMaxRequestsPerPost(2);
+      for (int i = 0; i < 5; i++) batch.addRequest("get_block_count");
+      List<Map<String, Object>> resps = batch.send();
+      assertEquals(5, resps.size());
+      for (Map<String, Object> resp : resps) assertEquals("OK", ((Map<?, ?>) resp.get("result")).get("status"));
+      assertEquals(1, numRejected.get());
+    } finally {
+      server.stop(0);
+    }
+  }
+  
+  // Can reset recorded metrics while requests are in flight
+  @Test
+  public void testMetricsRecorderReset() throws Exception {
+    MoneroRpcMetricsRecorder recorder = new MoneroRpcMetricsRecorder();
+    
+    // request in flight during reset is recorded once it completes
+    recorder.onRequestStarted("get_info");
+    recorder.reset();
+    assertEquals(1, recorder.getMetrics("get_info").getNumInFlight());
+    recorder.onRequestCompleted("get_info", 1000000, 10, 20, null);
+    assertEquals(0, recorder.getMetrics("get_info").getNumInFlight());
+    assertEquals(1, recorder.getMetrics("get_info").getNumRequests());
+    
+    // requests started and completed across concurrent resets are not left in flight
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(CompletableFuture.runAsync(() -> {
+          for (int j = 0; j < 10000; j++) {
+            recorder.onRequestStarted("get_info");
+            recorder.onRequestCompleted("get_info", 1000, 10, 20, null);
+          }
+        }, executor));
+      }
+      for (int i = 0; i < 100; i++) recorder.reset();
+      for (CompletableFuture<Void> future : futures) future.join();
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(0, recorder.getMetrics("get_info").getNumInFlight());
+  }
+  
   // ---------------------------- PRIVATE HELPERS -----------------------------
   
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[4096];
+    for (int n; (n = in.read(buf)) != -1; ) out.write(buf, 0, n);
+    return out.toByteArray();
+  }
+  
   private static void testInvalidAddress(String address, MoneroNetworkType networkType) {
     try {
       MoneroUtils.validateAddress(address, networkType);
@@ -166,6 +660,85 @@ public class TestMoneroUtils {
     }
   }
   
+  /**
+   * Returns a block blob with a miner tx and one tx hash.
+   */
+  private static byte[] getBlockBlob() {
+    ByteArrayOutputStream blob = new ByteArrayOutputStream();
+    writeVarint(blob, 16);  // major version
+    writeVarint(blob, 16);  // minor version
+    writeVarint(blob, 1700000000);  // timestamp
+    writeRepeated(blob, 0x11, 32);  // prev id
+    blob.write(0x04); blob.write(0x03); blob.write(0x02); blob.write(0x01);  // nonce
+    writeVarint(blob, 2);  // miner tx version
+    writeVarint(blob, 160);  // unlock time
+    writeVarint(blob, 1);  // num inputs
+    blob.write(0xff);  // gen input
+    writeVarint(blob, 100);  // height
+    writeVarint(blob, 1);  // num outputs
+    writeVarint(blob, 600000000000l);  // amount
+    blob.write(0x03);  // tagged key output
+    writeRepeated(blob, 0x22, 32);  // key
+    blob.write(0x07);  // view tag
+    writeVarint(blob, 2);  // extra length
+    blob.write(0x01); blob.write(0xff);  // extra
+    blob.write(0x00);  // rct type null
+    writeVarint(blob, 1);  // num tx hashes
+    writeRepeated(blob, 0x33, 32);
+    return blob.toByteArray();
+  }
+  
+  /**
+   * Returns a blob of a tx with one input and two outputs whose prunable
+   * signatures are placeholders.
+   */
+  private static byte[] getTxBlob() {
+    ByteArrayOutputStream blob = new ByteArrayOutputStream();
+    writeVarint(blob, 2);  // version
+    writeVarint(blob, 0);  // unlock time
+    writeVarint(blob, 1);  // num inputs
+    blob.write(0x02);  // key input
+    writeVarint(blob, 0);  // amount
+    writeVarint(blob, 2);  // num key offsets
+    writeVarint(blob, 100000);
+    writeVarint(blob, 5);
+    writeRepeated(blob, 0x44, 32);  // key image
+    writeVarint(blob, 2);  // num outputs
+    writeVarint(blob, 0);
+    blob.write(0x02);  // key output
+    writeRepeated(blob, 0x55, 32);
+    writeVarint(blob, 0);
+    blob.write(0x02);
+    writeRepeated(blob, 0x66, 32);
+    writeVarint(blob, 0);  // extra length
+    blob.write(0x06);  // rct type bulletproof plus
+    writeVarint(blob, 30000000);  // fee
+    writeRepeated(blob, 0x77, 8);  // ecdh info
+    writeRepeated(blob, 0x77, 8);
+    writeRepeated(blob, 0x88, 32);  // out pk
+    writeRepeated(blob, 0x99, 32);
+    writeRepeated(blob, 0xaa, 64);  // prunable
+    return blob.toByteArray();
+  }
+  
+  private static void writeVarint(ByteArrayOutputStream blob, long val) {
+    while ((val & ~0x7fl) != 0) {
+      blob.write((int) ((val & 0x7f) | 0x80));
+      val >>>= 7;
+    }
+    blob.write((int) val);
+  }
+  
+  private static void writeRepeated(ByteArrayOutputStream blob, int b, int count) {
+    for (int i = 0; i < count; i++) blob.write(b);
+  }
+  
+  private static String repeatHex(String hex, int count) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) sb.append(hex);
+    return sb.toString();
+  }
+  
   public static void main(String[] args) {
     printAddressValidationTestCode();
   }
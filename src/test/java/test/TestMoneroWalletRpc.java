@@ -3,20 +3,25 @@ package test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 
 import monero.common.MoneroError;
+import monero.common.MoneroRpcBatch;
 import monero.common.MoneroUtils;
 import monero.wallet.MoneroWallet;
 import monero.wallet.MoneroWalletRpc;
@@ -289,6 +294,41 @@ public class TestMoneroWalletRpc extends TestMoneroWalletCommon {
     assertNull(address);
   }
   
+  // Can send batched requests and match responses to their requests
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testBatchRequests() {
+    org.junit.Assume.assumeTrue(TEST_NON_RELAYS);
+    List<MoneroAccount> accounts = wallet.getAccounts(true);
+    assertTrue(accounts.size() > 1);
+    
+    // batch get_address per account plus a failing request
+    MoneroRpcBatch batch = new MoneroRpcBatch(wallet.getRpcConnection());
+    List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<CompletableFuture<Map<String, Object>>>();
+    for (MoneroAccount account : accounts) {
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put("account_index", account.getIndex());
+      futures.add(batch.addRequest("get_address", params));
+    }
+    CompletableFuture<Map<String, Object>> invalidFuture = batch.addRequest("get_address_invalid");
+    assertEquals(accounts.size() + 1, batch.getSize());
+    try {
+      batch.send();
+      fail("Should have thrown error for invalid method");
+    } catch (MoneroError e) {
+      assertNotNull(e.getMessage());
+    }
+    
+    // each response matches its request
+    for (int i = 0; i < accounts.size(); i++) {
+      Map<String, Object> result = (Map<String, Object>) futures.get(i).join().get("result");
+      List<Map<String, Object>> addresses = (List<Map<String, Object>>) result.get("addresses");
+      assertEquals(accounts.get(i).getSubaddresses().size(), addresses.size());
+      assertEquals(accounts.get(i).getPrimaryAddress(), addresses.get(0).get("address"));
+    }
+    assertTrue(invalidFuture.isCompletedExceptionally());
+  }
+  
   // Can rescan spent
   @Test
   public void testRescanSpent() {
@@ -0,0 +1,144 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stands in for monerod's RPC server with HTTP digest authentication.
+ *
+ * Like monerod, a nonce count which was already used with a nonce is rejected
+ * as a replay.  Every authenticated request is answered with a get_height
+ * response.
+ */
+public class DigestServerStandIn implements AutoCloseable {
+
+  private static final String REALM = "monero-rpc";
+  private static final Pattern PARAM_PATTERN = Pattern.compile("(\\w+)=(?:\"([^\"]*)\"|([^,\\s]*))");
+
+  private HttpServer server;
+  private ExecutorService executor;
+  private String username;
+  private String password;
+  private Set<String> nonces = ConcurrentHashMap.newKeySet();
+  private Set<String> nonceCounts = ConcurrentHashMap.newKeySet();  // nonce:nc pairs already used
+  private AtomicInteger numChallenges = new AtomicInteger();
+  private AtomicInteger numReplays = new AtomicInteger();
+  private AtomicInteger numAuthenticated = new AtomicInteger();
+
+  public DigestServerStandIn(String username, String password) throws IOException {
+    this.username = username;
+    this.password = password;
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::handle);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  public String getUri() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  public int getNumChallenges() {
+    return numChallenges.get();
+  }
+
+  /**
+   * Get the number of requests rejected for reusing a nonce count.
+   */
+  public int getNumReplays() {
+    return numReplays.get();
+  }
+
+  public int getNumAuthenticated() {
+    return numAuthenticated.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  // ---------------------------- PRIVATE HELPERS -----------------------------
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      while (in.read() != -1) { }  // consume request body
+    }
+    String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+    if (authorization == null || !authorization.startsWith("Digest ")) {
+      challenge(exchange, false);
+      return;
+    }
+    Map<String, String> params = new HashMap<String, String>();
+    Matcher matcher = PARAM_PATTERN.matcher(authorization.substring("Digest ".length()));
+    while (matcher.find()) params.put(matcher.group(1), matcher.group(2) != null ? matcher.group(2) : matcher.group(3));
+    String nonce = params.get("nonce");
+    if (nonce == null || !nonces.contains(nonce)) {
+      challenge(exchange, true);
+      return;
+    }
+    String ha1 = md5(username + ":" + REALM + ":" + password);
+    String ha2 = md5(exchange.getRequestMethod() + ":" + params.get("uri"));
+    String expected = md5(ha1 + ":" + nonce + ":" + params.get("nc") + ":" + params.get("cnonce") + ":" + params.get("qop") + ":" + ha2);
+    if (!username.equals(params.get("username")) || !expected.equals(params.get("response"))) {
+      challenge(exchange, false);
+      return;
+    }
+    if (!nonceCounts.add(nonce + ":" + params.get("nc"))) {
+      numReplays.incrementAndGet();
+      challenge(exchange, true);
+      return;
+    }
+    numAuthenticated.incrementAndGet();
+    respond(exchange, 200, "{\"height\":1,\"status\":\"OK\",\"untrusted\":false}");
+  }
+
+  private void challenge(HttpExchange exchange, boolean isStale) throws IOException {
+    numChallenges.incrementAndGet();
+    String nonce = UUID.randomUUID().toString().replace("-", "");
+    nonces.add(nonce);
+    exchange.getResponseHeaders().add("WWW-Authenticate", "Digest qop=\"auth\",algorithm=MD5,realm=\"" + REALM + "\",nonce=\"" + nonce + "\",stale=" + isStale);
+    respond(exchange, 401, "");
+  }
+
+  private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static String md5(String text) {
+    try {
+      byte[] hash = MessageDigest.getInstance("MD5").digest(text.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder();
+      for (byte b : hash) sb.append(String.format("%02x", b));
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -43,6 +43,7 @@ public class TestUtils {
   public static final String DAEMON_RPC_URI = "http://localhost:38081";
   public static final String DAEMON_RPC_USERNAME = "superuser";
   public static final String DAEMON_RPC_PASSWORD = "abctesting123";  
+  public static final String OFFLINE_DAEMON_RPC_URI = DAEMON_RPC_URI.replaceFirst(":(\\d+)$", ":1");  // same host on a port where no daemon listens
   
   // monero wallet rpc configuration (adjust per your configuration)
   public static final String WALLET_RPC_URI = "http://localhost:38083";
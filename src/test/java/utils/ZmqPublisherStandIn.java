@@ -0,0 +1,137 @@
+package utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stands in for monerod's ZMQ publisher by speaking the publisher side of
+ * ZMTP 3.0 with the NULL mechanism to one subscriber over a local socket.
+ */
+public class ZmqPublisherStandIn implements AutoCloseable {
+
+  private ServerSocket serverSocket;
+  private Socket socket;
+  private DataInputStream in;
+  private OutputStream out;
+  private byte[] subscriberGreeting;
+  private byte[] subscriberReady;
+
+  public ZmqPublisherStandIn() throws IOException {
+    serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    serverSocket.setSoTimeout(10000);
+  }
+
+  public String getUri() {
+    return "tcp://127.0.0.1:" + serverSocket.getLocalPort();
+  }
+
+  /**
+   * Accept a subscriber and complete the handshake.
+   */
+  public void accept() throws IOException {
+    socket = serverSocket.accept();
+    socket.setSoTimeout(10000);
+    in = new DataInputStream(socket.getInputStream());
+    out = socket.getOutputStream();
+    subscriberGreeting = new byte[64];
+    in.readFully(subscriberGreeting);
+    byte[] greeting = new byte[64];
+    greeting[0] = (byte) 0xff;
+    greeting[9] = 0x7f;
+    greeting[10] = 3;
+    greeting[11] = 1;  // publisher may speak 3.1
+    System.arraycopy("NULL".getBytes(StandardCharsets.US_ASCII), 0, greeting, 12, 4);
+    greeting[32] = 1;  // as-server
+    out.write(greeting);
+    subscriberReady = readFrame();
+    writeFrame(0x04, command("READY", "Socket-Type", "PUB"));
+    out.flush();
+  }
+
+  public byte[] getSubscriberGreeting() {
+    return subscriberGreeting;
+  }
+
+  public byte[] getSubscriberReady() {
+    return subscriberReady;
+  }
+
+  /**
+   * Read the next frame sent by the subscriber, e.g. a subscription.
+   */
+  public byte[] readFrame() throws IOException {
+    int flags = in.readUnsignedByte();
+    long size = (flags & 0x02) != 0 ? in.readLong() : in.readUnsignedByte();
+    byte[] body = new byte[(int) size];
+    in.readFully(body);
+    return body;
+  }
+
+  /**
+   * Publish a message with the given frames.
+   */
+  public void publish(byte[]... frames) throws IOException {
+    for (int i = 0; i < frames.length; i++) writeFrame(i < frames.length - 1 ? 0x01 : 0x00, frames[i]);
+    out.flush();
+  }
+
+  /**
+   * Publish a single frame message in monerod's "topic:json" format.
+   */
+  public void publish(String topic, String json) throws IOException {
+    publish((topic + ":" + json).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Send a heartbeat, which the subscriber answers with a pong frame.
+   */
+  public void ping(byte[] context) throws IOException {
+    byte[] name = "PING".getBytes(StandardCharsets.US_ASCII);
+    byte[] ping = new byte[1 + name.length + 2 + context.length];
+    ping[0] = (byte) name.length;
+    System.arraycopy(name, 0, ping, 1, name.length);
+    System.arraycopy(context, 0, ping, 1 + name.length + 2, context.length);
+    writeFrame(0x04, ping);
+    out.flush();
+  }
+
+  public void disconnect() throws IOException {
+    if (socket != null) socket.close();
+  }
+
+  @Override
+  public void close() throws IOException {
+    disconnect();
+    serverSocket.close();
+  }
+
+  // ---------------------------- PRIVATE HELPERS -----------------------------
+
+  private void writeFrame(int flags, byte[] body) throws IOException {
+    if (body.length > 255) {
+      out.write(flags | 0x02);
+      for (int i = 7; i >= 0; i--) out.write((int) ((long) body.length >>> (8 * i)));
+    } else {
+      out.write(flags);
+      out.write(body.length);
+    }
+    out.write(body);
+  }
+
+  private static byte[] command(String name, String property, String value) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    bytes.write(name.length());
+    bytes.write(name.getBytes(StandardCharsets.US_ASCII), 0, name.length());
+    bytes.write(property.length());
+    bytes.write(property.getBytes(StandardCharsets.US_ASCII), 0, property.length());
+    bytes.write(new byte[] { 0, 0, 0, (byte) value.length() }, 0, 4);
+    bytes.write(value.getBytes(StandardCharsets.US_ASCII), 0, value.length());
+    return bytes.toByteArray();
+  }
+}